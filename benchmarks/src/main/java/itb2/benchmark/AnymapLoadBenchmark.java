@@ -0,0 +1,87 @@
+package itb2.benchmark;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import itb2.engine.io.AnymapIO;
+import itb2.image.Image;
+
+/**
+ * Measures loading Portable Anymaps from disk. The files are
+ * written once before the benchmark into a temporary file.
+ *
+ * @author Micha Strauch
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnymapLoadBenchmark {
+	
+	/** Magic value of the file: P2/P3 are ASCII, P5/P6 binary */
+	@Param({"P2", "P3", "P5", "P6"})
+	public String format;
+	
+	/** Size of the image */
+	@Param({"1024x1024", "4000x3000"})
+	public String size;
+	
+	/** File to load */
+	private File file;
+	
+	@Setup
+	public void setup() throws IOException {
+		int[] dim = BenchmarkImages.size(size);
+		int magic = format.charAt(1) - '0';
+		int samples = dim[0] * dim[1] * (magic == 3 || magic == 6 ? 3 : 1);
+		boolean ascii = magic < 4;
+		
+		file = File.createTempFile("itb2-benchmark", ".pnm");
+		try(OutputStream output = new BufferedOutputStream(new FileOutputStream(file))) {
+			String header = String.format("%s\n%d %d\n255\n", format, dim[0], dim[1]);
+			output.write(header.getBytes(StandardCharsets.US_ASCII));
+			
+			Random random = new Random(0x17B2);
+			for(int i = 0; i < samples; i++) {
+				int value = random.nextInt(256);
+				if(ascii) {
+					output.write(Integer.toString(value).getBytes(StandardCharsets.US_ASCII));
+					output.write(i % 16 == 15 ? '\n' : ' ');
+				} else
+					output.write(value);
+			}
+		}
+	}
+	
+	@TearDown
+	public void tearDown() {
+		file.delete();
+	}
+	
+	@Benchmark
+	public Image load() throws IOException {
+		return AnymapIO.load(file);
+	}
+	
+}
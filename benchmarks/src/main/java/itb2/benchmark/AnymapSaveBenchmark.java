@@ -0,0 +1,79 @@
+package itb2.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import itb2.engine.io.AnymapIO;
+import itb2.image.Image;
+import itb2.image.ImageFactory;
+
+/**
+ * Measures saving images as Portable Anymap to disk.
+ *
+ * @author Micha Strauch
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnymapSaveBenchmark {
+	
+	/** Precision of the image */
+	@Param({"byte", "double"})
+	public String precision;
+	
+	/** Format to save: P2/P3 are ASCII, P5/P6 binary */
+	@Param({"P2", "P3", "P5", "P6"})
+	public String format;
+	
+	/** Size of the image */
+	@Param({"1024x1024", "4000x3000"})
+	public String size;
+	
+	/** Image to save */
+	private Image image;
+	
+	/** File to save into */
+	private File file;
+	
+	@Setup
+	public void setup() throws IOException {
+		ImageFactory factory = BenchmarkImages.factory(precision);
+		int[] dim = BenchmarkImages.size(size);
+		
+		boolean pixmap = format.equals("P3") || format.equals("P6");
+		image = pixmap ? factory.rgb(dim[0], dim[1]) : factory.gray(dim[0], dim[1]);
+		BenchmarkImages.fill(image);
+		file = File.createTempFile("itb2-benchmark", ".pnm");
+	}
+	
+	@TearDown
+	public void tearDown() {
+		file.delete();
+	}
+	
+	@Benchmark
+	public File save() throws IOException {
+		// Changing a value drops the cached BufferedImage
+		image.setValue(0, 0, 0, image.getValue(0, 0, 0));
+		AnymapIO.save(image, file, AnymapIO.Format.valueOf(format));
+		return file;
+	}
+	
+}
@@ -0,0 +1,88 @@
+package itb2.benchmark;
+
+import java.util.Random;
+
+import itb2.image.Image;
+import itb2.image.ImageFactory;
+
+/**
+ * Auxiliary functions creating the images used by the benchmarks.
+ *
+ * @author Micha Strauch
+ */
+final class BenchmarkImages {
+	
+	/** Seed for the random values, so every run uses the same images */
+	private static final long SEED = 0x17B2;
+	
+	/**
+	 * Returns the factory for the given precision
+	 * 
+	 * @param precision Either "byte", "double", "float", "short" or "mapped"
+	 * @return Factory of the precision
+	 */
+	static ImageFactory factory(String precision) {
+		switch(precision) {
+			case "byte":
+				return ImageFactory.bytePrecision();
+			case "double":
+				return ImageFactory.doublePrecision();
+			case "float":
+				return ImageFactory.floatPrecision();
+			case "short":
+				return ImageFactory.shortPrecision();
+			case "mapped":
+				return ImageFactory.mappedPrecision();
+			default:
+				throw new IllegalArgumentException("Unknown precision: " + precision);
+		}
+	}
+	
+	/**
+	 * Returns width and height for the given size
+	 * 
+	 * @param size Size in the format "WIDTHxHEIGHT"
+	 * @return Width and height
+	 */
+	static int[] size(String size) {
+		String[] parts = size.split("x");
+		return new int[] {Integer.parseInt(parts[0]), Integer.parseInt(parts[1])};
+	}
+	
+	/**
+	 * Creates an RGB image filled with random values
+	 * 
+	 * @param factory Factory creating the image
+	 * @param size    Size in the format "WIDTHxHEIGHT"
+	 * @return Random RGB image
+	 */
+	static Image randomRgb(ImageFactory factory, String size) {
+		int[] dim = size(size);
+		Image image = factory.rgb(dim[0], dim[1]);
+		fill(image);
+		return image;
+	}
+	
+	/**
+	 * Fills all channels of the given image with random values between 0 and 255
+	 * 
+	 * @param image Image to fill
+	 */
+	static void fill(Image image) {
+		Random random = new Random(SEED);
+		int width = image.getWidth();
+		double[] row = new double[width];
+		
+		for(int chan = 0; chan < image.getChannelCount(); chan++) {
+			for(int y = 0; y < image.getHeight(); y++) {
+				for(int x = 0; x < width; x++)
+					row[x] = random.nextInt(256);
+				image.setValues(0, y, width, 1, chan, row);
+			}
+		}
+	}
+	
+	/** Should not be instantiated */
+	private BenchmarkImages() {}
+	
+}
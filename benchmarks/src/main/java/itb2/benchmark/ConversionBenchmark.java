@@ -0,0 +1,89 @@
+package itb2.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import itb2.engine.BenchmarkSupport;
+import itb2.image.Image;
+import itb2.image.ImageConverter;
+import itb2.image.ImageFactory;
+
+/**
+ * Measures the basic image conversions, as run by
+ * {@link ImageConverter#convert(Image, Class)}.
+ *
+ * @author Micha Strauch
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ConversionBenchmark {
+	
+	/** Precision of the images */
+	@Param({"byte", "double"})
+	public String precision;
+	
+	/** Size of the images, about 1, 12 and 50 megapixels */
+	@Param({"1024x1024", "4000x3000", "8660x5773"})
+	public String size;
+	
+	/** Conversion to run, in the format "source-&gt;destination" */
+	@Param({"rgb->hsv", "hsv->rgb", "rgb->hsi", "hsi->rgb", "rgb->gray", "gray->rgb"})
+	public String conversion;
+	
+	/** Image to convert */
+	private Image source;
+	
+	/** Type to convert into */
+	private Class<? extends Image> destination;
+	
+	@Setup
+	public void setup() {
+		BenchmarkSupport.setup();
+		
+		ImageFactory factory = BenchmarkImages.factory(precision);
+		String[] types = conversion.split("->");
+		
+		Image rgb = BenchmarkImages.randomRgb(factory, size);
+		source = ImageConverter.convert(rgb, type(factory, types[0]));
+		destination = type(factory, types[1]);
+	}
+	
+	@Benchmark
+	public Image convert() {
+		// Changing a value drops the cached BufferedImage, which some conversions rely on
+		source.setValue(0, 0, 0, source.getValue(0, 0, 0));
+		return ImageConverter.convert(source, destination);
+	}
+	
+	/** Returns the image class of the given type name */
+	private static Class<? extends Image> type(ImageFactory factory, String type) {
+		switch(type) {
+			case "rgb":
+				return factory.rgb();
+			case "hsv":
+				return factory.hsv();
+			case "hsi":
+				return factory.hsi();
+			case "gray":
+				return factory.gray();
+			default:
+				throw new IllegalArgumentException("Unknown image type: " + type);
+		}
+	}
+	
+}
@@ -0,0 +1,99 @@
+package itb2.benchmark;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import itb2.engine.BenchmarkSupport;
+import itb2.engine.Controller;
+import itb2.engine.FilterManager;
+import itb2.filter.AbstractFilter;
+import itb2.filter.Filter;
+import itb2.filter.RequireImageType;
+import itb2.image.Image;
+import itb2.image.ImageFactory;
+import itb2.image.RgbImage;
+
+/**
+ * Measures the overhead of calling a filter through the
+ * {@link FilterManager}, using a filter doing no work.
+ *
+ * @author Micha Strauch
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterDispatchBenchmark {
+	
+	/** Manager calling the filters */
+	private FilterManager manager;
+	
+	/** Filter returning its input */
+	private Filter filter;
+	
+	/** Filter returning its input, requiring the image type of the input */
+	private Filter requireFilter;
+	
+	/** Images to filter */
+	private Image[] images;
+	
+	@Setup
+	public void setup() {
+		BenchmarkSupport.setup();
+		manager = Controller.getFilterManager();
+		filter = new IdentityFilter();
+		requireFilter = new RequireRgbFilter();
+		images = new Image[] {ImageFactory.bytePrecision().rgb(64, 64)};
+	}
+	
+	@Benchmark
+	public Image[] callFilter() {
+		return manager.callFilter(filter, images.clone());
+	}
+	
+	@Benchmark
+	public Image[] callFilterRequireImageType() {
+		return manager.callFilter(requireFilter, images.clone());
+	}
+	
+	@Benchmark
+	public Image[] callFilterAsync() {
+		CompletableFuture<Image[]> result = new CompletableFuture<>();
+		manager.callFilter(filter, images.clone(), result::complete);
+		return result.join();
+	}
+	
+	/**
+	 * Filter returning its input
+	 *
+	 * @author Micha Strauch
+	 */
+	public static class IdentityFilter extends AbstractFilter {
+		@Override
+		public Image filter(Image input) {
+			return input;
+		}
+	}
+	
+	/**
+	 * Filter returning its input, but requiring an RGB image
+	 *
+	 * @author Micha Strauch
+	 */
+	@RequireImageType(RgbImage.class)
+	public static class RequireRgbFilter extends IdentityFilter {}
+	
+}
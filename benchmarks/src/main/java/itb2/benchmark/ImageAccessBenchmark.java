@@ -0,0 +1,101 @@
+package itb2.benchmark;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import itb2.image.Image;
+
+/**
+ * Measures reading and writing the values of an image,
+ * per pixel as well as in rows, and the creation of
+ * the {@link BufferedImage} representation.
+ *
+ * @author Micha Strauch
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ImageAccessBenchmark {
+	
+	/** Precision of the image */
+	@Param({"byte", "double", "float", "short", "mapped"})
+	public String precision;
+	
+	/** Size of the image */
+	@Param({"1024x1024", "4000x3000"})
+	public String size;
+	
+	/** RGB image to access */
+	private Image image;
+	
+	/** Buffer for a single row */
+	private double[] row;
+	
+	@Setup
+	public void setup() {
+		image = BenchmarkImages.randomRgb(BenchmarkImages.factory(precision), size);
+		row = new double[image.getWidth()];
+	}
+	
+	@Benchmark
+	public double getValue() {
+		double sum = 0;
+		for(int y = 0; y < image.getHeight(); y++)
+			for(int x = 0; x < image.getWidth(); x++)
+				for(int chan = 0; chan < 3; chan++)
+					sum += image.getValue(x, y, chan);
+		return sum;
+	}
+	
+	@Benchmark
+	public void setValue() {
+		for(int y = 0; y < image.getHeight(); y++)
+			for(int x = 0; x < image.getWidth(); x++)
+				for(int chan = 0; chan < 3; chan++)
+					image.setValue(x, y, chan, (x + y + chan) & 0xFF);
+	}
+	
+	@Benchmark
+	public double getValues() {
+		double sum = 0;
+		int width = image.getWidth();
+		for(int chan = 0; chan < 3; chan++) {
+			for(int y = 0; y < image.getHeight(); y++) {
+				image.getValues(0, y, width, 1, chan, row);
+				sum += row[y % width];
+			}
+		}
+		return sum;
+	}
+	
+	@Benchmark
+	public void setValues() {
+		int width = image.getWidth();
+		for(int chan = 0; chan < 3; chan++)
+			for(int y = 0; y < image.getHeight(); y++)
+				image.setValues(0, y, width, 1, chan, row);
+	}
+	
+	@Benchmark
+	public BufferedImage asBufferedImage() {
+		// Changing a value drops the cached BufferedImage
+		image.setValue(0, 0, 0, image.getValue(0, 0, 0));
+		return image.asBufferedImage();
+	}
+	
+}
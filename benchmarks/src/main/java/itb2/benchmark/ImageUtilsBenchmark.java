@@ -0,0 +1,77 @@
+package itb2.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import itb2.image.Image;
+import itb2.image.ImageFactory;
+import itb2.image.ImageUtils;
+
+/**
+ * Measures the auxiliary functions of {@link ImageUtils}.
+ *
+ * @author Micha Strauch
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ImageUtilsBenchmark {
+	
+	/** Precision of the images */
+	@Param({"byte", "double"})
+	public String precision;
+	
+	/** Size of the images */
+	@Param({"1024x1024", "4000x3000"})
+	public String size;
+	
+	/** Source image */
+	private Image image;
+	
+	/** Destination for copies */
+	private Image copy;
+	
+	@Setup
+	public void setup() {
+		ImageFactory factory = BenchmarkImages.factory(precision);
+		image = BenchmarkImages.randomRgb(factory, size);
+		copy = factory.rgb(image.getSize());
+	}
+	
+	@Benchmark
+	public Image copy() {
+		ImageUtils.copy(image, copy);
+		return copy;
+	}
+	
+	@Benchmark
+	public double min() {
+		return ImageUtils.min(image);
+	}
+	
+	@Benchmark
+	public double max() {
+		return ImageUtils.max(image);
+	}
+	
+	@Benchmark
+	public Image scaleLinearly() {
+		ImageUtils.scaleLinearly(image);
+		return image;
+	}
+	
+}
@@ -0,0 +1,153 @@
+package itb2.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import itb2.image.Image;
+
+/**
+ * Compares scanning an image row by row, as done when rendering or saving
+ * it, between the former layout <code>data[channel][column][row]</code> and
+ * the row-major planes <code>data[channel][row * width + column]</code> used
+ * by the byte and double images. Both layouts are scanned directly, the
+ * image scan shows the cost of going through {@link Image#getValue(int, int, int)}.
+ * 
+ * @author Micha Strauch
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class StorageLayoutBenchmark {
+	
+	/** Precision of the data */
+	@Param({"byte", "double"})
+	public String precision;
+	
+	/** Size of the image */
+	@Param({"1024x1024", "4000x3000", "6000x4000"})
+	public String size;
+	
+	/** Width and height of the image */
+	private int width, height;
+	
+	/** Bytes in the former layout */
+	private byte[][][] byteColumns;
+	
+	/** Bytes in row-major planes */
+	private byte[][] bytePlanes;
+	
+	/** Doubles in the former layout */
+	private double[][][] doubleColumns;
+	
+	/** Doubles in row-major planes */
+	private double[][] doublePlanes;
+	
+	/** RGB image holding the same values */
+	private Image image;
+	
+	@Setup
+	public void setup() {
+		int[] dim = BenchmarkImages.size(size);
+		width = dim[0];
+		height = dim[1];
+		
+		image = BenchmarkImages.randomRgb(BenchmarkImages.factory(precision), size);
+		
+		Random random = new Random(size.hashCode());
+		if(precision.equals("byte")) {
+			byteColumns = new byte[3][width][height];
+			bytePlanes = new byte[3][width * height];
+			for(int chan = 0; chan < 3; chan++) {
+				random.nextBytes(bytePlanes[chan]);
+				for(int x = 0; x < width; x++)
+					for(int y = 0; y < height; y++)
+						byteColumns[chan][x][y] = bytePlanes[chan][y * width + x];
+			}
+		} else {
+			doubleColumns = new double[3][width][height];
+			doublePlanes = new double[3][width * height];
+			for(int chan = 0; chan < 3; chan++) {
+				for(int x = 0; x < width; x++) {
+					for(int y = 0; y < height; y++) {
+						doublePlanes[chan][y * width + x] = random.nextInt(256);
+						doubleColumns[chan][x][y] = doublePlanes[chan][y * width + x];
+					}
+				}
+			}
+		}
+	}
+	
+	@Benchmark
+	public double columnsScan() {
+		double sum = 0;
+		if(byteColumns != null) {
+			for(int y = 0; y < height; y++)
+				for(int x = 0; x < width; x++)
+					for(int chan = 0; chan < 3; chan++)
+						sum += byteColumns[chan][x][y] & 0xFF;
+		} else {
+			for(int y = 0; y < height; y++)
+				for(int x = 0; x < width; x++)
+					for(int chan = 0; chan < 3; chan++)
+						sum += doubleColumns[chan][x][y];
+		}
+		return sum;
+	}
+	
+	@Benchmark
+	public double planesScan() {
+		double sum = 0;
+		if(bytePlanes != null) {
+			for(int y = 0; y < height; y++)
+				for(int x = 0, index = y * width; x < width; x++, index++)
+					for(int chan = 0; chan < 3; chan++)
+						sum += bytePlanes[chan][index] & 0xFF;
+		} else {
+			for(int y = 0; y < height; y++)
+				for(int x = 0, index = y * width; x < width; x++, index++)
+					for(int chan = 0; chan < 3; chan++)
+						sum += doublePlanes[chan][index];
+		}
+		return sum;
+	}
+	
+	@Benchmark
+	public double imageScan() {
+		double sum = 0;
+		for(int y = 0; y < height; y++)
+			for(int x = 0; x < width; x++)
+				for(int chan = 0; chan < 3; chan++)
+					sum += image.getValue(x, y, chan);
+		return sum;
+	}
+	
+	@Benchmark
+	public Object columnsAllocate() {
+		if(precision.equals("byte"))
+			return new byte[3][width][height];
+		return new double[3][width][height];
+	}
+	
+	@Benchmark
+	public Object planesAllocate() {
+		if(precision.equals("byte"))
+			return new byte[3][width * height];
+		return new double[3][width * height];
+	}
+	
+}
@@ -0,0 +1,70 @@
+package itb2.engine;
+
+import java.awt.Point;
+import java.util.Collections;
+import java.util.List;
+
+import itb2.image.Image;
+
+/**
+ * Prepares the engine for running benchmarks without a GUI. Lives in
+ * the engine package, to access the package private setup functions.
+ *
+ * @author Micha Strauch
+ */
+public final class BenchmarkSupport {
+	
+	/** Whether {@link #setup()} was already called */
+	private static boolean initialized;
+	
+	/**
+	 * Sets a communication manager ignoring all messages and registers
+	 * the basic image conversions. May be called multiple times.
+	 */
+	public static synchronized void setup() {
+		if(initialized)
+			return;
+		
+		Controller.setCommunicationManager(new SilentCommunicationManager());
+		ConversionHelper.registerImageConversions();
+		initialized = true;
+	}
+	
+	/**
+	 * Communication manager ignoring all messages
+	 *
+	 * @author Micha Strauch
+	 */
+	private static class SilentCommunicationManager implements CommunicationManager {
+		
+		@Override
+		public void info(String message, Object... param) {}
+		
+		@Override
+		public void debug(String message, Object... param) {}
+		
+		@Override
+		public void warning(String message, Object... param) {}
+		
+		@Override
+		public void error(String message, Object... param) {}
+		
+		@Override
+		public PreviewHandler preview(String message, Image image) {
+			return null;
+		}
+		
+		@Override
+		public List<Point> getSelections(String message, int maxSelections, Image image) {
+			return Collections.emptyList();
+		}
+		
+		@Override
+		public void inProgress(double percent) {}
+		
+	}
+	
+	/** Should not be instantiated */
+	private BenchmarkSupport() {}
+	
+}
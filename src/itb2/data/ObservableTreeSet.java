@@ -11,7 +11,7 @@ import java.util.TreeSet;
 
 public class ObservableTreeSet<E> extends TreeSet<E> {
 	private static final long serialVersionUID = -8354061612671698512L;
-	public static final int ITEMS_ADDED = 1, ITEMS_REMOVED = 2;
+	public static final int ITEMS_ADDED = 1, ITEMS_REMOVED = 2, ITEMS_REPLACED = 3;
 	protected final transient Set<SetListener<E>> listeners = new HashSet<>();
 	
 	public ObservableTreeSet() {}
@@ -82,6 +82,21 @@ public class ObservableTreeSet<E> extends TreeSet<E> {
 		return changed;
 	}
 
+	/**
+	 * Replaces the given element by the new one, notifying the listeners
+	 * only once. Returns false and leaves the set unchanged, if the set
+	 * doesn't contain the given element.
+	 */
+	public boolean replace(E oldElement, E newElement) {
+		if(!super.remove(oldElement))
+			return false;
+		
+		super.add(newElement);
+		notice(ITEMS_REPLACED);
+		
+		return true;
+	}
+
 	@Override
 	public boolean retainAll(Collection<?> c) {
 		boolean changed = super.retainAll(c);
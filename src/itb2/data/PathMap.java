@@ -3,6 +3,8 @@ package itb2.data;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 /**
@@ -28,6 +30,15 @@ public class PathMap<T> {
 	@SuppressWarnings("unchecked")
 	protected Path<T>[][] map = new Path[10][10];
 	
+	/**
+	 * Cache of resolved conversion paths.
+	 * <p>
+	 * {@code cache[src][dst]} contains the path to get from an object
+	 * of the runtime type {@code src} to the requested type {@code dst}.
+	 * Cleared whenever a conversion is added.
+	 */
+	protected final Map<Class<?>, Map<Class<?>, Path<T>>> cache = new ConcurrentHashMap<>();
+	
 	public PathMap(Class<T> classOfT) {
 		if(classOfT == null)
 			throw new NullPointerException(); //Fail fast
@@ -45,36 +56,75 @@ public class PathMap<T> {
 	 * @throws ConversionException If conversion unsuccessful
 	 */
 	public <R extends T> R convert(T o, Class<R> destination) throws ConversionException {
+		Path<T> path = getPath(o.getClass(), destination);
+		if(path == null)
+			throw new ConversionException("No conversion found");
+		
+		return destination.cast(path.convert(o));
+	}
+	
+	/**
+	 * Returns the shortest path to convert an object of the given type into
+	 * the requested object type. Once resolved, paths are cached until the
+	 * next conversion is added, so this does not block on the map.
+	 * 
+	 * @param source      Runtime type of the object to convert
+	 * @param destination Requested object type
+	 * 
+	 * @return Conversion path or null, if no conversion exists
+	 */
+	public Path<T> getPath(Class<?> source, Class<?> destination) {
+		Map<Class<?>, Path<T>> paths = cache.get(source);
+		Path<T> path = paths == null ? null : paths.get(destination);
+		if(path != null)
+			return path;
+		
+		synchronized(this) {
+			path = resolve(source, destination);
+			if(path != null)
+				cache.computeIfAbsent(source, key -> new ConcurrentHashMap<>()).put(destination, path);
+			return path;
+		}
+	}
+	
+	/**
+	 * Searches the map for the shortest path from the given source type
+	 * to the given destination type.<br>
+	 * <i>Helper method for {@link #getPath(Class, Class)}</i>
+	 * 
+	 * @param source      Runtime type of the object to convert
+	 * @param destination Requested object type
+	 * 
+	 * @return Conversion path or null, if no conversion exists
+	 */
+	protected Path<T> resolve(Class<?> source, Class<?> destination) {
 		
 		// First check for exact conversion
-		int convSrc = order.indexOf(o.getClass());
+		int convSrc = order.indexOf(source);
 		int convDst = order.indexOf(destination);
 		
 		if(convSrc >= 0 && convDst >= 0)
 			if(map[convSrc][convDst] != null && map[convSrc][convDst].length() == 1)
-				return destination.cast(map[convSrc][convDst].convert(o));
+				return map[convSrc][convDst];
 		
 		// Check for conversion using sub and super types
-		List<Path<T>> paths = new ArrayList<>();
+		Path<T> shortest = null;
 		for(int src = 0; src < order.size(); src++) {
-			if( !order.get(src).isInstance(o) )
+			if( !order.get(src).isAssignableFrom(source) )
 				continue;
 			
 			for(int dst = 0; dst < order.size(); dst++) {
 				if( !destination.isAssignableFrom(order.get(dst)) )
 					continue;
 				
-				if(map[src][dst] != null)
-					paths.add(map[src][dst]);
+				// Take path with fewest conversions
+				Path<T> path = map[src][dst];
+				if(path != null && (shortest == null || path.length() < shortest.length()))
+					shortest = path;
 			}
 		}
 		
-		if(paths.isEmpty())
-			throw new ConversionException("No conversion found");
-		
-		// Take path with fewest conversions
-		paths.sort((a,b) -> a.length() - b.length());
-		return destination.cast(paths.get(0).convert(o));
+		return shortest;
 	}
 	
 	/**
@@ -125,7 +175,8 @@ public class PathMap<T> {
 	 * @param converter   Filter to perform conversion from source type to destination type
 	 * @param description Description to use at {@link #toString()}
 	 */
-	public void add(Class<? extends T> source, Class<? extends T> destination, Function<T, T> converter, String description) {
+	public synchronized void add(Class<? extends T> source, Class<? extends T> destination, Function<T, T> converter, String description) {
+		cache.clear();
 		addPaths(source, destination, converter, description);
 		
 		// Create copy to prevent ConcurrentModificationException
@@ -207,7 +258,7 @@ public class PathMap<T> {
 	}
 	
 	@Override
-	public String toString() {
+	public synchronized String toString() {
 		String[][] sMap = new String[map.length][map.length];
 		String[] classNames = new String[map.length];
 		int width[] = new int[map.length];
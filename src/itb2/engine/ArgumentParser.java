@@ -1,6 +1,10 @@
 package itb2.engine;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import itb2.engine.io.FilterIO;
 
 /**
  * Parses the arguments passed to
@@ -16,6 +20,27 @@ public class ArgumentParser {
 	/** File containing saved state, like opened filters and images. */
 	private File config = new File("ITB2.bin");
 	
+	/** Whether images inside the config should be compressed. */
+	private boolean compressConfig = false;
+	
+	/** Directory to cache compiled filters in, null for a temporary directory. */
+	private File filterCache = FilterIO.getCacheDirectory();
+	
+	/** Number of filters allowed to run at the same time. */
+	private int workers = Runtime.getRuntime().availableProcessors();
+	
+	/** Whether to run the filters without GUI, see {@link BatchRunner}. */
+	private boolean batch = false;
+	
+	/** Filters to apply in batch mode. */
+	private final List<File> filters = new ArrayList<>();
+	
+	/** Directories to read images from and write images to in batch mode. */
+	private File input, output;
+	
+	/** Format of the images written in batch mode, null to keep the format. */
+	private String format;
+	
 	/** ArgumentParser should only be created via {@link #parse(String[])}. */
 	private ArgumentParser() {}
 	
@@ -44,6 +69,43 @@ public class ArgumentParser {
 					else
 						parser.config = new File(args[i]);
 					break;
+				case "-compressconfig":
+				case "-cc":
+					parser.compressConfig = Boolean.parseBoolean(args[++i]);
+					break;
+				case "-filtercache":
+				case "-fc":
+					if("null".equals(args[++i]))
+						parser.filterCache = null;
+					else
+						parser.filterCache = new File(args[i]);
+					break;
+				case "-workers":
+				case "-w":
+				case "-threads":
+				case "-t":
+					parser.workers = Math.max(1, Integer.parseInt(args[++i]));
+					break;
+				case "-batch":
+				case "-b":
+					parser.batch = true;
+					break;
+				case "-filters":
+				case "-f":
+					for(String filter : args[++i].split(","))
+						parser.filters.add(new File(filter));
+					break;
+				case "-in":
+				case "-i":
+					parser.input = new File(args[++i]);
+					break;
+				case "-out":
+				case "-o":
+					parser.output = new File(args[++i]);
+					break;
+				case "-format":
+					parser.format = args[++i];
+					break;
 				case "-help":
 				case "-h":
 				default:
@@ -52,6 +114,12 @@ public class ArgumentParser {
 			}
 		}
 		
+		if(parser.batch && (parser.filters.isEmpty() || parser.input == null || parser.output == null)) {
+			System.out.println("Batch mode requires -filters, -in and -out\n");
+			System.out.println(parser.getHelp());
+			return null;
+		}
+		
 		return parser;
 	}
 	
@@ -65,11 +133,51 @@ public class ArgumentParser {
 		return config;
 	}
 	
+	/** Whether images inside the config should be compressed. */
+	public boolean compressConfig() {
+		return compressConfig;
+	}
+	
 	/** Whether the {@link ConversionHelper} should be used. */
 	public boolean useConversionHelper() {
 		return enableHelper;
 	}
 	
+	/** Directory to cache compiled filters in, null for a temporary directory. */
+	public File getFilterCache() {
+		return filterCache;
+	}
+	
+	/** Number of filters allowed to run at the same time. */
+	public int getWorkerCount() {
+		return workers;
+	}
+	
+	/** Whether to run the filters without GUI, see {@link BatchRunner}. */
+	public boolean isBatch() {
+		return batch;
+	}
+	
+	/** Filters to apply in batch mode, in order. */
+	public List<File> getFilters() {
+		return filters;
+	}
+	
+	/** Directory to read images from in batch mode. */
+	public File getInput() {
+		return input;
+	}
+	
+	/** Directory to write images to in batch mode. */
+	public File getOutput() {
+		return output;
+	}
+	
+	/** Format of the images written in batch mode, null to keep the format. */
+	public String getFormat() {
+		return format;
+	}
+	
 	/** Returns a help message, containing all optional arguments. */
 	public String getHelp() {
 		return "Optional arguments:\n"
@@ -81,6 +189,35 @@ public class ArgumentParser {
 				+ " -c <File>      :: Use \"-config null\" to disable the config\n"
 				+ "                :: Default \"" + config.getPath() + "\"\n"
 				+ "\n"
+				+ " -compressConfig <true|false> :: Compresses the images inside the config,\n"
+				+ " -cc <true|false>             :: smaller but slower to save and load\n"
+				+ "                              :: Default: " + compressConfig + "\n"
+				+ "\n"
+				+ " -filterCache <Directory> :: Caches compiled filters (.java), so unchanged filters\n"
+				+ " -fc <Directory>          :: are not compiled again. Use \"-filterCache null\" to\n"
+				+ "                          :: compile into a temporary directory\n"
+				+ "                          :: Default: " + (filterCache == null ? "temporary directory" : "\"" + filterCache.getPath() + "\"") + "\n"
+				+ "\n"
+				+ " -workers <Number> :: Number of filters allowed to run at the same time,\n"
+				+ " -w <Number>       :: in batch mode the number of images processed at once\n"
+				+ " -threads <Number> :: Default: " + workers + "\n"
+				+ " -t <Number>\n"
+				+ "\n"
+				+ " -batch :: Runs the filters on a directory of images, without GUI\n"
+				+ " -b     :: Requires -filters, -in and -out\n"
+				+ "\n"
+				+ " -filters <File,File,...> :: Filters (.class or .java) to apply in batch mode,\n"
+				+ " -f <File,File,...>       :: in the given order\n"
+				+ "\n"
+				+ " -in <Directory> :: Directory to read images from in batch mode\n"
+				+ " -i <Directory>\n"
+				+ "\n"
+				+ " -out <Directory> :: Directory to write images to in batch mode\n"
+				+ " -o <Directory>\n"
+				+ "\n"
+				+ " -format <Extension> :: Format of the images written in batch mode\n"
+				+ "                     :: Default: Format of the input image\n"
+				+ "\n"
 				+ " -help :: Shows this help\n"
 				+ " -h";
 	}
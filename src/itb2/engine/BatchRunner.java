@@ -0,0 +1,260 @@
+package itb2.engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import itb2.engine.io.FilterIO;
+import itb2.engine.io.FilterWrapper;
+import itb2.engine.io.ImageIO;
+import itb2.filter.Filter;
+import itb2.filter.RequireImageType;
+import itb2.image.Image;
+import itb2.image.ImageConverter;
+
+/**
+ * Runs a chain of filters on every image inside a directory, without
+ * a GUI. The images run through a {@link Pipeline} with the stages load,
+ * convert, filter and save, so images are loaded and saved while others
+ * are filtered. Up to the given number of images are filtered at the same
+ * time. The statistics of the stages are reported at the end.
+ * <p>
+ * Every worker uses its own instances of the filters, as filters are not
+ * required to be thread-safe. The filters run with their default properties.
+ * 
+ * @author Micha Strauch
+ */
+public class BatchRunner {
+	
+	/** Files of the filters to apply, in order */
+	private final List<File> filterFiles;
+	
+	/** Directory to read images from */
+	private final File input;
+	
+	/** Directory to write images to */
+	private final File output;
+	
+	/** Format of the written images, null to use the format of the input */
+	private final String format;
+	
+	/** Number of images processed at the same time */
+	private final int threads;
+	
+	/** Loaded filters, new instances of them are created for every worker */
+	private Filter[] prototypes;
+	
+	/** Filters of the current worker */
+	private final ThreadLocal<Filter[]> filters = ThreadLocal.withInitial(this::createFilters);
+	
+	/**
+	 * Creates a runner for the given filter chain
+	 * 
+	 * @param filterFiles Files of the filters to apply, in order
+	 * @param input       Directory to read images from
+	 * @param output      Directory to write images to, created if needed
+	 * @param format      Format of the written images, e.g. "png", or
+	 *                    null to use the format of each input image
+	 * @param threads     Number of images processed at the same time
+	 */
+	public BatchRunner(List<File> filterFiles, File input, File output, String format, int threads) {
+		this.filterFiles = new ArrayList<>(filterFiles.size());
+		for(File file : filterFiles)
+			this.filterFiles.add(file.getAbsoluteFile());
+		this.input = input;
+		this.output = output;
+		this.format = format;
+		this.threads = Math.max(1, threads);
+	}
+	
+	/**
+	 * Applies the filters to all images of the input directory and
+	 * writes the results into the output directory. Images that fail
+	 * are reported to the {@link CommunicationManager} and skipped.
+	 * 
+	 * @return Number of images that failed
+	 * 
+	 * @throws IOException If the filters can't be loaded or a directory
+	 *                     can't be used
+	 */
+	public int run() throws IOException {
+		if(!input.isDirectory())
+			throw new IOException("Input is not a directory: " + input.getPath());
+		if(!output.isDirectory() && !output.mkdirs())
+			throw new IOException("Could not create output directory: " + output.getPath());
+		
+		// Compile together and load once, so the workers only have to create instances
+		Map<File, IOException> failures = FilterIO.compile(filterFiles);
+		prototypes = new Filter[filterFiles.size()];
+		for(int i = 0; i < prototypes.length; i++) {
+			File file = filterFiles.get(i);
+			if(failures.containsKey(file))
+				throw new IOException("Could not load filter '" + file.getName() + "': " + failures.get(file).getMessage(), failures.get(file));
+			prototypes[i] = FilterIO.load(file);
+		}
+		
+		File[] files = input.listFiles(BatchRunner::isImage);
+		if(files == null)
+			throw new IOException("Could not read input directory: " + input.getPath());
+		Arrays.sort(files);
+		
+		CommunicationManager com = Controller.getCommunicationManager();
+		com.info("Processing %d image(s) using %d thread(s)", files.length, threads);
+		
+		AtomicInteger failed = new AtomicInteger();
+		Pipeline<Job> pipeline = new Pipeline<>((job, e) -> {
+			com.error("Could not process '%s': %s", job.file.getName(), e.getMessage());
+			failed.incrementAndGet();
+		});
+		
+		// Decoding, conversion and encoding are cheaper than filtering, so they get fewer threads
+		int ioThreads = Math.max(1, threads / 2);
+		pipeline.addStage("Load", ioThreads, threads, this::load)
+				.addStage("Convert", ioThreads, threads, this::convert)
+				.addStage("Filter", threads, threads, this::filter)
+				.addStage("Save", ioThreads, threads, this::save);
+		
+		pipeline.start();
+		try {
+			for(File file : files)
+				pipeline.submit(new Job(file));
+			pipeline.finish();
+		} catch(InterruptedException e) {
+			throw new InterruptedIOException("Batch was interrupted");
+		}
+		
+		com.info("Processed %d image(s) after %.2f seconds, %d failed",
+				files.length, pipeline.getElapsedTime() / 1e9, failed.get());
+		for(Pipeline.Stage<Job> stage : pipeline.getStages())
+			com.info("%s", stage);
+		
+		return failed.get();
+	}
+	
+	/**
+	 * Loads the image of the job
+	 * 
+	 * @param job Job to load the image for
+	 * 
+	 * @throws IOException If the image could not be loaded
+	 */
+	private void load(Job job) throws IOException {
+		job.images = new Image[] {ImageIO.load(job.file)};
+	}
+	
+	/**
+	 * Converts the image to the type required by the first filter,
+	 * so the filter stage only has to run the filters.
+	 * 
+	 * @param job Job to convert the image of
+	 */
+	private void convert(Job job) {
+		if(prototypes.length == 0)
+			return;
+		
+		// The prototype has the same class, no need for a chain of this thread
+		Filter first = prototypes[0];
+		Class<?> clazz = first instanceof FilterWrapper ? ((FilterWrapper) first).getWrappedClass() : first.getClass();
+		RequireImageType require = clazz.getAnnotation(RequireImageType.class);
+		if(require != null) {
+			for(int i = 0; i < job.images.length; i++)
+				job.images[i] = ImageConverter.convert(job.images[i], require.value());
+		}
+	}
+	
+	/**
+	 * Applies the filters to the images of the job
+	 * 
+	 * @param job Job to filter the images of
+	 */
+	private void filter(Job job) {
+		for(Filter filter : filters.get())
+			job.images = Controller.getFilterManager().callFilter(filter, job.images);
+	}
+	
+	/**
+	 * Saves the images of the job. If the filters produced multiple
+	 * images, they are numbered.
+	 * 
+	 * @param job Job to save the images of
+	 * 
+	 * @throws IOException If an image could not be saved
+	 */
+	private void save(Job job) throws IOException {
+		String name = job.file.getName().replaceFirst("\\.[^.]*$", "");
+		String extension = format != null ? format : ImageIO.getExtension(job.file.getName());
+		
+		Image[] images = job.images;
+		job.images = null;
+		for(int i = 0; i < images.length; i++) {
+			String fileName = images.length == 1 ? name : name + "_" + i;
+			ImageIO.save(images[i], new File(output, fileName + "." + extension));
+		}
+		
+		Controller.getCommunicationManager().info("Processed '%s'", job.file.getName());
+	}
+	
+	/**
+	 * Creates new instances of the filters for the current worker
+	 * 
+	 * @return Filters to apply, in order
+	 */
+	private Filter[] createFilters() {
+		Filter[] chain = new Filter[prototypes.length];
+		for(int i = 0; i < chain.length; i++) {
+			try {
+				chain[i] = FilterIO.createInstance(prototypes[i]);
+			} catch(IOException e) {
+				throw new RuntimeException("Could not load filter '" + filterFiles.get(i).getName() + "': " + e.getMessage(), e);
+			}
+		}
+		return chain;
+	}
+	
+	/**
+	 * Whether the given file has the extension of a supported image format
+	 * 
+	 * @param file File to check
+	 * @return True, if the file can be loaded as image
+	 */
+	private static boolean isImage(File file) {
+		if(!file.isFile())
+			return false;
+		
+		String extension = ImageIO.getExtension(file.getName());
+		for(String[] format : ImageIO.acceptedFormats())
+			for(int i = 1; i < format.length; i++)
+				if(format[i].equalsIgnoreCase(extension))
+					return true;
+		
+		return false;
+	}
+	
+	/**
+	 * Image passing through the pipeline
+	 */
+	private static class Job {
+		
+		/** File the image is loaded from */
+		final File file;
+		
+		/** Current images, null before loading and after saving */
+		Image[] images;
+		
+		/**
+		 * Creates a job for the given file
+		 * 
+		 * @param file File to load the image from
+		 */
+		Job(File file) {
+			this.file = file;
+		}
+		
+	}
+	
+}
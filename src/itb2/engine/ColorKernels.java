@@ -0,0 +1,219 @@
+package itb2.engine;
+
+/**
+ * Color space conversions working on whole rows of values.
+ * Every method receives the channels as separate arrays and
+ * converts the first <i>length</i> values in place, so no
+ * memory is allocated per pixel.
+ * <p>
+ * The formulas are the same as used by the images themselves,
+ * so converting with these kernels gives the same result as
+ * the conversion via {@link itb2.image.Image#asBufferedImage()}.
+ *
+ * @author Micha Strauch
+ */
+final class ColorKernels {
+	
+	/**
+	 * Converts RGB values into HSV values.
+	 * <p>
+	 * <a href="https://de.wikipedia.org/wiki/HSV-Farbraum#Umrechnung_RGB_in_HSV/HSL">Source</a>
+	 *
+	 * @param c0     Red values, replaced by hue values
+	 * @param c1     Green values, replaced by saturation values
+	 * @param c2     Blue values, replaced by value values
+	 * @param length Number of values to convert
+	 * @param max    Maximum hue, saturation and value of the output
+	 */
+	static void rgb2hsv(double[] c0, double[] c1, double[] c2, int length, double[] max) {
+		for(int i = 0; i < length; i++) {
+			double r = c0[i] / 255, g = c1[i] / 255, b = c2[i] / 255;
+			double hi = Math.max(Math.max(r, g), b);
+			double lo = Math.min(Math.min(r, g), b);
+			
+			// Hue
+			double h;
+			if(hi == lo)
+				h = 0;
+			else if(hi == r)
+				h = 60 * (0 + (g - b)/(hi - lo));
+			else if(hi == g)
+				h = 60 * (2 + (b - r)/(hi - lo));
+			else // hi == b
+				h = 60 * (4 + (r - g)/(hi - lo));
+			if(h < 0)
+				h += 360;
+			h /= 360;
+			
+			// Saturation
+			double s = hi == 0 ? 0 : (hi - lo) / hi;
+			
+			c0[i] = h * max[0];
+			c1[i] = s * max[1];
+			c2[i] = hi * max[2];
+		}
+	}
+	
+	/**
+	 * Converts RGB values into HSI values.
+	 * <p>
+	 * <a href="http://fourier.eng.hmc.edu/e161/lectures/ColorProcessing/node2.html">Source</a>
+	 *
+	 * @param c0     Red values, replaced by hue values
+	 * @param c1     Green values, replaced by saturation values
+	 * @param c2     Blue values, replaced by intensity values
+	 * @param length Number of values to convert
+	 * @param max    Maximum hue, saturation and intensity of the output
+	 */
+	static void rgb2hsi(double[] c0, double[] c1, double[] c2, int length, double[] max) {
+		for(int k = 0; k < length; k++) {
+			double r = c0[k], g = c1[k], b = c2[k];
+			
+			// Hue
+			double h = Math.acos(0.5 * ( (r-g) + (r-b) ) / Math.sqrt( (r-g)*(r-g) + (r-b)*(g-b) ) );
+			if(Double.isNaN(h))
+				h = 0;
+			if(b > g)
+				h = 2 * Math.PI - h;
+			h /= 2 * Math.PI;
+			
+			// Intensity
+			double i = (r + g + b) / (3 * 255);
+			
+			// Saturation
+			double s = 1 - Math.min(Math.min(r, g), b) / (i * 255);
+			
+			c0[k] = h * max[0];
+			c1[k] = s * max[1];
+			c2[k] = i * max[2];
+		}
+	}
+	
+	/**
+	 * Converts HSV values into 8 bit RGB values.
+	 *
+	 * @param c0     Hue values, replaced by red values
+	 * @param c1     Saturation values, replaced by green values
+	 * @param c2     Value values, replaced by blue values
+	 * @param length Number of values to convert
+	 * @param max    Maximum hue, saturation and value of the input
+	 */
+	static void hsv2rgb(double[] c0, double[] c1, double[] c2, int length, double[] max) {
+		for(int i = 0; i < length; i++) {
+			// normalized HSV-values:
+			double h = c0[i] * (360 / max[0]);
+			if(h < 0 || h >= 360) {
+				h %= 360;
+				if(h < 0)
+					h += 360;
+			}
+			double s = c1[i] / max[1];
+			double v = c2[i] / max[2];
+			
+			// (h/60) % 2, without the expensive floating point remainder
+			double sector = h / 60;
+			sector -= 2 * Math.floor(sector / 2);
+			
+			double c = v * s; // chroma
+			double x = c * (1 - Math.abs(sector - 1));
+			double m = v - c;
+			
+			double r, g, b;
+			if(h < 60) {
+				r = c; g = x; b = 0;
+			} else if(h < 120) {
+				r = x; g = c; b = 0;
+			} else if(h < 180) {
+				r = 0; g = c; b = x;
+			} else if(h < 240) {
+				r = 0; g = x; b = c;
+			} else if(h < 300) {
+				r = x; g = 0; b = c;
+			} else {
+				r = c; g = 0; b = x;
+			}
+			
+			c0[i] = toByte(255 * (r + m));
+			c1[i] = toByte(255 * (g + m));
+			c2[i] = toByte(255 * (b + m));
+		}
+	}
+	
+	/**
+	 * Converts HSI values into 8 bit RGB values.
+	 *
+	 * @param c0     Hue values, replaced by red values
+	 * @param c1     Saturation values, replaced by green values
+	 * @param c2     Intensity values, replaced by blue values
+	 * @param length Number of values to convert
+	 * @param max    Maximum hue, saturation and intensity of the input
+	 */
+	static void hsi2rgb(double[] c0, double[] c1, double[] c2, int length, double[] max) {
+		for(int k = 0; k < length; k++) {
+			// normalized HSI-values:
+			double h = c0[k] * (2 * Math.PI / max[0]);
+			double s = c1[k] / max[1];
+			double i = c2[k] / max[2];
+			double x = i * (1 - s);
+			
+			double r, g, b;
+			if(h < (Math.PI * 2 / 3)) {
+				double y = i * (1 + ((s * Math.cos(h)) / (Math.cos(Math.PI / 3 - h))));
+				b = x;
+				r = y;
+				g = 3 * i - (x + y);
+			} else if(h < 4 * Math.PI / 3) {
+				h = h - 2 * Math.PI / 3;
+				double y = i * (1 + ((s * Math.cos(h)) / (Math.cos(Math.PI / 3 - h))));
+				r = x;
+				g = y;
+				b = 3 * i - (x + y);
+			} else {
+				h = h - 4 * Math.PI / 3;
+				double y = i * (1 + ((s * Math.cos(h)) / (Math.cos(Math.PI / 3 - h))));
+				g = x;
+				b = y;
+				r = 3 * i - (x + y);
+			}
+			
+			// Bound RGB values between 0 and 1, convert and round them
+			c0[k] = Math.round(bound(r) * 255);
+			c1[k] = Math.round(bound(g) * 255);
+			c2[k] = Math.round(bound(b) * 255);
+		}
+	}
+	
+	/**
+	 * Multiplies the values of every channel with the given factor
+	 *
+	 * @param c0     Values of the first channel
+	 * @param c1     Values of the second channel
+	 * @param c2     Values of the third channel
+	 * @param length Number of values to scale
+	 * @param factor Factor for each channel
+	 */
+	static void scale(double[] c0, double[] c1, double[] c2, int length, double[] factor) {
+		for(int i = 0; i < length; i++) {
+			c0[i] *= factor[0];
+			c1[i] *= factor[1];
+			c2[i] *= factor[2];
+		}
+	}
+	
+	/**
+	 * Same conversion as storing the value in an 8 bit sample
+	 * of a packed RGB raster, i.e. truncation to the lowest 8 bit.
+	 */
+	private static double toByte(double value) {
+		return (int) value & 0xFF;
+	}
+	
+	/** Bounds the value between 0 and 1 */
+	private static double bound(double value) {
+		return value < 0 ? 0 : value > 1 ? 1 : value;
+	}
+	
+	/** Should not be instantiated */
+	private ColorKernels() {}
+	
+}
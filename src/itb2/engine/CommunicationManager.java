@@ -104,4 +104,24 @@ public interface CommunicationManager {
 		info(message, param);
 	}
 	
+	/**
+	 * Opens a job, whose progress is shown by the progress indicator until
+	 * the job is closed. Tasks running in parallel can report their steps
+	 * to the same job without waiting for each other:
+	 * <pre>
+	 * try(ProgressTracker.Job job = com.openProgress(height)) {
+	 *     TileExecutor.forEachBand(height, 16, (row, rows) -&gt; {
+	 *         ...
+	 *         job.step(rows);
+	 *     });
+	 * }</pre>
+	 * By default the progress of the job is not shown.
+	 * 
+	 * @param total Number of steps of the job, 0 if unknown
+	 * @return Opened job
+	 */
+	default public ProgressTracker.Job openProgress(long total) {
+		return new ProgressTracker().open(total);
+	}
+	
 }
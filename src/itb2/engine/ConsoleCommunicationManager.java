@@ -0,0 +1,95 @@
+package itb2.engine;
+
+import java.awt.Point;
+import java.io.PrintStream;
+import java.util.List;
+
+import itb2.image.Image;
+
+/**
+ * Implementation of the {@link CommunicationManager} without a GUI, used
+ * by the batch mode. Messages are printed to the standard output, while
+ * previews and progress are ignored. As there is no user to ask, filters
+ * can't let the user select pixels.
+ * 
+ * @author Micha Strauch
+ */
+public class ConsoleCommunicationManager implements CommunicationManager {
+	
+	/** Stream to print messages to */
+	private final PrintStream out;
+	
+	/** Creates a CommunicationManager printing to the standard output */
+	public ConsoleCommunicationManager() {
+		this(System.out);
+	}
+	
+	/**
+	 * Creates a CommunicationManager printing to the given stream
+	 * 
+	 * @param out Stream to print messages to
+	 */
+	public ConsoleCommunicationManager(PrintStream out) {
+		this.out = out;
+	}
+	
+	@Override
+	public void info(String message, Object... params) {
+		print("INFO", message, params);
+	}
+	
+	@Override
+	public void debug(String message, Object... params) {
+		// Like in the GUI, debug messages are not shown
+	}
+	
+	@Override
+	public void warning(String message, Object... params) {
+		print("WARNING", message, params);
+	}
+	
+	@Override
+	public void error(String message, Object... params) {
+		print("ERROR", message, params);
+	}
+	
+	@Override
+	public PreviewHandler preview(String message, Image image) {
+		return new PreviewHandler() {
+			@Override
+			public void preview(String message, Image image) {
+				// Nothing to show
+			}
+			
+			@Override
+			public void close() {
+				// Nothing to close
+			}
+		};
+	}
+	
+	@Override
+	public List<Point> getSelections(String message, int maxSelections, Image image) {
+		throw new UnsupportedOperationException("Pixels can't be selected in batch mode: " + message);
+	}
+	
+	@Override
+	public void inProgress(double percent) {
+		// Progress of single filters is not shown
+	}
+	
+	/**
+	 * Prints the given message with its level
+	 * 
+	 * @param level   Level of the message
+	 * @param message Message to print
+	 * @param params  Parameters for the message
+	 */
+	private void print(String level, String message, Object... params) {
+		if(params.length > 0)
+			message = String.format(message, params);
+		
+		out.println(String.format("[%s] %s: %s", Thread.currentThread().getName(), level, message));
+	}
+	
+}
@@ -10,6 +10,7 @@ import javax.swing.JOptionPane;
 import javax.swing.UIManager;
 
 import itb2.engine.io.Config;
+import itb2.engine.io.FilterIO;
 import itb2.gui.DefaultCommunicationManager;
 import itb2.gui.EditorGui;
 import itb2.gui.MessageType;
@@ -77,6 +78,13 @@ public final class Controller {
 		logger.setLevel(MessageType.INFO.level);
 		logger.setUseParentHandlers(false);
 		
+		FilterIO.setCacheDirectory(parser.getFilterCache());
+		
+		if(parser.isBatch()) {
+			System.exit(runBatch(parser));
+			return;
+		}
+		
 		// Setup GUI
 		try {
 			String systemLookAndFeel = UIManager.getSystemLookAndFeelClassName();
@@ -90,6 +98,9 @@ public final class Controller {
 		
 		setCommunicationManager(new DefaultCommunicationManager(gui));
 		
+		// Limit number of filters running at the same time
+		getFilterManager().getScheduler().setWorkerCount(parser.getWorkerCount());
+		
 		// Register image conversions for all basic image types
 		if(parser.useConversionHelper())
 			ConversionHelper.registerImageConversions();
@@ -100,7 +111,7 @@ public final class Controller {
 				@Override
 				public void windowClosing(WindowEvent we) {
 					try {
-						Config.saveState(parser.getConfigFile());
+						Config.saveState(parser.getConfigFile(), parser.compressConfig());
 					} catch (IOException e) {
 						getCommunicationManager().warning("Could not save config: " + e.getMessage());
 					}
@@ -126,6 +137,28 @@ public final class Controller {
 		gui.setVisible(true);
 	}
 	
+	/**
+	 * Runs the filters on a directory of images, without GUI
+	 * 
+	 * @param parser Parsed arguments
+	 * @return Exit code, 0 if all images were processed
+	 */
+	private static int runBatch(ArgumentParser parser) {
+		setCommunicationManager(new ConsoleCommunicationManager());
+		
+		if(parser.useConversionHelper())
+			ConversionHelper.registerImageConversions();
+		
+		BatchRunner runner = new BatchRunner(parser.getFilters(), parser.getInput(),
+				parser.getOutput(), parser.getFormat(), parser.getWorkerCount());
+		try {
+			return runner.run() == 0 ? 0 : 1;
+		} catch(IOException e) {
+			getCommunicationManager().error(e.getMessage());
+			return 2;
+		}
+	}
+	
 	/** Starts application */
 	public static void main(String[] args) {
 		// Start application
@@ -27,6 +27,9 @@ import itb2.image.RgbImage;
  */
 final class ConversionHelper extends AbstractFilter {
 	
+	/** Number of pixels converted at once by {@link #convert(Image, Image, RowKernel)} */
+	private static final int BAND_PIXELS = 1 << 16;
+	
 	/** Factory to use, to create image (null = keep precision of input) */
 	private final ImageFactory factory;
 	
@@ -35,11 +38,13 @@ final class ConversionHelper extends AbstractFilter {
 	
 	/** Registers all known image conversions */
 	public static void registerImageConversions() {
-		ImageFactory[] factories = {ImageFactory.doublePrecision(), ImageFactory.bytePrecision(), null};
+		ImageFactory[] factories = {ImageFactory.doublePrecision(), ImageFactory.bytePrecision(), ImageFactory.mappedPrecision(),
+				ImageFactory.floatPrecision(), ImageFactory.shortPrecision(), null};
 		ImageType[] types = {ImageType.RGB, ImageType.GRAYSCALE, ImageType.HSI, ImageType.HSV, ImageType.GROUPED};
 		
 		ImageConverter.register(Image.class, ImageFactory.bytePrecision().binary(), new ConversionHelper(ImageType.BINARY, ImageFactory.bytePrecision()));
 		ImageConverter.register(Image.class, ImageFactory.bytePrecision().drawable(), new ConversionHelper(ImageType.DRAWABLE, ImageFactory.bytePrecision()));
+		ImageConverter.register(Image.class, ImageFactory.mappedPrecision().binary(), new ConversionHelper(ImageType.BINARY, ImageFactory.mappedPrecision()));
 		
 		for(ImageFactory factory : factories)
 			for(ImageType type : types)
@@ -113,6 +118,20 @@ final class ConversionHelper extends AbstractFilter {
 			return output;
 		}
 		
+		if(input instanceof HsvImage) {
+			double[] max = {((HsvImage)input).maxHue(), ((HsvImage)input).maxSaturation(), ((HsvImage)input).maxValue()};
+			Image output = factory.rgb(input.getSize());
+			convert(input, output, (c0, c1, c2, length) -> ColorKernels.hsv2rgb(c0, c1, c2, length, max));
+			return output;
+		}
+		
+		if(input instanceof HsiImage) {
+			double[] max = {((HsiImage)input).maxHue(), ((HsiImage)input).maxSaturation(), ((HsiImage)input).maxIntensity()};
+			Image output = factory.rgb(input.getSize());
+			convert(input, output, (c0, c1, c2, length) -> ColorKernels.hsi2rgb(c0, c1, c2, length, max));
+			return output;
+		}
+		
 		return factory.rgb(input.asBufferedImage());
 	}
 	
@@ -122,20 +141,17 @@ final class ConversionHelper extends AbstractFilter {
 			return factory.gray(input.getChannel(GrayscaleImage.GRAYSCALE));
 		if(input instanceof HsiImage)
 			return factory.gray(input.getChannel(HsiImage.INTENSITY));
-		if(input instanceof HsvImage || input instanceof GroupedImage || input instanceof BinaryImage)
+		if(input instanceof HsvImage) {
+			double[] max = {((HsvImage)input).maxHue(), ((HsvImage)input).maxSaturation(), ((HsvImage)input).maxValue()};
+			Image output = factory.gray(input.getSize());
+			convert(input, output, (c0, c1, c2, length) -> ColorKernels.hsv2rgb(c0, c1, c2, length, max));
+			return output;
+		}
+		if(input instanceof GroupedImage || input instanceof BinaryImage)
 			input = ImageFactory.bytePrecision().drawable(input.asBufferedImage());
 		
 		Image output = factory.gray(input.getSize());
-		for(int col = 0; col < output.getWidth(); col++) {
-			for(int row = 0; row < output.getHeight(); row++) {
-				double value = 0;
-				for(int chan = 0; chan < input.getChannelCount(); chan++)
-					value += input.getValue(col, row, chan);
-				value /= input.getChannelCount();
-				output.setValue(col, row, value);
-			}
-		}
-		
+		convert(input, output, null);
 		return output;
 	}
 	
@@ -150,16 +166,7 @@ final class ConversionHelper extends AbstractFilter {
 					output.maxValue() / ((HsvImage)input).maxValue()
 			};
 			
-			for(int col = 0; col < output.getWidth(); col++) {
-				for(int row = 0; row < output.getHeight(); row++) {
-					double[] hsv = input.getValue(col, row);
-					
-					for(int c = 0; c < hsv.length; c++)
-						hsv[c] *= factor[c];
-					
-					output.setValue(col, row, hsv);
-				}
-			}
+			convert(input, output, (c0, c1, c2, length) -> ColorKernels.scale(c0, c1, c2, length, factor));
 			return output;
 		}
 		
@@ -167,13 +174,8 @@ final class ConversionHelper extends AbstractFilter {
 			input = toRgb(input, factory);
 		
 		HsvImage output = factory.hsv(input.getSize());
-		for(int col = 0; col < output.getWidth(); col++) {
-			for(int row = 0; row < output.getHeight(); row++) {
-				double[] rgb = input.getValue(col, row);
-				double[] hsv = rgb2hsv(rgb, output);
-				output.setValue(col, row, hsv);
-			}
-		}
+		double[] max = {output.maxHue(), output.maxSaturation(), output.maxValue()};
+		convert(input, output, (c0, c1, c2, length) -> ColorKernels.rgb2hsv(c0, c1, c2, length, max));
 		return output;
 	}
 	
@@ -188,16 +190,7 @@ final class ConversionHelper extends AbstractFilter {
 					output.maxIntensity() / ((HsiImage)input).maxIntensity()
 			};
 			
-			for(int col = 0; col < output.getWidth(); col++) {
-				for(int row = 0; row < output.getHeight(); row++) {
-					double[] hsi = input.getValue(col, row);
-					
-					for(int c = 0; c < hsi.length; c++)
-						hsi[c] *= factor[c];
-					
-					output.setValue(col, row, hsi);
-				}
-			}
+			convert(input, output, (c0, c1, c2, length) -> ColorKernels.scale(c0, c1, c2, length, factor));
 			return output;
 		}
 		
@@ -211,13 +204,8 @@ final class ConversionHelper extends AbstractFilter {
 			input = toRgb(input, factory);
 		
 		HsiImage output = factory.hsi(input.getSize());
-		for(int col = 0; col < output.getWidth(); col++) {
-			for(int row = 0; row < output.getHeight(); row++) {
-				double[] rgb = input.getValue(col, row);
-				double[] hsi = rgb2hsi(rgb, output);
-				output.setValue(col, row, hsi);
-			}
-		}
+		double[] max = {output.maxHue(), output.maxSaturation(), output.maxIntensity()};
+		convert(input, output, (c0, c1, c2, length) -> ColorKernels.rgb2hsi(c0, c1, c2, length, max));
 		return output;
 	}
 	
@@ -246,7 +234,7 @@ final class ConversionHelper extends AbstractFilter {
 			}
 		}
 		
-		if(groupCount > 254 && factory == ImageFactory.bytePrecision()) {
+		if(groupCount > 254 && factory != ImageFactory.doublePrecision() && factory != ImageFactory.floatPrecision()) {
 			// Too many colors, just use grayscale value
 			if( !(input instanceof GrayscaleImage) )
 				input = toGrayscale(input, factory);
@@ -276,11 +264,13 @@ final class ConversionHelper extends AbstractFilter {
 			input = toGrayscale(input, factory);
 		Image output = factory.binary(input.getSize());
 		
-		for(int col = 0; col < input.getWidth(); col++) {
-			for(int row = 0; row < output.getHeight(); row++) {
-				double value = input.getValue(col, row, GrayscaleImage.GRAYSCALE);
-				output.setValue(col, row, value < 128 ? 0 : 1);
-			}
+		int width = input.getWidth();
+		double[] buffer = new double[width];
+		for(int row = 0; row < output.getHeight(); row++) {
+			input.getValues(0, row, width, 1, GrayscaleImage.GRAYSCALE, buffer);
+			for(int col = 0; col < width; col++)
+				buffer[col] = buffer[col] < 128 ? 0 : 1;
+			output.setValues(0, row, width, 1, BinaryImage.BINARY, buffer);
 		}
 		
 		return output;
@@ -292,73 +282,60 @@ final class ConversionHelper extends AbstractFilter {
 	}
 	
 	/**
-	 * Converts the given RGB values to HSI. The output
-	 * image is used to get the correct maximum values.
-	 * <p>
-	 * <a href="http://fourier.eng.hmc.edu/e161/lectures/ColorProcessing/node2.html">Source</a> 
-	 * 
-	 * @param rgb    RGB values
-	 * @param output Image to get maximum values from
+	 * Converts the input image into the output image, band by band in
+	 * parallel. The kernel receives the first three channels of each band
+	 * and converts them in place. If the output has a single channel, the
+	 * average of all converted channels is stored.
 	 * 
-	 * @return HSI values
+	 * @param input  Image to convert
+	 * @param output Image of the same size, receiving the converted values
+	 * @param kernel Kernel converting the values, or null to keep them
 	 */
-	private double[] rgb2hsi(double[] rgb, HsiImage output) {
-		double r = rgb[0], g = rgb[1], b = rgb[2];
-		
-		// Hue
-		double h = Math.acos(0.5 * ( (r-g) + (r-b) ) / Math.sqrt( (r-g)*(r-g) + (r-b)*(g-b) ) );
-		if(Double.isNaN(h))
-			h = 0;
-		if(b > g)
-			h = 2 * Math.PI - h;
-		h /= 2 * Math.PI;
-		
-		// Intensity
-		double i = (r + g + b) / (3 * 255);
-		
-		// Saturation
-		double s = 1 - Math.min(Math.min(r, g), b) / (i * 255);
-		
-		return new double[] {h * output.maxHue(), s * output.maxSaturation(), i * output.maxIntensity()};
+	private static void convert(Image input, Image output, RowKernel kernel) {
+		int width = input.getWidth(), channels = input.getChannelCount();
+		int bandHeight = Math.max(1, BAND_PIXELS / Math.max(1, width));
+		
+		TileExecutor.forEachBand(input.getHeight(), bandHeight, (row, height) -> {
+			int length = width * height;
+			double[][] values = new double[channels][];
+			for(int chan = 0; chan < channels; chan++)
+				values[chan] = input.getValues(0, row, width, height, chan, null);
+			
+			if(kernel != null)
+				kernel.apply(values[0], values[1], values[2], length);
+			
+			if(output.getChannelCount() == 1) {
+				double[] sum = values[0];
+				for(int chan = 1; chan < channels; chan++) {
+					for(int i = 0; i < length; i++)
+						sum[i] += values[chan][i];
+				}
+				for(int i = 0; i < length; i++)
+					sum[i] /= channels;
+				output.setValues(0, row, width, height, 0, sum);
+			} else {
+				for(int chan = 0; chan < channels; chan++)
+					output.setValues(0, row, width, height, chan, values[chan]);
+			}
+		});
 	}
 	
 	/**
-	 * Converts the given RGB values to HSV. The output
-	 * image is used to get the correct maximum values.
-	 * <p>
-	 * <a href="https://de.wikipedia.org/wiki/HSV-Farbraum#Umrechnung_RGB_in_HSV/HSL">Source</a> 
-	 * 
-	 * @param rgb    RGB values
-	 * @param output Image to get maximum values from
-	 * 
-	 * @return HSV values
+	 * Conversion of three channels, see {@link ColorKernels}
+	 *
+	 * @author Micha Strauch
 	 */
-	private double[] rgb2hsv(double[] rgb, HsvImage output) {
-		double r = rgb[0] / 255, g = rgb[1] / 255, b = rgb[2] / 255;
-		double max = Math.max(Math.max(r, g), b);
-		double min = Math.min(Math.min(r, g), b);
-		
-		// Hue
-		double h;
-		if(max == min)
-			h = 0;
-		else if(max == r)
-			h = 60 * (0 + (g - b)/(max - min));
-		else if(max == g)
-			h = 60 * (2 + (b - r)/(max - min));
-		else // max == b
-			h = 60 * (4 + (r - g)/(max - min));
-		if(h < 0)
-			h += 360;
-		h /= 360;
-		
-		// Saturation
-		double s = max == 0 ? 0 : (max - min) / max;
-		
-		// Value
-		double v = max;
-		
-		return new double[] {h * output.maxHue(), s * output.maxSaturation(), v * output.maxValue()};
+	@FunctionalInterface
+	private interface RowKernel {
+		/**
+		 * Converts the given values in place
+		 * 
+		 * @param c0     Values of the first channel
+		 * @param c1     Values of the second channel
+		 * @param c2     Values of the third channel
+		 * @param length Number of values to convert
+		 */
+		public void apply(double[] c0, double[] c1, double[] c2, int length);
 	}
 	
 	/**
@@ -3,11 +3,16 @@ package itb2.engine;
 import java.io.File;
 import java.io.IOException;
 import java.text.Collator;
+import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
+import javax.swing.SwingUtilities;
+
 import itb2.data.ObservableTreeSet;
 import itb2.engine.io.FilterIO;
 import itb2.engine.io.FilterWrapper;
@@ -15,6 +20,7 @@ import itb2.filter.Filter;
 import itb2.filter.RequireImageType;
 import itb2.image.Image;
 import itb2.image.ImageConverter;
+import itb2.image.LazyImage;
 
 /**
  * Implementation of the {@link FilterManager}
@@ -26,12 +32,18 @@ public class DefaultFilterManager implements FilterManager {
 	/** Set of loaded filters */
 	private final ObservableTreeSet<Filter> filterSet;
 	
-	/** Runs filter on different thread, is used in {@link #callFilter(Filter, Image[], Consumer)} */
-	private final ExecutorService executor;
+	/** Runs filters on different threads, is used in {@link #callFilter(Filter, Image[], Consumer)} */
+	private final FilterScheduler scheduler;
+	
+	/** Filters that are reloaded when their file changes, by their normalized file */
+	private final Map<File, Filter> sources = new ConcurrentHashMap<>();
+	
+	/** Watches the files of the loaded filters, created on first use */
+	private FilterWatcher watcher;
 	
 	/** Constructor */
 	DefaultFilterManager() {
-		executor = Executors.newSingleThreadExecutor();
+		scheduler = new FilterScheduler(Runtime.getRuntime().availableProcessors());
 		filterSet = new ObservableTreeSet<>(new Comparator<Filter>() {
 			Collator collator = Collator.getInstance();
 			
@@ -47,11 +59,154 @@ public class DefaultFilterManager implements FilterManager {
 	@Override
 	public Filter loadFilter(File file) throws IOException {
 		Filter filter = FilterIO.load(file);
-		if(filter != null)
-			filterSet.add(filter);
+		if(filter != null && filterSet.add(filter))
+			watch(file, filter);
 		return filter;
 	}
 	
+	@Override
+	public void loadFilters(List<File> files) {
+		List<File> fileList = new ArrayList<>(files);
+		
+		// Compile and create the filters on a background thread, so the GUI keeps responding
+		Thread thread = new Thread(() -> {
+			Map<File, IOException> failures = compile(fileList);
+			Map<File, Filter> filters = create(fileList, failures);
+			SwingUtilities.invokeLater(() -> {
+				for(File file : fileList) {
+					Filter filter = filters.get(file);
+					if(filter == null) {
+						Controller.getCommunicationManager().error("Could not open file:\n%s\n\n> %s", file.getAbsolutePath(), failures.get(file).getMessage());
+						continue;
+					}
+					
+					FilterIO.loaded(file);
+					if(filterSet.add(filter))
+						watch(file, filter);
+				}
+			});
+		}, "FilterCompiler");
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	/**
+	 * Compiles the given filters, see {@link FilterIO#compile(List)}
+	 * 
+	 * @param files Files of the filters
+	 * @return Exception for every filter that could not be compiled
+	 */
+	private static Map<File, IOException> compile(List<File> files) {
+		try {
+			return FilterIO.compile(files);
+		} catch(IOException e) {
+			Map<File, IOException> failures = new HashMap<>();
+			for(File file : files)
+				failures.put(file, e);
+			return failures;
+		}
+	}
+	
+	/**
+	 * Creates the filters of the given files, that were compiled
+	 * successfully. Files whose filter could not be created are
+	 * added to the failures.
+	 * 
+	 * @param files    Files of the filters
+	 * @param failures Exception for every filter that could not be compiled
+	 * @return Created filter of every file, that had no failure
+	 */
+	private static Map<File, Filter> create(List<File> files, Map<File, IOException> failures) {
+		Map<File, Filter> filters = new HashMap<>();
+		for(File file : files) {
+			if(failures.containsKey(file))
+				continue;
+			
+			try {
+				filters.put(file, FilterIO.reload(file));
+			} catch(IOException e) {
+				failures.put(file, e);
+			}
+		}
+		return filters;
+	}
+	
+	/**
+	 * Watches the file of the given filter, so the
+	 * filter is reloaded, whenever the file changes
+	 * 
+	 * @param file   File the filter was loaded from
+	 * @param filter Loaded filter
+	 */
+	private synchronized void watch(File file, Filter filter) {
+		try {
+			if(watcher == null)
+				watcher = new FilterWatcher(this::reloadFilters);
+			watcher.watch(file);
+			sources.put(normalize(file), filter);
+		} catch(IOException e) {
+			// Not important, the filter is just not reloaded on changes
+		}
+	}
+	
+	/**
+	 * Loads the changed filters again and replaces the old filters inside the
+	 * filter list. Filters are compiled and created on the calling thread, and
+	 * only replaced on the event dispatch thread. Filters that were closed in
+	 * the meantime are no longer watched.
+	 * 
+	 * @param files Changed files
+	 */
+	private void reloadFilters(List<File> files) {
+		Map<File, IOException> failures = compile(files);
+		Map<File, Filter> filters = create(files, failures);
+		SwingUtilities.invokeLater(() -> {
+			for(File file : files) {
+				Filter oldFilter = sources.get(normalize(file));
+				if(oldFilter == null || !isLoaded(oldFilter)) {
+					sources.remove(normalize(file));
+					watcher.unwatch(file);
+					continue;
+				}
+				
+				Filter newFilter = filters.get(file);
+				if(newFilter == null) {
+					Controller.getCommunicationManager().error("Could not reload filter '%s':\n%s", file.getName(), failures.get(file).getMessage());
+					continue;
+				}
+				
+				filterSet.replace(oldFilter, newFilter);
+				sources.put(normalize(file), newFilter);
+				Controller.getCommunicationManager().info("Reloaded filter '%s'", file.getName());
+			}
+		});
+	}
+	
+	/**
+	 * Whether the given instance is inside the filter list. Unlike
+	 * {@link ObservableTreeSet#contains(Object)} this doesn't accept
+	 * another filter of the same name.
+	 * 
+	 * @param filter Filter to look for
+	 * @return True, if the filter is inside the filter list
+	 */
+	private boolean isLoaded(Filter filter) {
+		for(Filter loaded : filterSet)
+			if(loaded == filter)
+				return true;
+		return false;
+	}
+	
+	/**
+	 * Returns the absolute and normalized version of the file
+	 * 
+	 * @param file File to normalize
+	 * @return Normalized file
+	 */
+	private static File normalize(File file) {
+		return file.toPath().toAbsolutePath().normalize().toFile();
+	}
+	
 	@Override
 	public ObservableTreeSet<Filter> getFilters() {
 		return filterSet;
@@ -67,6 +222,9 @@ public class DefaultFilterManager implements FilterManager {
 	
 	@Override
 	public Image[] callFilter(Filter filter, Image... images) {
+		for(int i = 0; i < images.length; i++)
+			images[i] = LazyImage.unwrap(images[i]);
+		
 		Class<? extends Image> requiredImageType = getRequiredImageType(filter);
 		if(requiredImageType != null) {
 			for(int i = 0; i < images.length; i++)
@@ -102,16 +260,21 @@ public class DefaultFilterManager implements FilterManager {
 
 	@Override
 	public void callFilter(Filter filter, Image[] images, Consumer<Image[]> receiver) {
-		executor.submit(() -> {
-			try {
-				receiver.accept(callFilter(filter, images));
-			} catch(Exception e) {
-				e.printStackTrace();
-				Controller.getCommunicationManager().error("Error occured while running '%s': %s",
-						filter.getClass().getName(), e.getMessage());
-				receiver.accept(null);
-			}
-		});
+		submitFilter(filter, images, FilterJob.DEFAULT_PRIORITY, receiver);
+	}
+	
+	@Override
+	public FilterJob submitFilter(Filter filter, Image[] images, int priority, Consumer<Image[]> receiver) {
+		FilterJob job = scheduler.submit(this, filter, images, priority, receiver);
+		int waiting = scheduler.getQueueDepth();
+		if(waiting > 0)
+			Controller.getCommunicationManager().info("Filter job %s queued, %d job(s) waiting.", job, waiting);
+		return job;
+	}
+	
+	@Override
+	public FilterScheduler getScheduler() {
+		return scheduler;
 	}
 
 }
@@ -0,0 +1,160 @@
+package itb2.engine;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import itb2.filter.Filter;
+import itb2.image.Image;
+
+/**
+ * Single run of a filter, scheduled by the {@link FilterScheduler}.
+ * The job can be cancelled via {@link #cancel(boolean)}, which
+ * interrupts the running filter. After the job finished, the
+ * receiver is called with the filtered images, or with <i>null</i>
+ * if the job failed or was cancelled.
+ *
+ * @author Micha Strauch
+ */
+public class FilterJob extends FutureTask<Image[]> implements Comparable<FilterJob> {
+	
+	/** Default priority of a job */
+	public static final int DEFAULT_PRIORITY = 0;
+	
+	/** Source of the job IDs */
+	private static final AtomicLong NEXT_ID = new AtomicLong(1);
+	
+	/** Job currently run by this thread */
+	private static final ThreadLocal<FilterJob> CURRENT = new ThreadLocal<>();
+	
+	/** ID of this job */
+	private final long id;
+	
+	/** Priority of this job, higher priorities are run first */
+	private final int priority;
+	
+	/** Filter run by this job */
+	private final Filter filter;
+	
+	/** Receiver of the filtered images */
+	private final Consumer<Image[]> receiver;
+	
+	/** Time of submission, start and end in nanoseconds */
+	private volatile long submitTime, startTime, endTime;
+	
+	/**
+	 * Creates a new job
+	 *
+	 * @param filter   Filter to run
+	 * @param task     Task running the filter
+	 * @param priority Priority, higher priorities are run first
+	 * @param receiver Receiver of the filtered images
+	 */
+	FilterJob(Filter filter, Callable<Image[]> task, int priority, Consumer<Image[]> receiver) {
+		super(task);
+		this.id = NEXT_ID.getAndIncrement();
+		this.filter = filter;
+		this.priority = priority;
+		this.receiver = receiver;
+		this.submitTime = System.nanoTime();
+	}
+	
+	/**
+	 * Returns the job running on the current thread,
+	 * or <i>null</i> if the thread does not run a job.
+	 *
+	 * @return Current job or null
+	 */
+	public static FilterJob current() {
+		return CURRENT.get();
+	}
+	
+	/** Returns the ID of this job */
+	public long getId() {
+		return id;
+	}
+	
+	/** Returns the priority of this job */
+	public int getPriority() {
+		return priority;
+	}
+	
+	/** Returns the filter run by this job */
+	public Filter getFilter() {
+		return filter;
+	}
+	
+	/**
+	 * Returns the time in milliseconds this job waited
+	 * in the queue, before it was started.
+	 *
+	 * @return Waiting time in milliseconds
+	 */
+	public long getQueueTime() {
+		long start = startTime;
+		return ((start == 0 ? System.nanoTime() : start) - submitTime) / 1000000;
+	}
+	
+	/**
+	 * Returns the time in milliseconds this job was running, or
+	 * 0 if it was not started yet. While the job is running,
+	 * this is the time since the job was started.
+	 *
+	 * @return Running time in milliseconds
+	 */
+	public long getRunTime() {
+		long start = startTime, end = endTime;
+		if(start == 0)
+			return 0;
+		return ((end == 0 ? System.nanoTime() : end) - start) / 1000000;
+	}
+	
+	/** Whether this job is currently running */
+	public boolean isRunning() {
+		return startTime != 0 && !isDone();
+	}
+	
+	@Override
+	public void run() {
+		startTime = System.nanoTime();
+		CURRENT.set(this);
+		try {
+			super.run();
+		} finally {
+			CURRENT.remove();
+			// Clear a pending interrupt, so it does not hit the next job of this thread
+			Thread.interrupted();
+		}
+	}
+	
+	@Override
+	protected void done() {
+		endTime = System.nanoTime();
+		if(receiver == null)
+			return;
+		
+		Image[] result = null;
+		if(!isCancelled()) {
+			try {
+				result = get();
+			} catch(Exception e) {
+				// Error was already reported by the task
+			}
+		}
+		receiver.accept(result);
+	}
+	
+	@Override
+	public int compareTo(FilterJob job) {
+		if(priority != job.priority)
+			return Integer.compare(job.priority, priority);
+		return Long.compare(id, job.id);
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("#%d %s", id, filter.getClass().getSimpleName());
+	}
+	
+}
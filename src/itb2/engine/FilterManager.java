@@ -2,6 +2,7 @@ package itb2.engine;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 import java.util.function.Consumer;
 
 import itb2.data.ObservableTreeSet;
@@ -28,6 +29,16 @@ public interface FilterManager {
 	 */
 	public Filter loadFilter(File file) throws IOException;
 	
+	/**
+	 * Loads the filters from the given files in the background and adds
+	 * them to the filter list. Filters (.java) that need to be compiled,
+	 * are compiled together. Filters that can't be loaded are reported
+	 * to the {@link CommunicationManager}.
+	 * 
+	 * @param files Files to load filters from
+	 */
+	public void loadFilters(List<File> files);
+	
 	/**
 	 * List of all currently loaded filters
 	 * 
@@ -70,4 +81,28 @@ public interface FilterManager {
 	 */
 	public void callFilter(Filter filter, Image[] images, Consumer<Image[]> receiver);
 	
+	/**
+	 * Similar to {@link #callFilter(Filter, Image[], Consumer)}
+	 * <p>
+	 * Returns the scheduled job, which can be used to cancel the
+	 * filter or to query its timing. Jobs with a higher priority
+	 * are started first. If the job is cancelled, the receiver
+	 * will be called with <i>null</i> as parameter.
+	 * 
+	 * @param filter   Filter to call
+	 * @param images   Images to filter
+	 * @param priority Priority of the job
+	 * @param receiver Consumer to receive filtered images
+	 * 
+	 * @return Scheduled job
+	 */
+	public FilterJob submitFilter(Filter filter, Image[] images, int priority, Consumer<Image[]> receiver);
+	
+	/**
+	 * Returns the scheduler running the filter jobs
+	 * 
+	 * @return Scheduler running the filter jobs
+	 */
+	public FilterScheduler getScheduler();
+	
 }
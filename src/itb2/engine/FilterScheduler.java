@@ -0,0 +1,173 @@
+package itb2.engine;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import itb2.filter.Filter;
+import itb2.image.Image;
+
+/**
+ * Runs filter jobs on a bounded pool of worker threads. Jobs
+ * waiting for a free worker are ordered by their priority,
+ * jobs of the same priority are run in order of submission.
+ * <p>
+ * Filters are not written to be run by several threads at once, so
+ * jobs of the same filter instance are run one after another. Until
+ * the running job of its filter finished, a job waits in a queue of
+ * its own and does not block a worker.
+ *
+ * @author Micha Strauch
+ */
+public class FilterScheduler {
+	
+	/** Executor running the jobs */
+	private final ThreadPoolExecutor executor;
+	
+	/** Number of jobs currently running */
+	private final AtomicInteger running = new AtomicInteger();
+	
+	/** Jobs waiting for the job of the same filter, by filters with a job in the executor */
+	private final Map<Filter, Queue<FilterJob>> waiting = new IdentityHashMap<>();
+	
+	/**
+	 * Creates a scheduler with the given number of workers
+	 *
+	 * @param workers Maximum number of jobs running at the same time
+	 */
+	FilterScheduler(int workers) {
+		if(workers < 1)
+			throw new IllegalArgumentException("At least one worker is required");
+		
+		ThreadFactory factory = new ThreadFactory() {
+			AtomicInteger count = new AtomicInteger();
+			
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "FilterWorker-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		};
+		
+		executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+				new PriorityBlockingQueue<>(), factory) {
+			@Override
+			protected void beforeExecute(Thread thread, Runnable job) {
+				running.incrementAndGet();
+			}
+			
+			@Override
+			protected void afterExecute(Runnable job, Throwable error) {
+				running.decrementAndGet();
+				release(((FilterJob) job).getFilter());
+			}
+		};
+		executor.allowCoreThreadTimeOut(true);
+	}
+	
+	/**
+	 * Submits a job running the given filter. After the filter finished,
+	 * the receiver is called with the filtered images, or with <i>null</i>
+	 * if an error occurred or the job was cancelled.
+	 *
+	 * @param manager  Manager used to call the filter
+	 * @param filter   Filter to run
+	 * @param images   Images to filter
+	 * @param priority Priority of the job, higher priorities are run first
+	 * @param receiver Receiver of the filtered images, may be null
+	 *
+	 * @return Submitted job
+	 */
+	public FilterJob submit(FilterManager manager, Filter filter, Image[] images, int priority, Consumer<Image[]> receiver) {
+		FilterJob job = new FilterJob(filter, () -> {
+			try {
+				return manager.callFilter(filter, images);
+			} catch(Exception | Error e) {
+				// Errors as well, e.g. an OutOfMemoryError or a class missing after a reload
+				if(Thread.currentThread().isInterrupted())
+					throw e; // Job was cancelled
+				e.printStackTrace();
+				Controller.getCommunicationManager().error("Error occured while running '%s': %s",
+						filter.getClass().getName(), e.getMessage());
+				throw e;
+			}
+		}, priority, receiver);
+		
+		synchronized(waiting) {
+			Queue<FilterJob> queue = waiting.get(filter);
+			if(queue != null) {
+				queue.add(job);
+				return job;
+			}
+			waiting.put(filter, new PriorityQueue<>());
+		}
+		
+		executor.execute(job);
+		return job;
+	}
+	
+	/**
+	 * Passes the next waiting job of the given filter to the executor,
+	 * after the previous job of the filter finished
+	 * 
+	 * @param filter Filter of the finished job
+	 */
+	private void release(Filter filter) {
+		FilterJob next;
+		synchronized(waiting) {
+			next = waiting.get(filter).poll();
+			if(next == null)
+				waiting.remove(filter);
+		}
+		
+		if(next != null)
+			executor.execute(next);
+	}
+	
+	/**
+	 * Sets the maximum number of jobs running at the same time
+	 *
+	 * @param workers Number of workers, at least 1
+	 */
+	public void setWorkerCount(int workers) {
+		if(workers < 1)
+			throw new IllegalArgumentException("At least one worker is required");
+		
+		if(workers > executor.getMaximumPoolSize()) {
+			executor.setMaximumPoolSize(workers);
+			executor.setCorePoolSize(workers);
+		} else {
+			executor.setCorePoolSize(workers);
+			executor.setMaximumPoolSize(workers);
+		}
+	}
+	
+	/** Returns the maximum number of jobs running at the same time */
+	public int getWorkerCount() {
+		return executor.getMaximumPoolSize();
+	}
+	
+	/** Returns the number of jobs waiting for a free worker or the job of their filter */
+	public int getQueueDepth() {
+		int depth = executor.getQueue().size();
+		synchronized(waiting) {
+			for(Queue<FilterJob> queue : waiting.values())
+				depth += queue.size();
+		}
+		return depth;
+	}
+	
+	/** Returns the number of jobs currently running */
+	public int getRunningCount() {
+		return running.get();
+	}
+	
+}
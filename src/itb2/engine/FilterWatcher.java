@@ -0,0 +1,146 @@
+package itb2.engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Watches the files of loaded filters for changes. The folders of the
+ * files are observed by a {@link WatchService} on a background thread.
+ * Editors often write a file in several steps, so changes are collected
+ * until the folder is quiet for {@link #DELAY} milliseconds, and only
+ * then reported to the listener.
+ * 
+ * @author Micha Strauch
+ */
+class FilterWatcher {
+	
+	/** Milliseconds without changes, before changes are reported */
+	static final long DELAY = 100;
+	
+	/** Service watching the folders */
+	private final WatchService service;
+	
+	/** Watched folders, by their key */
+	private final Map<WatchKey, Path> folders = new HashMap<>();
+	
+	/** Watched files */
+	private final Set<Path> files = new LinkedHashSet<>();
+	
+	/** Called with the changed files, on the thread of the watcher */
+	private final Consumer<List<File>> listener;
+	
+	/**
+	 * Creates a watcher and starts its thread
+	 * 
+	 * @param listener Called with the changed files, on the thread of the watcher
+	 * 
+	 * @throws IOException If the file system can't be watched
+	 */
+	FilterWatcher(Consumer<List<File>> listener) throws IOException {
+		this.listener = listener;
+		this.service = FileSystems.getDefault().newWatchService();
+		
+		Thread thread = new Thread(this::run, "FilterWatcher");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		thread.start();
+	}
+	
+	/**
+	 * Starts watching the given file
+	 * 
+	 * @param file File to watch
+	 * 
+	 * @throws IOException If the folder of the file can't be watched
+	 */
+	synchronized void watch(File file) throws IOException {
+		Path path = file.toPath().toAbsolutePath().normalize();
+		Path folder = path.getParent();
+		
+		if(!folders.containsValue(folder)) {
+			WatchKey key = folder.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+			folders.put(key, folder);
+		}
+		files.add(path);
+	}
+	
+	/**
+	 * Stops watching the given file. The folder is still watched,
+	 * but changes of the file are no longer reported.
+	 * 
+	 * @param file File to stop watching
+	 */
+	synchronized void unwatch(File file) {
+		files.remove(file.toPath().toAbsolutePath().normalize());
+	}
+	
+	/** Waits for changes and reports them, until the service is closed */
+	private void run() {
+		try {
+			while(true) {
+				Set<Path> changed = new LinkedHashSet<>();
+				
+				WatchKey key = service.take();
+				do {
+					collect(key, changed);
+				} while((key = service.poll(DELAY, TimeUnit.MILLISECONDS)) != null);
+				
+				if(changed.isEmpty())
+					continue;
+				
+				List<File> changedFiles = new ArrayList<>();
+				for(Path path : changed)
+					changedFiles.add(path.toFile());
+				
+				try {
+					listener.accept(changedFiles);
+				} catch(RuntimeException e) {
+					CommunicationManager com = Controller.getCommunicationManager();
+					if(com != null)
+						com.error("Could not reload filters: %s", e.getMessage());
+				}
+			}
+		} catch(InterruptedException | ClosedWatchServiceException e) {
+			// Stop watching
+		}
+	}
+	
+	/**
+	 * Adds the watched files, whose change is reported by the key
+	 * 
+	 * @param key     Key reporting changes
+	 * @param changed Set to add the changed files to
+	 */
+	private synchronized void collect(WatchKey key, Set<Path> changed) {
+		Path folder = folders.get(key);
+		
+		for(WatchEvent<?> event : key.pollEvents()) {
+			if(folder == null || !(event.context() instanceof Path))
+				continue;
+			
+			Path path = folder.resolve((Path) event.context());
+			if(files.contains(path))
+				changed.add(path);
+		}
+		
+		// Keep watching the folder
+		if(!key.reset())
+			folders.remove(key);
+	}
+	
+}
@@ -0,0 +1,353 @@
+package itb2.engine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Passes items through a sequence of stages, like load, filter and save.
+ * Every stage has its own threads and a bounded queue in front of it, so
+ * all stages work at the same time: While one image is filtered, the next
+ * one is already loaded and the previous one saved. If a stage is slower
+ * than the one before, its queue fills up and the previous stage waits.
+ * <p>
+ * Every stage counts the processed items and the time spent on them. An
+ * item, whose stage throws an exception or error, is passed to the failure
+ * handler and dropped.
+ * 
+ * @param <T> Type of the items
+ * 
+ * @author Micha Strauch
+ */
+public class Pipeline<T> {
+	
+	/** Marks the end of the items in a queue */
+	private static final Object END = new Object();
+	
+	/** Stages in order */
+	private final List<Stage<T>> stages = new ArrayList<>();
+	
+	/** Called for items that failed */
+	private final BiConsumer<T, Throwable> failureHandler;
+	
+	/** Start of the pipeline in nanoseconds, 0 if not started */
+	private long startTime;
+	
+	/** End of the pipeline in nanoseconds, 0 if not finished */
+	private long endTime;
+	
+	/**
+	 * Creates an empty pipeline
+	 * 
+	 * @param failureHandler Called with items, whose stage threw an exception or error
+	 */
+	public Pipeline(BiConsumer<T, Throwable> failureHandler) {
+		this.failureHandler = failureHandler;
+	}
+	
+	/**
+	 * Adds a stage at the end of the pipeline
+	 * 
+	 * @param name     Name of the stage, used for its threads
+	 * @param threads  Number of threads of the stage
+	 * @param capacity Number of items that may wait in front of the stage
+	 * @param task     Task to run for every item
+	 * @return This pipeline
+	 * 
+	 * @throws IllegalStateException If the pipeline is already started
+	 */
+	public Pipeline<T> addStage(String name, int threads, int capacity, Task<T> task) {
+		if(startTime != 0)
+			throw new IllegalStateException("Pipeline already started");
+		stages.add(new Stage<>(name, Math.max(1, threads), Math.max(1, capacity), task));
+		return this;
+	}
+	
+	/**
+	 * Starts the threads of all stages. Afterwards items can be submitted.
+	 * 
+	 * @throws IllegalStateException If there is no stage or the pipeline is already started
+	 */
+	public void start() {
+		if(stages.isEmpty())
+			throw new IllegalStateException("Pipeline has no stages");
+		if(startTime != 0)
+			throw new IllegalStateException("Pipeline already started");
+		
+		startTime = System.nanoTime();
+		for(int i = 0; i < stages.size(); i++) {
+			Stage<T> next = i + 1 < stages.size() ? stages.get(i + 1) : null;
+			stages.get(i).start(this, next);
+		}
+	}
+	
+	/**
+	 * Passes the item to the first stage. Waits, if the queue of the first
+	 * stage is full.
+	 * 
+	 * @param item Item to process
+	 * 
+	 * @throws InterruptedException If interrupted while waiting
+	 */
+	public void submit(T item) throws InterruptedException {
+		stages.get(0).queue.put(item);
+	}
+	
+	/**
+	 * Signals, that no more items are submitted, and waits until all
+	 * items went through the pipeline.
+	 * 
+	 * @throws InterruptedException If interrupted while waiting, the
+	 *                              threads of the stages are stopped
+	 */
+	public void finish() throws InterruptedException {
+		try {
+			stages.get(0).queue.put(END);
+			for(Stage<T> stage : stages) {
+				stage.executor.shutdown();
+				stage.executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+			}
+			endTime = System.nanoTime();
+		} finally {
+			for(Stage<T> stage : stages)
+				stage.executor.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Returns the stages in order, e.g. to read their statistics
+	 * 
+	 * @return Unmodifiable list of stages
+	 */
+	public List<Stage<T>> getStages() {
+		return Collections.unmodifiableList(stages);
+	}
+	
+	/**
+	 * Returns the time since the pipeline was started, or the time it
+	 * took, if it is finished.
+	 * 
+	 * @return Elapsed time in nanoseconds
+	 */
+	public long getElapsedTime() {
+		if(startTime == 0)
+			return 0;
+		return (endTime != 0 ? endTime : System.nanoTime()) - startTime;
+	}
+	
+	/**
+	 * Task of a stage
+	 * 
+	 * @param <T> Type of the items
+	 */
+	@FunctionalInterface
+	public interface Task<T> {
+		
+		/**
+		 * Processes the item. The item is passed to the next stage afterwards.
+		 * 
+		 * @param item Item to process
+		 * 
+		 * @throws Exception If the item failed, it's dropped
+		 */
+		void process(T item) throws Exception;
+		
+	}
+	
+	/**
+	 * Stage of a pipeline, with its own threads and queue.
+	 * 
+	 * @param <T> Type of the items
+	 */
+	public static class Stage<T> {
+		
+		/** Name of the stage */
+		private final String name;
+		
+		/** Number of threads */
+		private final int threads;
+		
+		/** Task to run for every item */
+		private final Task<T> task;
+		
+		/** Items waiting for this stage, followed by {@link Pipeline#END} */
+		private final BlockingQueue<Object> queue;
+		
+		/** Threads of this stage */
+		private ExecutorService executor;
+		
+		/** Number of threads still running */
+		private final AtomicInteger running = new AtomicInteger();
+		
+		/** Number of items processed successfully */
+		private final AtomicLong processed = new AtomicLong();
+		
+		/** Number of items that failed */
+		private final AtomicLong failed = new AtomicLong();
+		
+		/** Nanoseconds spent running the task */
+		private final AtomicLong busyTime = new AtomicLong();
+		
+		/** Nanoseconds spent waiting for the next stage to accept items */
+		private final AtomicLong blockedTime = new AtomicLong();
+		
+		/**
+		 * Creates a stage
+		 * 
+		 * @param name     Name of the stage
+		 * @param threads  Number of threads
+		 * @param capacity Size of the queue
+		 * @param task     Task to run for every item
+		 */
+		private Stage(String name, int threads, int capacity, Task<T> task) {
+			this.name = name;
+			this.threads = threads;
+			this.task = task;
+			this.queue = new ArrayBlockingQueue<>(capacity);
+		}
+		
+		/**
+		 * Starts the threads of this stage
+		 * 
+		 * @param pipeline Pipeline of this stage
+		 * @param next     Next stage, null if this is the last one
+		 */
+		private void start(Pipeline<T> pipeline, Stage<T> next) {
+			AtomicInteger count = new AtomicInteger();
+			executor = Executors.newFixedThreadPool(threads, runnable -> {
+				Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+			
+			running.set(threads);
+			for(int i = 0; i < threads; i++)
+				executor.execute(() -> work(pipeline, next));
+		}
+		
+		/**
+		 * Takes items from the queue and processes them, until the end is reached.
+		 * The last thread to finish passes the end on to the next stage, even if
+		 * it stopped because of an error.
+		 * 
+		 * @param pipeline Pipeline of this stage
+		 * @param next     Next stage, null if this is the last one
+		 */
+		@SuppressWarnings("unchecked")
+		private void work(Pipeline<T> pipeline, Stage<T> next) {
+			try {
+				while(true) {
+					Object item = queue.take();
+					if(item == END) {
+						// Let the other threads of this stage see the end as well
+						queue.put(END);
+						break;
+					}
+					
+					long startTime = System.nanoTime();
+					try {
+						task.process((T) item);
+					} catch(Exception | Error e) {
+						// Errors like an OutOfMemoryError only drop this item, smaller items might still work
+						failed.incrementAndGet();
+						pipeline.failureHandler.accept((T) item, e);
+						continue;
+					} finally {
+						busyTime.addAndGet(System.nanoTime() - startTime);
+					}
+					processed.incrementAndGet();
+					
+					if(next != null) {
+						long blockTime = System.nanoTime();
+						next.queue.put(item);
+						blockedTime.addAndGet(System.nanoTime() - blockTime);
+					}
+				}
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				// Otherwise the next stage and finish() would wait forever
+				if(running.decrementAndGet() == 0 && next != null) {
+					try {
+						next.queue.put(END);
+					} catch(InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			}
+		}
+		
+		/** Returns the name of the stage */
+		public String getName() {
+			return name;
+		}
+		
+		/** Returns the number of threads of the stage */
+		public int getThreads() {
+			return threads;
+		}
+		
+		/** Returns the number of items processed successfully */
+		public long getProcessed() {
+			return processed.get();
+		}
+		
+		/** Returns the number of items that failed */
+		public long getFailed() {
+			return failed.get();
+		}
+		
+		/** Returns the number of items currently waiting for this stage */
+		public int getQueueSize() {
+			int size = queue.size();
+			return queue.contains(END) ? size - 1 : size;
+		}
+		
+		/** Returns the nanoseconds spent running the task, summed over all threads */
+		public long getBusyTime() {
+			return busyTime.get();
+		}
+		
+		/** Returns the nanoseconds spent waiting for the next stage, summed over all threads */
+		public long getBlockedTime() {
+			return blockedTime.get();
+		}
+		
+		/**
+		 * Returns the average time the task took for a single item
+		 * 
+		 * @return Average latency in milliseconds, 0 if no item was processed
+		 */
+		public double getAverageLatency() {
+			long count = processed.get() + failed.get();
+			return count == 0 ? 0 : busyTime.get() / 1e6 / count;
+		}
+		
+		/**
+		 * Returns the number of items the stage processed per second,
+		 * while its threads were busy
+		 * 
+		 * @return Throughput in items per second, 0 if no item was processed
+		 */
+		public double getThroughput() {
+			long time = busyTime.get();
+			return time == 0 ? 0 : (processed.get() + failed.get()) * threads * 1e9 / time;
+		}
+		
+		@Override
+		public String toString() {
+			return String.format("%s: %d processed, %d failed, %.1f ms/item, %.2f items/s, blocked %.2f s",
+					name, getProcessed(), getFailed(), getAverageLatency(), getThroughput(), getBlockedTime() / 1e9);
+		}
+		
+	}
+	
+}
@@ -0,0 +1,137 @@
+package itb2.engine;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the current progress, without notifying anybody. Filters may
+ * report their progress as often as they want, the progress indicator
+ * reads the latest value at its own pace.
+ * <p>
+ * Besides a single progress value, jobs with their own progress can be
+ * opened. As long as jobs are open, the progress is the average progress
+ * of all jobs. The steps of a job are counted per thread, so parallel
+ * tasks can report their steps without waiting for each other.
+ * 
+ * @author Micha Strauch
+ */
+public final class ProgressTracker {
+	
+	/** Progress hiding the progress indicator */
+	private static final double HIDDEN = 2;
+	
+	/** Progress set by {@link #set(double)}, as bits of a double */
+	private final AtomicLong progress = new AtomicLong(Double.doubleToLongBits(HIDDEN));
+	
+	/** Open jobs */
+	private final Set<Job> jobs = ConcurrentHashMap.newKeySet();
+	
+	/**
+	 * Sets the progress, see {@link CommunicationManager#inProgress(double)}
+	 * 
+	 * @param percent Current progress
+	 */
+	public void set(double percent) {
+		progress.set(Double.doubleToLongBits(percent));
+	}
+	
+	/**
+	 * Returns the current progress. This is the average progress of all
+	 * open jobs with known progress, or the progress set last if no jobs
+	 * are open.
+	 * 
+	 * @return Current progress, see {@link CommunicationManager#inProgress(double)}
+	 */
+	public double get() {
+		double sum = 0;
+		int count = 0;
+		boolean open = false;
+		
+		for(Job job : jobs) {
+			open = true;
+			double percent = job.get();
+			if(percent >= 0) {
+				sum += percent;
+				count++;
+			}
+		}
+		
+		if(count > 0)
+			return sum / count;
+		if(open)
+			return -1;
+		return Double.longBitsToDouble(progress.get());
+	}
+	
+	/**
+	 * Opens a job with the given number of steps. The job
+	 * adds to the progress until it is closed.
+	 * 
+	 * @param total Number of steps of the job, 0 if unknown
+	 * @return Opened job
+	 */
+	public Job open(long total) {
+		Job job = new Job(total);
+		jobs.add(job);
+		return job;
+	}
+	
+	/**
+	 * Job with its own progress
+	 * 
+	 * @author Micha Strauch
+	 */
+	public final class Job implements AutoCloseable {
+		
+		/** Number of steps of the job, 0 if unknown */
+		private final long total;
+		
+		/** Number of finished steps */
+		private final LongAdder done = new LongAdder();
+		
+		/**
+		 * Creates a job with the given number of steps
+		 * 
+		 * @param total Number of steps of the job, 0 if unknown
+		 */
+		private Job(long total) {
+			this.total = total;
+		}
+		
+		/**
+		 * Marks the given number of steps as finished.
+		 * May be called by several threads at the same time.
+		 * 
+		 * @param steps Number of finished steps
+		 */
+		public void step(long steps) {
+			done.add(steps);
+		}
+		
+		/** Marks one step as finished */
+		public void step() {
+			done.increment();
+		}
+		
+		/**
+		 * Returns the progress of this job
+		 * 
+		 * @return Progress between 0 and 1, -1 if unknown
+		 */
+		public double get() {
+			if(total <= 0)
+				return -1;
+			return Math.min(1, done.sum() / (double) total);
+		}
+		
+		/** Closes the job, it no longer adds to the progress */
+		@Override
+		public void close() {
+			jobs.remove(this);
+		}
+		
+	}
+	
+}
@@ -0,0 +1,259 @@
+package itb2.engine;
+
+import java.awt.Rectangle;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Splits work on an image into tiles and runs them in parallel
+ * on a shared {@link ForkJoinPool}. Used by tile based filters,
+ * but may be used by any code, that processes independent
+ * regions of an image.
+ * <p>
+ * The workers of the pool are never interrupted, so the tiles check
+ * the thread, that started them, instead: Once it is interrupted or
+ * its {@link FilterJob} is cancelled, no further tiles are started and
+ * a {@link CancellationException} is thrown.
+ *
+ * @author Micha Strauch
+ */
+public final class TileExecutor {
+	
+	/** Default width and height of a tile */
+	public static final int DEFAULT_TILE_SIZE = 256;
+	
+	/**
+	 * Bands and tiles start at a multiple of this many rows. Binary images
+	 * pack eight rows into a single byte, two bands or tiles sharing a byte
+	 * would overwrite the bits of each other.
+	 */
+	public static final int ROW_ALIGNMENT = 8;
+	
+	/** Pool running the tiles */
+	private static ForkJoinPool pool;
+	
+	/** Whether the work of the tile, currently run by this worker, was cancelled */
+	private static final ThreadLocal<BooleanSupplier> CANCELLED = new ThreadLocal<>();
+	
+	/**
+	 * Returns the pool used to run tiles. The pool uses one
+	 * thread per available processor.
+	 *
+	 * @return Pool running the tiles
+	 */
+	public static synchronized ForkJoinPool getPool() {
+		if(pool == null)
+			pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		return pool;
+	}
+	
+	/**
+	 * Calls the action once for every tile of the given area, using tiles
+	 * of {@link #DEFAULT_TILE_SIZE}. The tiles are processed in parallel,
+	 * this method returns after all tiles are finished.
+	 *
+	 * @param width  Width of the area
+	 * @param height Height of the area
+	 * @param action Action to call for every tile
+	 */
+	public static void forEachTile(int width, int height, Consumer<Rectangle> action) {
+		forEachTile(width, height, DEFAULT_TILE_SIZE, DEFAULT_TILE_SIZE, action);
+	}
+	
+	/**
+	 * Calls the action once for every tile of the given area. The tiles at
+	 * the right and bottom border might be smaller than the given tile size.
+	 * The tiles are processed in parallel, this method returns after all
+	 * tiles are finished. If a tile throws an exception, it is rethrown.
+	 * The tile height is rounded up to a multiple of {@link #ROW_ALIGNMENT}.
+	 *
+	 * @param width      Width of the area
+	 * @param height     Height of the area
+	 * @param tileWidth  Width of a tile
+	 * @param tileHeight Height of a tile
+	 * @param action     Action to call for every tile
+	 */
+	public static void forEachTile(int width, int height, int tileWidth, int tileHeight, Consumer<Rectangle> action) {
+		if(tileWidth < 1 || tileHeight < 1)
+			throw new IllegalArgumentException("Tile size must be positive");
+		
+		int alignedHeight = alignRows(tileHeight, height);
+		int columns = (width + tileWidth - 1) / tileWidth;
+		int rows = (height + alignedHeight - 1) / alignedHeight;
+		
+		forEach(columns * rows, index -> {
+			int x = (index % columns) * tileWidth;
+			int y = (index / columns) * alignedHeight;
+			action.accept(new Rectangle(x, y, Math.min(tileWidth, width - x), Math.min(alignedHeight, height - y)));
+		});
+	}
+	
+	/**
+	 * Calls the action for every row band of the given height. The action
+	 * receives the first row and the number of rows of the band. The band
+	 * height is rounded up to a multiple of {@link #ROW_ALIGNMENT}.
+	 *
+	 * @param height     Number of rows
+	 * @param bandHeight Number of rows per band
+	 * @param action     Action receiving first row and number of rows
+	 */
+	public static void forEachBand(int height, int bandHeight, BandAction action) {
+		if(bandHeight < 1)
+			throw new IllegalArgumentException("Band height must be positive");
+		
+		int rows = alignRows(bandHeight, height);
+		int bands = (height + rows - 1) / rows;
+		forEach(bands, index -> {
+			int row = index * rows;
+			action.accept(row, Math.min(rows, height - row));
+		});
+	}
+	
+	/**
+	 * Rounds the given number of rows up to a multiple of {@link #ROW_ALIGNMENT}.
+	 * More rows than the area has are not needed, so they are cut first.
+	 * 
+	 * @param rows   Number of rows of a band or tile, at least 1
+	 * @param height Height of the whole area
+	 * @return Aligned number of rows
+	 */
+	private static int alignRows(int rows, int height) {
+		rows = Math.min(rows, Math.max(1, height));
+		return (rows + ROW_ALIGNMENT - 1) / ROW_ALIGNMENT * ROW_ALIGNMENT;
+	}
+	
+	/**
+	 * Calls the action for every index between 0 (inclusive)
+	 * and count (exclusive) in parallel.
+	 *
+	 * @param count  Number of indices
+	 * @param action Action to call for every index
+	 * 
+	 * @throws CancellationException If the calling thread was interrupted
+	 *                               or its job cancelled meanwhile
+	 */
+	public static void forEach(int count, IntConsumer action) throws CancellationException {
+		if(count <= 0)
+			return;
+		
+		// Inside the pool, e.g. batch and tiles, the tile started by the caller is checked
+		BooleanSupplier cancelled = CANCELLED.get();
+		if(cancelled == null) {
+			Thread caller = Thread.currentThread();
+			FilterJob job = FilterJob.current();
+			cancelled = () -> caller.isInterrupted() || (job != null && job.isCancelled());
+		}
+		
+		if(count == 1) {
+			checkCancelled(cancelled);
+			action.accept(0);
+			return;
+		}
+		
+		Task task = new Task(0, count, action, cancelled);
+		if(isWorker())
+			task.invoke();
+		else
+			getPool().invoke(task);
+	}
+	
+	/**
+	 * Whether the thread, that started the tile currently run by
+	 * this thread, was interrupted or its job cancelled. Outside of
+	 * a tile, this checks whether the current thread was interrupted.
+	 * 
+	 * @return true, if the work should stop
+	 */
+	public static boolean isCancelled() {
+		BooleanSupplier cancelled = CANCELLED.get();
+		return cancelled == null ? Thread.currentThread().isInterrupted() : cancelled.getAsBoolean();
+	}
+	
+	/**
+	 * Throws a {@link CancellationException}, if the work was cancelled
+	 * 
+	 * @param cancelled Whether the work was cancelled
+	 */
+	private static void checkCancelled(BooleanSupplier cancelled) throws CancellationException {
+		if(cancelled.getAsBoolean())
+			throw new CancellationException("Tiles were cancelled");
+	}
+	
+	/** Whether the current thread is a worker of {@link #getPool()} */
+	private static boolean isWorker() {
+		Thread thread = Thread.currentThread();
+		return thread instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread) thread).getPool() == getPool();
+	}
+	
+	/**
+	 * Action for a band of rows
+	 *
+	 * @author Micha Strauch
+	 */
+	@FunctionalInterface
+	public static interface BandAction {
+		/**
+		 * Processes the given band.
+		 *
+		 * @param row    First row of the band
+		 * @param height Number of rows in the band
+		 */
+		public void accept(int row, int height);
+	}
+	
+	/**
+	 * Task splitting a range of indices in halves,
+	 * until only a single index is left.
+	 *
+	 * @author Micha Strauch
+	 */
+	private static class Task extends RecursiveAction {
+		private static final long serialVersionUID = 4963215837164830914L;
+		
+		/** Range of indices, from inclusive, to exclusive */
+		private final int from, to;
+		
+		/** Action to call */
+		private final IntConsumer action;
+		
+		/** Whether the caller was cancelled, checked before every index */
+		private final BooleanSupplier cancelled;
+		
+		/** Creates a task for the given range */
+		Task(int from, int to, IntConsumer action, BooleanSupplier cancelled) {
+			this.from = from;
+			this.to = to;
+			this.action = action;
+			this.cancelled = cancelled;
+		}
+		
+		@Override
+		protected void compute() {
+			checkCancelled(cancelled);
+			
+			if(to - from == 1) {
+				// Nested tiles and the filter check the caller of the outer tiles
+				BooleanSupplier previous = CANCELLED.get();
+				CANCELLED.set(cancelled);
+				try {
+					action.accept(from);
+				} finally {
+					CANCELLED.set(previous);
+				}
+				return;
+			}
+			
+			int middle = (from + to) >>> 1;
+			invokeAll(new Task(from, middle, action, cancelled), new Task(middle, to, action, cancelled));
+		}
+	}
+	
+	/** Should not be instantiated */
+	private TileExecutor() {}
+	
+}
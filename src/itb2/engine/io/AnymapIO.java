@@ -1,184 +1,811 @@
 package itb2.engine.io;
 
 import java.awt.image.BufferedImage;
-import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.EOFException;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 
+import itb2.image.BinaryImage;
+import itb2.image.GrayscaleImage;
 import itb2.image.Image;
+import itb2.image.ImageConverter;
 import itb2.image.ImageFactory;
+import itb2.image.LazyImage;
+import itb2.image.RgbImage;
+import itb2.image.shortprecision.AbstractShortImage;
 
+/**
+ * Loads and saves images as Portable Anymap (PBM, PGM and PPM).
+ * <p>
+ * Binary files are read and written in bands of rows. Files are read via
+ * a {@link FileChannel} in large blocks and each band is decoded straight
+ * into the image using its bulk functions. Samples with a maximum value
+ * above 255 (16 bit) are supported as well, they are loaded into short
+ * precision images. Short precision images are saved with 16 bit samples
+ * again, all other images with 8 bit samples.
+ *
+ * @author Micha Strauch
+ */
 public class AnymapIO {
-	private static final byte[] MAGIC_COMMENT = "P6\n# Created with ImageToolbox 2\n".getBytes(), SPACE = "\n".getBytes(), MAX_VALUE = "\n255\n".getBytes();
+	/** Comment written into the header of every saved file */
+	private static final String COMMENT = "# Created with ImageToolbox 2\n";
+	
+	/** Header values */
 	private static final int MAGIC_VALUE = 0, WIDTH = 1, HEIGHT = 2, MAX = 3;
 	
+	/** Number of bytes read or written at once */
+	private static final int BAND_BYTES = 1 << 16;
+	
+	/** Maximum line length of ASCII files */
+	private static final int LINE_LENGTH = 70;
+	
+	/**
+	 * Formats of the Portable Anymap
+	 *
+	 * @author Micha Strauch
+	 */
+	public enum Format {
+		/** ASCII bitmap */
+		P1,
+		/** ASCII graymap */
+		P2,
+		/** ASCII pixmap */
+		P3,
+		/** Binary bitmap */
+		P4,
+		/** Binary graymap */
+		P5,
+		/** Binary pixmap */
+		P6;
+		
+		/** Whether the samples are written as text */
+		public boolean isAscii() {
+			return this == P1 || this == P2 || this == P3;
+		}
+		
+		/** Whether this is a bitmap, containing only black and white */
+		public boolean isBitmap() {
+			return this == P1 || this == P4;
+		}
+		
+		/** Number of samples per pixel */
+		public int getChannels() {
+			return this == P3 || this == P6 ? 3 : 1;
+		}
+		
+		/** Returns the magic value of this format */
+		public int getMagicValue() {
+			return ordinal() + 1;
+		}
+		
+		/**
+		 * Returns the binary format fitting best to the given image:
+		 * {@link #P4} for binary images, {@link #P5} for grayscale
+		 * images and {@link #P6} for all other images.
+		 *
+		 * @param image Image to get format for
+		 * @return Binary format for the image
+		 */
+		public static Format of(Image image) {
+			if(image instanceof BinaryImage)
+				return P4;
+			if(image instanceof GrayscaleImage)
+				return P5;
+			return P6;
+		}
+	}
+	
+	/**
+	 * Saves the image into the given file, using the binary format
+	 * fitting best to the image, see {@link Format#of(Image)}.
+	 *
+	 * @param image Image to save
+	 * @param file  File to save image into
+	 *
+	 * @throws IOException If the image could not be written
+	 */
 	public static void save(Image image, File file) throws IOException {
-		try(BufferedOutputStream output = new BufferedOutputStream(new FileOutputStream(file))) {
-			save(image, output);
+		save(image, file, Format.of(image));
+	}
+	
+	/**
+	 * Saves the image into the given file, using the given format.
+	 * If needed, the image is converted first.
+	 *
+	 * @param image  Image to save
+	 * @param file   File to save image into
+	 * @param format Format to use
+	 *
+	 * @throws IOException If the image could not be written
+	 */
+	public static void save(Image image, File file, Format format) throws IOException {
+		try(BufferedOutputStream output = new BufferedOutputStream(new FileOutputStream(file), BAND_BYTES)) {
+			save(image, output, format);
 		}
 	}
 	
+	/**
+	 * Writes the image into the given stream, using the binary format
+	 * fitting best to the image, see {@link Format#of(Image)}.
+	 *
+	 * @param image  Image to save
+	 * @param output Stream to write image to
+	 *
+	 * @throws IOException If the image could not be written
+	 */
 	public static void save(Image image, OutputStream output) throws IOException {
-		BufferedImage buff = image.asBufferedImage();
-		int width = buff.getWidth(), height = buff.getHeight();
-		
-		// --- HEADER ---
-		output.write(MAGIC_COMMENT);
-		output.write(Integer.toString(width).getBytes());
-		output.write(SPACE);
-		output.write(Integer.toString(height).getBytes());
-		output.write(MAX_VALUE);
-		
-		// --- VALUES ---
-		for(int row = 0; row < height; row++) {
-			for(int col = 0; col < width; col++) {
-				int val = buff.getRGB(col, row);
+		save(image, output, Format.of(image));
+	}
+	
+	/**
+	 * Writes the image into the given stream, using the given format.
+	 * If needed, the image is converted first.
+	 *
+	 * @param image  Image to save
+	 * @param output Stream to write image to
+	 * @param format Format to use
+	 *
+	 * @throws IOException If the image could not be written
+	 */
+	public static void save(Image image, OutputStream output, Format format) throws IOException {
+		image = prepare(image, format);
+		int max = getMaxValue(image, format);
+		writeHeader(output, format, image.getWidth(), image.getHeight(), max);
+		writeRows(output, format, image, 0, image.getHeight(), max);
+		output.flush();
+	}
+	
+	/**
+	 * Converts the image into the type needed to be written in the
+	 * given format, i.e. into a binary image for bitmaps and into a
+	 * grayscale image for graymaps. Other images are returned as they are.
+	 *
+	 * @param image  Image to write
+	 * @param format Format to write image in
+	 * @return Image to write
+	 */
+	static Image prepare(Image image, Format format) {
+		if(format.isBitmap() && !(image instanceof BinaryImage))
+			return ImageConverter.convert(image, BinaryImage.class);
+		if(format.getChannels() == 1 && !format.isBitmap() && !(image instanceof GrayscaleImage))
+			return ImageConverter.convert(image, GrayscaleImage.class);
+		return image;
+	}
+	
+	/**
+	 * Returns the maximum value of the samples to write the given image
+	 * with. Grayscale and RGB images of short precision keep their 16 bit,
+	 * all other images are written with 8 bit samples.
+	 *
+	 * @param image  Image to write, see {@link #prepare(Image, Format)}
+	 * @param format Format to write image in
+	 * @return 65535 for 16 bit samples, 255 for 8 bit samples, 1 for bitmaps
+	 */
+	static int getMaxValue(Image image, Format format) {
+		if(format.isBitmap())
+			return 1;
+		
+		// Other images are written via their 8 bit rendering
+		boolean samples = format.getChannels() == 1 || image instanceof RgbImage;
+		return samples && LazyImage.unwrap(image) instanceof AbstractShortImage ? 65535 : 255;
+	}
+	
+	/**
+	 * Writes the header of a file with the given format and size
+	 *
+	 * @param output Stream to write header to
+	 * @param format Format of the file
+	 * @param width  Width of the image
+	 * @param height Height of the image
+	 * @param max    Maximum value of a sample, see {@link #getMaxValue(Image, Format)}
+	 *
+	 * @throws IOException If the header could not be written
+	 */
+	static void writeHeader(OutputStream output, Format format, int width, int height, int max) throws IOException {
+		StringBuilder header = new StringBuilder();
+		header.append(format.name()).append('\n').append(COMMENT);
+		header.append(width).append('\n').append(height).append('\n');
+		if(!format.isBitmap())
+			header.append(max).append('\n');
+		output.write(header.toString().getBytes(StandardCharsets.US_ASCII));
+	}
+	
+	/**
+	 * Writes the samples of the given rows, band by band. The image
+	 * must already be of the type needed by the format, see
+	 * {@link #prepare(Image, Format)}.
+	 *
+	 * @param output Stream to write samples to
+	 * @param format Format of the file
+	 * @param image  Image to write
+	 * @param first  First row to write
+	 * @param count  Number of rows to write
+	 * @param max    Maximum value of a sample, as written into the header
+	 *
+	 * @throws IOException If the samples could not be written
+	 */
+	static void writeRows(OutputStream output, Format format, Image image, int first, int count, int max) throws IOException {
+		if(max > 255) {
+			writeWideRows(output, format, image, first, count);
+			return;
+		}
+		
+		int width = image.getWidth(), end = first + count;
+		int channels = format.getChannels();
+		int bandRows = Math.max(1, Math.min(count, BAND_BYTES / Math.max(1, width * channels)));
+		byte[][] planes = new byte[channels][];
+		int[][] samples = new int[channels][];
+		byte[] raw = new byte[format == Format.P4 ? bandRows * ((width + 7) / 8) : bandRows * width * channels];
+		BufferedImage buffered = null;
+		int[] rgb = null;
+		int column = 0;
+		
+		for(int row = first; row < end; row += bandRows) {
+			int rows = Math.min(bandRows, end - row);
+			
+			// Collect samples of this band
+			if(channels == 3 && !(image instanceof RgbImage)) {
+				if(buffered == null) {
+					buffered = image.asBufferedImage();
+					rgb = new int[bandRows * width];
+					for(int chan = 0; chan < 3; chan++)
+						planes[chan] = new byte[bandRows * width];
+				}
+				buffered.getRGB(0, row, width, rows, rgb, 0, width);
+				for(int i = 0; i < rows * width; i++) {
+					planes[0][i] = (byte)(rgb[i] >>> 16);
+					planes[1][i] = (byte)(rgb[i] >>> 8);
+					planes[2][i] = (byte)(rgb[i]);
+				}
+			} else {
+				for(int chan = 0; chan < channels; chan++)
+					planes[chan] = image.getBytes(0, row, width, rows, chan, planes[chan]);
+			}
+			
+			// Write samples of this band
+			if(format.isAscii()) {
+				for(int chan = 0; chan < channels; chan++) {
+					if(samples[chan] == null)
+						samples[chan] = new int[bandRows * width];
+					for(int i = 0; i < rows * width; i++)
+						samples[chan][i] = format.isBitmap()
+								? planes[chan][i] == 0 ? 1 : 0 // Black is stored as 1
+								: planes[chan][i] & 0xFF;
+				}
+				column = writeAscii(output, samples, rows * width, width, column);
+			} else if(format == Format.P4) {
+				int rowBytes = (width + 7) / 8;
+				Arrays.fill(raw, 0, rows * rowBytes, (byte)0);
+				for(int y = 0; y < rows; y++) {
+					for(int x = 0; x < width; x++) {
+						if(planes[0][y * width + x] == 0) // Black is stored as 1
+							raw[y * rowBytes + (x >> 3)] |= 0x80 >>> (x & 7);
+					}
+				}
+				output.write(raw, 0, rows * rowBytes);
+			} else if(channels == 1) {
+				output.write(planes[0], 0, rows * width);
+			} else {
+				for(int i = 0, j = 0; i < rows * width; i++) {
+					raw[j++] = planes[0][i];
+					raw[j++] = planes[1][i];
+					raw[j++] = planes[2][i];
+				}
+				output.write(raw, 0, rows * width * 3);
+			}
+		}
+	}
+	
+	/**
+	 * Writes the samples of the given rows with 16 bit, band by band. Every
+	 * value is multiplied by {@link AbstractShortImage#SCALE}, so the samples
+	 * of a short precision image are written without any loss.
+	 *
+	 * @param output Stream to write samples to
+	 * @param format Format of the file, not a bitmap
+	 * @param image  Image to write
+	 * @param first  First row to write
+	 * @param count  Number of rows to write
+	 *
+	 * @throws IOException If the samples could not be written
+	 */
+	private static void writeWideRows(OutputStream output, Format format, Image image, int first, int count) throws IOException {
+		// Later bands of a RowBandSink might be of another type
+		int channels = format.getChannels();
+		if(channels == 3 && !(image instanceof RgbImage))
+			image = ImageConverter.convert(image, RgbImage.class);
+		
+		int width = image.getWidth(), end = first + count;
+		int bandRows = Math.max(1, Math.min(count, BAND_BYTES / Math.max(1, width * channels * 2)));
+		double[][] values = new double[channels][];
+		int[][] samples = new int[channels][bandRows * width];
+		byte[] raw = new byte[bandRows * width * channels * 2];
+		int column = 0;
+		
+		for(int row = first; row < end; row += bandRows) {
+			int rows = Math.min(bandRows, end - row);
+			
+			for(int chan = 0; chan < channels; chan++) {
+				values[chan] = image.getValues(0, row, width, rows, chan, values[chan]);
+				for(int i = 0; i < rows * width; i++) {
+					long sample = Math.round(values[chan][i] * AbstractShortImage.SCALE);
+					samples[chan][i] = (int) Math.max(0, Math.min(65535, sample));
+				}
+			}
+			
+			if(format.isAscii()) {
+				column = writeAscii(output, samples, rows * width, width, column);
+			} else {
+				// Most significant byte first
+				for(int i = 0, j = 0; i < rows * width; i++) {
+					for(int chan = 0; chan < channels; chan++) {
+						raw[j++] = (byte)(samples[chan][i] >>> 8);
+						raw[j++] = (byte)samples[chan][i];
+					}
+				}
+				output.write(raw, 0, rows * width * channels * 2);
+			}
+		}
+	}
+	
+	/**
+	 * Writes the given samples as text. Lines are wrapped before
+	 * they exceed {@link #LINE_LENGTH} characters.
+	 *
+	 * @param output  Stream to write samples to
+	 * @param samples Samples of each channel, as written into the file
+	 * @param pixels  Number of pixels to write
+	 * @param width   Width of the image, every row starts a new line
+	 * @param column  Characters in the current line, before writing
+	 * @return Characters in the current line, after writing
+	 *
+	 * @throws IOException If the samples could not be written
+	 */
+	private static int writeAscii(OutputStream output, int[][] samples, int pixels, int width, int column) throws IOException {
+		StringBuilder text = new StringBuilder(pixels * 4 * samples.length);
+		
+		for(int i = 0; i < pixels; i++) {
+			for(int chan = 0; chan < samples.length; chan++) {
+				String sample = Integer.toString(samples[chan][i]);
 				
-				output.write((val >>> 16) & 0xFF);
-				output.write((val >>>  8) & 0xFF);
-				output.write((val       ) & 0xFF);
+				if(column > 0 && column + sample.length() + 1 > LINE_LENGTH) {
+					text.append('\n');
+					column = 0;
+				} else if(column > 0) {
+					text.append(' ');
+					column++;
+				}
+				text.append(sample);
+				column += sample.length();
+			}
+			
+			if((i + 1) % width == 0) {
+				text.append('\n');
+				column = 0;
 			}
 		}
 		
-		// --- FINAL ---
-		output.flush();
+		output.write(text.toString().getBytes(StandardCharsets.US_ASCII));
+		return column;
 	}
 	
+	/**
+	 * Loads an image from the given file. The file is read
+	 * in large blocks via a {@link FileChannel}.
+	 *
+	 * @param file File to load image from
+	 * @return Loaded image
+	 *
+	 * @throws IOException If the file could not be read or is corrupted
+	 */
 	public static Image load(File file) throws IOException {
-		try(BufferedInputStream input = new BufferedInputStream(new FileInputStream(file))) {
-			return load(input);
+		try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			return load(new ChannelSource(channel));
 		}
 	}
 	
+	/**
+	 * Loads an image from the given stream. Only the bytes
+	 * of the image are read, the stream may be used afterwards.
+	 *
+	 * @param input Stream to load image from
+	 * @return Loaded image
+	 *
+	 * @throws IOException If the stream could not be read or is corrupted
+	 */
 	public static Image load(InputStream input) throws IOException {
-		int[] header = new int[4];
+		return load(new StreamSource(input));
+	}
+	
+	/**
+	 * Loads an image from the given source.
+	 *
+	 * @param input Source to load image from
+	 * @return Loaded image
+	 *
+	 * @throws IOException If the source could not be read or is corrupted
+	 */
+	private static Image load(Source input) throws IOException {
+		Header header = Header.read(input);
+		Image image = header.createImage(header.height);
+		readRows(input, header, image, 0, header.height);
+		return image;
+	}
+	
+	/**
+	 * Reads the samples of the next rows from the source into the image.
+	 *
+	 * @param input  Source positioned at the first sample of the next row
+	 * @param header Header of the file
+	 * @param image  Image to store samples in, created by {@link Header#createImage(int)}
+	 * @param first  First row of the image to store samples in
+	 * @param count  Number of rows to read
+	 *
+	 * @throws IOException If the source could not be read or is corrupted
+	 */
+	static void readRows(Source input, Header header, Image image, int first, int count) throws IOException {
+		if(header.format.isAscii())
+			loadAscii(input, image, first, count, header.format, header.getFactor());
+		else
+			loadBinary(input, image, first, count, header.format, header.max > 255, header.getFactor());
+	}
+	
+	/**
+	 * Reads the samples of a binary file into the image, band by band.
+	 *
+	 * @param input   Source positioned at the first sample
+	 * @param image   Image to store samples in
+	 * @param first   First row of the image to store samples in
+	 * @param count   Number of rows to read
+	 * @param format  Binary format of the file
+	 * @param twoByte Whether every sample uses two bytes
+	 * @param factor  Factor to multiply every sample with
+	 *
+	 * @throws IOException If the source could not be read
+	 */
+	private static void loadBinary(Source input, Image image, int first, int count, Format format, boolean twoByte, double factor) throws IOException {
+		int width = image.getWidth(), end = first + count, channels = format.getChannels();
+		int sampleBytes = twoByte ? 2 : 1;
+		int rowBytes = format == Format.P4 ? (width + 7) / 8 : width * channels * sampleBytes;
+		int bandRows = Math.max(1, Math.min(count, BAND_BYTES / rowBytes));
 		
-		if(input.read() != 'P')
-			throw new IOException("Not a Portable Anymap");
+		byte[] raw = new byte[bandRows * rowBytes];
+		byte[][] bytePlanes = new byte[channels][bandRows * width];
+		double[][] doublePlanes = null;
+		boolean direct = format == Format.P4 || (!twoByte && factor == 1);
+		if(!direct)
+			doublePlanes = new double[channels][bandRows * width];
 		
-		// --- HEADER ---
-		boolean newline = true;
-		int val = 0, mode = 0;
-		while(true) {
+		for(int row = first; row < end; row += bandRows) {
+			int rows = Math.min(bandRows, end - row);
+			input.readFully(raw, rows * rowBytes);
+			int pixels = rows * width;
+			
+			if(format == Format.P4) {
+				byte[] plane = bytePlanes[0];
+				for(int y = 0; y < rows; y++) {
+					int offset = y * rowBytes;
+					for(int x = 0; x < width; x++) {
+						int bit = (raw[offset + (x >> 3)] >>> (7 - (x & 7))) & 1;
+						plane[y * width + x] = (byte)(1 - bit); // Black is stored as 1
+					}
+				}
+				image.setBytes(0, row, width, rows, BinaryImage.BINARY, plane);
+			} else if(direct && channels == 1) {
+				image.setBytes(0, row, width, rows, 0, raw);
+			} else if(direct) {
+				for(int i = 0, j = 0; i < pixels; i++)
+					for(int chan = 0; chan < channels; chan++)
+						bytePlanes[chan][i] = raw[j++];
+				for(int chan = 0; chan < channels; chan++)
+					image.setBytes(0, row, width, rows, chan, bytePlanes[chan]);
+			} else {
+				for(int i = 0, j = 0; i < pixels; i++) {
+					for(int chan = 0; chan < channels; chan++) {
+						int sample = raw[j++] & 0xFF;
+						if(twoByte)
+							sample = (sample << 8) | (raw[j++] & 0xFF);
+						doublePlanes[chan][i] = sample * factor;
+					}
+				}
+				for(int chan = 0; chan < channels; chan++)
+					image.setValues(0, row, width, rows, chan, doublePlanes[chan]);
+			}
+		}
+	}
+	
+	/**
+	 * Reads the samples of an ASCII file into the image, row by row.
+	 *
+	 * @param input  Source positioned at the first sample
+	 * @param image  Image to store samples in
+	 * @param first  First row of the image to store samples in
+	 * @param count  Number of rows to read
+	 * @param format ASCII format of the file
+	 * @param factor Factor to multiply every sample with
+	 *
+	 * @throws IOException If the source could not be read or is corrupted
+	 */
+	private static void loadAscii(Source input, Image image, int first, int count, Format format, double factor) throws IOException {
+		int width = image.getWidth(), end = first + count, channels = format.getChannels();
+		double[][] planes = new double[channels][width];
+		
+		int row = first, col = 0, chan = 0, val = 0;
+		boolean digit = false;
+		
+		while(row < end) {
 			int b = input.read();
-			if(b < 0)
-				throw new IOException("Image file corrupted");
-			
-			// Skip comments
-			if(newline && b == '#') {
-				while((b = input.read()) != '\n')
-					if(b < 0)
-						throw new IOException("Image file corrupted");
+			
+			if(b >= 0 && Character.isDigit(b)) {
+				val *= 10;
+				val += (b - '0');
+				digit = true;
+				
+				// Samples of bitmaps do not need to be separated
+				if(!format.isBitmap())
+					continue;
+			} else if(b >= 0 && !Character.isWhitespace(b)) {
+				throw new IOException("Image file corrupted, unknown symbol: '" + (char)b + "'");
+			} else if(!digit) {
+				if(b < 0)
+					throw new IOException("EOF too early");
 				continue;
 			}
 			
-			newline = b == '\n';
+			// Store sample
+			if(format.isBitmap())
+				planes[chan][col] = val == 0 ? 1 : 0; // Black is stored as 1
+			else
+				planes[chan][col] = val * factor;
+			val = 0;
+			digit = false;
 			
-			// Handle whitespace
-			if(Character.isWhitespace(b)) {
-				header[mode] = val;
-				val = 0;
-				if(++mode > 3) // Graymap | Pixmap
-					break;
-				if(mode > 2 && (header[MAGIC_VALUE] == 1 || header[MAGIC_VALUE] == 4)) // Bitmap
-					break;
-				continue;
+			if(++chan >= channels) {
+				chan = 0;
+				if(++col >= width) {
+					col = 0;
+					for(int c = 0; c < channels; c++)
+						image.setValues(0, row, width, 1, c, planes[c]);
+					row++;
+				}
 			}
 			
-			// Check if digit
-			if(Character.isDigit(b)) {
-				val *= 10;
-				val += (b - '0');
-			} else
-				throw new IOException("Image file corrupted, unknown symbol: '" + (char)b + "'");
+			if(b < 0 && row < end)
+				throw new IOException("EOF too early");
 		}
+	}
+	
+	/**
+	 * Header of a Portable Anymap
+	 *
+	 * @author Micha Strauch
+	 */
+	static class Header {
+		/** Format of the file */
+		final Format format;
 		
-		// --- PREPARATION ---
-		if(header[MAGIC_VALUE] < 1 || header[MAGIC_VALUE] > 6)
-			throw new IOException("Unknown magic value: P" + header[MAGIC_VALUE]);
-		
-		boolean ascii = header[MAGIC_VALUE] < 4;
-		double factor = 255;
-		if(header[MAGIC_VALUE] != 1 && header[MAGIC_VALUE] != 4) // Not a bitmap
-			factor = 255. / header[MAX];
+		/** Size of the image */
+		final int width, height;
 		
-		ImageFactory factory = (factor == 255 || factor == 1)
-				? ImageFactory.bytePrecision() : ImageFactory.doublePrecision(); 
-		Image image;
-		int channels;
+		/** Maximum value of a sample, 1 for bitmaps */
+		final int max;
 		
-		if(header[MAGIC_VALUE] == 3 || header[MAGIC_VALUE] == 6) { // Pixmap
-			image = factory.rgb(header[WIDTH], header[HEIGHT]);
-			channels = 3;
-		} else { // Bitmap or graymap
-			image = factory.gray(header[WIDTH], header[HEIGHT]);
-			channels = 1;
+		/**
+		 * Creates a new header
+		 *
+		 * @param format Format of the file
+		 * @param width  Width of the image
+		 * @param height Height of the image
+		 * @param max    Maximum value of a sample
+		 */
+		private Header(Format format, int width, int height, int max) {
+			this.format = format;
+			this.width = width;
+			this.height = height;
+			this.max = max;
 		}
 		
-		// --- VALUES ---
-		if(ascii) {
-			int row = 0, col = 0, chan = 0;
-			boolean digit = false;
-			val = 0;
+		/**
+		 * Reads the header from the given source. Afterwards the
+		 * source is positioned at the first sample.
+		 *
+		 * @param input Source to read header from
+		 * @return Header of the file
+		 *
+		 * @throws IOException If the source could not be read or is corrupted
+		 */
+		static Header read(Source input) throws IOException {
+			int[] header = new int[4];
+			
+			if(input.read() != 'P')
+				throw new IOException("Not a Portable Anymap");
 			
+			boolean digit = false;
+			int val = 0, mode = 0;
 			while(true) {
 				int b = input.read();
-				if(b < 0) {
-					if(digit && row + 1 == header[HEIGHT] && col + 1 == header[WIDTH] && chan + 1 == channels) {
-						// Storing last digit
-						double value = val * factor;
-						image.setValue(col, row, chan, value);
+				if(b < 0)
+					throw new IOException("Image file corrupted");
+				
+				// Skip comments
+				if(b == '#' && !digit) {
+					while((b = input.read()) != '\n')
+						if(b < 0)
+							throw new IOException("Image file corrupted");
+					continue;
+				}
+				
+				// Handle whitespace
+				if(Character.isWhitespace(b)) {
+					if(!digit && mode > 0)
+						continue;
+					header[mode] = val;
+					val = 0;
+					digit = false;
+					if(++mode > 3) // Graymap | Pixmap
 						break;
-					} else
-						throw new IOException("EOF too early");
+					if(mode > 2 && (header[MAGIC_VALUE] == 1 || header[MAGIC_VALUE] == 4)) // Bitmap
+						break;
+					continue;
 				}
 				
+				// Check if digit
 				if(Character.isDigit(b)) {
 					val *= 10;
 					val += (b - '0');
 					digit = true;
-				} else if(Character.isWhitespace(b)) {
-					if(digit) {
-						digit = false;
-						
-						double value = val * factor;
-						image.setValue(col, row, chan, value);
-						
-						val = 0;
-						
-						if(++chan >= channels) {
-							chan = 0;
-							if(++col >= header[WIDTH]) {
-								col = 0;
-								if(++row >= header[HEIGHT])
-									break;
-							}
-						}
-					}
 				} else
 					throw new IOException("Image file corrupted, unknown symbol: '" + (char)b + "'");
 			}
-		} else {
-			for(int row = 0; row < header[HEIGHT]; row++) {
-				for(int col = 0; col < header[WIDTH]; col++) {
-					for(int chan = 0; chan < channels; chan++) {
-						int b = input.read();
-						if(b < 0)
-							throw new IOException("EOF too early");
-						
-						double value = b * factor;
-						image.setValue(col, row, chan, value);
-					}
-				}
+			
+			if(header[MAGIC_VALUE] < 1 || header[MAGIC_VALUE] > 6)
+				throw new IOException("Unknown magic value: P" + header[MAGIC_VALUE]);
+			if(header[WIDTH] < 1 || header[HEIGHT] < 1)
+				throw new IOException("Image file corrupted, invalid size: " + header[WIDTH] + "x" + header[HEIGHT]);
+			
+			Format format = Format.values()[header[MAGIC_VALUE] - 1];
+			if(format.isBitmap())
+				header[MAX] = 1;
+			else if(header[MAX] < 1 || header[MAX] > 65535)
+				throw new IOException("Image file corrupted, invalid maximum value: " + header[MAX]);
+			
+			return new Header(format, header[WIDTH], header[HEIGHT], header[MAX]);
+		}
+		
+		/** Factor to multiply every sample with, to get values up to 255 */
+		double getFactor() {
+			return format.isBitmap() ? 1 : 255. / max;
+		}
+		
+		/**
+		 * Creates an empty image fitting to this header, with the width
+		 * of the file and the given number of rows.
+		 *
+		 * @param rows Number of rows of the image
+		 * @return Empty image
+		 */
+		Image createImage(int rows) {
+			if(format.isBitmap())
+				return ImageFactory.bytePrecision().binary(width, rows);
+			
+			// 16 bit samples fit into short precision without loss
+			double factor = getFactor();
+			ImageFactory factory = (factor == 255 || factor == 1) ? ImageFactory.bytePrecision()
+					: max > 255 ? ImageFactory.shortPrecision() : ImageFactory.doublePrecision();
+			
+			if(format.getChannels() == 3)
+				return factory.rgb(width, rows);
+			return factory.gray(width, rows);
+		}
+	}
+	
+	/**
+	 * Source of the bytes of an image
+	 *
+	 * @author Micha Strauch
+	 */
+	static interface Source {
+		/**
+		 * Reads a single byte
+		 *
+		 * @return Byte or -1 at the end of the source
+		 * @throws IOException If the source could not be read
+		 */
+		public int read() throws IOException;
+		
+		/**
+		 * Reads exactly the given number of bytes
+		 *
+		 * @param buffer Buffer to read bytes into
+		 * @param length Number of bytes to read
+		 * @throws IOException If the source could not be read or ended too early
+		 */
+		public void readFully(byte[] buffer, int length) throws IOException;
+	}
+	
+	/**
+	 * Source reading from a stream, without reading ahead
+	 *
+	 * @author Micha Strauch
+	 */
+	static class StreamSource implements Source {
+		/** Stream to read from */
+		private final InputStream input;
+		
+		/** Creates a source reading from the given stream */
+		StreamSource(InputStream input) {
+			this.input = input;
+		}
+		
+		@Override
+		public int read() throws IOException {
+			return input.read();
+		}
+		
+		@Override
+		public void readFully(byte[] buffer, int length) throws IOException {
+			if(input.readNBytes(buffer, 0, length) != length)
+				throw new EOFException("EOF too early");
+		}
+	}
+	
+	/**
+	 * Source reading large blocks from a file channel
+	 *
+	 * @author Micha Strauch
+	 */
+	static class ChannelSource implements Source {
+		/** Channel to read from */
+		private final FileChannel channel;
+		
+		/** Bytes read from the channel, but not yet consumed */
+		private final ByteBuffer buffer = ByteBuffer.allocate(BAND_BYTES);
+		
+		/** Creates a source reading from the given channel */
+		ChannelSource(FileChannel channel) {
+			this.channel = channel;
+			buffer.flip();
+		}
+		
+		@Override
+		public int read() throws IOException {
+			if(!buffer.hasRemaining() && !fill())
+				return -1;
+			return buffer.get() & 0xFF;
+		}
+		
+		@Override
+		public void readFully(byte[] array, int length) throws IOException {
+			int offset = Math.min(length, buffer.remaining());
+			buffer.get(array, 0, offset);
+			
+			// Read remaining bytes directly into the array
+			ByteBuffer target = ByteBuffer.wrap(array, offset, length - offset);
+			while(target.hasRemaining()) {
+				if(channel.read(target) < 0)
+					throw new EOFException("EOF too early");
 			}
 		}
 		
-		return image;
+		/** Reads the next block, returns false at the end of the channel */
+		private boolean fill() throws IOException {
+			buffer.clear();
+			int read;
+			do {
+				read = channel.read(buffer);
+			} while(read == 0);
+			buffer.flip();
+			return read > 0;
+		}
 	}
-
+	
 }
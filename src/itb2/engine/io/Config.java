@@ -3,21 +3,23 @@ package itb2.engine.io;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
+import javax.swing.SwingUtilities;
+
+import itb2.engine.CommunicationManager;
 import itb2.engine.Controller;
 import itb2.filter.Filter;
 import itb2.image.Image;
+import itb2.image.LazyImage;
 
 /**
  * Writes current state (opened images) to file, or loads it from file.
@@ -28,22 +30,61 @@ public class Config implements Serializable {
 	private static final long serialVersionUID = -4106334935531297234L;
 	
 	/**
-	 * Saves the current ITB2 state
+	 * Saves the current ITB2 state, using the {@link SessionIO} format
 	 * 
 	 * @param file File to save state in
 	 * 
 	 * @throws IOException If something goes wrong
 	 */
 	public static void saveState(File file) throws IOException {
-		try(ObjectOutputStream output = new ObjectOutputStream(new FileOutputStream(file))) {
-			output.writeObject(new Config());
+		saveState(file, false);
+	}
+	
+	/**
+	 * Saves the current ITB2 state, using the {@link SessionIO} format
+	 * 
+	 * @param file     File to save state in
+	 * @param compress Whether to compress the images
+	 * 
+	 * @throws IOException If something goes wrong
+	 */
+	public static void saveState(File file, boolean compress) throws IOException {
+		// Placeholders have to be loaded, before their file is overwritten
+		List<Image> images = new ArrayList<>();
+		try {
+			for(Image image : Controller.getImageManager().getImageList())
+				images.add(LazyImage.unwrap(image));
+		} catch(Exception e) {
+			throw new IOException("Could not save config to file '" + file.getAbsolutePath() + "'", e);
+		}
+		
+		try(SessionIO.Writer writer = new SessionIO.Writer(file, compress)) {
+			List<File> filterFiles = new ArrayList<>();
+			for(Filter filter : Controller.getFilterManager().getFilters()) try {
+				filterFiles.add(locate(filter));
+			} catch(Exception e) {
+				// Skip filter
+			}
+			
+			writer.writeFiles(ImageIO.getLastImages());
+			writer.writeFiles(FilterIO.getLastFilters());
+			writer.writeFiles(filterFiles);
+			for(Image image : images)
+				writer.writeImage(image);
 		} catch(Exception e) {
 			throw new IOException("Could not save config to file '" + file.getAbsolutePath() + "'", e);
 		}
 	}
 	
 	/**
-	 * Loads the last saved ITB2 state
+	 * Loads the last saved ITB2 state. Besides the {@link SessionIO}
+	 * format, files saved by older versions using Java serialization
+	 * can be loaded as well.
+	 * <p>
+	 * Images of a {@link SessionIO} file are restored as {@link LazyImage}
+	 * placeholders, so this returns right after reading the index. Their
+	 * pixels are loaded on a background thread, every loaded image replaces
+	 * its placeholder inside the image list.
 	 * 
 	 * @param file File to load state from
 	 * 
@@ -51,56 +92,121 @@ public class Config implements Serializable {
 	 * @throws IOException If something goes wrong
 	 */
 	public static void loadState(File file) throws FileNotFoundException, IOException {
-		try(ObjectInputStream input = new ObjectInputStream(new FileInputStream(file))) {
-			input.readObject();
-		} catch(FileNotFoundException e) {
-			throw e;
+		if(!file.isFile())
+			throw new FileNotFoundException(file.getAbsolutePath());
+		
+		try {
+			if(!SessionIO.isSessionFile(file)) {
+				try(ObjectInputStream input = new ObjectInputStream(new FileInputStream(file))) {
+					input.readObject();
+				}
+				return;
+			}
+			
+			SessionIO.Index index = SessionIO.readIndex(file);
+			restoreLastImages(index.nextFiles());
+			restoreLastFilters(index.nextFiles());
+			
+			List<Filter> filters = new ArrayList<>();
+			for(File filterFile : index.nextFiles()) try {
+				filters.add(FilterIO.loadClass(filterFile));
+			} catch(Exception e) {
+				//Ignore filter
+			}
+			restoreFilters(filters);
+			
+			// Only show placeholders, the pixels are loaded in the background
+			List<LazyImage> placeholders = new ArrayList<>();
+			for(SessionIO.Entry entry : index.getEntries()) {
+				String type = entry.getClassName().substring(entry.getClassName().lastIndexOf('.') + 1);
+				placeholders.add(new LazyImage(entry::load, entry.getWidth(), entry.getHeight(),
+						entry.getChannelCount(), entry.getName(), type));
+			}
+			restoreImages(new ArrayList<>(placeholders));
+			loadInBackground(placeholders);
 		} catch(Exception e) {
 			throw new IOException("Could not load config from file '" + file.getAbsolutePath() + "'", e);
 		}
 	}
 	
 	/**
-	 * Writes config to stream
+	 * Loads config from stream, written by older versions of the ITB2
 	 * 
-	 * @param stream Stream to write to
+	 * @param stream Stream to load from
 	 * 
 	 * @throws IOException If something goes wrong
+	 * @throws ClassNotFoundException If something goes wrong
 	 */
-	private void writeObject(ObjectOutputStream stream) throws IOException {
-		// Collect data
-		List<Image> images = Controller.getImageManager().getImageList();
-		Set<Filter> filters = Controller.getFilterManager().getFilters();
-		Set<FilterClass> filterClasses = new HashSet<>();
-		for(Filter filter : filters) try {
-			Class<?> clazz = filter.getClass();
-			if(filter instanceof FilterWrapper)
-				clazz = ((FilterWrapper) filter).getWrappedClass();
-			filterClasses.add(new FilterClass(clazz));
-		} catch(Exception e) {
-			// Skip filter
+	private void readObject(ObjectInputStream stream) throws IOException, ClassNotFoundException {
+		// First read list of last opened images
+		restoreLastImages((List<?>) stream.readObject());
+		
+		// Then read list of last opened filters
+		restoreLastFilters((List<?>) stream.readObject());
+		
+		// Then read filters, as they might contain image types
+		Set<?> filterPaths = (Set<?>) stream.readObject();
+		List<Filter> filters = new ArrayList<>();
+		for(Object obj : filterPaths) {
+			if(obj instanceof FilterClass) try {
+				filters.add(((FilterClass) obj).getInstance());
+			} catch(Exception e) {
+				//Ignore filter
+			}
 		}
-		List<File> lastImages = new ArrayList<>(ImageIO.getLastImages());
-		List<File> lastFilters = new ArrayList<>(FilterIO.getLastFilters());
+		restoreFilters(filters);
 		
-		// Write data
-		stream.writeObject(lastImages);
-		stream.writeObject(lastFilters);
-		stream.writeObject(filterClasses);
-		stream.writeObject(images);
+		// Then read images
+		List<Image> images = new ArrayList<>();
+		for(Object image : (List<?>) stream.readObject()) {
+			if(image instanceof Image)
+				images.add((Image) image);
+		}
+		restoreImages(images);
 	}
 	
 	/**
-	 * Loads config from stream
-	 * 
-	 * @param stream Stream to load from
+	 * Loads the pixels of the placeholders one after another on a
+	 * background thread. Every loaded image replaces its placeholder
+	 * inside the image list, on the event dispatch thread. Placeholders
+	 * of images that could not be loaded are removed from the list.
 	 * 
-	 * @throws IOException If something goes wrong
-	 * @throws ClassNotFoundException If something goes wrong
+	 * @param placeholders Images to load
 	 */
-	private void readObject(ObjectInputStream stream) throws IOException, ClassNotFoundException {
-		// First read list of last opened images
-		List<?> lastImages = (List<?>) stream.readObject();
+	private static void loadInBackground(List<LazyImage> placeholders) {
+		if(placeholders.isEmpty())
+			return;
+		
+		Thread thread = new Thread(() -> {
+			for(LazyImage placeholder : placeholders) {
+				try {
+					placeholder.get();
+				} catch(RuntimeException e) {
+					CommunicationManager com = Controller.getCommunicationManager();
+					if(com != null)
+						com.warning("Could not load image '%s': %s", placeholder.getName(), e.getMessage());
+				}
+				
+				SwingUtilities.invokeLater(() -> {
+					List<Image> imageList = Controller.getImageManager().getImageList();
+					int index = imageList.indexOf(placeholder);
+					if(index < 0)
+						return;
+					
+					if(placeholder.isFailed())
+						imageList.remove(index);
+					else
+						imageList.set(index, placeholder.get());
+				});
+			}
+		}, "SessionLoader");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		thread.start();
+	}
+	
+	/** Replaces the list of last opened images */
+	private static void restoreLastImages(Collection<?> lastImages) {
 		List<File> lastImagesList = ImageIO.getLastImages();
 		lastImagesList.clear();
 		for(Object image : lastImages) {
@@ -108,9 +214,10 @@ public class Config implements Serializable {
 				lastImagesList.add((File)image);
 			}
 		}
-		
-		// Then read list of last opened filters
-		List<?> lastFilters = (List<?>) stream.readObject();
+	}
+	
+	/** Replaces the list of last opened filters */
+	private static void restoreLastFilters(Collection<?> lastFilters) {
 		List<File> lastFiltersList = FilterIO.getLastFilters();
 		lastFiltersList.clear();
 		for(Object filter : lastFilters) {
@@ -118,33 +225,44 @@ public class Config implements Serializable {
 				lastFiltersList.add((File)filter);
 			}
 		}
-		
-		// Then read filters, as they might contain image types
-		Set<?> filterPaths = (Set<?>) stream.readObject();
+	}
+	
+	/** Replaces the loaded filters */
+	private static void restoreFilters(List<Filter> filters) {
 		Controller.getFilterManager().getFilters().clear();
-		for(Object obj : filterPaths) {
-			if(obj instanceof FilterClass) try {
-				FilterClass filterClass = (FilterClass) obj;
-				Filter filter = filterClass.getInstance();
-				Controller.getFilterManager().getFilters().add(filter);
-			} catch(Exception e) {
-				//Ignore filter
-			}
-		}
-		
-		// Then read images
-		List<?> images = (List<?>) stream.readObject();
+		Controller.getFilterManager().getFilters().addAll(filters);
+	}
+	
+	/** Replaces the opened images */
+	private static void restoreImages(List<Image> images) {
 		List<Image> imageList = Controller.getImageManager().getImageList();
 		imageList.clear();
-		for(Object image : images) {
-			if(image instanceof Image) {
-				imageList.add((Image)image);
-			}
-		}
+		imageList.addAll(images);
+	}
+	
+	/**
+	 * Tries to determine the location of the class file of the given filter
+	 * 
+	 * @param filter Filter to locate
+	 * @return Class file of the filter
+	 * 
+	 * @throws IOException If the class file could not be determined
+	 * @throws URISyntaxException If the class file could not be determined
+	 */
+	private static File locate(Filter filter) throws IOException, URISyntaxException {
+		Class<?> clazz = filter.getClass();
+		if(filter instanceof FilterWrapper)
+			clazz = ((FilterWrapper) filter).getWrappedClass();
+		
+		URL url = clazz.getResource(clazz.getSimpleName() + ".class");
+		if(url == null)
+			throw new IOException("Can't determine location of class " + clazz.getSimpleName());
+		
+		return new File(url.toURI());
 	}
 	
 	/**
-	 * Helper class for storing loaded filters 
+	 * Helper class for storing loaded filters, used by older versions
 	 *
 	 * @author Micha Strauch
 	 */
@@ -0,0 +1,84 @@
+package itb2.engine.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+/**
+ * Class loader of a single filter. Classes are searched in the folders
+ * of the filter first, and only afterwards in the class path of the
+ * ITB2. This way a changed filter can be loaded again by a new loader,
+ * even if an old version of it is on the class path. Once the old filter
+ * is not used anymore, its loader and classes can be unloaded.
+ * <p>
+ * The classes of Java and the ITB2 are always taken from the class path,
+ * as they are shared by all filters.
+ * 
+ * @author Micha Strauch
+ */
+class FilterClassLoader extends URLClassLoader {
+	
+	static {
+		registerAsParallelCapable();
+	}
+	
+	/**
+	 * Creates a class loader for the given folders
+	 * 
+	 * @param folders Folders containing the filter and its dependencies
+	 * 
+	 * @throws IOException If a folder can't be converted into an URL
+	 */
+	FilterClassLoader(File... folders) throws IOException {
+		super(toURLs(folders), FilterClassLoader.class.getClassLoader());
+	}
+	
+	@Override
+	protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+		synchronized(getClassLoadingLock(name)) {
+			Class<?> clazz = findLoadedClass(name);
+			if(clazz == null && !isShared(name)) {
+				try {
+					clazz = findClass(name);
+				} catch(ClassNotFoundException e) {
+					// Not part of the filter, ask the parent
+				}
+			}
+			
+			if(clazz == null)
+				return super.loadClass(name, resolve);
+			
+			if(resolve)
+				resolveClass(clazz);
+			return clazz;
+		}
+	}
+	
+	/**
+	 * Whether the given class is shared by all filters,
+	 * and must therefore be loaded by the parent
+	 * 
+	 * @param name Binary name of the class
+	 * @return True, if the class is shared
+	 */
+	private static boolean isShared(String name) {
+		return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("itb2.");
+	}
+	
+	/**
+	 * Converts the folders into URLs
+	 * 
+	 * @param folders Folders to convert
+	 * @return URLs of the folders
+	 * 
+	 * @throws IOException If a folder can't be converted
+	 */
+	private static URL[] toURLs(File... folders) throws IOException {
+		URL[] urls = new URL[folders.length];
+		for(int i = 0; i < folders.length; i++)
+			urls[i] = folders[i].toURI().toURL();
+		return urls;
+	}
+	
+}
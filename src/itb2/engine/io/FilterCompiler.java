@@ -0,0 +1,350 @@
+package itb2.engine.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.JavaFileObject.Kind;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * Compiles filters (.java) into a cache directory. Every source gets its
+ * own folder inside the cache, named after the hash of its content, so an
+ * unchanged source is only compiled once, even across restarts.
+ * <p>
+ * Sources that are not cached yet are compiled together by a single
+ * compiler task. The classes are kept in memory and only written to the
+ * cache, if the compilation was successful. Other sources the filters
+ * depend on are compiled like before, next to their source. The hash also
+ * covers the other sources in the folder of the filter, so changing a
+ * helper (or another filter in the same folder) compiles the filter again.
+ * Helpers in other folders, e.g. in a package below the filter, are not
+ * covered and need the filter to be changed as well.
+ * 
+ * @author Micha Strauch
+ */
+class FilterCompiler {
+	
+	/** Directory containing the compiled filters */
+	private final File cacheDirectory;
+	
+	/** Whether the compiled filters should be deleted on exit */
+	private final boolean temporary;
+	
+	/**
+	 * Creates a compiler using the given cache directory
+	 * 
+	 * @param cacheDirectory Directory to store compiled filters in,
+	 *                       null to use a temporary directory
+	 * 
+	 * @throws IOException If the temporary directory could not be created
+	 */
+	FilterCompiler(File cacheDirectory) throws IOException {
+		this.temporary = cacheDirectory == null;
+		if(temporary) {
+			cacheDirectory = Files.createTempDirectory("itb2-filters").toFile();
+			cacheDirectory.deleteOnExit();
+		}
+		this.cacheDirectory = cacheDirectory;
+	}
+	
+	/**
+	 * Returns the folder containing the compiled classes of the given source.
+	 * The name depends on the source and the other sources next to it.
+	 * 
+	 * @param source Source of the filter
+	 * @return Folder of the compiled classes, might not exist yet
+	 * 
+	 * @throws IOException If the source could not be read
+	 */
+	File getClassFolder(File source) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch(NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+		
+		// Classes compiled by a different Java version might not be loadable
+		digest.update(Integer.toString(Runtime.version().feature()).getBytes());
+		digest.update(Files.readAllBytes(source.toPath()));
+		
+		// Helpers next to the filter are compiled together with it
+		File[] helpers = source.getAbsoluteFile().getParentFile().listFiles((dir, name) -> name.endsWith(".java"));
+		if(helpers != null) {
+			Arrays.sort(helpers);
+			for(File helper : helpers) {
+				if(helper.getName().equals(source.getName()))
+					continue;
+				digest.update(helper.getName().getBytes(StandardCharsets.UTF_8));
+				digest.update(Files.readAllBytes(helper.toPath()));
+			}
+		}
+		
+		StringBuilder hash = new StringBuilder();
+		for(byte b : digest.digest())
+			hash.append(String.format("%02x", b));
+		
+		return new File(cacheDirectory, hash.toString());
+	}
+	
+	/**
+	 * Compiles the given sources, unless they are already cached
+	 * 
+	 * @param sources Sources of the filters
+	 * @return Exception for every source that could not be compiled,
+	 *         empty if all sources were compiled
+	 * 
+	 * @throws IOException If no compiler is available
+	 */
+	synchronized Map<File, IOException> compile(List<File> sources) throws IOException {
+		Map<File, IOException> failures = new HashMap<>();
+		Map<File, File> pending = new LinkedHashMap<>();
+		
+		for(File source : sources) try {
+			File folder = getClassFolder(source);
+			if(!new File(folder, getClassName(source) + ".class").isFile())
+				pending.put(source, folder);
+		} catch(IOException e) {
+			failures.put(source, e);
+		}
+		
+		if(pending.isEmpty())
+			return failures;
+		
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		if(compiler == null)
+			throw new IOException("No compiler found");
+		
+		Map<File, String> errors = compile(compiler, pending);
+		
+		// A single broken source fails the whole task, so try the others again
+		if(!errors.isEmpty()) {
+			pending.keySet().removeAll(errors.keySet());
+			if(!pending.isEmpty())
+				errors.putAll(compile(compiler, pending));
+		}
+		
+		for(Map.Entry<File, String> error : errors.entrySet())
+			failures.put(error.getKey(), new IOException("Could not compile the file\n" + error.getValue()));
+		
+		return failures;
+	}
+	
+	/**
+	 * Compiles the given sources in a single task and writes the classes
+	 * into their folder, if all sources could be compiled.
+	 * 
+	 * @param compiler Compiler to use
+	 * @param sources  Sources to compile, mapped to their class folder
+	 * @return Errors of every source, that could not be compiled
+	 * 
+	 * @throws IOException If the classes could not be written
+	 */
+	private Map<File, String> compile(JavaCompiler compiler, Map<File, File> sources) throws IOException {
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+		Map<URI, File> units = new HashMap<>();
+		List<ClassFile> classes = new ArrayList<>();
+		
+		try(StandardJavaFileManager standardManager = compiler.getStandardFileManager(diagnostics, null, null)) {
+			Iterable<? extends JavaFileObject> files = standardManager.getJavaFileObjectsFromFiles(sources.keySet());
+			Iterator<File> sourceFiles = sources.keySet().iterator();
+			for(JavaFileObject file : files)
+				units.put(file.toUri(), sourceFiles.next());
+			
+			ForwardingJavaFileManager<StandardJavaFileManager> memoryManager = new ForwardingJavaFileManager<>(standardManager) {
+				@Override
+				public JavaFileObject getJavaFileForOutput(Location location, String className, Kind kind, FileObject sibling) throws IOException {
+					File source = sibling == null ? null : units.get(sibling.toUri());
+					if(kind != Kind.CLASS || source == null)
+						return super.getJavaFileForOutput(location, className, kind, sibling);
+					
+					ClassFile file = new ClassFile(className, source);
+					classes.add(file);
+					return file;
+				}
+			};
+			
+			if(!compiler.getTask(null, memoryManager, diagnostics, null, null, files).call()) {
+				Map<File, String> errors = new LinkedHashMap<>();
+				for(Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+					if(diagnostic.getKind() != Diagnostic.Kind.ERROR)
+						continue;
+					
+					File source = diagnostic.getSource() == null ? null : units.get(diagnostic.getSource().toUri());
+					String message = String.format("Line %d: %s", diagnostic.getLineNumber(), diagnostic.getMessage(null));
+					if(source == null) {
+						// Error inside another source, blame all of them
+						for(File unit : sources.keySet())
+							errors.merge(unit, message, (a, b) -> a + "\n" + b);
+					} else {
+						errors.merge(source, message, (a, b) -> a + "\n" + b);
+					}
+				}
+				
+				if(errors.isEmpty())
+					for(File unit : sources.keySet())
+						errors.put(unit, "Unknown error");
+				return errors;
+			}
+		}
+		
+		for(Map.Entry<File, File> source : sources.entrySet()) {
+			List<ClassFile> sourceClasses = new ArrayList<>();
+			for(ClassFile file : classes)
+				if(file.source.equals(source.getKey()))
+					sourceClasses.add(file);
+			write(source.getValue(), sourceClasses);
+		}
+		
+		return new HashMap<>();
+	}
+	
+	/**
+	 * Writes the classes into the given folder. The classes are written into
+	 * a temporary folder first, which is renamed afterwards. This way the
+	 * folder is either complete or missing, even if another instance
+	 * compiles the same source at the same time.
+	 * 
+	 * @param folder  Folder to write classes into
+	 * @param classes Classes to write
+	 * 
+	 * @throws IOException If the classes could not be written
+	 */
+	private void write(File folder, List<ClassFile> classes) throws IOException {
+		Files.createDirectories(cacheDirectory.toPath());
+		Path tmp = Files.createTempDirectory(cacheDirectory.toPath(), folder.getName() + ".");
+		
+		try {
+			for(ClassFile file : classes) {
+				Path path = tmp.resolve(file.getName());
+				Files.createDirectories(path.getParent());
+				Files.write(path, file.bytes.toByteArray());
+			}
+			
+			try {
+				Files.move(tmp, folder.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			} catch(AtomicMoveNotSupportedException e) {
+				Files.move(tmp, folder.toPath());
+			}
+		} catch(IOException e) {
+			// Fine, if compiled by another instance in the meantime
+			if(!folder.isDirectory())
+				throw e;
+		} finally {
+			delete(tmp);
+		}
+		
+		if(temporary)
+			deleteOnExit(folder.toPath());
+	}
+	
+	/**
+	 * Deletes the given file or folder, including its content, if it exists
+	 * 
+	 * @param path File or folder to delete
+	 * 
+	 * @throws IOException If not successful
+	 */
+	private static void delete(Path path) throws IOException {
+		if(!Files.exists(path))
+			return;
+		
+		try(Stream<Path> files = Files.walk(path)) {
+			for(Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator)
+				Files.delete(file);
+		}
+	}
+	
+	/**
+	 * Marks the given folder and its content to be deleted on exit
+	 * 
+	 * @param path Folder to delete
+	 * 
+	 * @throws IOException If the folder could not be read
+	 */
+	private static void deleteOnExit(Path path) throws IOException {
+		// Files are deleted in reverse order, so the folders are deleted last
+		try(Stream<Path> files = Files.walk(path)) {
+			files.forEach(file -> file.toFile().deleteOnExit());
+		}
+	}
+	
+	/**
+	 * Returns the name of the filter class inside the given source
+	 * 
+	 * @param source Source of the filter
+	 * @return Name of the class
+	 */
+	static String getClassName(File source) {
+		return source.getName().replaceFirst("\\.java$", "");
+	}
+	
+	/**
+	 * Compiled class, kept in memory
+	 * 
+	 * @author Micha Strauch
+	 */
+	private static class ClassFile extends SimpleJavaFileObject {
+		
+		/** Binary name of the class */
+		private final String className;
+		
+		/** Source of the filter, the class belongs to */
+		private final File source;
+		
+		/** Content of the class file */
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		
+		/**
+		 * Creates an empty class file
+		 * 
+		 * @param className Binary name of the class
+		 * @param source    Source of the filter, the class belongs to
+		 */
+		ClassFile(String className, File source) {
+			super(URI.create("memory:///" + className.replace('.', '/') + Kind.CLASS.extension), Kind.CLASS);
+			this.className = className;
+			this.source = source;
+		}
+		
+		@Override
+		public String getName() {
+			return className.replace('.', '/') + Kind.CLASS.extension;
+		}
+		
+		@Override
+		public OutputStream openOutputStream() {
+			bytes.reset();
+			return bytes;
+		}
+		
+	}
+	
+}
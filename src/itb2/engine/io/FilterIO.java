@@ -2,13 +2,12 @@ package itb2.engine.io;
 
 import java.io.File;
 import java.io.IOException;
-import java.lang.reflect.Method;
-import java.net.URL;
-import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
-import javax.tools.JavaCompiler;
 import javax.tools.ToolProvider;
 
 import itb2.data.ObservableLinkedList;
@@ -20,8 +19,11 @@ import itb2.filter.Filter;
  * @author Micha Strauch
  */
 public final class FilterIO {
-	/** Map of existing class loaders */
-	private static final Map<File, ClassLoader> loaders = new HashMap<>();
+	/** Directory to cache compiled filters in, null for a temporary directory */
+	private static File cacheDirectory = new File("ITB2-filters");
+	
+	/** Compiler for filters, created on first use */
+	private static FilterCompiler compiler;
 	
 	/** Last opened filters */
 	private static final ObservableLinkedList<File> lastFilters = new ObservableLinkedList<>();
@@ -37,11 +39,14 @@ public final class FilterIO {
 	}
 	
 	/**
-	 * Adds the given file to the list of last loaded filters
+	 * Adds the given file to the list of last loaded filters, e.g. after
+	 * the filter was created by {@link #reload(File)} on another thread.
+	 * The list is shown by the GUI, so this is called on the event
+	 * dispatch thread.
 	 * 
 	 * @param file Last loaded filters
 	 */
-	private static void loaded(File file) {
+	public static void loaded(File file) {
 		synchronized (lastFilters) {
 			lastFilters.remove(file);
 			lastFilters.push(file);
@@ -70,23 +75,64 @@ public final class FilterIO {
 	}
 	
 	/**
-	 * Tries to compile a filter (.java)
+	 * Sets the directory, compiled filters are cached in. An unchanged
+	 * filter is compiled only once, as long as the directory is kept.
+	 * 
+	 * @param directory Directory to cache compiled filters in,
+	 *                  null to use a temporary directory
+	 */
+	public static synchronized void setCacheDirectory(File directory) {
+		cacheDirectory = directory;
+		compiler = null;
+	}
+	
+	/** Returns the directory, compiled filters are cached in, null for a temporary directory */
+	public static synchronized File getCacheDirectory() {
+		return cacheDirectory;
+	}
+	
+	/** Returns the compiler, creating it if needed */
+	private static synchronized FilterCompiler getCompiler() throws IOException {
+		if(compiler == null)
+			compiler = new FilterCompiler(cacheDirectory);
+		return compiler;
+	}
+	
+	/**
+	 * Compiles the given filters (.java), so they can be loaded quickly
+	 * afterwards. All filters, that are not compiled yet, are compiled
+	 * together. Other files are ignored.
+	 * <p>
+	 * Compiling might take some time, so this should not be called on
+	 * the event dispatch thread.
+	 * 
+	 * @param files Files of the filters
+	 * @return Exception for every filter that could not be compiled,
+	 *         empty if all filters were compiled
+	 * @throws IOException If there is no compiler
+	 */
+	public static Map<File, IOException> compile(List<File> files) throws IOException {
+		List<File> sources = new ArrayList<>();
+		for(File file : files)
+			if(file.getName().toLowerCase().endsWith(".java"))
+				sources.add(file);
+		
+		if(sources.isEmpty())
+			return new HashMap<>();
+		
+		return getCompiler().compile(sources);
+	}
+	
+	/**
+	 * Tries to compile a filter (.java). The compiled classes are cached,
+	 * so an unchanged filter is not compiled again.
 	 * 
 	 * @param file File to compile
 	 * @return Compiled filter
 	 * @throws IOException If not successful
 	 */
 	public static Filter loadJava(File file) throws IOException {
-		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
-		
-		if(compiler == null)
-			throw new IOException("No compiler found");
-		
-		if(compiler.run(null, null, null, file.getPath()) != 0)
-			throw new IOException("Could not compile the file");
-		
-		String className = file.getName().replaceFirst(".java$", "");
-		Filter filter = loadClass(file.getParentFile(), className);
+		Filter filter = reload(file);
 		
 		loaded(file);
 		return filter;
@@ -100,13 +146,38 @@ public final class FilterIO {
 	 * @throws IOException If not successful
 	 */
 	public static Filter loadClass(File file) throws IOException {
-		String className = file.getName().replaceFirst(".class$", "");
-		Filter filter = loadClass(file.getParentFile(), className);
+		Filter filter = reload(file);
 		
 		loaded(file);
 		return filter;
 	}
 	
+	/**
+	 * Loads the filter from the given file (.java or .class) again, e.g.
+	 * after the file was changed. Every call uses a new class loader, so the
+	 * returned filter always uses the current version of its classes. Unlike
+	 * {@link #load(File)} the file is not added to the last opened filters.
+	 * 
+	 * @param file File to load filter from
+	 * @return Loaded filter
+	 * @throws IOException If not successful
+	 */
+	public static Filter reload(File file) throws IOException {
+		File folder = file.getAbsoluteFile().getParentFile();
+		if(!file.getName().toLowerCase().endsWith(".java"))
+			return loadClass(folder, file.getName().replaceFirst(".class$", ""));
+		
+		FilterCompiler compiler = getCompiler();
+		
+		IOException failure = compiler.compile(Collections.singletonList(file)).get(file);
+		if(failure != null)
+			throw failure;
+		
+		// Classes the filter depends on are still compiled next to the source
+		String className = FilterCompiler.getClassName(file);
+		return loadClass(className, compiler.getClassFolder(file), folder);
+	}
+	
 	/**
 	 * Tries to load a compiled filter with given class name from given folder
 	 * 
@@ -116,17 +187,51 @@ public final class FilterIO {
 	 * @throws IOException If not successful
 	 */
 	public static Filter loadClass(File folder, String className) throws IOException {
+		return loadClass(className, folder);
+	}
+	
+	/**
+	 * Tries to load a compiled filter with given class name from the given folders
+	 * 
+	 * @param className Name of filter
+	 * @param folders   Folders to find filter and its dependencies in
+	 * @return Loaded filter
+	 * @throws IOException If not successful
+	 */
+	private static Filter loadClass(String className, File... folders) throws IOException {
 		Class<?> clazz;
 		try {
-			clazz = Class.forName(className);
+			clazz = Class.forName(className, true, new FilterClassLoader(folders));
 		} catch(ClassNotFoundException e) {
-			try {
-				clazz = getLoader(folder).loadClass(className);
-			} catch(ClassNotFoundException ee) {
-				throw new IOException("Could not find class '" + className + "'");
-			}
+			throw new IOException("Could not find class '" + className + "'");
+		} catch(LinkageError e) {
+			throw new IOException("Could not load class '" + className + "': " + e.getMessage(), e);
 		}
 		
+		return instantiate(clazz);
+	}
+	
+	/**
+	 * Creates a new instance of the given filter, e.g. for another thread
+	 * 
+	 * @param filter Filter to create another instance of
+	 * @return New instance of the filter
+	 * @throws IOException If not successful
+	 */
+	public static Filter createInstance(Filter filter) throws IOException {
+		if(filter instanceof FilterWrapper)
+			return instantiate(((FilterWrapper) filter).getWrappedClass());
+		return instantiate(filter.getClass());
+	}
+	
+	/**
+	 * Creates an instance of the given class, wrapping old filters
+	 * 
+	 * @param clazz Class of the filter
+	 * @return New instance of the filter
+	 * @throws IOException If not successful
+	 */
+	private static Filter instantiate(Class<?> clazz) throws IOException {
 		try {
 			Object o = clazz.newInstance();
 			if(o instanceof Filter)
@@ -137,34 +242,6 @@ public final class FilterIO {
 		}
 	}
 	
-	/**
-	 * Returns the class loader for given folder
-	 * 
-	 * @param folder Folder to get class loader for
-	 * @return Class loader for given folder
-	 * @throws IOException If not successful
-	 */
-	private static ClassLoader getLoader(File folder) throws IOException {
-		if(!loaders.containsKey(folder)) {
-			URL url = folder.toURI().toURL();
-			
-			URLClassLoader loader;
-			try {
-				// Try using the system class loader
-				loader = (URLClassLoader) ClassLoader.getSystemClassLoader();
-				Method addURL = URLClassLoader.class.getDeclaredMethod("addURL", URL.class);
-				addURL.setAccessible(true);
-				addURL.invoke(loader, url);
-			} catch(Exception e) {
-				// Use a custom loader instead
-				loader = new URLClassLoader(new URL[]{url});
-			}
-			
-			loaders.put(folder, loader);
-		}
-		return loaders.get(folder);
-	}
-	
 	/**
 	 * Tries to wrap the given object in a {@link FilterWrapper}
 	 * <p>
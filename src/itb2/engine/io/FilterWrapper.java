@@ -12,6 +12,7 @@ import itb2.filter.FilterProperty;
 import itb2.image.Image;
 import itb2.image.ImageConverter;
 import itb2.image.ImageFactory;
+import itb2.image.ImageUtils;
 import itb2.image.RgbImage;
 
 public class FilterWrapper implements Filter {
@@ -90,21 +91,12 @@ public class FilterWrapper implements Filter {
 		int width = image.getWidth();
 		int height = image.getHeight();
 		
-		double[][][] matrix = new double[3][width][height];
-		for(int x = 0; x < width; x++)
-			for(int y = 0; y < height; y++)
-				for(int c = 0; c < 3; c++)
-					matrix[c][x][y] = image.getValue(x, y, c);
-		
-		return matrix;
+		return ImageUtils.getValues(image, new double[3][width][height]);
 	}
 	
 	private Image toImage(double[][][] matrix, int width, int height) {
 		Image image = ImageFactory.doublePrecision().rgb(width, height);
-		for(int x = 0; x < width; x++)
-			for(int y = 0; y < height; y++)
-				for(int c = 0; c < 3; c++)
-					image.setValue(x, y, c, matrix[c][x][y]);
+		ImageUtils.setValues(image, matrix);
 		return image;
 	}
 
@@ -93,6 +93,8 @@ public final class ImageIO {
 			image = AnymapIO.load(file);
 		else {
 			BufferedImage buffered = javax.imageio.ImageIO.read(file);
+			if(buffered == null)
+				throw new IOException("Unknown image format: " + file.getName());
 			image = ImageFactory.bytePrecision().rgb(buffered);
 		}
 		
@@ -134,6 +136,12 @@ public final class ImageIO {
 	 */
 	public static void save(Image image, String format, File file) throws IOException {
 		if(format.equalsIgnoreCase("ppm"))
+			AnymapIO.save(image, file, AnymapIO.Format.P6);
+		else if(format.equalsIgnoreCase("pgm"))
+			AnymapIO.save(image, file, AnymapIO.Format.P5);
+		else if(format.equalsIgnoreCase("pbm"))
+			AnymapIO.save(image, file, AnymapIO.Format.P4);
+		else if(format.equalsIgnoreCase("pnm"))
 			AnymapIO.save(image, file);
 		else if( !javax.imageio.ImageIO.write(image.asBufferedImage(), format, file) )
 			throw new IOException("Unknown format: " + format);
@@ -0,0 +1,143 @@
+package itb2.engine.io;
+
+import java.io.File;
+import java.io.IOException;
+
+import itb2.engine.CommunicationManager;
+import itb2.engine.Controller;
+import itb2.engine.io.AnymapIO.Format;
+import itb2.filter.BandFilter;
+import itb2.filter.RequireImageType;
+import itb2.image.Image;
+import itb2.image.ImageConverter;
+
+/**
+ * Runs a {@link BandFilter} on a Portable Anymap, without loading the
+ * whole image. The image is read band by band from a {@link RowBandSource},
+ * every band is filtered together with the additional rows the filter
+ * needs, and the result is written to a {@link RowBandSink} right away.
+ * <p>
+ * At no time more than one band of input, including the additional rows,
+ * and one band of output are held in memory, no matter how high the image is.
+ * 
+ * @author Micha Strauch
+ */
+public final class RowBandProcessor {
+	
+	/** Default number of rows per band */
+	public static final int DEFAULT_BAND_HEIGHT = 256;
+	
+	/**
+	 * Filters the input file into the output file, using bands
+	 * of the default height and the binary format fitting best
+	 * to the filtered bands.
+	 * 
+	 * @param input  Portable Anymap to filter
+	 * @param output File to write the filtered image to
+	 * @param filter Filter to run
+	 * 
+	 * @throws IOException If a file could not be read or written
+	 */
+	public static void process(File input, File output, BandFilter filter) throws IOException {
+		process(input, output, filter, DEFAULT_BAND_HEIGHT, null);
+	}
+	
+	/**
+	 * Filters the input file into the output file, band by band.
+	 * If the filter requires an image type, every band is converted
+	 * before it is filtered.
+	 * 
+	 * @param input      Portable Anymap to filter
+	 * @param output     File to write the filtered image to
+	 * @param filter     Filter to run
+	 * @param bandHeight Number of rows filtered at once
+	 * @param format     Format of the output, null to choose by the filtered bands
+	 * 
+	 * @throws IOException If a file could not be read or written
+	 */
+	public static void process(File input, File output, BandFilter filter, int bandHeight, Format format) throws IOException {
+		if(bandHeight < 1)
+			throw new IllegalArgumentException("Band height must be positive: " + bandHeight);
+		
+		int halo = Math.max(0, filter.getHalo());
+		RequireImageType require = filter.getClass().getAnnotation(RequireImageType.class);
+		CommunicationManager com = Controller.getCommunicationManager();
+		
+		try(RowBandSource source = new RowBandSource(input)) {
+			int height = source.getHeight();
+			RowBandSink sink = null;
+			
+			try {
+				// Rows [windowStart, windowStart + window.getHeight()) of the input
+				Image window = null;
+				int windowStart = 0;
+				
+				for(int start = 0; start < height; start += bandHeight) {
+					int end = Math.min(height, start + bandHeight);
+					int from = Math.max(0, start - halo), to = Math.min(height, end + halo);
+					
+					// Keep the rows of the previous window, which are still needed
+					Image next = source.createBand(to - from);
+					int kept = 0;
+					if(window != null) {
+						kept = Math.max(0, windowStart + window.getHeight() - from);
+						copyRows(window, from - windowStart, next, kept);
+					}
+					source.read(next, kept, to - from - kept);
+					window = next;
+					windowStart = from;
+					
+					Image band = require == null ? window : ImageConverter.convert(window, require.value());
+					Image filtered = filter.filterBand(band, start - from, to - end);
+					if(filtered == null || filtered.getHeight() != end - start)
+						throw new IllegalStateException("Filter returned " + (filtered == null ? "no band" : filtered.getHeight() + " rows")
+								+ " instead of " + (end - start) + " rows");
+					
+					if(sink == null)
+						sink = new RowBandSink(output, filtered.getWidth(), height, format);
+					sink.write(filtered);
+					
+					if(com != null)
+						com.inProgress(end / (double) height);
+				}
+			} catch(IOException | RuntimeException e) {
+				if(sink != null) {
+					try {
+						sink.close();
+					} catch(IOException suppressed) {
+						e.addSuppressed(suppressed);
+					}
+				}
+				throw e;
+			} finally {
+				if(com != null)
+					com.inProgress(2);
+			}
+			
+			sink.close();
+		}
+	}
+	
+	/**
+	 * Copies the rows of one band into the top of another band
+	 * 
+	 * @param source Band to copy rows from
+	 * @param first  First row of the source to copy
+	 * @param target Band to copy rows into
+	 * @param rows   Number of rows to copy
+	 */
+	private static void copyRows(Image source, int first, Image target, int rows) {
+		if(rows <= 0)
+			return;
+		
+		double[] buffer = null;
+		for(int chan = 0; chan < source.getChannelCount(); chan++) {
+			buffer = source.getValues(0, first, source.getWidth(), rows, chan, buffer);
+			target.setValues(0, 0, target.getWidth(), rows, chan, buffer);
+		}
+	}
+	
+	/** Should not be instantiated */
+	private RowBandProcessor() {}
+	
+}
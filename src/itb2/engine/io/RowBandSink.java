@@ -0,0 +1,126 @@
+package itb2.engine.io;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import itb2.engine.io.AnymapIO.Format;
+import itb2.image.Image;
+
+/**
+ * Writes a Portable Anymap band by band. The size of the image has
+ * to be known in advance, afterwards the bands are written top to
+ * bottom, each one as soon as it is available.
+ * 
+ * @author Micha Strauch
+ */
+public class RowBandSink implements Closeable {
+	
+	/** Stream to write the file to */
+	private final OutputStream output;
+	
+	/** Size of the image */
+	private final int width, height;
+	
+	/** Format of the file, null until the first band is written */
+	private Format format;
+	
+	/** Maximum value of a sample, chosen by the first band */
+	private int max;
+	
+	/** Next row to write */
+	private int row;
+	
+	/**
+	 * Creates a file with the given size. The format is chosen
+	 * by the first band, see {@link Format#of(Image)}.
+	 * 
+	 * @param file   File to write
+	 * @param width  Width of the image
+	 * @param height Height of the image
+	 * 
+	 * @throws IOException If the file could not be created
+	 */
+	public RowBandSink(File file, int width, int height) throws IOException {
+		this(file, width, height, null);
+	}
+	
+	/**
+	 * Creates a file with the given size and format
+	 * 
+	 * @param file   File to write
+	 * @param width  Width of the image
+	 * @param height Height of the image
+	 * @param format Format of the file, null to choose by the first band
+	 * 
+	 * @throws IOException If the file could not be created
+	 */
+	public RowBandSink(File file, int width, int height, Format format) throws IOException {
+		if(width < 1 || height < 1)
+			throw new IllegalArgumentException("Invalid size: " + width + "x" + height);
+		
+		this.output = new BufferedOutputStream(new FileOutputStream(file), 1 << 16);
+		this.width = width;
+		this.height = height;
+		this.format = format;
+	}
+	
+	/** Returns the format of the file, or null if it is not chosen yet */
+	public Format getFormat() {
+		return format;
+	}
+	
+	/** Returns the next row to be written */
+	public int getRow() {
+		return row;
+	}
+	
+	/** Returns the number of rows not written yet */
+	public int getRemainingRows() {
+		return height - row;
+	}
+	
+	/**
+	 * Writes the given band below the previous one.
+	 * If needed, the band is converted first.
+	 * 
+	 * @param band Rows to write
+	 * 
+	 * @throws IOException If the band could not be written
+	 */
+	public void write(Image band) throws IOException {
+		if(band.getWidth() != width)
+			throw new IllegalArgumentException("Band has width " + band.getWidth() + " instead of " + width);
+		if(band.getHeight() > getRemainingRows())
+			throw new IllegalArgumentException("Only " + getRemainingRows() + " rows remaining");
+		
+		if(format == null)
+			format = Format.of(band);
+		band = AnymapIO.prepare(band, format);
+		
+		if(row == 0) {
+			max = AnymapIO.getMaxValue(band, format);
+			AnymapIO.writeHeader(output, format, width, height, max);
+		}
+		
+		AnymapIO.writeRows(output, format, band, 0, band.getHeight(), max);
+		row += band.getHeight();
+	}
+	
+	/**
+	 * Closes the file.
+	 * 
+	 * @throws IOException If the file could not be written,
+	 *                     or not all rows were written
+	 */
+	@Override
+	public void close() throws IOException {
+		output.close();
+		if(row < height)
+			throw new IOException("Only " + row + " of " + height + " rows written");
+	}
+	
+}
@@ -0,0 +1,133 @@
+package itb2.engine.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import itb2.engine.io.AnymapIO.Format;
+import itb2.image.Image;
+
+/**
+ * Reads a Portable Anymap band by band, instead of loading the
+ * whole image at once. Only the rows of the current band are
+ * held in memory, so images larger than the heap can be processed.
+ * <p>
+ * The bands are of the same type as the image loaded by
+ * {@link AnymapIO#load(File)}, but only as high as requested.
+ * 
+ * @author Micha Strauch
+ */
+public class RowBandSource implements Closeable {
+	
+	/** Channel of the file */
+	private final FileChannel channel;
+	
+	/** Source reading from the channel */
+	private final AnymapIO.Source input;
+	
+	/** Header of the file */
+	private final AnymapIO.Header header;
+	
+	/** Next row to read */
+	private int row;
+	
+	/**
+	 * Opens the given file and reads its header
+	 * 
+	 * @param file File to read
+	 * 
+	 * @throws IOException If the file could not be read or is corrupted
+	 */
+	public RowBandSource(File file) throws IOException {
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		try {
+			input = new AnymapIO.ChannelSource(channel);
+			header = AnymapIO.Header.read(input);
+		} catch(IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+	
+	/** Returns the width of the image */
+	public int getWidth() {
+		return header.width;
+	}
+	
+	/** Returns the height of the image */
+	public int getHeight() {
+		return header.height;
+	}
+	
+	/** Returns the format of the file */
+	public Format getFormat() {
+		return header.format;
+	}
+	
+	/** Returns the next row to be read */
+	public int getRow() {
+		return row;
+	}
+	
+	/** Returns the number of rows not read yet */
+	public int getRemainingRows() {
+		return header.height - row;
+	}
+	
+	/**
+	 * Creates an empty band of the given height. The band is of
+	 * the same type as the bands returned by {@link #read(int)}.
+	 * 
+	 * @param rows Height of the band
+	 * @return Empty band
+	 */
+	public Image createBand(int rows) {
+		return header.createImage(rows);
+	}
+	
+	/**
+	 * Reads the next rows into a new band. At the end of the
+	 * image the band might be smaller than requested.
+	 * 
+	 * @param rows Maximum number of rows to read
+	 * @return Band containing the rows or null, if all rows were read
+	 * 
+	 * @throws IOException If the file could not be read or is corrupted
+	 */
+	public Image read(int rows) throws IOException {
+		rows = Math.min(rows, getRemainingRows());
+		if(rows <= 0)
+			return null;
+		
+		Image band = createBand(rows);
+		read(band, 0, rows);
+		return band;
+	}
+	
+	/**
+	 * Reads the next rows into the given band
+	 * 
+	 * @param band  Band created by {@link #createBand(int)}
+	 * @param first First row of the band to store the samples in
+	 * @param rows  Number of rows to read
+	 * 
+	 * @throws IOException If the file could not be read or is corrupted
+	 */
+	public void read(Image band, int first, int rows) throws IOException {
+		if(rows > getRemainingRows())
+			throw new IllegalArgumentException("Only " + getRemainingRows() + " rows remaining");
+		if(band.getWidth() != header.width || first < 0 || first + rows > band.getHeight())
+			throw new ArrayIndexOutOfBoundsException("Rows do not fit into the band");
+		
+		AnymapIO.readRows(input, header, band, first, rows);
+		row += rows;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+	
+}
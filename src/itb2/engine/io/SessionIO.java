@@ -0,0 +1,844 @@
+package itb2.engine.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import itb2.image.GroupedImage;
+import itb2.image.HsiImage;
+import itb2.image.HsvImage;
+import itb2.image.Image;
+import itb2.image.ImageFactory;
+import itb2.image.shortprecision.AbstractShortImage;
+
+/**
+ * Binary file format for storing the state of the ITB².
+ * <p>
+ * The file starts with a magic value and the version of the format,
+ * followed by the data of every image and an index at the end of the file.
+ * The basic image types store their channels as raw planes, one sample
+ * after another, other images are stored using Java serialization.
+ * Every image can be compressed using Deflate.
+ * <p>
+ * The index contains lists of files as well as size, name, type and
+ * position of every image. It is small and read at once, afterwards
+ * every image can be loaded independently via {@link Entry#load()}.
+ * 
+ * @author Micha Strauch
+ */
+public class SessionIO {
+	
+	/** Magic value at the start and the end of every file, "ITB2" */
+	private static final int MAGIC = 0x49544232;
+	
+	/** Current version of the format */
+	private static final int VERSION = 1;
+	
+	/** Number of bytes read or written at once */
+	private static final int BAND_BYTES = 1 << 16;
+	
+	/** Length of the footer: offset of the index and magic value */
+	private static final int FOOTER = 12;
+	
+	/** Types of names */
+	private static final byte NAME_NULL = 0, NAME_STRING = 1, NAME_FILE = 2, NAME_OBJECT = 3;
+	
+	/**
+	 * How the pixels of an image are stored
+	 * 
+	 * @author Micha Strauch
+	 */
+	public enum Type {
+		/** RGB image, raw planes */
+		RGB,
+		/** HSI image, raw planes and maximum values */
+		HSI,
+		/** HSV image, raw planes and maximum values */
+		HSV,
+		/** Grayscale image, raw plane */
+		GRAY,
+		/** Grouped image, raw plane and group count */
+		GROUPED,
+		/** Binary image, raw plane */
+		BINARY,
+		/** Drawable image, raw planes */
+		DRAWABLE,
+		/** Any other image, using Java serialization */
+		SERIALIZED;
+	}
+	
+	/**
+	 * Precision of the stored samples
+	 * 
+	 * @author Micha Strauch
+	 */
+	public enum Precision {
+		/** One byte per sample, {@link ImageFactory#bytePrecision()} */
+		BYTE(1),
+		/** Eight bytes per sample, {@link ImageFactory#doublePrecision()} */
+		DOUBLE(8),
+		/** One byte per sample, {@link ImageFactory#mappedPrecision()} */
+		MAPPED(1),
+		/** Four bytes per sample, {@link ImageFactory#floatPrecision()} */
+		FLOAT(4),
+		/** Two bytes per sample, {@link ImageFactory#shortPrecision()} */
+		SHORT(2);
+		
+		/** Number of bytes per sample */
+		private final int sampleBytes;
+		
+		/** Creates a precision with the given number of bytes per sample */
+		Precision(int sampleBytes) {
+			this.sampleBytes = sampleBytes;
+		}
+		
+		/** Returns the number of bytes per sample */
+		public int getSampleBytes() {
+			return sampleBytes;
+		}
+		
+		/** Returns the factory creating images of this precision */
+		public ImageFactory getFactory() {
+			switch(this) {
+				case BYTE:
+					return ImageFactory.bytePrecision();
+				case MAPPED:
+					return ImageFactory.mappedPrecision();
+				case FLOAT:
+					return ImageFactory.floatPrecision();
+				case SHORT:
+					return ImageFactory.shortPrecision();
+				default:
+					return ImageFactory.doublePrecision();
+			}
+		}
+		
+		/** Returns the precision of the given image */
+		static Precision of(Image image) {
+			ImageFactory factory = ImageFactory.getPrecision(image);
+			if(factory == ImageFactory.bytePrecision())
+				return BYTE;
+			if(factory == ImageFactory.mappedPrecision())
+				return MAPPED;
+			if(factory == ImageFactory.floatPrecision())
+				return FLOAT;
+			if(factory == ImageFactory.shortPrecision())
+				return SHORT;
+			return DOUBLE;
+		}
+	}
+	
+	/**
+	 * Checks whether the given file starts with the magic value
+	 * of this format. Files written by older versions of the ITB²
+	 * using Java serialization do not.
+	 * 
+	 * @param file File to check
+	 * @return Whether this is a session file
+	 * 
+	 * @throws IOException If the file could not be read
+	 */
+	public static boolean isSessionFile(File file) throws IOException {
+		try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			ByteBuffer magic = ByteBuffer.allocate(4);
+			while(magic.hasRemaining() && channel.read(magic) >= 0);
+			return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+		}
+	}
+	
+	/**
+	 * Reads the index of the given session file.
+	 * The images are not loaded.
+	 * 
+	 * @param file Session file
+	 * @return Index of the file
+	 * 
+	 * @throws IOException If the file could not be read or is corrupted
+	 */
+	public static Index readIndex(File file) throws IOException {
+		try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if(size < 8 + FOOTER)
+				throw new IOException("Session file corrupted, file too short");
+			
+			DataInputStream header = new DataInputStream(Channels.newInputStream(channel.position(0)));
+			if(header.readInt() != MAGIC)
+				throw new IOException("Not a session file");
+			int version = header.readInt();
+			if(version > VERSION)
+				throw new IOException("Unsupported version of session file: " + version);
+			
+			DataInputStream footer = new DataInputStream(Channels.newInputStream(channel.position(size - FOOTER)));
+			long offset = footer.readLong();
+			if(footer.readInt() != MAGIC || offset < 8 || offset > size - FOOTER)
+				throw new IOException("Session file corrupted, index not found");
+			
+			InputStream stream = new BufferedInputStream(Channels.newInputStream(channel.position(offset)), BAND_BYTES);
+			return new Index(file, new DataInputStream(stream));
+		}
+	}
+	
+	/**
+	 * Index of a session file
+	 * 
+	 * @author Micha Strauch
+	 */
+	public static class Index {
+		/** Lists of files */
+		private final List<List<File>> files = new ArrayList<>();
+		
+		/** Images of the file */
+		private final List<Entry> entries = new ArrayList<>();
+		
+		/** Next list of files to return */
+		private int nextFiles;
+		
+		/**
+		 * Reads the index from the given stream
+		 * 
+		 * @param file  Session file
+		 * @param input Stream positioned at the index
+		 * 
+		 * @throws IOException If the stream could not be read
+		 */
+		private Index(File file, DataInputStream input) throws IOException {
+			int lists = input.readInt();
+			for(int i = 0; i < lists; i++) {
+				int count = input.readInt();
+				List<File> list = new ArrayList<>(count);
+				for(int j = 0; j < count; j++)
+					list.add(new File(input.readUTF()));
+				files.add(list);
+			}
+			
+			int images = input.readInt();
+			for(int i = 0; i < images; i++)
+				entries.add(new Entry(file, input));
+		}
+		
+		/**
+		 * Returns the next list of files, in the order they
+		 * were written by {@link Writer#writeFiles(Collection)}.
+		 * 
+		 * @return Next list of files, empty if there are no more lists
+		 */
+		public List<File> nextFiles() {
+			if(nextFiles >= files.size())
+				return Collections.emptyList();
+			return files.get(nextFiles++);
+		}
+		
+		/** Returns the images of the file, in the order they were written */
+		public List<Entry> getEntries() {
+			return Collections.unmodifiableList(entries);
+		}
+	}
+	
+	/**
+	 * Image stored in a session file. Contains all information about
+	 * the image, besides its pixels, which are read by {@link #load()}.
+	 * 
+	 * @author Micha Strauch
+	 */
+	public static class Entry {
+		/** File containing the image */
+		private final File file;
+		
+		/** Name of the image */
+		private final Serializable name;
+		
+		/** Class name of the image */
+		private final String className;
+		
+		/** How the image is stored */
+		private final Type type;
+		
+		/** Precision of the samples */
+		private final Precision precision;
+		
+		/** Whether the data is compressed */
+		private final boolean compressed;
+		
+		/** Size of the image */
+		private final int width, height, channels;
+		
+		/** Group count of grouped images */
+		private int groupCount;
+		
+		/** Maximum values of HSI and HSV images */
+		private final double[] maxValues = new double[3];
+		
+		/** Position of the data inside of the file */
+		private long offset, length;
+		
+		/**
+		 * Creates an entry for the given image
+		 * 
+		 * @param image      Image to store
+		 * @param compressed Whether the data will be compressed
+		 */
+		private Entry(Image image, boolean compressed) {
+			this.file = null;
+			this.name = image.getName() instanceof Serializable ? (Serializable) image.getName() : null;
+			this.className = image.getClass().getName();
+			this.precision = Precision.of(image);
+			this.type = typeOf(image, precision.getFactory());
+			this.compressed = compressed;
+			this.width = image.getWidth();
+			this.height = image.getHeight();
+			this.channels = image.getChannelCount();
+			
+			if(image instanceof GroupedImage)
+				groupCount = ((GroupedImage) image).getGroupCount();
+			if(image instanceof HsiImage) {
+				HsiImage hsi = (HsiImage) image;
+				maxValues[0] = hsi.maxHue();
+				maxValues[1] = hsi.maxSaturation();
+				maxValues[2] = hsi.maxIntensity();
+			} else if(image instanceof HsvImage) {
+				HsvImage hsv = (HsvImage) image;
+				maxValues[0] = hsv.maxHue();
+				maxValues[1] = hsv.maxSaturation();
+				maxValues[2] = hsv.maxValue();
+			}
+		}
+		
+		/**
+		 * Reads an entry from the index
+		 * 
+		 * @param file  Session file
+		 * @param input Stream positioned at the entry
+		 * 
+		 * @throws IOException If the stream could not be read
+		 */
+		private Entry(File file, DataInputStream input) throws IOException {
+			this.file = file;
+			this.name = readName(input);
+			this.className = input.readUTF();
+			this.type = Type.values()[input.readByte()];
+			this.precision = Precision.values()[input.readByte()];
+			this.compressed = input.readBoolean();
+			this.width = input.readInt();
+			this.height = input.readInt();
+			this.channels = input.readInt();
+			this.groupCount = input.readInt();
+			for(int i = 0; i < 3; i++)
+				maxValues[i] = input.readDouble();
+			this.offset = input.readLong();
+			this.length = input.readLong();
+		}
+		
+		/** Writes this entry into the index */
+		private void write(DataOutputStream output) throws IOException {
+			writeName(output, name);
+			output.writeUTF(className);
+			output.writeByte(type.ordinal());
+			output.writeByte(precision.ordinal());
+			output.writeBoolean(compressed);
+			output.writeInt(width);
+			output.writeInt(height);
+			output.writeInt(channels);
+			output.writeInt(groupCount);
+			for(int i = 0; i < 3; i++)
+				output.writeDouble(maxValues[i]);
+			output.writeLong(offset);
+			output.writeLong(length);
+		}
+		
+		/** Returns the name of the image */
+		public Serializable getName() {
+			return name;
+		}
+		
+		/** Returns the class name of the image */
+		public String getClassName() {
+			return className;
+		}
+		
+		/** Returns how the image is stored */
+		public Type getType() {
+			return type;
+		}
+		
+		/** Returns the precision of the samples */
+		public Precision getPrecision() {
+			return precision;
+		}
+		
+		/** Returns the width of the image */
+		public int getWidth() {
+			return width;
+		}
+		
+		/** Returns the height of the image */
+		public int getHeight() {
+			return height;
+		}
+		
+		/** Returns the number of channels of the image */
+		public int getChannelCount() {
+			return channels;
+		}
+		
+		/** Returns the number of bytes the image uses inside the file */
+		public long getLength() {
+			return length;
+		}
+		
+		/**
+		 * Loads the image from the session file. This opens the
+		 * file on its own, so images can be loaded in any order
+		 * and from different threads.
+		 * 
+		 * @return Loaded image
+		 * 
+		 * @throws IOException If the file could not be read or is corrupted
+		 */
+		public Image load() throws IOException {
+			try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+				InputStream stream = new BufferedInputStream(Channels.newInputStream(channel.position(offset)), BAND_BYTES);
+				if(compressed)
+					stream = new InflaterInputStream(stream, new Inflater(), BAND_BYTES);
+				
+				Image image;
+				if(type == Type.SERIALIZED) {
+					try {
+						image = (Image) new ObjectInputStream(stream).readObject();
+					} catch(ClassNotFoundException | ClassCastException e) {
+						throw new IOException("Could not load image of type " + className, e);
+					}
+				} else {
+					image = create();
+					readPlanes(new DataInputStream(stream), image, precision);
+				}
+				
+				image.setName(name);
+				return image;
+			}
+		}
+		
+		/** Creates an empty image of the stored type */
+		private Image create() {
+			ImageFactory factory = precision.getFactory();
+			switch(type) {
+			case RGB:
+				return factory.rgb(width, height);
+			case HSI:
+				HsiImage hsi = factory.hsi(width, height);
+				hsi.setMaxValue(maxValues[0], maxValues[1], maxValues[2]);
+				return hsi;
+			case HSV:
+				HsvImage hsv = factory.hsv(width, height);
+				hsv.setMaxValue(maxValues[0], maxValues[1], maxValues[2]);
+				return hsv;
+			case GRAY:
+				return factory.gray(width, height);
+			case GROUPED:
+				return factory.group(width, height, groupCount);
+			case BINARY:
+				return factory.binary(width, height);
+			case DRAWABLE:
+				return factory.drawable(width, height);
+			default:
+				throw new IllegalStateException("Can't create image of type " + type);
+			}
+		}
+	}
+	
+	/**
+	 * Writes a session file. The lists of files and the images
+	 * can be written in any order, the index is written on close.
+	 * <p>
+	 * The session is written into a temporary file next to the target,
+	 * which replaces the target on close. If an image could not be written,
+	 * the temporary file is deleted instead, and the target stays untouched.
+	 * 
+	 * @author Micha Strauch
+	 */
+	public static class Writer implements Closeable {
+		/** File to write the session to */
+		private final File target;
+		
+		/** Temporary file, replacing the target on success */
+		private final File temporary;
+		
+		/** Stream of the temporary file */
+		private final FileOutputStream file;
+		
+		/** Buffered stream to write data to */
+		private final DataOutputStream output;
+		
+		/** Whether images are compressed */
+		private final boolean compress;
+		
+		/** Lists of files written so far */
+		private final List<List<File>> files = new ArrayList<>();
+		
+		/** Images written so far */
+		private final List<Entry> entries = new ArrayList<>();
+		
+		/** Whether writing an image failed, so the session is incomplete */
+		private boolean failed;
+		
+		/**
+		 * Creates a new session file
+		 * 
+		 * @param file     File to write
+		 * @param compress Whether to compress the images using Deflate
+		 * 
+		 * @throws IOException If the file could not be created
+		 */
+		public Writer(File file, boolean compress) throws IOException {
+			this.target = file.getAbsoluteFile();
+			this.temporary = File.createTempFile(target.getName(), ".tmp", target.getParentFile());
+			this.file = new FileOutputStream(temporary);
+			this.output = new DataOutputStream(new BufferedOutputStream(this.file, BAND_BYTES));
+			this.compress = compress;
+			
+			try {
+				output.writeInt(MAGIC);
+				output.writeInt(VERSION);
+			} catch(IOException e) {
+				failed = true;
+				close();
+				throw e;
+			}
+		}
+		
+		/**
+		 * Adds a list of files to the index
+		 * 
+		 * @param list Files to add
+		 */
+		public void writeFiles(Collection<File> list) {
+			files.add(new ArrayList<>(list));
+		}
+		
+		/**
+		 * Writes the given image
+		 * 
+		 * @param image Image to write
+		 * 
+		 * @throws IOException If the image could not be written
+		 */
+		public void writeImage(Image image) throws IOException {
+			if(failed)
+				throw new IOException("Session is incomplete, a previous image could not be written");
+			
+			// Cleared again after the image was written completely
+			failed = true;
+			
+			Entry entry = new Entry(image, compress);
+			entry.offset = position();
+			
+			// Keep the file open, when closing the compressing stream
+			OutputStream stream = new FilterOutputStream(output) {
+				@Override
+				public void write(byte[] buffer, int offset, int length) throws IOException {
+					out.write(buffer, offset, length);
+				}
+				
+				@Override
+				public void close() throws IOException {
+					flush();
+				}
+			};
+			
+			Deflater deflater = null;
+			if(compress) {
+				deflater = new Deflater(Deflater.BEST_SPEED);
+				stream = new DeflaterOutputStream(stream, deflater, BAND_BYTES);
+			}
+			
+			try {
+				if(entry.type == Type.SERIALIZED) {
+					ObjectOutputStream objects = new ObjectOutputStream(stream);
+					objects.writeObject(image);
+					objects.flush();
+				} else {
+					writePlanes(stream, image, entry.precision);
+				}
+				stream.close();
+			} finally {
+				if(deflater != null)
+					deflater.end();
+			}
+			
+			entry.length = position() - entry.offset;
+			entries.add(entry);
+			failed = false;
+		}
+		
+		/** Returns the number of bytes written so far */
+		private long position() throws IOException {
+			output.flush();
+			return file.getChannel().position();
+		}
+		
+		/**
+		 * Writes the index, closes the file and replaces the target with it.
+		 * If an image could not be written, only the temporary file is deleted.
+		 * 
+		 * @throws IOException If the index could not be written
+		 */
+		@Override
+		public void close() throws IOException {
+			if(failed) {
+				try {
+					output.close();
+				} finally {
+					temporary.delete();
+				}
+				return;
+			}
+			
+			try {
+				try {
+					long offset = position();
+					
+					output.writeInt(files.size());
+					for(List<File> list : files) {
+						output.writeInt(list.size());
+						for(File file : list)
+							output.writeUTF(file.getPath());
+					}
+					
+					output.writeInt(entries.size());
+					for(Entry entry : entries)
+						entry.write(output);
+					
+					output.writeLong(offset);
+					output.writeInt(MAGIC);
+				} finally {
+					output.close();
+				}
+				
+				try {
+					Files.move(temporary.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				} catch(AtomicMoveNotSupportedException e) {
+					Files.move(temporary.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+				}
+			} finally {
+				temporary.delete();
+			}
+		}
+	}
+	
+	/**
+	 * Returns how the given image can be stored. Only images created by the
+	 * factory are stored as raw planes, as only they can be recreated.
+	 * 
+	 * @param image   Image to store
+	 * @param factory Factory of the precision of the image
+	 * @return How to store the image
+	 */
+	private static Type typeOf(Image image, ImageFactory factory) {
+		Class<?> clazz = image.getClass();
+		try {
+			if(clazz == factory.rgb())
+				return Type.RGB;
+			if(clazz == factory.hsi())
+				return Type.HSI;
+			if(clazz == factory.hsv())
+				return Type.HSV;
+			if(clazz == factory.gray())
+				return Type.GRAY;
+			if(clazz == factory.group())
+				return Type.GROUPED;
+			if(clazz == factory.binary())
+				return Type.BINARY;
+			if(clazz == factory.drawable())
+				return Type.DRAWABLE;
+		} catch(UnsupportedOperationException e) {
+			// Image type not available for this precision
+		}
+		return Type.SERIALIZED;
+	}
+	
+	/**
+	 * Writes the channels of the image as raw planes, band by band
+	 * 
+	 * @param output    Stream to write to
+	 * @param image     Image to write
+	 * @param precision Precision of the samples
+	 * 
+	 * @throws IOException If the image could not be written
+	 */
+	private static void writePlanes(OutputStream output, Image image, Precision precision) throws IOException {
+		int width = image.getWidth(), height = image.getHeight();
+		int sampleBytes = precision.getSampleBytes();
+		int bandRows = Math.max(1, Math.min(height, BAND_BYTES / (width * sampleBytes)));
+		byte[] bytes = null;
+		double[] values = null;
+		ByteBuffer buffer = sampleBytes == 1 ? null : ByteBuffer.allocate(bandRows * width * sampleBytes);
+		
+		for(int chan = 0; chan < image.getChannelCount(); chan++) {
+			for(int row = 0; row < height; row += bandRows) {
+				int rows = Math.min(bandRows, height - row);
+				if(sampleBytes == 1) {
+					bytes = image.getBytes(0, row, width, rows, chan, bytes);
+					output.write(bytes, 0, rows * width);
+				} else {
+					values = image.getValues(0, row, width, rows, chan, values);
+					buffer.clear();
+					encode(values, rows * width, buffer, sampleBytes);
+					output.write(buffer.array(), 0, rows * width * sampleBytes);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Reads the channels of the image from raw planes, band by band
+	 * 
+	 * @param input     Stream to read from
+	 * @param image     Image to store samples in
+	 * @param precision Precision of the samples
+	 * 
+	 * @throws IOException If the stream could not be read
+	 */
+	private static void readPlanes(DataInputStream input, Image image, Precision precision) throws IOException {
+		int width = image.getWidth(), height = image.getHeight();
+		int sampleBytes = precision.getSampleBytes();
+		int bandRows = Math.max(1, Math.min(height, BAND_BYTES / (width * sampleBytes)));
+		byte[] bytes = new byte[bandRows * width * sampleBytes];
+		double[] values = sampleBytes == 1 ? null : new double[bandRows * width];
+		
+		for(int chan = 0; chan < image.getChannelCount(); chan++) {
+			for(int row = 0; row < height; row += bandRows) {
+				int rows = Math.min(bandRows, height - row);
+				input.readFully(bytes, 0, rows * width * sampleBytes);
+				if(sampleBytes == 1) {
+					image.setBytes(0, row, width, rows, chan, bytes);
+				} else {
+					decode(ByteBuffer.wrap(bytes), values, rows * width, sampleBytes);
+					image.setValues(0, row, width, rows, chan, values);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Stores the given values into the buffer, using the given
+	 * number of bytes per sample
+	 * 
+	 * @param values      Values to store
+	 * @param count       Number of values to store
+	 * @param buffer      Buffer to store values in
+	 * @param sampleBytes Number of bytes per sample, 2, 4 or 8
+	 */
+	private static void encode(double[] values, int count, ByteBuffer buffer, int sampleBytes) {
+		switch(sampleBytes) {
+			case 2:
+				for(int i = 0; i < count; i++)
+					buffer.putShort((short)Math.round(values[i] * AbstractShortImage.SCALE));
+				break;
+			case 4:
+				for(int i = 0; i < count; i++)
+					buffer.putFloat((float)values[i]);
+				break;
+			default:
+				buffer.asDoubleBuffer().put(values, 0, count);
+		}
+	}
+	
+	/**
+	 * Reads values from the given buffer, stored using the given
+	 * number of bytes per sample
+	 * 
+	 * @param buffer      Buffer to read values from
+	 * @param values      Array to store values in
+	 * @param count       Number of values to read
+	 * @param sampleBytes Number of bytes per sample, 2, 4 or 8
+	 */
+	private static void decode(ByteBuffer buffer, double[] values, int count, int sampleBytes) {
+		switch(sampleBytes) {
+			case 2:
+				for(int i = 0; i < count; i++)
+					values[i] = (buffer.getShort() & 0xFFFF) / (double)AbstractShortImage.SCALE;
+				break;
+			case 4:
+				for(int i = 0; i < count; i++)
+					values[i] = buffer.getFloat();
+				break;
+			default:
+				buffer.asDoubleBuffer().get(values, 0, count);
+		}
+	}
+	
+	/** Writes the name of an image */
+	private static void writeName(DataOutputStream output, Serializable name) throws IOException {
+		if(name == null) {
+			output.writeByte(NAME_NULL);
+		} else if(name instanceof String) {
+			output.writeByte(NAME_STRING);
+			output.writeUTF((String) name);
+		} else if(name instanceof File) {
+			output.writeByte(NAME_FILE);
+			output.writeUTF(((File) name).getPath());
+		} else {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try(ObjectOutputStream objects = new ObjectOutputStream(bytes)) {
+				objects.writeObject(name);
+			}
+			output.writeByte(NAME_OBJECT);
+			output.writeInt(bytes.size());
+			bytes.writeTo(output);
+		}
+	}
+	
+	/** Reads the name of an image, names that can't be read are returned as null */
+	private static Serializable readName(DataInputStream input) throws IOException {
+		byte kind = input.readByte();
+		switch(kind) {
+		case NAME_NULL:
+			return null;
+		case NAME_STRING:
+			return input.readUTF();
+		case NAME_FILE:
+			return new File(input.readUTF());
+		case NAME_OBJECT:
+			byte[] bytes = new byte[input.readInt()];
+			input.readFully(bytes);
+			try(ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+				return (Serializable) objects.readObject();
+			} catch(ClassNotFoundException | ClassCastException e) {
+				return null;
+			}
+		default:
+			throw new IOException("Session file corrupted, unknown name type: " + kind);
+		}
+	}
+	
+	/** Should not be instantiated */
+	private SessionIO() {}
+	
+}
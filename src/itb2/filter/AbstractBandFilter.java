@@ -0,0 +1,28 @@
+package itb2.filter;
+
+import itb2.image.Image;
+
+/**
+ * Filter that processes an image in horizontal bands. Inside the
+ * ITB² the whole image is filtered as one band, while the
+ * {@link itb2.engine.io.RowBandProcessor} streams large images
+ * band by band through the same implementation.
+ * 
+ * @author Micha Strauch
+ */
+public abstract class AbstractBandFilter extends AbstractFilter implements BandFilter {
+	
+	/** Number of rows needed above and below of every row */
+	protected int halo = 0;
+	
+	@Override
+	public int getHalo() {
+		return halo;
+	}
+	
+	@Override
+	public Image filter(Image input) {
+		return filterBand(input, 0, 0);
+	}
+	
+}
@@ -3,8 +3,10 @@ package itb2.filter;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 
 import itb2.engine.Controller;
+import itb2.engine.TileExecutor;
 import itb2.image.Image;
 
 /**
@@ -34,6 +36,7 @@ public abstract class AbstractFilter implements Filter {
 		List<Image> filteredImages = new ArrayList<>(input.length);
 		
 		for(Image image : input){
+			checkCancelled();
 			Image filtered = filter(image);
 			if(filtered != null)
 				filteredImages.add(filtered);
@@ -87,6 +90,27 @@ public abstract class AbstractFilter implements Filter {
 		return Controller.getFilterManager().callFilter(filter, image);
 	}
 	
+	/**
+	 * Whether the job running this filter was cancelled. Long running
+	 * filters should check this regularly and stop early if set. Inside
+	 * of a tile, see {@link TileExecutor}, the job that started the tiles
+	 * is checked.
+	 * 
+	 * @return true, if the filter should stop
+	 */
+	protected static boolean isCancelled() {
+		return TileExecutor.isCancelled();
+	}
+	
+	/**
+	 * Auxiliary function. Throws a {@link CancellationException}
+	 * if the job running this filter was cancelled.
+	 */
+	protected static void checkCancelled() {
+		if(isCancelled())
+			throw new CancellationException("Filter was cancelled");
+	}
+	
 	/**
 	 * Auxiliary function. Returns:<br>
 	 *  - val, if min &le; val &le; max<br>
@@ -0,0 +1,81 @@
+package itb2.filter;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+
+import itb2.engine.TileExecutor;
+import itb2.image.Image;
+
+/**
+ * Filter, that processes an image in independent tiles. The output
+ * image is created once by {@link #createOutput(Image)}, afterwards
+ * {@link #filterTile(Image, Image, Rectangle)} is called for every
+ * tile of the input image. The tiles are run in parallel, so the
+ * implementation must only read from the input image and only
+ * write into the given tile of the output image.<br>
+ * If {@link #parallelBatch} is set, multiple input images are
+ * processed in parallel as well.
+ *
+ * @author Micha Strauch
+ */
+public abstract class AbstractTileFilter extends AbstractFilter {
+	
+	/** Whether multiple input images should be filtered in parallel */
+	protected boolean parallelBatch = false;
+	
+	/** Width of a single tile */
+	protected int tileWidth = TileExecutor.DEFAULT_TILE_SIZE;
+	
+	/** Height of a single tile, rounded up to a multiple of {@link TileExecutor#ROW_ALIGNMENT} */
+	protected int tileHeight = TileExecutor.DEFAULT_TILE_SIZE;
+	
+	@Override
+	public Image[] filter(Image[] input) {
+		if(!parallelBatch || input.length < 2)
+			return super.filter(input);
+		
+		Image[] filtered = new Image[input.length];
+		TileExecutor.forEach(input.length, index -> filtered[index] = filter(input[index]));
+		
+		List<Image> filteredImages = new ArrayList<>(input.length);
+		for(Image image : filtered) {
+			if(image != null)
+				filteredImages.add(image);
+		}
+		
+		return filteredImages.toArray(new Image[0]);
+	}
+	
+	@Override
+	public Image filter(Image input) {
+		Image output = createOutput(input);
+		if(output == null)
+			return null;
+		
+		TileExecutor.forEachTile(input.getWidth(), input.getHeight(), tileWidth, tileHeight,
+				tile -> filterTile(input, output, tile));
+		
+		return output;
+	}
+	
+	/**
+	 * Creates the image, the tiles will be written into. This
+	 * is called once per input image, before any tile is filtered.
+	 *
+	 * @param input Image to filter
+	 * @return Preallocated output image or null, to skip the image
+	 */
+	protected abstract Image createOutput(Image input);
+	
+	/**
+	 * Filters a single tile. This might be called from multiple threads
+	 * at once, each time with a different tile of the same image.
+	 *
+	 * @param input  Image to filter, must only be read
+	 * @param output Image created by {@link #createOutput(Image)}
+	 * @param tile   Region of the image to filter
+	 */
+	protected abstract void filterTile(Image input, Image output, Rectangle tile);
+	
+}
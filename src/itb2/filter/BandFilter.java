@@ -0,0 +1,38 @@
+package itb2.filter;
+
+import itb2.image.Image;
+
+/**
+ * Filter that can process an image in horizontal bands, so it can be run
+ * on images streamed from a file, see {@link itb2.engine.io.RowBandProcessor}.
+ * Every output row may only depend on the input rows at most
+ * {@link #getHalo()} rows above or below of it.
+ * 
+ * @author Micha Strauch
+ */
+public interface BandFilter extends Filter {
+	
+	/**
+	 * Number of rows above and below of a row, which
+	 * are needed to calculate the filtered row
+	 * 
+	 * @return Number of additional rows needed
+	 */
+	public int getHalo();
+	
+	/**
+	 * Filters a single band. Besides the rows to filter, the band contains
+	 * up to {@link #getHalo()} additional rows above and below. At the
+	 * top and the bottom of the image there are fewer additional rows,
+	 * these borders have to be handled the same way as if the whole
+	 * image was filtered at once.
+	 * 
+	 * @param band   Rows to filter, including the additional rows
+	 * @param top    Number of additional rows above
+	 * @param bottom Number of additional rows below
+	 * 
+	 * @return Filtered rows, without the additional rows
+	 */
+	public Image filterBand(Image band, int top, int bottom);
+	
+}
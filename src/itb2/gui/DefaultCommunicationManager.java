@@ -2,21 +2,34 @@ package itb2.gui;
 
 import java.awt.Point;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 
 import itb2.engine.CommunicationManager;
 import itb2.engine.PreviewHandler;
+import itb2.engine.ProgressTracker;
 import itb2.image.Image;
 
 /**
  * Implementation of the {@link CommunicationManager}
+ * <p>
+ * Reported progress is only stored, the status bar reads it
+ * {@link #FRAME_RATE} times per second. Messages passed along with the
+ * progress are logged at most every {@link #MESSAGE_INTERVAL} milliseconds.
  * 
  * @author Micha Strauch
  */
 public class DefaultCommunicationManager implements CommunicationManager {
 	
+	/** Number of progress updates per second */
+	private static final int FRAME_RATE = 25;
+	
+	/** Minimum number of milliseconds between two progress messages */
+	private static final long MESSAGE_INTERVAL = 1000;
+	
 	/** GUI this communication manager is for */
 	private final EditorGui gui;
 	
@@ -26,11 +39,30 @@ public class DefaultCommunicationManager implements CommunicationManager {
 	/** Logger to print messages to */
 	private final Logger logger;
 	
+	/** Current progress */
+	private final ProgressTracker progress;
+	
+	/** {@link System#currentTimeMillis()} when the last progress message was logged */
+	private final AtomicLong lastMessage;
+	
+	/** Progress shown by the status bar */
+	private double shownProgress = 2;
+	
 	/** Creates the CommunicationManager for {@link EditorGui} */
 	public DefaultCommunicationManager(EditorGui gui) {
 		this.gui = gui;
 		statusbar = gui.getStatusBar();
 		logger = Logger.getLogger("ITB2");
+		progress = new ProgressTracker();
+		lastMessage = new AtomicLong();
+		
+		new Timer(1000 / FRAME_RATE, e -> {
+			double current = progress.get();
+			if(current != shownProgress) {
+				shownProgress = current;
+				statusbar.setProgress(current);
+			}
+		}).start();
 	}
 
 	@Override
@@ -131,7 +163,26 @@ public class DefaultCommunicationManager implements CommunicationManager {
 
 	@Override
 	public void inProgress(double percent) {
-		SwingUtilities.invokeLater(() -> statusbar.setProgress(percent));
+		progress.set(percent);
+	}
+	
+	@Override
+	public void inProgress(double percent, String message, Object... param) {
+		inProgress(percent);
+		
+		// Messages at the start and end are always logged, the others only now and then
+		long now = System.currentTimeMillis();
+		long last = lastMessage.get();
+		boolean running = 0 < percent && percent < 1;
+		if(running && now - last < MESSAGE_INTERVAL)
+			return;
+		if(lastMessage.compareAndSet(last, now) || !running)
+			info(message, param);
+	}
+	
+	@Override
+	public ProgressTracker.Job openProgress(long total) {
+		return progress.open(total);
 	}
 	
 	/** Helper class, that wraps a value */
@@ -12,10 +12,12 @@ import javax.swing.JFrame;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JSplitPane;
+import javax.swing.SwingUtilities;
 import javax.swing.filechooser.FileFilter;
 import javax.swing.filechooser.FileNameExtensionFilter;
 
 import itb2.engine.Controller;
+import itb2.engine.ProgressTracker;
 import itb2.engine.io.FilterIO;
 import itb2.engine.io.ImageIO;
 import itb2.filter.Filter;
@@ -140,13 +142,7 @@ public class EditorGui extends JFrame {
 		JFileChooser fileChooser = getFilterChooser();
 		if(fileChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
 			File[] files = fileChooser.getSelectedFiles(); 
-			int index = 0;
-			try {
-				for(; index < files.length; index++)
-					Controller.getFilterManager().loadFilter(files[index]);
-			} catch(IOException e) {
-				Controller.getCommunicationManager().error("Could not open file:\n%s\n\n> %s", files[index].getAbsolutePath(), e.getMessage());
-			}
+			Controller.getFilterManager().loadFilters(Arrays.asList(files));
 		}
 	}
 	
@@ -334,12 +330,13 @@ public class EditorGui extends JFrame {
 		List<Image> selectedImages = imageList.getSelectedImages();
 		Image[] images = selectedImages.toArray(new Image[selectedImages.size()]);
 		
-		Controller.getCommunicationManager().inProgress(-1);
-		Controller.getFilterManager().callFilter(filter, images, img -> {
+		// Filters run in parallel, so every call shows the indicator until it is finished
+		ProgressTracker.Job progress = Controller.getCommunicationManager().openProgress(0);
+		Controller.getFilterManager().callFilter(filter, images, img -> SwingUtilities.invokeLater(() -> {
 			if(img != null)
 				Controller.getImageManager().getImageList().addAll(Arrays.asList(img));
-			Controller.getCommunicationManager().inProgress(2);
-		});
+			progress.close();
+		}));
 	}
 	
 	/** Resets the zoom on the workbench */
@@ -10,6 +10,7 @@ import java.io.File;
 import java.io.InputStream;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
 
@@ -100,8 +101,39 @@ public class EditorMenuBar extends JMenuBar {
 		converterDoubleMenu.addSeparator();
 		converterDoubleMenu.add(getConverter("Grouped", ImageFactory.doublePrecision().group()));
 		
+		JMenu converterFloatMenu = new JMenu("Float Precision");
+		converterFloatMenu.add(getConverter("RGB", ImageFactory.floatPrecision().rgb()));
+		converterFloatMenu.add(getConverter("HSI", ImageFactory.floatPrecision().hsi()));
+		converterFloatMenu.add(getConverter("HSV", ImageFactory.floatPrecision().hsv()));
+		converterFloatMenu.addSeparator();
+		converterFloatMenu.add(getConverter("Grayscale", ImageFactory.floatPrecision().gray()));
+		converterFloatMenu.addSeparator();
+		converterFloatMenu.add(getConverter("Grouped", ImageFactory.floatPrecision().group()));
+		
+		JMenu converterShortMenu = new JMenu("Short Precision");
+		converterShortMenu.add(getConverter("RGB", ImageFactory.shortPrecision().rgb()));
+		converterShortMenu.add(getConverter("HSI", ImageFactory.shortPrecision().hsi()));
+		converterShortMenu.add(getConverter("HSV", ImageFactory.shortPrecision().hsv()));
+		converterShortMenu.addSeparator();
+		converterShortMenu.add(getConverter("Grayscale", ImageFactory.shortPrecision().gray()));
+		converterShortMenu.addSeparator();
+		converterShortMenu.add(getConverter("Grouped", ImageFactory.shortPrecision().group()));
+		
+		JMenu converterMappedMenu = new JMenu("Mapped Precision");
+		converterMappedMenu.add(getConverter("RGB", ImageFactory.mappedPrecision().rgb()));
+		converterMappedMenu.add(getConverter("HSI", ImageFactory.mappedPrecision().hsi()));
+		converterMappedMenu.add(getConverter("HSV", ImageFactory.mappedPrecision().hsv()));
+		converterMappedMenu.addSeparator();
+		converterMappedMenu.add(getConverter("Grayscale", ImageFactory.mappedPrecision().gray()));
+		converterMappedMenu.add(getConverter("Binary", ImageFactory.mappedPrecision().binary()));
+		converterMappedMenu.addSeparator();
+		converterMappedMenu.add(getConverter("Grouped", ImageFactory.mappedPrecision().group()));
+		
 		converterMenu.add(converterByteMenu);
 		converterMenu.add(converterDoubleMenu);
+		converterMenu.add(converterFloatMenu);
+		converterMenu.add(converterShortMenu);
+		converterMenu.add(converterMappedMenu);
 		add(converterMenu);
 		
 		// Add version
@@ -225,7 +257,7 @@ public class EditorMenuBar extends JMenuBar {
 				public void actionPerformed(ActionEvent e) {
 					try {
 						if(type == TYPE_FILTER)
-							Controller.getFilterManager().loadFilter(file);
+							Controller.getFilterManager().loadFilters(Collections.singletonList(file));
 						else if(type == TYPE_IMAGE)
 							Controller.getImageManager().loadImage(file);
 					} catch(Exception ex) {
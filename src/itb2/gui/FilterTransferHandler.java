@@ -39,8 +39,7 @@ class FilterTransferHandler extends TransferHandler {
 				@SuppressWarnings("unchecked")
 				List<File> data = (List<File>) transferable.getTransferData(DataFlavor.javaFileListFlavor);
 				
-				for(File file : data)
-					Controller.getFilterManager().loadFilter(file);
+				Controller.getFilterManager().loadFilters(data);
 				
 				return true;
 			}
@@ -5,7 +5,6 @@ import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Point;
 import java.awt.event.MouseEvent;
-import java.util.TreeMap;
 
 import javax.swing.GroupLayout;
 import javax.swing.GroupLayout.Alignment;
@@ -14,7 +13,7 @@ import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.ToolTipManager;
 
-import itb2.image.Channel;
+import itb2.image.ChannelHistogram;
 import itb2.image.Image;
 
 /**
@@ -107,11 +106,8 @@ public class Histogram extends JPanel {
 	private class Painter extends JPanel {
 		private static final long serialVersionUID = 6004160219508478853L;
 		
-		/** Possible value type:<br>Binary (0 & 1), Integer (0 - 255), Rational */
-		private static final int BINARY = 2, INTEGER = 256, RATIONAL = 0;
-		
-		/** Mapping number of pixels to each existing pixel value. */
-		private final TreeMap<Double, Integer> values;
+		/** Histogram of the last rendered channel, null if there is no image */
+		private ChannelHistogram histogram;
 		
 		/** Last rendered image */
 		private Image lastImage;
@@ -119,22 +115,14 @@ public class Histogram extends JPanel {
 		/** Last rendered channel */
 		private ChannelName lastChannel;
 		
-		/** Minimum and maximum pixel value. */
-		private double min, max;
-		
-		/** Of what type the values are.<p>{@link #BINARY} / {@link #INTEGER} / {@link #RATIONAL} */
-		private int valueType;
-		
 		/** Array containing currently displayed histogram data. */
-		private int[] data;
+		private long[] data;
 		
 		/** Maximum value in {@link #data}. */
-		private int maxData;
+		private long maxData;
 		
 		/** Constructor for this histogram painter. */
 		Painter() {
-			values = new TreeMap<>();
-			
 			// Register this JPanel for displaying tooltips
 			ToolTipManager.sharedInstance().registerComponent(this);
 		}
@@ -147,35 +135,9 @@ public class Histogram extends JPanel {
 				lastImage = image;
 				lastChannel = (ChannelName) channel.getSelectedItem();
 				
-				// Build values
-				min = Double.MAX_VALUE;
-				max = Double.MIN_VALUE;
-				valueType = BINARY;
-				values.clear();
-				
-				if(lastImage != null) {
-					Channel chan = lastImage.getChannel(lastChannel.getChannel());
-					for(int col = 0; col < chan.getWidth(); col++) {
-						for(int row = 0; row < chan.getHeight(); row++) {
-							double value = chan.getValue(col, row);
-							min = value < min ? value : min;
-							max = value > max ? value : max;
-							
-							Integer count = values.get(value);
-							if(count != null)
-								values.put(value, count + 1);
-							else {
-								values.put(value, 1);
-								
-								// Check if value matches the current value type
-								if(valueType != RATIONAL && (value < 0 || value > 255 || value != (int) value))
-									valueType = RATIONAL;
-								if(valueType == BINARY && value != 0 && value != 1)
-									valueType = INTEGER;
-							}
-						}
-					}
-				}
+				histogram = null;
+				if(lastImage != null && lastChannel != null)
+					histogram = ChannelHistogram.of(lastImage.getChannel(lastChannel.getChannel()));
 			}
 			
 			// Repaint the histogram
@@ -187,31 +149,30 @@ public class Histogram extends JPanel {
 			super.paintComponent(g);
 			
 			// Skip if nothing to display
-			if(values.isEmpty())
+			if(histogram == null || histogram.getTotal() == 0)
 				return;
 			
 			// Choose type of histogram
 			boolean cumulative = CUMULATIVE == method.getSelectedItem();
 			
 			// Width of each bar
-			int barCount = valueType == RATIONAL ? getWidth() : valueType;
+			int valueType = histogram.getValueType();
+			int barCount = valueType == ChannelHistogram.RATIONAL ? getWidth() : valueType;
 			int barWidth = getWidth() / barCount;
 			
-			// Value range each bar contains
-			double step = valueType == RATIONAL ? (max - min) / barCount : 1;
-			data = new int[getWidth()];
-			maxData = Integer.MIN_VALUE;
+			// Bins each bar contains
+			double step = valueType == ChannelHistogram.RATIONAL ? (double) histogram.getBinCount() / barCount : 1;
+			data = new long[getWidth()];
+			maxData = Long.MIN_VALUE;
 			
 			// Set border, so histogram stays in center
 			int deltaX = (getWidth() - barCount * barWidth) / 2;
 			
 			// Calculate bar heights and fill data array
-			int previous = 0;
 			for(int i = 0; i < barCount; i++) {
-				int value = previous + getValue(i * step, (i + 1) * step);
-				
-				if(cumulative)
-					previous = value;
+				int to = (int) Math.round((i + 1) * step);
+				int from = cumulative ? 0 : (int) Math.round(i * step);
+				long value = histogram.getCount(from, to);
 				
 				maxData = value > maxData ? value : maxData;
 				
@@ -226,9 +187,9 @@ public class Histogram extends JPanel {
 			
 			// Draw histogram
 			g.setColor(Color.BLACK);
-			step = (double) height / maxData;
+			double scale = (double) height / maxData;
 			for(int x = 0; x < data.length; x++) {
-				int y = (int)(data[x] * step);
+				int y = (int)(data[x] * scale);
 				if(y > 0)
 					g.drawLine(x, height - y, x, height);
 			}
@@ -237,34 +198,15 @@ public class Histogram extends JPanel {
 			g.setColor(Color.BLACK);
 			g.setFont(Font.decode("monospaced-plain-12"));
 			
-			String left = valueType == RATIONAL ? String.format("%,.2f", min) : "0";
-			String right = valueType == RATIONAL ? String.format("%,.2f", max) : valueType == INTEGER ? "255" : "1";
+			boolean rational = valueType == ChannelHistogram.RATIONAL;
+			String left = rational ? String.format("%,.2f", histogram.getMin()) : "0";
+			String right = rational ? String.format("%,.2f", histogram.getMax()) : valueType == ChannelHistogram.INTEGER ? "255" : "1";
 			int rightWidth = g.getFontMetrics().stringWidth(right);
 			
 			g.drawString(left, deltaX, height + 13);
 			g.drawString(right, getWidth() - deltaX - rightWidth, height + 13);
 		}
 		
-		/**
-		 * Returns the number of pixels which have a value
-		 * between min (including) and max (excluding).
-		 * <p>
-		 * Exception: If max == {@link #max max value}
-		 *            it's included.
-		 * 
-		 * @param min Minimum value (including)
-		 * @param max Maximum value (excluding)
-		 * 
-		 * @return Number of pixels with value in given range.
-		 */
-		private int getValue(double min, double max) {
-			return values.subMap(min, true, max, max == this.max)
-					.values()
-					.stream()
-					.mapToInt(i -> i.intValue())
-					.sum();
-		}
-		
 		@Override
 		public String getToolTipText(MouseEvent event) {
 			int x = event.getX();
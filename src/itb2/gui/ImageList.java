@@ -4,8 +4,11 @@ import java.awt.BorderLayout;
 import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -26,6 +29,7 @@ import javax.swing.event.ListSelectionListener;
 import itb2.data.ObservableLinkedList;
 import itb2.engine.Controller;
 import itb2.image.Image;
+import itb2.image.LazyImage;
 
 /**
  * List of all opened images
@@ -154,8 +158,9 @@ public class ImageList extends JPanel {
 			setOpaque(cellHasFocus);
 			
 			String toolTip = value.getName() != null ? "<tr><th align='left'>Name</th><td>" + value.getName() + "</td></tr>" : "";
+			String type = value instanceof LazyImage ? ((LazyImage) value).getTypeName() : value.getClass().getSimpleName();
 			toolTip += String.format("<tr><th align='left'>Type</th><td>%s</td></tr><tr><th align='left'>Size</th><td>%d x %d</td></tr>",
-					value.getClass().getSimpleName(), value.getWidth(), value.getHeight());
+					type, value.getWidth(), value.getHeight());
 			setToolTipText("<html><table>" + toolTip + "<table></html>");
 			
 			return this;
@@ -173,7 +178,17 @@ public class ImageList extends JPanel {
 			int x = (SIZE - width) / 2;
 			int y = (SIZE - height) / 2;
 			
-			g.drawImage(image.asBufferedImage(), x, y, width, height, null);
+			// Placeholders are replaced, as soon as the image is loaded
+			BufferedImage thumbnail = null;
+			if(!(image instanceof LazyImage) || ((LazyImage) image).isLoaded())
+				thumbnail = ThumbnailCache.get(image, width, height, imageList);
+			
+			if(thumbnail == null) {
+				g.drawRect(x, y, width - 1, height - 1);
+			} else {
+				((Graphics2D) g).setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+				g.drawImage(thumbnail, x, y, width, height, null);
+			}
 		}
 		
 	}
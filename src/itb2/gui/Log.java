@@ -2,9 +2,13 @@ package itb2.gui;
 
 import java.awt.BorderLayout;
 import java.awt.Color;
+import java.awt.Component;
+import java.awt.FontMetrics;
 import java.awt.Frame;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
 import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
@@ -12,45 +16,62 @@ import java.util.logging.Logger;
 
 import javax.swing.JCheckBox;
 import javax.swing.JDialog;
-import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JScrollBar;
 import javax.swing.JScrollPane;
+import javax.swing.JTable;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.border.BevelBorder;
 import javax.swing.border.EmptyBorder;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableColumn;
 
 /**
- * Window displaying log messages
+ * Window displaying log messages.
+ * <p>
+ * Only the last {@link #CAPACITY} lines are kept. Messages are collected
+ * and added to the table at most every {@link #UPDATE_INTERVAL}
+ * milliseconds, so even a filter logging every row doesn't block the GUI.
  * 
  * @author Micha Strauch
  */
 public class Log extends JDialog {
 	private static final long serialVersionUID = 9140862072980327691L;
 	
-	/** Default size for window */ 
+	/** Default size for window */
 	private static final int WIDTH = 400, HEIGHT = 200;
 	
+	/** Maximum number of displayed lines */
+	private static final int CAPACITY = 5000;
+	
+	/** Minimum number of milliseconds between updates of the log */
+	private static final int UPDATE_INTERVAL = 100;
+	
 	/** Logger this window keeps track of */
 	private final Logger logger;
 	
 	/** Object for synchronizing lock */
 	private final Object sync;
 	
-	/** Label displaying log */
-	private final JLabel log;
+	/** Table displaying log */
+	private final JTable log;
+	
+	/** Lines of the table */
+	private final LogModel model;
 	
 	/** Scrollpane containing log */
 	private final JScrollPane scrollLog;
 	
-	/** Format for displaying timestamp next to log */
-	private final SimpleDateFormat dateFormat;
+	/** Format for displaying timestamp next to log, immutable so any thread may use it */
+	private final DateTimeFormatter dateFormat;
 	
-	/** Templates for page and messages */
-	private final String pageTemplate, messageTemplate;
+	/** Timer updating the log */
+	private final Timer timer;
 	
-	/** List of messages with and without debug messages */
-	private String messages;
+	/** Lines not yet added to the table */
+	private final ArrayDeque<Line> pending;
 	
 	/** Whether this log was shown before */
 	private boolean firstShown = true;
@@ -60,23 +81,8 @@ public class Log extends JDialog {
 		super(parent, EditorGui.TITLE + " - Log");
 		
 		sync = new Object();
-		dateFormat = new SimpleDateFormat("HH:mm");
-		
-		StringBuilder templateBuilder = new StringBuilder("<html><head><style>");
-		
-		for(MessageType type : MessageType.values()) {
-			templateBuilder.append(String.format(".%s {color: rgb(%d, %d, %d);}",
-					type.name(),
-					type.foreground.getRed(),
-					type.foreground.getGreen(),
-					type.foreground.getBlue()));
-		}
-		
-		templateBuilder.append("</style></head><body><table>%s</table></body></html>");
-		
-		pageTemplate = templateBuilder.toString();
-		messageTemplate = "<tr class='%s'><td valign='top'>%s</td><td>%s</td></tr>";
-		messages = "";
+		dateFormat = DateTimeFormatter.ofPattern("HH:mm").withZone(ZoneId.systemDefault());
+		pending = new ArrayDeque<>();
 		
 		logger = Logger.getLogger("ITB2");
 		
@@ -87,11 +93,22 @@ public class Log extends JDialog {
 			logger.setLevel(level);
 		});
 		
-		log = new JLabel();
-		log.setVerticalAlignment(JLabel.TOP);
+		model = new LogModel();
+		
+		log = new JTable(model);
+		log.setTableHeader(null);
+		log.setShowGrid(false);
 		log.setBackground(Color.WHITE);
-		log.setOpaque(true);
-		log.setText(String.format(pageTemplate, messages));
+		log.setFillsViewportHeight(true);
+		log.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
+		log.setDefaultRenderer(Object.class, new LineRenderer());
+		
+		// The time column only needs to fit the time
+		FontMetrics metrics = log.getFontMetrics(log.getFont());
+		TableColumn timeColumn = log.getColumnModel().getColumn(0);
+		timeColumn.setPreferredWidth(metrics.stringWidth("00:00") + 10);
+		timeColumn.setMaxWidth(timeColumn.getPreferredWidth());
+		log.getColumnModel().getColumn(1).setPreferredWidth(WIDTH);
 		
 		scrollLog = new JScrollPane(log);
 		scrollLog.setBorder(new BevelBorder(BevelBorder.LOWERED));
@@ -107,6 +124,9 @@ public class Log extends JDialog {
 		setSize(WIDTH, HEIGHT);
 		setDefaultCloseOperation(HIDE_ON_CLOSE);
 		
+		timer = new Timer(UPDATE_INTERVAL, e -> update());
+		timer.setRepeats(false);
+		
 		logger.addHandler(new LogFrameHandler());
 	}
 	
@@ -124,14 +144,150 @@ public class Log extends JDialog {
 		JScrollBar bar = scrollLog.getVerticalScrollBar();
 		boolean onBottom = bar.getValue() + bar.getVisibleAmount() == bar.getMaximum();
 		
+		Line[] lines;
 		synchronized(sync) {
-			log.setText(String.format(pageTemplate, messages));
+			lines = pending.toArray(new Line[pending.size()]);
+			pending.clear();
 		}
 		
+		// Widen the message column, if a new line doesn't fit
+		FontMetrics metrics = log.getFontMetrics(log.getFont());
+		TableColumn messageColumn = log.getColumnModel().getColumn(1);
+		int width = messageColumn.getPreferredWidth();
+		for(Line line : lines)
+			width = Math.max(width, metrics.stringWidth(line.text) + 10);
+		messageColumn.setPreferredWidth(width);
+		
+		model.add(lines);
+		
 		if(onBottom)
 			SwingUtilities.invokeLater(() -> bar.setValue(bar.getMaximum()));
 	}
 	
+	/**
+	 * Single line of a log message
+	 * 
+	 * @author Micha Strauch
+	 */
+	private static class Line {
+		
+		/** Type of the message */
+		private final MessageType type;
+		
+		/** Time of the message, empty for following lines of the message */
+		private final String time;
+		
+		/** Text of the line */
+		private final String text;
+		
+		/**
+		 * Creates a line of a message
+		 * 
+		 * @param type Type of the message
+		 * @param time Time of the message, empty for following lines of the message
+		 * @param text Text of the line
+		 */
+		Line(MessageType type, String time, String text) {
+			this.type = type;
+			this.time = time;
+			this.text = text;
+		}
+	}
+	
+	/**
+	 * Lines of the log, kept in a ring buffer of fixed size
+	 * 
+	 * @author Micha Strauch
+	 */
+	private static class LogModel extends AbstractTableModel {
+		private static final long serialVersionUID = -2245467326893447105L;
+		
+		/** Lines of the log */
+		private final Line[] lines = new Line[CAPACITY];
+		
+		/** Index of the first line */
+		private int start;
+		
+		/** Number of lines */
+		private int size;
+		
+		/**
+		 * Adds the given lines, removing the oldest lines if necessary
+		 * 
+		 * @param added Lines to add
+		 */
+		void add(Line[] added) {
+			if(added.length == 0)
+				return;
+			
+			// Lines that wouldn't fit anyway are skipped
+			int from = Math.max(0, added.length - CAPACITY);
+			int count = added.length - from;
+			int removed = Math.max(0, size + count - CAPACITY);
+			
+			for(int i = from; i < added.length; i++) {
+				if(size < CAPACITY) {
+					lines[(start + size++) % CAPACITY] = added[i];
+				} else {
+					lines[start] = added[i];
+					start = (start + 1) % CAPACITY;
+				}
+			}
+			
+			if(removed > 0)
+				fireTableRowsDeleted(0, removed - 1);
+			fireTableRowsInserted(size - count, size - 1);
+		}
+		
+		@Override
+		public int getRowCount() {
+			return size;
+		}
+		
+		@Override
+		public int getColumnCount() {
+			return 2;
+		}
+		
+		@Override
+		public Object getValueAt(int row, int column) {
+			Line line = getLine(row);
+			return column == 0 ? line.time : line.text;
+		}
+		
+		@Override
+		public boolean isCellEditable(int row, int column) {
+			return false;
+		}
+		
+		/**
+		 * Returns the line of the given row
+		 * 
+		 * @param row Row of the table
+		 * @return Line of the row
+		 */
+		Line getLine(int row) {
+			return lines[(start + row) % CAPACITY];
+		}
+	}
+	
+	/**
+	 * Renders the lines in the color of their message type
+	 * 
+	 * @author Micha Strauch
+	 */
+	private class LineRenderer extends DefaultTableCellRenderer {
+		private static final long serialVersionUID = 6387926361063616357L;
+		
+		@Override
+		public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
+			super.getTableCellRendererComponent(table, value, isSelected, false, row, column);
+			if(!isSelected)
+				setForeground(model.getLine(row).type.foreground);
+			return this;
+		}
+	}
+	
 	/**
 	 * Handler to receive messages
 	 * 
@@ -140,23 +296,29 @@ public class Log extends JDialog {
 	private class LogFrameHandler extends Handler {
 		@Override public void close() throws SecurityException {}
 		@Override public void flush() {}
-
+		
 		@Override
 		public void publish(LogRecord record) {
 			MessageType type = MessageType.fromLevel(record.getLevel());
 			
-			String time = dateFormat.format(new Date(record.getMillis()));
-			String message = String.format(messageTemplate,
-					type.name(),
-					time,
-					record.getMessage().replaceAll("\r?\n", "<br>"));
+			String time = dateFormat.format(Instant.ofEpochMilli(record.getMillis()));
+			String[] texts = String.valueOf(record.getMessage()).split("\r?\n");
 			
+			boolean schedule;
 			synchronized(sync) {
-				messages += message;
+				schedule = pending.isEmpty();
+				for(int i = 0; i < texts.length; i++)
+					pending.add(new Line(type, i == 0 ? time : "", texts[i]));
+				
+				// Older lines would be removed from the log anyway
+				while(pending.size() > CAPACITY)
+					pending.removeFirst();
 			}
 			
-			SwingUtilities.invokeLater(() -> update());
+			// Only the first message since the last update starts the timer
+			if(schedule)
+				SwingUtilities.invokeLater(() -> timer.restart());
 		}
 	}
-
+	
 }
@@ -5,7 +5,10 @@ import java.awt.Color;
 import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
 import java.awt.Insets;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
 import java.util.List;
 
 import javax.swing.DefaultListModel;
@@ -17,6 +20,7 @@ import javax.swing.ListCellRenderer;
 import javax.swing.border.EmptyBorder;
 
 import itb2.image.Image;
+import itb2.image.LazyImage;
 
 class MultiImagePainter extends JPanel {
 	private static final long serialVersionUID = 5176193091585415854L;
@@ -90,7 +94,15 @@ class MultiImagePainter extends JPanel {
 			int x = imgWidth < getWidth() ? (getWidth() - imgWidth) / 2 : 0;
 			int y = imgHeight < getHeight() ? (getHeight() - imgHeight) / 2 : 0;
 			
-			g.drawImage(image.asBufferedImage(), x, y, imgWidth, imgHeight, null);
+			// Placeholders are shown once their image is loaded
+			BufferedImage thumbnail = null;
+			if(!(image instanceof LazyImage) || ((LazyImage) image).isLoaded())
+				thumbnail = ThumbnailCache.get(image, imgWidth, imgHeight, list);
+			
+			if(thumbnail != null) {
+				((Graphics2D) g).setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+				g.drawImage(thumbnail, x, y, imgWidth, imgHeight, null);
+			}
 			
 			g.setColor(Color.BLACK);
 			g.drawRect(x, y, imgWidth, imgHeight);
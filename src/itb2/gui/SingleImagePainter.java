@@ -30,6 +30,9 @@ class SingleImagePainter extends JPanel {
 	/** Current zoom */
 	private double zoom;
 	
+	/** Tiles of the displayed image */
+	private TilePyramid pyramid;
+	
 	/** Constructor */
 	SingleImagePainter() {
 		dimension = new Dimension();
@@ -89,7 +92,11 @@ class SingleImagePainter extends JPanel {
 	
 	/** Sets the image to display. */
 	void setImage(Image image) {
+		if(pyramid != null)
+			pyramid.dispose();
+		
 		this.image = image;
+		this.pyramid = image == null ? null : new TilePyramid(image, this);
 		updateSize();
 	}
 	
@@ -115,17 +122,13 @@ class SingleImagePainter extends JPanel {
 		if(image == null)
 			return;
 		
-		Graphics2D g2d = g instanceof Graphics2D ? (Graphics2D) g : null;
-		
+		// Only the visible tiles are painted
 		Point origin = getImageOrigin();
+		int x = (int)(origin.x * zoom);
+		int y = (int)(origin.y * zoom);
 		
-		if(g2d != null)
-			g2d.scale(zoom, zoom);
-		
-		g.drawImage(image.asBufferedImage(), origin.x, origin.y, null);
-		
-		if(g2d != null)
-			g2d.scale(1/zoom, 1/zoom);
+		Rectangle visible = getVisibleRect().intersection(g.getClipBounds() == null ? getVisibleRect() : g.getClipBounds());
+		pyramid.paint((Graphics2D) g, x, y, zoom, visible);
 	}
 	
 	/** Returns the location of the image's top left corner. */
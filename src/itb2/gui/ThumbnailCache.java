@@ -0,0 +1,311 @@
+package itb2.gui;
+
+import java.awt.Component;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.swing.SwingUtilities;
+
+import itb2.image.Image;
+
+/**
+ * Cache of scaled down versions of images, used to paint thumbnails.
+ * <p>
+ * For every image a pyramid of levels is created, each half the size of
+ * the previous one. Only levels up to {@link #MAX_LEVEL_SIZE} pixels are
+ * kept, so a thumbnail is painted from a level at most twice its size.
+ * The levels are created by a background thread. Until then, the old
+ * levels of a modified image or nothing is returned, and the component
+ * asking for the thumbnail is repainted once the levels are ready.
+ * <p>
+ * The levels of the least recently painted images are dropped, as soon as
+ * all levels together exceed {@link #MEMORY_BUDGET} bytes.
+ * 
+ * @author Micha Strauch
+ */
+final class ThumbnailCache {
+	
+	/** Maximum width and height of the largest kept level */
+	static final int MAX_LEVEL_SIZE = 512;
+	
+	/** Maximum number of bytes used by all levels */
+	static final long MEMORY_BUDGET = 64L << 20;
+	
+	/** Levels of each image, the least recently used first */
+	private static final LinkedHashMap<Key, Pyramid> cache = new LinkedHashMap<>(16, .75f, true);
+	
+	/** Components to repaint, by the images whose levels are being created */
+	private static final Map<Key, Set<Component>> pending = new HashMap<>();
+	
+	/** Thread creating the levels */
+	private static final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "ThumbnailCache");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		return thread;
+	});
+	
+	/** Number of bytes used by all levels */
+	private static long memory;
+	
+	/** Constructor hidden, only static methods */
+	private ThumbnailCache() {}
+	
+	/**
+	 * Returns a version of the image, at least of the given size or as large
+	 * as possible, to paint a thumbnail with. If the levels of the image
+	 * are missing or outdated, they are created in the background and the
+	 * component is repainted afterwards. Images, that don't report their
+	 * modifications, are not cached.
+	 * 
+	 * @param image     Image to get thumbnail of
+	 * @param width     Width of the thumbnail
+	 * @param height    Height of the thumbnail
+	 * @param component Component to repaint, once the levels are created
+	 * @return Version of the image to paint,
+	 *         null if the levels are not created yet
+	 */
+	static synchronized BufferedImage get(Image image, int width, int height, Component component) {
+		long modificationCount = image.getModificationCount();
+		if(modificationCount < 0)
+			return image.asBufferedImage();
+		
+		Key key = new Key(image);
+		Pyramid pyramid = cache.get(key);
+		if(pyramid == null || pyramid.modificationCount != modificationCount)
+			request(key, component);
+		
+		return pyramid == null ? null : pyramid.getLevel(width, height);
+	}
+	
+	/**
+	 * Creates the levels of the given image in the background,
+	 * unless they are already being created
+	 * 
+	 * @param key       Key of the image
+	 * @param component Component to repaint, once the levels are created
+	 */
+	private static void request(Key key, Component component) {
+		Set<Component> components = pending.get(key);
+		if(components != null) {
+			components.add(component);
+			return;
+		}
+		
+		components = Collections.newSetFromMap(new WeakHashMap<>());
+		components.add(component);
+		pending.put(key, components);
+		
+		executor.execute(() -> {
+			Image image = key.get();
+			Pyramid pyramid = null;
+			try {
+				if(image != null)
+					pyramid = new Pyramid(image);
+			} finally {
+				Set<Component> repaint;
+				synchronized(ThumbnailCache.class) {
+					repaint = pending.remove(key);
+					if(pyramid != null)
+						put(key, pyramid);
+				}
+				
+				List<Component> targets = new ArrayList<>(repaint);
+				SwingUtilities.invokeLater(() -> targets.forEach(Component::repaint));
+			}
+		});
+	}
+	
+	/**
+	 * Adds the levels of an image and drops the least recently
+	 * used levels, until the memory budget is kept
+	 * 
+	 * @param key     Key of the image
+	 * @param pyramid Levels of the image
+	 */
+	private static void put(Key key, Pyramid pyramid) {
+		Pyramid old = cache.put(key, pyramid);
+		if(old != null)
+			memory -= old.memory;
+		memory += pyramid.memory;
+		
+		Iterator<Map.Entry<Key, Pyramid>> iterator = cache.entrySet().iterator();
+		while(iterator.hasNext()) {
+			Map.Entry<Key, Pyramid> entry = iterator.next();
+			
+			// Images not used anymore are dropped first, the newest entry last
+			boolean collected = entry.getKey().get() == null;
+			if(!collected && (memory <= MEMORY_BUDGET || entry.getValue() == pyramid))
+				continue;
+			
+			memory -= entry.getValue().memory;
+			iterator.remove();
+		}
+	}
+	
+	/**
+	 * Creates an image of the given size, compatible to the screen
+	 * if possible, so it can be painted quickly
+	 * 
+	 * @param width  Width of the image
+	 * @param height Height of the image
+	 * @return New image
+	 */
+	static BufferedImage createImage(int width, int height) {
+		if(!GraphicsEnvironment.isHeadless()) {
+			GraphicsConfiguration config = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+			return config.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+		}
+		return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+	}
+	
+	/**
+	 * Identifies an image without keeping it from being collected
+	 * 
+	 * @author Micha Strauch
+	 */
+	private static class Key extends WeakReference<Image> {
+		
+		/** Hash of the image */
+		private final int hash;
+		
+		/**
+		 * Creates a key for the given image
+		 * 
+		 * @param image Image to identify
+		 */
+		Key(Image image) {
+			super(image);
+			hash = System.identityHashCode(image);
+		}
+		
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if(obj == this)
+				return true;
+			if(!(obj instanceof Key))
+				return false;
+			
+			Image image = get();
+			return image != null && image == ((Key) obj).get();
+		}
+		
+	}
+	
+	/**
+	 * Scaled down versions of a single image
+	 * 
+	 * @author Micha Strauch
+	 */
+	private static class Pyramid {
+		
+		/** Modification count of the image, when the levels were created */
+		private final long modificationCount;
+		
+		/** Levels of the image, the largest first */
+		private final List<BufferedImage> levels = new ArrayList<>();
+		
+		/** Number of bytes used by the levels */
+		private final long memory;
+		
+		/**
+		 * Creates the levels of the given image
+		 * 
+		 * @param image Image to scale down
+		 */
+		Pyramid(Image image) {
+			modificationCount = image.getModificationCount();
+			
+			BufferedImage source = image.asBufferedImage();
+			int width = source.getWidth(), height = source.getHeight();
+			if(width > MAX_LEVEL_SIZE || height > MAX_LEVEL_SIZE) {
+				width = Math.max(1, width / 2);
+				height = Math.max(1, height / 2);
+			}
+			
+			// Only read the source once, while it is not rendered again,
+			// small images are copied to be independent of later changes
+			BufferedImage level;
+			synchronized(source) {
+				level = scale(source, width, height);
+			}
+			
+			// Halve the size, until the level is small enough to be kept
+			while(width > MAX_LEVEL_SIZE || height > MAX_LEVEL_SIZE) {
+				width = Math.max(1, width / 2);
+				height = Math.max(1, height / 2);
+				level = scale(level, width, height);
+			}
+			
+			long bytes = 0;
+			while(true) {
+				levels.add(level);
+				bytes += 4L * width * height;
+				
+				if(width == 1 && height == 1)
+					break;
+				width = Math.max(1, width / 2);
+				height = Math.max(1, height / 2);
+				level = scale(level, width, height);
+			}
+			memory = bytes;
+		}
+		
+		/**
+		 * Returns the smallest level of at least the given size,
+		 * the largest level if none is large enough
+		 * 
+		 * @param width  Width of the thumbnail
+		 * @param height Height of the thumbnail
+		 * @return Level to paint the thumbnail with
+		 */
+		BufferedImage getLevel(int width, int height) {
+			for(int i = levels.size() - 1; i > 0; i--) {
+				BufferedImage level = levels.get(i);
+				if(level.getWidth() >= width && level.getHeight() >= height)
+					return level;
+			}
+			return levels.get(0);
+		}
+		
+		/**
+		 * Scales the image to the given size
+		 * 
+		 * @param image  Image to scale
+		 * @param width  New width
+		 * @param height New height
+		 * @return Scaled image
+		 */
+		private static BufferedImage scale(BufferedImage image, int width, int height) {
+			BufferedImage scaled = createImage(width, height);
+			Graphics2D g = scaled.createGraphics();
+			g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			g.drawImage(image, 0, 0, width, height, null);
+			g.dispose();
+			return scaled;
+		}
+		
+	}
+	
+}
@@ -0,0 +1,376 @@
+package itb2.gui;
+
+import java.awt.Component;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.swing.SwingUtilities;
+
+import itb2.image.Image;
+
+/**
+ * Paints an image tile by tile, only where it is visible.
+ * <p>
+ * When zoomed out, the image is painted from a pyramid of levels, each
+ * half the size of the previous one. The levels are split into tiles of
+ * {@link #TILE_SIZE} pixels, created from the four tiles of the level
+ * below by a background thread. Until a tile is ready, its part is
+ * painted from the image itself. The tiles around the visible ones are
+ * created in advance, so they are ready while the image is dragged.
+ * <p>
+ * The least recently painted tiles are dropped, once more than
+ * {@link #MAX_TILES} tiles exist. All tiles are dropped as soon as the
+ * image is modified.
+ * 
+ * @author Micha Strauch
+ */
+class TilePyramid {
+	
+	/** Width and height of a tile */
+	static final int TILE_SIZE = 256;
+	
+	/** Maximum number of kept tiles */
+	static final int MAX_TILES = 256;
+	
+	/** Maximum number of tiles waiting to be created */
+	private static final int MAX_PENDING = 64;
+	
+	/** Thread creating the tiles of all pyramids */
+	private static final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "TilePyramid");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		return thread;
+	});
+	
+	/** Image to paint */
+	private final Image image;
+	
+	/** Component to repaint, when tiles are created */
+	private final Component component;
+	
+	/** Created tiles by their key, the least recently used first */
+	private final Map<Long, BufferedImage> tiles = new LinkedHashMap<Long, BufferedImage>(16, .75f, true) {
+		private static final long serialVersionUID = 4318236710497163358L;
+		
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest) {
+			return size() > MAX_TILES;
+		}
+	};
+	
+	/** Keys of the tiles to create, the most recently requested first */
+	private final Deque<Long> queue = new ArrayDeque<>();
+	
+	/** Keys of the requested tiles */
+	private final Set<Long> pending = new HashSet<>();
+	
+	/** Modification count of the image, the tiles were created of */
+	private long modificationCount;
+	
+	/** Whether the background thread is creating tiles of this pyramid */
+	private boolean working;
+	
+	/**
+	 * Creates an empty pyramid for the given image
+	 * 
+	 * @param image     Image to paint
+	 * @param component Component to repaint, when tiles are created
+	 */
+	TilePyramid(Image image, Component component) {
+		this.image = image;
+		this.component = component;
+		this.modificationCount = image.getModificationCount();
+	}
+	
+	/**
+	 * Paints the visible part of the image
+	 * 
+	 * @param g       Graphics to paint with
+	 * @param x       Horizontal position of the image
+	 * @param y       Vertical position of the image
+	 * @param zoom    Zoom of the image
+	 * @param visible Visible area to paint
+	 */
+	void paint(Graphics2D g, int x, int y, double zoom, Rectangle visible) {
+		BufferedImage source = image.asBufferedImage();
+		int level = getLevel(zoom);
+		
+		// Images, that don't report their modifications, are always painted directly
+		long count = image.getModificationCount();
+		if(count < 0)
+			level = 0;
+		else
+			validate(count);
+		
+		double scale = zoom * (1 << level);
+		int levelWidth = levelSize(image.getWidth(), level);
+		int levelHeight = levelSize(image.getHeight(), level);
+		
+		// Visible area inside the level
+		int fromX = Math.max(0, (int) Math.floor((visible.x - x) / scale));
+		int fromY = Math.max(0, (int) Math.floor((visible.y - y) / scale));
+		int toX = Math.min(levelWidth, (int) Math.ceil((visible.x + visible.width - x) / scale));
+		int toY = Math.min(levelHeight, (int) Math.ceil((visible.y + visible.height - y) / scale));
+		if(fromX >= toX || fromY >= toY)
+			return;
+		
+		if(level == 0) {
+			paint(g, source, 0, 0, x, y, zoom, fromX, fromY, toX, toY);
+			return;
+		}
+		
+		int firstColumn = fromX / TILE_SIZE, lastColumn = (toX - 1) / TILE_SIZE;
+		int firstRow = fromY / TILE_SIZE, lastRow = (toY - 1) / TILE_SIZE;
+		int columns = (levelWidth - 1) / TILE_SIZE, rows = (levelHeight - 1) / TILE_SIZE;
+		
+		List<Long> missing = new ArrayList<>();
+		for(int row = firstRow; row <= lastRow; row++) {
+			for(int column = firstColumn; column <= lastColumn; column++) {
+				long key = key(level, column, row);
+				BufferedImage tile = getTile(key);
+				
+				int tileX = column * TILE_SIZE, tileY = row * TILE_SIZE;
+				int tileWidth = Math.min(TILE_SIZE, levelWidth - tileX);
+				int tileHeight = Math.min(TILE_SIZE, levelHeight - tileY);
+				
+				if(tile != null) {
+					paint(g, tile, tileX, tileY, x, y, scale, tileX, tileY, tileX + tileWidth, tileY + tileHeight);
+				} else {
+					// Paint the image itself, until the tile is ready
+					int factor = 1 << level;
+					int sourceWidth = Math.min(tileWidth * factor, image.getWidth() - tileX * factor);
+					int sourceHeight = Math.min(tileHeight * factor, image.getHeight() - tileY * factor);
+					paint(g, source, 0, 0, x, y, zoom, tileX * factor, tileY * factor, tileX * factor + sourceWidth, tileY * factor + sourceHeight);
+					missing.add(key);
+				}
+			}
+		}
+		
+		// Tiles requested last are created first, so the visible tiles are requested last
+		for(int row = Math.max(0, firstRow - 1); row <= Math.min(rows, lastRow + 1); row++)
+			for(int column = Math.max(0, firstColumn - 1); column <= Math.min(columns, lastColumn + 1); column++)
+				if(row < firstRow || row > lastRow || column < firstColumn || column > lastColumn)
+					request(key(level, column, row));
+		
+		for(long key : missing)
+			request(key);
+	}
+	
+	/** Drops all tiles, that are not yet created */
+	synchronized void dispose() {
+		queue.clear();
+		pending.clear();
+	}
+	
+	/**
+	 * Paints a part of the given image
+	 * 
+	 * @param g       Graphics to paint with
+	 * @param image   Image or tile to paint a part of
+	 * @param offsetX First column of the image or tile
+	 * @param offsetY First row of the image or tile
+	 * @param x       Horizontal position of the image
+	 * @param y       Vertical position of the image
+	 * @param scale   Scale of the pixels
+	 * @param fromX   First column to paint (including)
+	 * @param fromY   First row to paint (including)
+	 * @param toX     Last column to paint (excluding)
+	 * @param toY     Last row to paint (excluding)
+	 */
+	private static void paint(Graphics2D g, BufferedImage image, int offsetX, int offsetY, int x, int y, double scale, int fromX, int fromY, int toX, int toY) {
+		// Round the borders the same way for every tile, so there are no gaps between them
+		int dx1 = x + (int) Math.round(fromX * scale), dy1 = y + (int) Math.round(fromY * scale);
+		int dx2 = x + (int) Math.round(toX * scale), dy2 = y + (int) Math.round(toY * scale);
+		
+		g.drawImage(image, dx1, dy1, dx2, dy2, fromX - offsetX, fromY - offsetY, toX - offsetX, toY - offsetY, null);
+	}
+	
+	/**
+	 * Drops all tiles, if the image was modified
+	 * 
+	 * @param count Current modification count of the image
+	 */
+	private synchronized void validate(long count) {
+		if(count == modificationCount)
+			return;
+		
+		modificationCount = count;
+		tiles.clear();
+		queue.clear();
+		pending.clear();
+	}
+	
+	/**
+	 * Returns the tile of the given key, if already created
+	 * 
+	 * @param key Key of the tile
+	 * @return Tile or null
+	 */
+	private synchronized BufferedImage getTile(long key) {
+		return tiles.get(key);
+	}
+	
+	/**
+	 * Requests the tile of the given key to be created,
+	 * unless it is already created or requested
+	 * 
+	 * @param key Key of the tile
+	 */
+	private synchronized void request(long key) {
+		if(tiles.containsKey(key))
+			return;
+		
+		if(!pending.add(key))
+			queue.remove(key);
+		queue.addFirst(key);
+		
+		// Forget about tiles, that were requested long ago
+		while(queue.size() > MAX_PENDING)
+			pending.remove(queue.removeLast());
+		
+		if(!working) {
+			working = true;
+			executor.execute(this::work);
+		}
+	}
+	
+	/** Creates the requested tiles, until none are left */
+	private void work() {
+		while(true) {
+			long key, count;
+			synchronized(this) {
+				if(queue.isEmpty()) {
+					working = false;
+					return;
+				}
+				key = queue.removeFirst();
+				count = modificationCount;
+			}
+			
+			try {
+				createTile(key, count, true);
+			} catch(RuntimeException e) {
+				// Keep painting the image itself
+			} finally {
+				synchronized(this) {
+					pending.remove(key);
+				}
+			}
+			SwingUtilities.invokeLater(component::repaint);
+		}
+	}
+	
+	/**
+	 * Creates the tile of the given key, and the tiles of the level below
+	 * if necessary. Only the requested tile is kept, as a single tile of
+	 * a high level needs a lot of tiles below, which would replace all
+	 * other kept tiles. The tile is also not kept, if the image was
+	 * modified in the meantime.
+	 * 
+	 * @param key   Key of the tile
+	 * @param count Modification count of the image
+	 * @param keep  Whether to keep the tile
+	 * @return Created tile
+	 */
+	private BufferedImage createTile(long key, long count, boolean keep) {
+		int level = (int) (key >>> 56);
+		int column = (int) (key >>> 28) & 0xFFFFFFF;
+		int row = (int) key & 0xFFFFFFF;
+		
+		int tileX = column * TILE_SIZE, tileY = row * TILE_SIZE;
+		int tileWidth = Math.min(TILE_SIZE, levelSize(image.getWidth(), level) - tileX);
+		int tileHeight = Math.min(TILE_SIZE, levelSize(image.getHeight(), level) - tileY);
+		
+		BufferedImage tile = ThumbnailCache.createImage(tileWidth, tileHeight);
+		Graphics2D g = tile.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g.scale(.5, .5);
+		
+		if(level == 1) {
+			BufferedImage source = image.asBufferedImage();
+			int sourceWidth = Math.min(2 * tileWidth, image.getWidth() - 2 * tileX);
+			int sourceHeight = Math.min(2 * tileHeight, image.getHeight() - 2 * tileY);
+			
+			// Rendered in place, so wait for a rendering in progress to finish
+			synchronized(source) {
+				g.drawImage(source, 0, 0, sourceWidth, sourceHeight, 2 * tileX, 2 * tileY, 2 * tileX + sourceWidth, 2 * tileY + sourceHeight, null);
+			}
+		} else {
+			// Combine the four tiles of the level below
+			int belowWidth = levelSize(image.getWidth(), level - 1);
+			int belowHeight = levelSize(image.getHeight(), level - 1);
+			for(int dy = 0; dy < 2; dy++) {
+				for(int dx = 0; dx < 2; dx++) {
+					int belowColumn = 2 * column + dx, belowRow = 2 * row + dy;
+					if(belowColumn * TILE_SIZE >= belowWidth || belowRow * TILE_SIZE >= belowHeight)
+						continue;
+					
+					long belowKey = key(level - 1, belowColumn, belowRow);
+					BufferedImage below = getTile(belowKey);
+					if(below == null)
+						below = createTile(belowKey, count, false);
+					g.drawImage(below, dx * TILE_SIZE, dy * TILE_SIZE, null);
+				}
+			}
+		}
+		g.dispose();
+		
+		synchronized(this) {
+			if(keep && count == modificationCount)
+				tiles.put(key, tile);
+		}
+		return tile;
+	}
+	
+	/**
+	 * Returns the level to paint the given zoom with, so
+	 * the level is scaled by a factor between 0.5 and 1
+	 * 
+	 * @param zoom Zoom of the image
+	 * @return Level of the pyramid
+	 */
+	private int getLevel(double zoom) {
+		int level = 0;
+		int size = Math.max(image.getWidth(), image.getHeight());
+		while(zoom * (2 << level) <= 1 && size >> (level + 1) >= TILE_SIZE / 2 && level < 30)
+			level++;
+		return level;
+	}
+	
+	/**
+	 * Returns the width or height of a level
+	 * 
+	 * @param size  Width or height of the image
+	 * @param level Level of the pyramid
+	 * @return Width or height of the level
+	 */
+	private static int levelSize(int size, int level) {
+		return (size + (1 << level) - 1) >> level;
+	}
+	
+	/**
+	 * Returns the key of a tile
+	 * 
+	 * @param level  Level of the tile
+	 * @param column Column of the tile
+	 * @param row    Row of the tile
+	 * @return Key of the tile
+	 */
+	private static long key(int level, int column, int row) {
+		return (long) level << 56 | (long) column << 28 | row;
+	}
+	
+}
@@ -6,9 +6,12 @@ import java.util.List;
 
 import javax.swing.JFrame;
 import javax.swing.JPanel;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
 
+import itb2.engine.Controller;
 import itb2.image.Image;
 
 public class Workbench extends JPanel {
@@ -43,6 +46,17 @@ public class Workbench extends JPanel {
 				show(images);
 			}
 		});
+		
+		// Loaded images replace their placeholders, which are shown by the painter until reselected
+		Controller.getImageManager().getImageList().addListener(new ListDataListener() {
+			@Override public void intervalAdded(ListDataEvent e) {}
+			@Override public void intervalRemoved(ListDataEvent e) {}
+			
+			@Override
+			public void contentsChanged(ListDataEvent e) {
+				multiImagePainter.repaint();
+			}
+		});
 	}
 	
 	public void show(Image... images) {
@@ -0,0 +1,134 @@
+package itb2.image;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Rendered state of an image, as returned by {@link Image#asBufferedImage()}.
+ * Instead of throwing the whole {@link BufferedImage} away on every change,
+ * the changed regions are collected into a single dirty rectangle. The next
+ * time the image is requested, only this rectangle is rendered again, directly
+ * into the pixel array of the existing {@link BufferedImage}.
+ * <p>
+ * Marking a region is cheap, so images may mark every single pixel they
+ * change. Any number of changes are rendered at once, the next time the
+ * image is requested. Regions may be marked by several threads at once,
+ * e.g. by filters writing an image in parallel bands.
+ * 
+ * @author Micha Strauch
+ */
+public class BufferedImageCache {
+	
+	/** Size of the image */
+	private final int width, height;
+	
+	/** Last rendered state, null if the whole image has to be rendered */
+	private BufferedImage image;
+	
+	/** Region changed since the last rendering, empty if right &le; left */
+	private int left, top, right, bottom;
+	
+	/**
+	 * Creates a cache for an image of the given size
+	 * 
+	 * @param width  Width of the image
+	 * @param height Height of the image
+	 */
+	public BufferedImageCache(int width, int height) {
+		this.width = width;
+		this.height = height;
+	}
+	
+	/**
+	 * Indicates that the whole image changed,
+	 * so it will be rendered from scratch.
+	 */
+	public synchronized void invalidate() {
+		image = null;
+		right = left;
+	}
+	
+	/**
+	 * Indicates that the given region of the image changed
+	 * 
+	 * @param column Left column of the region
+	 * @param row    Top row of the region
+	 * @param width  Width of the region
+	 * @param height Height of the region
+	 */
+	public synchronized void invalidate(int column, int row, int width, int height) {
+		if(image == null || width <= 0 || height <= 0)
+			return;
+		
+		if(right <= left) {
+			left = column;
+			top = row;
+			right = column + width;
+			bottom = row + height;
+		} else {
+			left = Math.min(left, column);
+			top = Math.min(top, row);
+			right = Math.max(right, column + width);
+			bottom = Math.max(bottom, row + height);
+		}
+	}
+	
+	/**
+	 * Returns the rendered image. If needed, the changed region is rendered
+	 * first, using the given function to calculate the color of a pixel.
+	 * <p>
+	 * The image is rendered in place. Threads other than the event dispatch
+	 * thread have to synchronize on the returned image while reading it,
+	 * otherwise they might see a region that is only partly rendered.
+	 * 
+	 * @param rgb Returns the RGB color of the pixel at (column, row),
+	 *            packed as <code>0xRRGGBB</code>
+	 * @return Rendered image
+	 */
+	public synchronized BufferedImage get(IntBinaryOperator rgb) {
+		BufferedImage current = image;
+		int x0, y0, x1, y1;
+		
+		if(current == null) {
+			current = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+			x0 = 0; y0 = 0; x1 = width; y1 = height;
+		} else if(right > left) {
+			x0 = Math.max(0, left); y0 = Math.max(0, top);
+			x1 = Math.min(width, right); y1 = Math.min(height, bottom);
+		} else {
+			return current;
+		}
+		
+		// Reset before rendering, so changes made meanwhile are rendered next time
+		right = left;
+		image = current;
+		
+		// Readers on other threads lock the image, so they never see half a rendering
+		synchronized(current) {
+			int[] pixels = ((DataBufferInt) current.getRaster().getDataBuffer()).getData();
+			for(int row = y0; row < y1; row++) {
+				int offset = row * width;
+				for(int col = x0; col < x1; col++)
+					pixels[offset + col] = rgb.applyAsInt(col, row);
+			}
+		}
+		
+		return current;
+	}
+	
+	/**
+	 * Packs the given RGB values into a single integer, the same way
+	 * as storing them in the raster of a {@link BufferedImage} would:
+	 * Every value is truncated to its lowest 8 bit.
+	 * 
+	 * @param red   Red value
+	 * @param green Green value
+	 * @param blue  Blue value
+	 * @return Color packed as <code>0xRRGGBB</code>
+	 */
+	public static int pack(double red, double green, double blue) {
+		return ((int) red & 0xFF) << 16 | ((int) green & 0xFF) << 8 | ((int) blue & 0xFF);
+	}
+	
+}
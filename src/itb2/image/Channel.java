@@ -64,6 +64,86 @@ public interface Channel {
 	 */
 	public void setValue(int column, int row, double value);
 	
+	/**
+	 * Reads the values of a rectangular region into the given buffer, row by row.
+	 * See {@link Image#getValues(int, int, int, int, int, double[]) Image.getValues(...)}.
+	 * 
+	 * @param column Left column of the region
+	 * @param row    Top row of the region
+	 * @param width  Width of the region
+	 * @param height Height of the region
+	 * @param buffer Buffer to write values into (or null)
+	 * 
+	 * @return Buffer containing the values
+	 */
+	default double[] getValues(int column, int row, int width, int height, double[] buffer) {
+		return getImage().getValues(column, row, width, height, getChannelID(), buffer);
+	}
+	
+	/**
+	 * Reads all values of this channel into the given buffer, row by row.
+	 * 
+	 * @param buffer Buffer of size <code>width * height</code> (or null)
+	 * 
+	 * @return Buffer containing the values
+	 */
+	default double[] getValues(double[] buffer) {
+		return getValues(0, 0, getWidth(), getHeight(), buffer);
+	}
+	
+	/**
+	 * Writes the given values into a rectangular region, row by row.
+	 * See {@link Image#setValues(int, int, int, int, int, double[]) Image.setValues(...)}.
+	 * 
+	 * @param column Left column of the region
+	 * @param row    Top row of the region
+	 * @param width  Width of the region
+	 * @param height Height of the region
+	 * @param values Values to write
+	 */
+	default void setValues(int column, int row, int width, int height, double[] values) {
+		getImage().setValues(column, row, width, height, getChannelID(), values);
+	}
+	
+	/**
+	 * Writes the given values into this channel, row by row.
+	 * 
+	 * @param values Values of size <code>width * height</code>
+	 */
+	default void setValues(double[] values) {
+		setValues(0, 0, getWidth(), getHeight(), values);
+	}
+	
+	/**
+	 * Reads the values of a rectangular region as unsigned bytes.
+	 * See {@link Image#getBytes(int, int, int, int, int, byte[]) Image.getBytes(...)}.
+	 * 
+	 * @param column Left column of the region
+	 * @param row    Top row of the region
+	 * @param width  Width of the region
+	 * @param height Height of the region
+	 * @param buffer Buffer to write values into (or null)
+	 * 
+	 * @return Buffer containing the values
+	 */
+	default byte[] getBytes(int column, int row, int width, int height, byte[] buffer) {
+		return getImage().getBytes(column, row, width, height, getChannelID(), buffer);
+	}
+	
+	/**
+	 * Writes the given unsigned bytes into a rectangular region.
+	 * See {@link Image#setBytes(int, int, int, int, int, byte[]) Image.setBytes(...)}.
+	 * 
+	 * @param column Left column of the region
+	 * @param row    Top row of the region
+	 * @param width  Width of the region
+	 * @param height Height of the region
+	 * @param values Values to write (unsigned)
+	 */
+	default void setBytes(int column, int row, int width, int height, byte[] values) {
+		getImage().setBytes(column, row, width, height, getChannelID(), values);
+	}
+	
 	/**
 	 * Returns the row for the given ID
 	 * 
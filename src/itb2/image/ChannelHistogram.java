@@ -0,0 +1,194 @@
+package itb2.image;
+
+/**
+ * Histogram of a single channel. Depending on the values of the channel,
+ * the histogram uses one bin per value for binary (0 and 1) and integer
+ * values (0 to 255), or {@link #RATIONAL_BINS} bins of the same size
+ * between the minimum and maximum value for all other values.
+ * <p>
+ * The bins are counted by {@link Statistics}, together with the other
+ * statistics of the channel. The counts are summed up once, so the number
+ * of pixels of any range of bins can be returned in constant time.
+ * 
+ * @author Micha Strauch
+ */
+public final class ChannelHistogram {
+	
+	/** Possible value type:<br>Binary (0 &amp; 1), Integer (0 - 255), Rational */
+	public static final int BINARY = 2, INTEGER = 256, RATIONAL = 0;
+	
+	/** Number of bins used for rational values */
+	public static final int RATIONAL_BINS = 4096;
+	
+	/** Of what type the values are.<p>{@link #BINARY} / {@link #INTEGER} / {@link #RATIONAL} */
+	private final int valueType;
+	
+	/** Minimum and maximum value */
+	private final double min, max;
+	
+	/** Number of pixels before each bin, the last entry contains the total */
+	private final long[] cumulative;
+	
+	/**
+	 * Creates a histogram from the counted bins
+	 * 
+	 * @param valueType Type of the values
+	 * @param min       Minimum value
+	 * @param max       Maximum value
+	 * @param counts    Number of pixels per bin
+	 */
+	ChannelHistogram(int valueType, double min, double max, int[] counts) {
+		this.valueType = valueType;
+		this.min = min;
+		this.max = max;
+		
+		cumulative = new long[counts.length + 1];
+		for(int bin = 0; bin < counts.length; bin++)
+			cumulative[bin + 1] = cumulative[bin] + counts[bin];
+	}
+	
+	/**
+	 * Returns the histogram of the given channel,
+	 * see {@link Statistics#of(Channel)}
+	 * 
+	 * @param channel Channel to get histogram of
+	 * @return Histogram of the channel
+	 */
+	public static ChannelHistogram of(Channel channel) {
+		return Statistics.of(channel).getHistogram();
+	}
+	
+	/**
+	 * Whether only the bins of 0 and 1 are used
+	 * 
+	 * @param counts Number of pixels per value
+	 * @return True, if all values are 0 or 1
+	 */
+	static boolean isBinary(int[] counts) {
+		for(int i = BINARY; i < counts.length; i++)
+			if(counts[i] != 0)
+				return false;
+		return true;
+	}
+	
+	/** Returns the type of values.<p>{@link #BINARY} / {@link #INTEGER} / {@link #RATIONAL} */
+	public int getValueType() {
+		return valueType;
+	}
+	
+	/** Returns the minimum value of the channel */
+	public double getMin() {
+		return min;
+	}
+	
+	/** Returns the maximum value of the channel */
+	public double getMax() {
+		return max;
+	}
+	
+	/** Returns the number of bins */
+	public int getBinCount() {
+		return cumulative.length - 1;
+	}
+	
+	/** Returns the number of pixels */
+	public long getTotal() {
+		return cumulative[cumulative.length - 1];
+	}
+	
+	/**
+	 * Returns the bin containing the given value. Values outside
+	 * the range of the histogram return the first or last bin.
+	 * 
+	 * @param value Value of a pixel
+	 * @return Bin of the value
+	 */
+	public int getBin(double value) {
+		int bins = getBinCount();
+		if(valueType != RATIONAL)
+			return Math.max(0, Math.min(bins - 1, (int) value));
+		return binOf(value, min, max, bins);
+	}
+	
+	/**
+	 * Returns the smallest value of the given bin
+	 * 
+	 * @param bin Bin of the histogram
+	 * @return Smallest value of the bin
+	 */
+	public double getBinStart(int bin) {
+		if(valueType != RATIONAL)
+			return bin;
+		return min + (max - min) * bin / getBinCount();
+	}
+	
+	/**
+	 * Returns the number of pixels inside the given bin
+	 * 
+	 * @param bin Bin of the histogram
+	 * @return Number of pixels
+	 */
+	public long getCount(int bin) {
+		return cumulative[bin + 1] - cumulative[bin];
+	}
+	
+	/**
+	 * Returns the number of pixels inside the bins
+	 * between from (including) and to (excluding).
+	 * 
+	 * @param from First bin (including)
+	 * @param to   Last bin (excluding)
+	 * @return Number of pixels
+	 */
+	public long getCount(int from, int to) {
+		return cumulative[to] - cumulative[from];
+	}
+	
+	/**
+	 * Returns the number of pixels inside the given and all previous bins
+	 * 
+	 * @param bin Last bin (including)
+	 * @return Number of pixels
+	 */
+	public long getCumulativeCount(int bin) {
+		return cumulative[bin + 1];
+	}
+	
+	/**
+	 * Returns the bin containing the pixel of the given rank,
+	 * if all pixels were sorted by their value.
+	 * 
+	 * @param rank Rank of the pixel, between 0 and total - 1
+	 * @return Bin containing the pixel
+	 */
+	public int getBinOfRank(long rank) {
+		// Find the first bin, whose cumulative count exceeds the rank
+		int low = 0, high = getBinCount() - 1;
+		while(low < high) {
+			int mid = (low + high) >>> 1;
+			if(cumulative[mid + 1] > rank)
+				high = mid;
+			else
+				low = mid + 1;
+		}
+		return low;
+	}
+	
+	/**
+	 * Returns the bin of the given value, for bins of the same size between
+	 * min and max. The maximum is part of the last bin.
+	 * 
+	 * @param value Value to get bin of
+	 * @param min   Minimum value
+	 * @param max   Maximum value
+	 * @param bins  Number of bins
+	 * @return Bin of the value
+	 */
+	static int binOf(double value, double min, double max, int bins) {
+		if(!(max > min))
+			return 0;
+		int bin = (int) ((value - min) / (max - min) * bins);
+		return Math.max(0, Math.min(bins - 1, bin));
+	}
+	
+}
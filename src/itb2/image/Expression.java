@@ -0,0 +1,687 @@
+package itb2.image;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.JavaFileObject.Kind;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import itb2.engine.TileExecutor;
+
+/**
+ * Arithmetic expression computing the value of a pixel from the values of
+ * its channels, e.g. <code>0.299*r + 0.587*g + 0.114*b</code>.
+ * <p>
+ * The expression may use:
+ * <ul>
+ * <li>Numbers, the constants <code>pi</code> and <code>e</code></li>
+ * <li>The channels by their variable name, or as <code>c0</code>, <code>c1</code>, ...</li>
+ * <li>The column <code>x</code> and row <code>y</code> of the pixel</li>
+ * <li>The operators <code>+ - * / % ^</code> and <code>&lt; &lt;= &gt; &gt;= == !=</code>,
+ *     the latter return 1 if true and 0 otherwise</li>
+ * <li>The functions <code>abs, sqrt, exp, log, sin, cos, tan, floor, ceil,
+ *     round, min(a, b), max(a, b), pow(a, b), clamp(v, min, max)</code> and
+ *     <code>if(condition, then, else)</code></li>
+ * </ul>
+ * The expression is compiled into a hidden class evaluating a whole band
+ * of rows at once, so it runs as fast as a hand written loop. If no
+ * compiler is available, the expression is interpreted instead.
+ * 
+ * @author Micha Strauch
+ */
+public abstract class Expression {
+	
+	/** Number of values per band, that is evaluated by a single task */
+	private static final int BAND_SIZE = 1 << 16;
+	
+	/** Maximum number of compiled expressions kept */
+	private static final int CACHE_SIZE = 64;
+	
+	/** Compiled expressions by their source and variables */
+	private static final Map<String, Expression> cache = new LinkedHashMap<String, Expression>(16, .75f, true) {
+		private static final long serialVersionUID = -6127153245208458711L;
+		
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Expression> eldest) {
+			return size() > CACHE_SIZE;
+		}
+	};
+	
+	/** Number of compiled classes, used to name them */
+	private static int compiled;
+	
+	/** Source of the expression */
+	private String source;
+	
+	/** Names of the channels */
+	private String[] variables;
+	
+	/** Constructor for compiled expressions */
+	Expression() {}
+	
+	/**
+	 * Parses and compiles the given expression. The names of the channels
+	 * are given in the order of the channels.
+	 * 
+	 * @param source    Expression to compile
+	 * @param variables Names of the channels
+	 * @return Compiled expression
+	 * 
+	 * @throws IllegalArgumentException If the expression is invalid
+	 */
+	public static Expression compile(String source, String... variables) throws IllegalArgumentException {
+		String key = String.join(",", variables) + ":" + source;
+		synchronized(cache) {
+			Expression expression = cache.get(key);
+			if(expression != null)
+				return expression;
+		}
+		
+		Node node = new Parser(source, variables).parse();
+		
+		Expression expression;
+		try {
+			expression = define(node, variables.length);
+		} catch(Exception | LinkageError e) {
+			// No compiler available, evaluate the expression node by node
+			expression = new Interpreted(node);
+		}
+		expression.source = source;
+		expression.variables = variables.clone();
+		
+		synchronized(cache) {
+			cache.put(key, expression);
+		}
+		return expression;
+	}
+	
+	/**
+	 * Returns the names of the channels of the given image, e.g.
+	 * <code>r, g, b</code> for RGB images or <code>c0, c1, ...</code>
+	 * for images without specific names.
+	 * 
+	 * @param image Image to name channels of
+	 * @return Names of the channels
+	 */
+	public static String[] getVariables(Image image) {
+		if(image instanceof RgbImage)
+			return new String[] {"r", "g", "b"};
+		if(image instanceof HsiImage)
+			return new String[] {"h", "s", "i"};
+		if(image instanceof HsvImage)
+			return new String[] {"h", "s", "v"};
+		if(image.getChannelCount() == 1)
+			return new String[] {"v"};
+		
+		String[] variables = new String[image.getChannelCount()];
+		for(int channel = 0; channel < variables.length; channel++)
+			variables[channel] = "c" + channel;
+		return variables;
+	}
+	
+	/**
+	 * Evaluates the expression for every pixel of the source image, and
+	 * writes the results into the target channel. The channels of the
+	 * source are read band by band, the bands are evaluated in parallel.
+	 * The target may be a channel of the source.
+	 * 
+	 * @param image  Image to read channels from
+	 * @param target Channel to write results into
+	 * 
+	 * @throws IllegalArgumentException If the image has less channels than
+	 *                                  variables, or the sizes don't match
+	 */
+	public void apply(Image image, Channel target) throws IllegalArgumentException {
+		int width = image.getWidth(), channels = image.getChannelCount();
+		if(channels < variables.length)
+			throw new IllegalArgumentException(String.format("Expression uses %d channels, image has %d", variables.length, channels));
+		if(target.getWidth() != width || target.getHeight() != image.getHeight())
+			throw new IllegalArgumentException("Target channel must be of the same size as the image");
+		
+		int bandHeight = Math.max(1, BAND_SIZE / Math.max(1, width));
+		TileExecutor.forEachBand(image.getHeight(), bandHeight, (row, height) -> {
+			double[][] values = new double[channels][];
+			for(int channel = 0; channel < channels; channel++)
+				values[channel] = image.getValues(0, row, width, height, channel, null);
+			
+			double[] result = new double[width * height];
+			evaluate(values, result, 0, row, width, result.length);
+			target.setValues(0, row, width, height, result);
+		});
+	}
+	
+	/**
+	 * Evaluates the expression for a single pixel
+	 * 
+	 * @param values Values of the channels of the pixel
+	 * @param column Column of the pixel
+	 * @param row    Row of the pixel
+	 * @return Value of the expression
+	 */
+	public double evaluate(double[] values, int column, int row) {
+		double[][] channels = new double[values.length][];
+		for(int channel = 0; channel < values.length; channel++)
+			channels[channel] = new double[] {values[channel]};
+		
+		double[] result = new double[1];
+		evaluate(channels, result, column, row, 1, 1);
+		return result[0];
+	}
+	
+	/**
+	 * Evaluates the expression for consecutive pixels of a band of rows
+	 * 
+	 * @param values Values of the pixels by channel, row by row
+	 * @param result Array to write the values of the expression into
+	 * @param column Column of the first pixel
+	 * @param row    Row of the first pixel
+	 * @param width  Width of a row
+	 * @param length Number of pixels to evaluate
+	 */
+	abstract void evaluate(double[][] values, double[] result, int column, int row, int width, int length);
+	
+	/** Whether the expression was compiled, or is interpreted */
+	public boolean isCompiled() {
+		return !(this instanceof Interpreted);
+	}
+	
+	@Override
+	public String toString() {
+		return source;
+	}
+	
+	/**
+	 * Compiles the given node into a hidden class
+	 * 
+	 * @param node     Root of the expression
+	 * @param channels Number of channels
+	 * @return Compiled expression
+	 * 
+	 * @throws Exception If the expression could not be compiled
+	 */
+	private static Expression define(Node node, int channels) throws Exception {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		if(compiler == null)
+			throw new IllegalStateException("No compiler found");
+		
+		String name;
+		synchronized(cache) {
+			name = "CompiledExpression" + compiled++;
+		}
+		
+		StringBuilder code = new StringBuilder();
+		code.append("package itb2.image;\n");
+		code.append("final class ").append(name).append(" extends Expression {\n");
+		code.append("void evaluate(double[][] values, double[] result, int column, int row, int width, int length) {\n");
+		for(int channel = 0; channel < channels; channel++)
+			code.append("double[] c").append(channel).append(" = values[").append(channel).append("];\n");
+		code.append("for(int i = 0; i < length; i++) {\n");
+		code.append("int x = column + i % width, y = row + i / width;\n");
+		code.append("result[i] = ").append(node.java).append(";\n");
+		code.append("}\n}\n}\n");
+		
+		// Compile against the classes of the ITB2, wherever they are loaded from
+		String classPath = System.getProperty("java.class.path");
+		URI location = Expression.class.getProtectionDomain().getCodeSource().getLocation().toURI();
+		classPath = new File(location).getPath() + File.pathSeparator + classPath;
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try(StandardJavaFileManager standardManager = compiler.getStandardFileManager(null, null, null)) {
+			ForwardingJavaFileManager<StandardJavaFileManager> memoryManager = new ForwardingJavaFileManager<>(standardManager) {
+				@Override
+				public JavaFileObject getJavaFileForOutput(Location location, String className, Kind kind, FileObject sibling) {
+					return new SimpleJavaFileObject(URI.create("memory:///" + className.replace('.', '/') + kind.extension), kind) {
+						@Override
+						public OutputStream openOutputStream() {
+							return bytes;
+						}
+					};
+				}
+			};
+			
+			JavaFileObject unit = new SimpleJavaFileObject(URI.create("memory:///itb2/image/" + name + Kind.SOURCE.extension), Kind.SOURCE) {
+				@Override
+				public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+					return code;
+				}
+			};
+			
+			List<String> options = Arrays.asList("-classpath", classPath, "-g:none");
+			if(!compiler.getTask(null, memoryManager, null, options, null, Arrays.asList(unit)).call())
+				throw new IllegalStateException("Could not compile expression");
+		}
+		
+		Class<?> type = MethodHandles.lookup().defineHiddenClass(bytes.toByteArray(), true).lookupClass();
+		return (Expression) type.getDeclaredConstructor().newInstance();
+	}
+	
+	/**
+	 * Expression evaluated node by node
+	 * 
+	 * @author Micha Strauch
+	 */
+	private static class Interpreted extends Expression {
+		
+		/** Root of the expression */
+		private final Node node;
+		
+		/**
+		 * Creates an interpreted expression
+		 * 
+		 * @param node Root of the expression
+		 */
+		Interpreted(Node node) {
+			this.node = node;
+		}
+		
+		@Override
+		void evaluate(double[][] values, double[] result, int column, int row, int width, int length) {
+			for(int i = 0; i < length; i++)
+				result[i] = node.evaluator.evaluate(values, i, column + i % width, row + i / width);
+		}
+		
+	}
+	
+	/**
+	 * Evaluates a node of the expression
+	 * 
+	 * @author Micha Strauch
+	 */
+	@FunctionalInterface
+	private static interface Evaluator {
+		/**
+		 * Evaluates the node for a single pixel
+		 * 
+		 * @param values Values of the pixels by channel
+		 * @param index  Index of the pixel
+		 * @param x      Column of the pixel
+		 * @param y      Row of the pixel
+		 * @return Value of the node
+		 */
+		double evaluate(double[][] values, int index, int x, int y);
+	}
+	
+	/**
+	 * Node of a parsed expression, either as Java code or evaluated directly
+	 * 
+	 * @author Micha Strauch
+	 */
+	private static class Node {
+		
+		/** Java code of the node */
+		private final String java;
+		
+		/** Evaluator of the node */
+		private final Evaluator evaluator;
+		
+		/**
+		 * Creates a node
+		 * 
+		 * @param java      Java code of the node
+		 * @param evaluator Evaluator of the node
+		 */
+		Node(String java, Evaluator evaluator) {
+			this.java = java;
+			this.evaluator = evaluator;
+		}
+		
+	}
+	
+	/**
+	 * Recursive descent parser for expressions
+	 * 
+	 * @author Micha Strauch
+	 */
+	private static class Parser {
+		
+		/** Expression to parse */
+		private final String source;
+		
+		/** Names of the channels */
+		private final String[] variables;
+		
+		/** Current position inside the source */
+		private int position;
+		
+		/**
+		 * Creates a parser
+		 * 
+		 * @param source    Expression to parse
+		 * @param variables Names of the channels
+		 */
+		Parser(String source, String[] variables) {
+			this.source = source;
+			this.variables = variables;
+		}
+		
+		/**
+		 * Parses the whole expression
+		 * 
+		 * @return Root of the expression
+		 */
+		Node parse() {
+			Node node = comparison();
+			skipSpaces();
+			if(position < source.length())
+				throw error("Unexpected '" + source.charAt(position) + "'");
+			return node;
+		}
+		
+		/** comparison := sum (('&lt;' | '&lt;=' | '&gt;' | '&gt;=' | '==' | '!=') sum)? */
+		private Node comparison() {
+			Node left = sum();
+			String operator = accept("<=", ">=", "==", "!=", "<", ">");
+			if(operator == null)
+				return left;
+			
+			Node a = left, b = sum();
+			String java = "(" + a.java + " " + operator + " " + b.java + " ? 1.0 : 0.0)";
+			switch(operator) {
+				case "<":  return new Node(java, (v, i, x, y) -> a.evaluator.evaluate(v, i, x, y) < b.evaluator.evaluate(v, i, x, y) ? 1 : 0);
+				case "<=": return new Node(java, (v, i, x, y) -> a.evaluator.evaluate(v, i, x, y) <= b.evaluator.evaluate(v, i, x, y) ? 1 : 0);
+				case ">":  return new Node(java, (v, i, x, y) -> a.evaluator.evaluate(v, i, x, y) > b.evaluator.evaluate(v, i, x, y) ? 1 : 0);
+				case ">=": return new Node(java, (v, i, x, y) -> a.evaluator.evaluate(v, i, x, y) >= b.evaluator.evaluate(v, i, x, y) ? 1 : 0);
+				case "==": return new Node(java, (v, i, x, y) -> a.evaluator.evaluate(v, i, x, y) == b.evaluator.evaluate(v, i, x, y) ? 1 : 0);
+				default:   return new Node(java, (v, i, x, y) -> a.evaluator.evaluate(v, i, x, y) != b.evaluator.evaluate(v, i, x, y) ? 1 : 0);
+			}
+		}
+		
+		/** sum := product (('+' | '-') product)* */
+		private Node sum() {
+			Node node = product();
+			String operator;
+			while((operator = accept("+", "-")) != null) {
+				Node a = node, b = product();
+				String java = "(" + a.java + " " + operator + " " + b.java + ")";
+				if(operator.equals("+"))
+					node = new Node(java, (v, i, x, y) -> a.evaluator.evaluate(v, i, x, y) + b.evaluator.evaluate(v, i, x, y));
+				else
+					node = new Node(java, (v, i, x, y) -> a.evaluator.evaluate(v, i, x, y) - b.evaluator.evaluate(v, i, x, y));
+			}
+			return node;
+		}
+		
+		/** product := unary (('*' | '/' | '%') unary)* */
+		private Node product() {
+			Node node = unary();
+			String operator;
+			while((operator = accept("*", "/", "%")) != null) {
+				Node a = node, b = unary();
+				String java = "(" + a.java + " " + operator + " " + b.java + ")";
+				switch(operator) {
+					case "*": node = new Node(java, (v, i, x, y) -> a.evaluator.evaluate(v, i, x, y) * b.evaluator.evaluate(v, i, x, y)); break;
+					case "/": node = new Node(java, (v, i, x, y) -> a.evaluator.evaluate(v, i, x, y) / b.evaluator.evaluate(v, i, x, y)); break;
+					default:  node = new Node(java, (v, i, x, y) -> a.evaluator.evaluate(v, i, x, y) % b.evaluator.evaluate(v, i, x, y)); break;
+				}
+			}
+			return node;
+		}
+		
+		/** unary := ('-' | '+') unary | power */
+		private Node unary() {
+			if(accept("-") != null) {
+				Node a = unary();
+				return new Node("(-" + a.java + ")", (v, i, x, y) -> -a.evaluator.evaluate(v, i, x, y));
+			}
+			if(accept("+") != null)
+				return unary();
+			return power();
+		}
+		
+		/** power := primary ('^' unary)? */
+		private Node power() {
+			Node node = primary();
+			if(accept("^") == null)
+				return node;
+			
+			Node a = node, b = unary();
+			return new Node("Math.pow(" + a.java + ", " + b.java + ")", (v, i, x, y) -> Math.pow(a.evaluator.evaluate(v, i, x, y), b.evaluator.evaluate(v, i, x, y)));
+		}
+		
+		/** primary := number | name | name '(' arguments ')' | '(' comparison ')' */
+		private Node primary() {
+			skipSpaces();
+			if(accept("(") != null) {
+				Node node = comparison();
+				expect(")");
+				return node;
+			}
+			
+			if(position < source.length() && (Character.isDigit(source.charAt(position)) || source.charAt(position) == '.'))
+				return number();
+			
+			int start = position;
+			while(position < source.length() && Character.isLetterOrDigit(source.charAt(position)))
+				position++;
+			String name = source.substring(start, position);
+			if(name.isEmpty())
+				throw error(position < source.length() ? "Unexpected '" + source.charAt(position) + "'" : "Unexpected end");
+			
+			if(accept("(") != null)
+				return function(name, start);
+			return variable(name, start);
+		}
+		
+		/** Parses a number */
+		private Node number() {
+			int start = position;
+			while(position < source.length() && (Character.isDigit(source.charAt(position)) || source.charAt(position) == '.'))
+				position++;
+			
+			// Exponent, e.g. 1e-3
+			if(position < source.length() && (source.charAt(position) == 'e' || source.charAt(position) == 'E')) {
+				int exponent = position + 1;
+				if(exponent < source.length() && (source.charAt(exponent) == '+' || source.charAt(exponent) == '-'))
+					exponent++;
+				if(exponent < source.length() && Character.isDigit(source.charAt(exponent))) {
+					position = exponent;
+					while(position < source.length() && Character.isDigit(source.charAt(position)))
+						position++;
+				}
+			}
+			
+			try {
+				double value = Double.parseDouble(source.substring(start, position));
+				return constant(value);
+			} catch(NumberFormatException e) {
+				position = start;
+				throw error("Invalid number");
+			}
+		}
+		
+		/**
+		 * Returns the node of a variable or constant
+		 * 
+		 * @param name  Name of the variable
+		 * @param start Position of the name
+		 * @return Node of the variable
+		 */
+		private Node variable(String name, int start) {
+			for(int channel = 0; channel < variables.length; channel++)
+				if(variables[channel].equals(name))
+					return channel(channel);
+			
+			switch(name) {
+				case "x":  return new Node("(double) x", (v, i, x, y) -> x);
+				case "y":  return new Node("(double) y", (v, i, x, y) -> y);
+				case "pi": return constant(Math.PI);
+				case "e":  return constant(Math.E);
+			}
+			
+			if(name.matches("c\\d{1,3}")) {
+				int channel = Integer.parseInt(name.substring(1));
+				if(channel < variables.length)
+					return channel(channel);
+			}
+			
+			position = start;
+			throw error("Unknown variable '" + name + "'");
+		}
+		
+		/**
+		 * Returns the node of a function call
+		 * 
+		 * @param name  Name of the function
+		 * @param start Position of the name
+		 * @return Node of the function call
+		 */
+		private Node function(String name, int start) {
+			List<Node> arguments = new ArrayList<>();
+			if(accept(")") == null) {
+				do {
+					arguments.add(comparison());
+				} while(accept(",") != null);
+				expect(")");
+			}
+			
+			int count = arguments.size();
+			Node a = count > 0 ? arguments.get(0) : null;
+			Node b = count > 1 ? arguments.get(1) : null;
+			Node c = count > 2 ? arguments.get(2) : null;
+			
+			int expected;
+			Node node;
+			switch(name) {
+				case "abs":   expected = 1; node = count != 1 ? null : unary("Math.abs", a, Math::abs); break;
+				case "sqrt":  expected = 1; node = count != 1 ? null : unary("Math.sqrt", a, Math::sqrt); break;
+				case "exp":   expected = 1; node = count != 1 ? null : unary("Math.exp", a, Math::exp); break;
+				case "log":   expected = 1; node = count != 1 ? null : unary("Math.log", a, Math::log); break;
+				case "sin":   expected = 1; node = count != 1 ? null : unary("Math.sin", a, Math::sin); break;
+				case "cos":   expected = 1; node = count != 1 ? null : unary("Math.cos", a, Math::cos); break;
+				case "tan":   expected = 1; node = count != 1 ? null : unary("Math.tan", a, Math::tan); break;
+				case "floor": expected = 1; node = count != 1 ? null : unary("Math.floor", a, Math::floor); break;
+				case "ceil":  expected = 1; node = count != 1 ? null : unary("Math.ceil", a, Math::ceil); break;
+				case "round": expected = 1; node = count != 1 ? null : unary("Math.rint", a, Math::rint); break;
+				case "min":   expected = 2; node = count != 2 ? null : binary("Math.min", a, b, Math::min); break;
+				case "max":   expected = 2; node = count != 2 ? null : binary("Math.max", a, b, Math::max); break;
+				case "pow":   expected = 2; node = count != 2 ? null : binary("Math.pow", a, b, Math::pow); break;
+				case "clamp":
+					expected = 3;
+					node = count != 3 ? null : new Node("Math.max(" + b.java + ", Math.min(" + c.java + ", " + a.java + "))",
+							(v, i, x, y) -> Math.max(b.evaluator.evaluate(v, i, x, y), Math.min(c.evaluator.evaluate(v, i, x, y), a.evaluator.evaluate(v, i, x, y))));
+					break;
+				case "if":
+					expected = 3;
+					node = count != 3 ? null : new Node("(" + a.java + " != 0 ? " + b.java + " : " + c.java + ")",
+							(v, i, x, y) -> a.evaluator.evaluate(v, i, x, y) != 0 ? b.evaluator.evaluate(v, i, x, y) : c.evaluator.evaluate(v, i, x, y));
+					break;
+				default:
+					position = start;
+					throw error("Unknown function '" + name + "'");
+			}
+			
+			if(node == null) {
+				position = start;
+				throw error(String.format("Function '%s' expects %d argument(s), got %d", name, expected, count));
+			}
+			return node;
+		}
+		
+		/**
+		 * Returns the node of a function with a single argument
+		 * 
+		 * @param java     Java name of the function
+		 * @param a        Argument
+		 * @param function Function to call
+		 * @return Node of the function call
+		 */
+		private static Node unary(String java, Node a, DoubleUnaryOperator function) {
+			return new Node(java + "(" + a.java + ")", (v, i, x, y) -> function.applyAsDouble(a.evaluator.evaluate(v, i, x, y)));
+		}
+		
+		/**
+		 * Returns the node of a function with two arguments
+		 * 
+		 * @param java     Java name of the function
+		 * @param a        First argument
+		 * @param b        Second argument
+		 * @param function Function to call
+		 * @return Node of the function call
+		 */
+		private static Node binary(String java, Node a, Node b, DoubleBinaryOperator function) {
+			return new Node(java + "(" + a.java + ", " + b.java + ")", (v, i, x, y) -> function.applyAsDouble(a.evaluator.evaluate(v, i, x, y), b.evaluator.evaluate(v, i, x, y)));
+		}
+		
+		/**
+		 * Returns the node of a channel
+		 * 
+		 * @param channel Index of the channel
+		 * @return Node of the channel
+		 */
+		private static Node channel(int channel) {
+			return new Node("c" + channel + "[i]", (v, i, x, y) -> v[channel][i]);
+		}
+		
+		/**
+		 * Returns the node of a constant
+		 * 
+		 * @param value Value of the constant
+		 * @return Node of the constant
+		 */
+		private static Node constant(double value) {
+			String java = Double.isInfinite(value) ? "Double.POSITIVE_INFINITY" : "(" + value + ")";
+			return new Node(java, (v, i, x, y) -> value);
+		}
+		
+		/**
+		 * Skips the given text, if it is next
+		 * 
+		 * @param texts Texts to accept
+		 * @return Accepted text, null if none is next
+		 */
+		private String accept(String... texts) {
+			skipSpaces();
+			for(String text : texts) {
+				if(source.startsWith(text, position)) {
+					position += text.length();
+					return text;
+				}
+			}
+			return null;
+		}
+		
+		/**
+		 * Skips the given text, which must be next
+		 * 
+		 * @param text Expected text
+		 */
+		private void expect(String text) {
+			if(accept(text) == null)
+				throw error("Expected '" + text + "'");
+		}
+		
+		/** Skips white spaces */
+		private void skipSpaces() {
+			while(position < source.length() && Character.isWhitespace(source.charAt(position)))
+				position++;
+		}
+		
+		/**
+		 * Creates an exception for the current position
+		 * 
+		 * @param message Description of the error
+		 * @return Exception to throw
+		 */
+		private IllegalArgumentException error(String message) {
+			return new IllegalArgumentException(String.format("%s at position %d: %s", message, position + 1, source));
+		}
+		
+	}
+	
+}
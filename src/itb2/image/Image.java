@@ -44,6 +44,21 @@ public interface Image extends Iterable<Channel>, Serializable {
 	 */
 	public int getChannelCount();
 	
+	/**
+	 * Returns the number of modifications of this image. The number changes
+	 * whenever values of this image are set, so results computed from the
+	 * values, like {@link Statistics}, can be reused as long as the number
+	 * stays the same. Images that can't track their modifications return -1.
+	 * <p>
+	 * Like the values themselves, the number is only guaranteed to be up to
+	 * date on other threads after synchronizing with the writing thread.
+	 * 
+	 * @return Number of modifications, or -1 if unknown
+	 */
+	default long getModificationCount() {
+		return -1;
+	}
+	
 	/**
 	 * Returns the values of the given pixel. 
 	 * 
@@ -86,6 +101,99 @@ public interface Image extends Iterable<Channel>, Serializable {
 	 */
 	public void setValue(int column, int row, int channel, double value);
 	
+	/**
+	 * Reads the values of a rectangular region of the given channel into the
+	 * given buffer. The values are stored row by row, so the value of the pixel
+	 * <code>(column + x, row + y)</code> is written to <code>buffer[y * width + x]</code>.
+	 * If no buffer is given (null), a new one will be created.<p>
+	 * A single row can be read using a height of 1, the whole channel
+	 * using the size of this image.
+	 * 
+	 * @param column  Left column of the region
+	 * @param row     Top row of the region
+	 * @param width   Width of the region
+	 * @param height  Height of the region
+	 * @param channel Channel to read values from
+	 * @param buffer  Buffer to write values into (or null)
+	 * 
+	 * @return Buffer containing the values
+	 */
+	default double[] getValues(int column, int row, int width, int height, int channel, double[] buffer) {
+		if(buffer == null)
+			buffer = new double[width * height];
+		
+		for(int y = 0, index = 0; y < height; y++)
+			for(int x = 0; x < width; x++, index++)
+				buffer[index] = getValue(column + x, row + y, channel);
+		
+		return buffer;
+	}
+	
+	/**
+	 * Writes the values of the given buffer into a rectangular region of the
+	 * given channel. The values must be stored row by row, see
+	 * {@link #getValues(int, int, int, int, int, double[]) getValues(...)}.
+	 * Keep in mind, that the underlaying image, might not store double values.
+	 * 
+	 * @param column  Left column of the region
+	 * @param row     Top row of the region
+	 * @param width   Width of the region
+	 * @param height  Height of the region
+	 * @param channel Channel to write values to
+	 * @param values  Values to write
+	 */
+	default void setValues(int column, int row, int width, int height, int channel, double[] values) {
+		for(int y = 0, index = 0; y < height; y++)
+			for(int x = 0; x < width; x++, index++)
+				setValue(column + x, row + y, channel, values[index]);
+	}
+	
+	/**
+	 * Same as {@link #getValues(int, int, int, int, int, double[]) getValues(...)},
+	 * but stores the values as unsigned bytes. Values are bounded between 0 and 255
+	 * and decimal places are cut off. Byte precision images can return their
+	 * values without any conversion.
+	 * 
+	 * @param column  Left column of the region
+	 * @param row     Top row of the region
+	 * @param width   Width of the region
+	 * @param height  Height of the region
+	 * @param channel Channel to read values from
+	 * @param buffer  Buffer to write values into (or null)
+	 * 
+	 * @return Buffer containing the values
+	 */
+	default byte[] getBytes(int column, int row, int width, int height, int channel, byte[] buffer) {
+		if(buffer == null)
+			buffer = new byte[width * height];
+		
+		for(int y = 0, index = 0; y < height; y++) {
+			for(int x = 0; x < width; x++, index++) {
+				double value = getValue(column + x, row + y, channel);
+				buffer[index] = (byte)(value <= 0 ? 0 : value >= 255 ? 255 : value);
+			}
+		}
+		
+		return buffer;
+	}
+	
+	/**
+	 * Same as {@link #setValues(int, int, int, int, int, double[]) setValues(...)},
+	 * but reads the values from unsigned bytes.
+	 * 
+	 * @param column  Left column of the region
+	 * @param row     Top row of the region
+	 * @param width   Width of the region
+	 * @param height  Height of the region
+	 * @param channel Channel to write values to
+	 * @param values  Values to write (unsigned)
+	 */
+	default void setBytes(int column, int row, int width, int height, int channel, byte[] values) {
+		for(int y = 0, index = 0; y < height; y++)
+			for(int x = 0; x < width; x++, index++)
+				setValue(column + x, row + y, channel, values[index] & 0xFF);
+	}
+	
 	/**
 	 * Returns the channel with the given ID.
 	 * 
@@ -111,6 +219,10 @@ public interface Image extends Iterable<Channel>, Serializable {
 	/**
 	 * Creates a {@link BufferedImage} of this image. This function will
 	 * be used for displaying the image on the GUI and storing it to disk. 
+	 * <p>
+	 * The returned image might be updated in place by later calls. Threads
+	 * other than the event dispatch thread should synchronize on it while
+	 * reading it.
 	 * 
 	 * @return This image as a BufferedImage
 	 */
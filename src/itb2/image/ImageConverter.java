@@ -19,7 +19,7 @@ import itb2.filter.Filter;
  */
 public final class ImageConverter {
 	/** Map of conversions */
-	private static final PathMap<Image> map = new PathMap<>(Image.class);;
+	private static final PathMap<Image> map = new PathMap<>(Image.class);
 	
 	/** Not instanceable */
 	private ImageConverter(){}
@@ -35,14 +35,15 @@ public final class ImageConverter {
 	 * @throws ConversionException If conversion not successful
 	 */
 	public static <T extends Image> T convert(Image image, Class<T> destination) throws ConversionException {
+		// Placeholders are replaced by the loaded image
+		image = LazyImage.unwrap(image);
+		
 		// Just return the image, if the type is matching
 		if(destination.isAssignableFrom(image.getClass()))
 			return destination.cast(image);
 		
-		// Try to convert the image
-		synchronized(map) {
-			return map.convert(image, destination);
-		}
+		// Try to convert the image, the conversion path is cached by the map
+		return map.convert(image, destination);
 	}
 	
 	/**
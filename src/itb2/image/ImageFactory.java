@@ -6,6 +6,12 @@ import java.awt.image.BufferedImage;
 import itb2.image.byteprecision.AbstractByteImage;
 import itb2.image.byteprecision.ByteImageFactory;
 import itb2.image.doubleprecision.DoubleImageFactory;
+import itb2.image.floatprecision.AbstractFloatImage;
+import itb2.image.floatprecision.FloatImageFactory;
+import itb2.image.mappedprecision.AbstractMappedImage;
+import itb2.image.mappedprecision.MappedImageFactory;
+import itb2.image.shortprecision.AbstractShortImage;
+import itb2.image.shortprecision.ShortImageFactory;
 
 /**
  * Factory to create an image with either double or byte precision.
@@ -13,13 +19,19 @@ import itb2.image.doubleprecision.DoubleImageFactory;
  * precision images only store values between 0 and 255.<br> 
  * As double precision images use eight times the amount of space as
  * byte precision images, it's better to use double precision images
- * only, when needed. Better use byte precision images by default.
+ * only, when needed. Better use byte precision images by default.<br>
+ * In between there are float precision images, storing any value with
+ * less accuracy in half the space, and short precision images, storing
+ * values between 0 and 255 with 16 bit accuracy.<br>
+ * Images too large for the heap can be created using mapped precision:
+ * They store the same values as byte precision images, but inside a
+ * memory mapped file.
  * 
  * @author Micha Strauch
  */
 public abstract class ImageFactory {
 	/** Factories for creating images */
-	private static ImageFactory doublePrecision, bytePrecision;
+	private static ImageFactory doublePrecision, bytePrecision, mappedPrecision, floatPrecision, shortPrecision;
 	
 	/**
 	 * Returns the ImageFactory for creating double precision images.
@@ -47,6 +59,51 @@ public abstract class ImageFactory {
 		return bytePrecision;
 	}
 	
+	/**
+	 * Returns the ImageFactory for creating float precision images.
+	 * Those images can store any type of value, like double precision
+	 * images, but with float accuracy in half the space.
+	 * 
+	 * @return Factory for creating float precision images
+	 */
+	public static ImageFactory floatPrecision() {
+		if(floatPrecision == null) {
+			floatPrecision = new FloatImageFactory();
+		}
+		return floatPrecision;
+	}
+	
+	/**
+	 * Returns the ImageFactory for creating short precision images.
+	 * Those images store values between 0 and 255, like byte precision
+	 * images, but in steps of 1/257. So 16 bit samples are kept without
+	 * loss, using twice the space of byte precision images.
+	 * 
+	 * @return Factory for creating short precision images
+	 */
+	public static ImageFactory shortPrecision() {
+		if(shortPrecision == null) {
+			shortPrecision = new ShortImageFactory();
+		}
+		return shortPrecision;
+	}
+	
+	/**
+	 * Returns the ImageFactory for creating mapped precision images.
+	 * Those images store the same values as byte precision images, but
+	 * outside of the Java heap, inside a memory mapped temporary file.
+	 * Accessing them is a bit slower, so they should only be used for
+	 * images, that don't fit into the heap.
+	 * 
+	 * @return Factory for creating mapped precision images
+	 */
+	public static ImageFactory mappedPrecision() {
+		if(mappedPrecision == null) {
+			mappedPrecision = new MappedImageFactory();
+		}
+		return mappedPrecision;
+	}
+	
 	/**
 	 * Returns the factory to create images using the same precision
 	 * as the given image. If the precision can't be determined the
@@ -60,6 +117,15 @@ public abstract class ImageFactory {
 		if(image instanceof AbstractByteImage)
 			return bytePrecision();
 		
+		if(image instanceof AbstractMappedImage)
+			return mappedPrecision();
+		
+		if(image instanceof AbstractFloatImage)
+			return floatPrecision();
+		
+		if(image instanceof AbstractShortImage)
+			return shortPrecision();
+		
 		// Special case: DrawableByteImage does not extends AbstractByteImage
 		if(bytePrecision().drawable().isInstance(image))
 			return bytePrecision();
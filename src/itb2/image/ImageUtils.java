@@ -1,10 +1,12 @@
 package itb2.image;
 
 import java.util.function.BiFunction;
+import java.util.function.DoubleUnaryOperator;
 import java.util.function.Function;
 
 import itb2.data.ConversionException;
 import itb2.engine.CommunicationManager;
+import itb2.engine.TileExecutor;
 
 /**
  * Utility functions for images
@@ -42,12 +44,16 @@ public class ImageUtils {
 	 * @return Matrix with values
 	 */
 	public static double[][] getValues(Channel channel, double[][] values) {
+		int width = channel.getWidth(), height = channel.getHeight();
 		if(values == null)
-			values = new double[channel.getWidth()][channel.getHeight()];
+			values = new double[width][height];
 		
-		for(int col = 0; col < channel.getWidth(); col++)
-			for(int row = 0; row < channel.getHeight(); row++)
-					values[col][row] = channel.getValue(col, row);
+		double[] buffer = new double[width];
+		for(int row = 0; row < height; row++) {
+			channel.getValues(0, row, width, 1, buffer);
+			for(int col = 0; col < width; col++)
+				values[col][row] = buffer[col];
+		}
 		
 		return values;
 	}
@@ -72,9 +78,14 @@ public class ImageUtils {
 	 * @param values  Values to set
 	 */
 	public static void setValues(Channel channel, double[][] values) {
-		for(int col = 0; col < channel.getWidth(); col++)
-			for(int row = 0; row < channel.getHeight(); row++)
-				channel.setValue(col, row, values[col][row]);
+		int width = channel.getWidth(), height = channel.getHeight();
+		
+		double[] buffer = new double[width];
+		for(int row = 0; row < height; row++) {
+			for(int col = 0; col < width; col++)
+				buffer[col] = values[col][row];
+			channel.setValues(0, row, width, 1, buffer);
+		}
 	}
 	
 	/**
@@ -107,11 +118,22 @@ public class ImageUtils {
 		if(to.getWidth() < from.getWidth() || to.getHeight() < from.getHeight())
 			throw new ArrayIndexOutOfBoundsException();
 		
-		for(int col = 0; col < from.getWidth(); col++) {
-			for(int row = 0; row < from.getHeight(); row++) {
-				double value = from.getValue(col, row);
-				to.setValue(col, row, value);
+		int width = from.getWidth(), height = from.getHeight();
+		
+		// Byte precision images can exchange their values without conversion
+		if(isBytePrecision(from.getImage()) && isBytePrecision(to.getImage())) {
+			byte[] buffer = new byte[width];
+			for(int row = 0; row < height; row++) {
+				from.getBytes(0, row, width, 1, buffer);
+				to.setBytes(0, row, width, 1, buffer);
 			}
+			return;
+		}
+		
+		double[] buffer = new double[width];
+		for(int row = 0; row < height; row++) {
+			from.getValues(0, row, width, 1, buffer);
+			to.setValues(0, row, width, 1, buffer);
 		}
 	}
 	
@@ -165,12 +187,14 @@ public class ImageUtils {
 	 * @param newMax  New maximum value
 	 */
 	public static void scaleLinearly(Channel channel, double oldMin, double oldMax, double newMin, double newMax) {
-		for(Row row : channel.rows()) {
-			for(Cell cell : row) {
-				double value = cell.getValue();
-				value = (value - oldMin) / (oldMax - oldMin) * (newMax - newMin) + newMin;
-				cell.setValue(value);
-			}
+		int width = channel.getWidth(), height = channel.getHeight();
+		
+		double[] buffer = new double[width];
+		for(int row = 0; row < height; row++) {
+			channel.getValues(0, row, width, 1, buffer);
+			for(int col = 0; col < width; col++)
+				buffer[col] = (buffer[col] - oldMin) / (oldMax - oldMin) * (newMax - newMin) + newMin;
+			channel.setValues(0, row, width, 1, buffer);
 		}
 	}
 	
@@ -184,9 +208,14 @@ public class ImageUtils {
 	 * @param provider Function providing values to fill into the image
 	 */
 	public static void fill(Channel channel, BiFunction<Integer, Integer, Double> provider) {
-		for(int col = 0; col < channel.getWidth(); col++)
-			for(int row = 0; row < channel.getHeight(); row++)
-				channel.setValue(col, row, provider.apply(col, row));
+		int width = channel.getWidth(), height = channel.getHeight();
+		
+		double[] buffer = new double[width];
+		for(int row = 0; row < height; row++) {
+			for(int col = 0; col < width; col++)
+				buffer[col] = provider.apply(col, row);
+			channel.setValues(0, row, width, 1, buffer);
+		}
 	}
 	
 	/**
@@ -198,9 +227,120 @@ public class ImageUtils {
 	 * @param replacer Replacer returning the new value for each given value
 	 */
 	public static void replace(Channel channel, Function<Double, Double> replacer) {
-		for(Row row : channel.rows())
-			for(Cell cell : row)
-				cell.modifyValue(replacer);
+		int width = channel.getWidth(), height = channel.getHeight();
+		
+		double[] buffer = new double[width];
+		for(int row = 0; row < height; row++) {
+			channel.getValues(0, row, width, 1, buffer);
+			for(int col = 0; col < width; col++)
+				buffer[col] = replacer.apply(buffer[col]);
+			channel.setValues(0, row, width, 1, buffer);
+		}
+	}
+	
+	/**
+	 * Replaces every value of the channel with the value returned by the
+	 * operator. Other than {@link #replace(Channel, Function)} the values
+	 * are not boxed, and the rows are processed in parallel bands, so the
+	 * operator must be thread safe.
+	 * 
+	 * @param channel  Channel to replace values in
+	 * @param operator Operator returning the new value for each given value
+	 */
+	public static void map(Channel channel, DoubleUnaryOperator operator) {
+		int width = channel.getWidth();
+		
+		TileExecutor.forEachBand(channel.getHeight(), bandHeight(width), (row, height) -> {
+			double[] buffer = channel.getValues(0, row, width, height, null);
+			for(int i = 0; i < buffer.length; i++)
+				buffer[i] = operator.applyAsDouble(buffer[i]);
+			channel.setValues(0, row, width, height, buffer);
+		});
+	}
+	
+	/**
+	 * Fills the channel with the values given by the provider. Other than
+	 * {@link #fill(Channel, BiFunction)} the values are not boxed, and the
+	 * rows are processed in parallel bands, so the provider must be
+	 * thread safe.
+	 * 
+	 * @param channel  Channel to fill with values
+	 * @param provider Provider of the value of each pixel
+	 */
+	public static void generate(Channel channel, PixelProvider provider) {
+		int width = channel.getWidth();
+		
+		TileExecutor.forEachBand(channel.getHeight(), bandHeight(width), (row, height) -> {
+			double[] buffer = new double[width * height];
+			for(int y = 0, i = 0; y < height; y++)
+				for(int x = 0; x < width; x++)
+					buffer[i++] = provider.applyAsDouble(x, row + y);
+			channel.setValues(0, row, width, height, buffer);
+		});
+	}
+	
+	/**
+	 * Calls the operation for each pixel with the values of all channels
+	 * of the source, and writes the values computed by the operation into
+	 * the target. Source and target may be the same image. The rows are
+	 * processed in parallel bands, so the operation must be thread safe.
+	 * 
+	 * @param source    Image to read values from
+	 * @param target    Image to write values into, of the same size as the source
+	 * @param operation Operation computing the values of the target pixels
+	 * 
+	 * @throws IllegalArgumentException If the images are of different size
+	 */
+	public static void apply(Image source, Image target, PixelOp operation) throws IllegalArgumentException {
+		int width = source.getWidth();
+		int sourceChannels = source.getChannelCount(), targetChannels = target.getChannelCount();
+		if(target.getWidth() != width || target.getHeight() != source.getHeight())
+			throw new IllegalArgumentException("Target must be of the same size as the source");
+		
+		TileExecutor.forEachBand(source.getHeight(), bandHeight(width), (row, height) -> {
+			double[][] in = new double[sourceChannels][];
+			for(int channel = 0; channel < sourceChannels; channel++)
+				in[channel] = source.getValues(0, row, width, height, channel, null);
+			
+			double[][] out = new double[targetChannels][width * height];
+			double[] sourcePixel = new double[sourceChannels], targetPixel = new double[targetChannels];
+			for(int i = 0; i < width * height; i++) {
+				for(int channel = 0; channel < sourceChannels; channel++)
+					sourcePixel[channel] = in[channel][i];
+				operation.apply(sourcePixel, targetPixel);
+				for(int channel = 0; channel < targetChannels; channel++)
+					out[channel][i] = targetPixel[channel];
+			}
+			
+			for(int channel = 0; channel < targetChannels; channel++)
+				target.setValues(0, row, width, height, channel, out[channel]);
+		});
+	}
+	
+	/**
+	 * Evaluates the given {@link Expression} for each pixel of the source
+	 * and writes the result into the target channel. The channels of the
+	 * source are named like in {@link Expression#getVariables(Image)}, e.g.
+	 * <code>ImageUtils.evaluate(rgb, gray.getChannel(0), "0.299*r + 0.587*g + 0.114*b")</code>
+	 * 
+	 * @param source     Image to read values from
+	 * @param target     Channel to write results into
+	 * @param expression Expression computing the value of each pixel
+	 * 
+	 * @throws IllegalArgumentException If the expression is invalid
+	 */
+	public static void evaluate(Image source, Channel target, String expression) throws IllegalArgumentException {
+		Expression.compile(expression, Expression.getVariables(source)).apply(source, target);
+	}
+	
+	/**
+	 * Returns the number of rows processed by a single task
+	 * 
+	 * @param width Width of the image
+	 * @return Number of rows per band
+	 */
+	private static int bandHeight(int width) {
+		return Math.max(1, (1 << 16) / Math.max(1, width));
 	}
 	
 	/**
@@ -210,7 +350,7 @@ public class ImageUtils {
 	 * @return Maximum value
 	 */
 	public static double max(Image image) {
-		double max = Double.MIN_VALUE;
+		double max = Double.NEGATIVE_INFINITY;
 		
 		for(Channel channel : image) {
 			double val = max(channel);
@@ -222,21 +362,13 @@ public class ImageUtils {
 	
 	/**
 	 * Returns the maximum value in this channel.
+	 * The value is taken from the {@link Statistics} of the channel.
 	 * 
 	 * @param channel Channel to find maximum value for.
 	 * @return Maximum value
 	 */
 	public static double max(Channel channel) {
-		double max = Double.MIN_VALUE;
-		
-		for(Row row : channel.rows()) {
-			for(Cell cell : row) {
-				double val = cell.getValue();
-				max = val > max ? val : max;
-			}
-		}
-	
-		return max;
+		return Statistics.of(channel).getMax();
 	}
 	
 	/**
@@ -246,7 +378,7 @@ public class ImageUtils {
 	 * @return Minimum value
 	 */
 	public static double min(Image image) {
-		double min = Double.MAX_VALUE;
+		double min = Double.POSITIVE_INFINITY;
 		
 		for(Channel channel : image) {
 			double val = min(channel);
@@ -258,21 +390,26 @@ public class ImageUtils {
 	
 	/**
 	 * Returns the minimum value in this channel.
+	 * The value is taken from the {@link Statistics} of the channel.
 	 * 
 	 * @param channel Channel to find minimum value for.
 	 * @return Minimum value
 	 */
 	public static double min(Channel channel) {
-		double min = Double.MAX_VALUE;
-		
-		for(Row row : channel.rows()) {
-			for(Cell cell : row) {
-				double val = cell.getValue();
-				min = val < min ? val : min;
-			}
-		}
+		return Statistics.of(channel).getMin();
+	}
 	
-		return min;
+	/**
+	 * Whether the given image stores its values with byte precision.
+	 * Mapped precision images store the same values as byte precision
+	 * images, only at another place.
+	 * 
+	 * @param image Image to check
+	 * @return True, if the image is a byte or mapped precision image
+	 */
+	private static boolean isBytePrecision(Image image) {
+		ImageFactory precision = ImageFactory.getPrecision(image);
+		return precision == ImageFactory.bytePrecision() || precision == ImageFactory.mappedPrecision();
 	}
 	
 	/**
@@ -319,5 +456,38 @@ public class ImageUtils {
 		}
 		return ImageConverter.convert(image, returnType);
 	}
-
+	
+	/**
+	 * Provides the value of a pixel by its position
+	 * 
+	 * @author Micha Strauch
+	 */
+	@FunctionalInterface
+	public static interface PixelProvider {
+		/**
+		 * Returns the value of the given pixel
+		 * 
+		 * @param column Column of the pixel
+		 * @param row    Row of the pixel
+		 * @return Value of the pixel
+		 */
+		public double applyAsDouble(int column, int row);
+	}
+	
+	/**
+	 * Computes the values of a pixel from the values of another pixel
+	 * 
+	 * @author Micha Strauch
+	 */
+	@FunctionalInterface
+	public static interface PixelOp {
+		/**
+		 * Computes the values of the target pixel
+		 * 
+		 * @param source Values of the source pixel by channel
+		 * @param target Array to write the values of the target pixel into
+		 */
+		public void apply(double[] source, double[] target);
+	}
+	
 }
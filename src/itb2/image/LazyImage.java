@@ -0,0 +1,233 @@
+package itb2.image;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+
+/**
+ * Placeholder for an image, whose pixels are not loaded yet. The size,
+ * name and type of the image are known right away, the pixels are loaded
+ * by {@link #get()}: Either in the background or on the first access of
+ * the pixels, whatever comes first. Afterwards all calls are passed to
+ * the loaded image.
+ * <p>
+ * As the placeholder is not of the type of the loaded image, it should
+ * be replaced by the loaded image where possible. The
+ * {@link ImageConverter} does so automatically.
+ * 
+ * @author Micha Strauch
+ */
+public class LazyImage implements Image {
+	private static final long serialVersionUID = -2815446127618355614L;
+	
+	/** Loads the image, null after it was loaded */
+	private transient Callable<? extends Image> loader;
+	
+	/** Loaded image, null until loaded */
+	private transient volatile Image image;
+	
+	/** Why the image could not be loaded, null if not tried yet or loaded */
+	private transient volatile RuntimeException failure;
+	
+	/** Size of the image */
+	private final int width, height;
+	
+	/** Number of channels */
+	private final int channelCount;
+	
+	/** Name of the image */
+	private Serializable name;
+	
+	/** Simple name of the type of the image */
+	private final String typeName;
+	
+	/**
+	 * Creates a placeholder for an image.
+	 * 
+	 * @param loader       Loads the image
+	 * @param width        Width of the image
+	 * @param height       Height of the image
+	 * @param channelCount Number of channels of the image
+	 * @param name         Name of the image
+	 * @param typeName     Simple name of the type of the image
+	 */
+	public LazyImage(Callable<? extends Image> loader, int width, int height, int channelCount, Serializable name, String typeName) {
+		this.loader = loader;
+		this.width = width;
+		this.height = height;
+		this.channelCount = channelCount;
+		this.name = name;
+		this.typeName = typeName;
+	}
+	
+	/**
+	 * Returns the given image, or the loaded image if the given image
+	 * is a placeholder. Loads the image, if needed.
+	 * 
+	 * @param image Image or placeholder
+	 * @return Image, never a placeholder
+	 */
+	public static Image unwrap(Image image) {
+		return image instanceof LazyImage ? ((LazyImage) image).get() : image;
+	}
+	
+	/** Whether the image is already loaded */
+	public boolean isLoaded() {
+		return image != null;
+	}
+	
+	/** Whether loading the image failed, it is not tried again */
+	public boolean isFailed() {
+		return failure != null;
+	}
+	
+	/** Returns the simple name of the type of the image */
+	public String getTypeName() {
+		return typeName;
+	}
+	
+	/**
+	 * Returns the image, loading it if not done yet. If the image could
+	 * not be loaded, the failure is remembered and thrown again by every
+	 * further call, without reading the image again.
+	 * 
+	 * @return Loaded image
+	 * 
+	 * @throws RuntimeException If the image could not be loaded
+	 */
+	public Image get() {
+		Image loaded = image;
+		if(loaded != null)
+			return loaded;
+		
+		synchronized(this) {
+			if(failure != null)
+				throw failure;
+			
+			if(image == null) {
+				try {
+					loaded = loader.call();
+				} catch(RuntimeException e) {
+					failure = e;
+					throw e;
+				} catch(Exception e) {
+					failure = new RuntimeException("Could not load image '" + name + "': " + e.getMessage(), e);
+					throw failure;
+				} finally {
+					loader = null;
+				}
+				loaded.setName(name);
+				image = loaded;
+			}
+			return image;
+		}
+	}
+	
+	@Override
+	public int getWidth() {
+		return width;
+	}
+	
+	@Override
+	public int getHeight() {
+		return height;
+	}
+	
+	@Override
+	public Dimension getSize() {
+		return new Dimension(width, height);
+	}
+	
+	@Override
+	public int getChannelCount() {
+		return channelCount;
+	}
+	
+	@Override
+	public long getModificationCount() {
+		return get().getModificationCount();
+	}
+	
+	@Override
+	public double[] getValue(int column, int row) {
+		return get().getValue(column, row);
+	}
+	
+	@Override
+	public double getValue(int column, int row, int channel) {
+		return get().getValue(column, row, channel);
+	}
+	
+	@Override
+	public void setValue(int column, int row, double... values) {
+		get().setValue(column, row, values);
+	}
+	
+	@Override
+	public void setValue(int column, int row, int channel, double value) {
+		get().setValue(column, row, channel, value);
+	}
+	
+	@Override
+	public double[] getValues(int column, int row, int width, int height, int channel, double[] buffer) {
+		return get().getValues(column, row, width, height, channel, buffer);
+	}
+	
+	@Override
+	public void setValues(int column, int row, int width, int height, int channel, double[] values) {
+		get().setValues(column, row, width, height, channel, values);
+	}
+	
+	@Override
+	public byte[] getBytes(int column, int row, int width, int height, int channel, byte[] buffer) {
+		return get().getBytes(column, row, width, height, channel, buffer);
+	}
+	
+	@Override
+	public void setBytes(int column, int row, int width, int height, int channel, byte[] values) {
+		get().setBytes(column, row, width, height, channel, values);
+	}
+	
+	@Override
+	public Channel getChannel(int channel) {
+		return get().getChannel(channel);
+	}
+	
+	@Override
+	public Object getName() {
+		Image loaded = image;
+		return loaded == null ? name : loaded.getName();
+	}
+	
+	@Override
+	public synchronized void setName(Serializable name) {
+		this.name = name;
+		if(image != null)
+			image.setName(name);
+	}
+	
+	@Override
+	public BufferedImage asBufferedImage() {
+		return get().asBufferedImage();
+	}
+	
+	@Override
+	public Iterator<Channel> iterator() {
+		return get().iterator();
+	}
+	
+	/**
+	 * Serializes the loaded image instead of the placeholder
+	 * 
+	 * @return Loaded image
+	 * 
+	 * @throws ObjectStreamException Never
+	 */
+	private Object writeReplace() throws ObjectStreamException {
+		return get();
+	}
+	
+}
@@ -0,0 +1,406 @@
+package itb2.image;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import itb2.engine.TileExecutor;
+
+/**
+ * Statistics of a single channel: Number of values, minimum, maximum,
+ * mean, variance, histogram and percentiles. NaN values are ignored.
+ * <p>
+ * The values are read in a single parallel pass, a band of rows at a time.
+ * Channels of images with byte precision are read as bytes, all statistics
+ * are then derived from the 256 bins of the histogram. Only if the values
+ * are not integers between 0 and 255, a second pass is needed to count the
+ * values into bins between the minimum and maximum value.
+ * <p>
+ * Statistics returned by {@link #of(Channel)} are kept, until the image is
+ * modified (see {@link Image#getModificationCount()}). This way, filters
+ * and the GUI can ask for the statistics of the same channel repeatedly,
+ * without reading the values again.
+ * 
+ * @author Micha Strauch
+ */
+public final class Statistics {
+	
+	/** Number of values per band, that is read by a single task */
+	private static final int BAND_SIZE = 1 << 16;
+	
+	/** Computed statistics by image, one per channel */
+	private static final Map<Image, Statistics[]> cache = new WeakHashMap<>();
+	
+	/** Modification count of the image, when the statistics were computed */
+	private final long modificationCount;
+	
+	/** Number of values, without NaN */
+	private final long count;
+	
+	/** Minimum and maximum value */
+	private final double min, max;
+	
+	/** Mean of the values */
+	private final double mean;
+	
+	/** Variance of the values */
+	private final double variance;
+	
+	/** Histogram of the values */
+	private final ChannelHistogram histogram;
+	
+	/**
+	 * Creates statistics from the computed values
+	 * 
+	 * @param modificationCount Modification count of the image
+	 * @param moments           Number, minimum, maximum, mean and variance of the values
+	 * @param histogram         Histogram of the values
+	 */
+	private Statistics(long modificationCount, Counter moments, ChannelHistogram histogram) {
+		this.modificationCount = modificationCount;
+		this.count = moments.count;
+		this.min = moments.min;
+		this.max = moments.max;
+		this.mean = moments.count == 0 ? Double.NaN : moments.mean;
+		this.variance = moments.count == 0 ? Double.NaN : moments.m2 / moments.count;
+		this.histogram = histogram;
+	}
+	
+	/**
+	 * Returns the statistics of the given channel. The statistics are
+	 * computed once and returned again, as long as the image isn't
+	 * modified. Images that can't track their modifications are
+	 * read again every time.
+	 * 
+	 * @param channel Channel to get statistics of
+	 * @return Statistics of the channel
+	 */
+	public static Statistics of(Channel channel) {
+		Image image = channel.getImage();
+		int id = channel.getChannelID();
+		
+		long modificationCount = image.getModificationCount();
+		if(modificationCount < 0)
+			return compute(channel);
+		
+		synchronized(cache) {
+			Statistics[] statistics = cache.get(image);
+			if(statistics != null && statistics[id] != null && statistics[id].modificationCount == modificationCount)
+				return statistics[id];
+		}
+		
+		Statistics result = compute(channel, modificationCount);
+		
+		synchronized(cache) {
+			Statistics[] statistics = cache.computeIfAbsent(image, i -> new Statistics[i.getChannelCount()]);
+			statistics[id] = result;
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Computes the statistics of the given channel, without using or
+	 * updating the statistics kept by {@link #of(Channel)}
+	 * 
+	 * @param channel Channel to compute statistics of
+	 * @return Statistics of the channel
+	 */
+	public static Statistics compute(Channel channel) {
+		return compute(channel, -1);
+	}
+	
+	/**
+	 * Computes the statistics of the given channel
+	 * 
+	 * @param channel           Channel to compute statistics of
+	 * @param modificationCount Modification count of the image before reading the values
+	 * @return Statistics of the channel
+	 */
+	private static Statistics compute(Channel channel, long modificationCount) {
+		ImageFactory precision = ImageFactory.getPrecision(channel.getImage());
+		if(precision == ImageFactory.bytePrecision() || precision == ImageFactory.mappedPrecision())
+			return computeBytes(channel, modificationCount);
+		
+		Counter moments = count(channel, null);
+		if(moments.integral) {
+			int type = ChannelHistogram.isBinary(moments.counts) ? ChannelHistogram.BINARY : ChannelHistogram.INTEGER;
+			return new Statistics(modificationCount, moments, new ChannelHistogram(type, moments.min, moments.max, moments.counts));
+		}
+		
+		// Values don't fit into 256 bins, count again with bins between min and max
+		Counter bins = count(channel, moments);
+		return new Statistics(modificationCount, moments, new ChannelHistogram(ChannelHistogram.RATIONAL, moments.min, moments.max, bins.counts));
+	}
+	
+	/**
+	 * Computes the statistics of a channel of an image with byte precision
+	 * 
+	 * @param channel           Channel to compute statistics of
+	 * @param modificationCount Modification count of the image before reading the values
+	 * @return Statistics of the channel
+	 */
+	private static Statistics computeBytes(Channel channel, long modificationCount) {
+		int width = channel.getWidth();
+		int[] counts = new int[ChannelHistogram.INTEGER];
+		
+		TileExecutor.forEachBand(channel.getHeight(), bandHeight(width), (row, height) -> {
+			int[] bandCounts = new int[ChannelHistogram.INTEGER];
+			byte[] buffer = channel.getBytes(0, row, width, height, null);
+			for(byte value : buffer)
+				bandCounts[value & 0xFF]++;
+			
+			synchronized(counts) {
+				for(int i = 0; i < counts.length; i++)
+					counts[i] += bandCounts[i];
+			}
+		});
+		
+		// Derive everything else from the bins
+		Counter moments = new Counter(null);
+		long sum = 0;
+		for(int value = 0; value < counts.length; value++) {
+			if(counts[value] == 0)
+				continue;
+			moments.count += counts[value];
+			moments.min = Math.min(moments.min, value);
+			moments.max = Math.max(moments.max, value);
+			sum += (long) value * counts[value];
+		}
+		
+		if(moments.count > 0) {
+			moments.mean = (double) sum / moments.count;
+			for(int value = 0; value < counts.length; value++) {
+				double delta = value - moments.mean;
+				moments.m2 += delta * delta * counts[value];
+			}
+		}
+		
+		int type = ChannelHistogram.isBinary(counts) ? ChannelHistogram.BINARY : ChannelHistogram.INTEGER;
+		return new Statistics(modificationCount, moments, new ChannelHistogram(type, moments.min, moments.max, counts));
+	}
+	
+	/**
+	 * Reads the values of the given channel. Without range, the number,
+	 * minimum, maximum, mean and variance of the values is computed, and the
+	 * values are counted in 256 bins, as long as they are integers between
+	 * 0 and 255. With range, the values are only counted in
+	 * {@link ChannelHistogram#RATIONAL_BINS} bins between the minimum and
+	 * maximum value of the range.
+	 * 
+	 * @param channel Channel to read values of
+	 * @param range   Result of reading without range, or null
+	 * @return Result of reading the values
+	 */
+	private static Counter count(Channel channel, Counter range) {
+		int width = channel.getWidth();
+		Counter total = new Counter(range);
+		
+		TileExecutor.forEachBand(channel.getHeight(), bandHeight(width), (row, height) -> {
+			double[] buffer = channel.getValues(0, row, width, height, null);
+			Counter band = new Counter(range);
+			band.add(buffer);
+			
+			synchronized(total) {
+				total.merge(band);
+			}
+		});
+		
+		return total;
+	}
+	
+	/**
+	 * Returns the number of rows read by a single task
+	 * 
+	 * @param width Width of the channel
+	 * @return Number of rows per band
+	 */
+	private static int bandHeight(int width) {
+		return Math.max(1, BAND_SIZE / Math.max(1, width));
+	}
+	
+	/** Returns the number of values, without NaN */
+	public long getCount() {
+		return count;
+	}
+	
+	/** Returns the minimum value, positive infinity if there are no values */
+	public double getMin() {
+		return min;
+	}
+	
+	/** Returns the maximum value, negative infinity if there are no values */
+	public double getMax() {
+		return max;
+	}
+	
+	/** Returns the mean of the values, NaN if there are no values */
+	public double getMean() {
+		return mean;
+	}
+	
+	/** Returns the (population) variance of the values, NaN if there are no values */
+	public double getVariance() {
+		return variance;
+	}
+	
+	/** Returns the standard deviation of the values, NaN if there are no values */
+	public double getStandardDeviation() {
+		return Math.sqrt(variance);
+	}
+	
+	/** Returns the histogram of the values */
+	public ChannelHistogram getHistogram() {
+		return histogram;
+	}
+	
+	/**
+	 * Returns the given percentile of the values, e.g. 50 for the median.
+	 * Between two values the percentile is interpolated linearly. For
+	 * integer values the result is exact, for other values the values
+	 * inside a bin of the histogram are assumed to be evenly distributed.
+	 * 
+	 * @param percent Percentile between 0 and 100
+	 * @return Value of the percentile, NaN if there are no values
+	 */
+	public double getPercentile(double percent) {
+		if(count == 0)
+			return Double.NaN;
+		if(percent <= 0)
+			return min;
+		if(percent >= 100)
+			return max;
+		
+		double rank = percent / 100 * (count - 1);
+		long lower = (long) rank;
+		double low = valueOfRank(lower);
+		if(lower == rank)
+			return low;
+		
+		double high = valueOfRank(lower + 1);
+		return low + (rank - lower) * (high - low);
+	}
+	
+	/**
+	 * Returns the value of given rank, if all values were sorted
+	 * 
+	 * @param rank Rank of the value, between 0 and count - 1
+	 * @return Value of the given rank
+	 */
+	private double valueOfRank(long rank) {
+		int bin = histogram.getBinOfRank(rank);
+		if(histogram.getValueType() != ChannelHistogram.RATIONAL)
+			return bin;
+		
+		// Place the values of the bin evenly inside the bin
+		long before = histogram.getCount(0, bin);
+		double position = (rank - before + .5) / histogram.getCount(bin);
+		double binWidth = (max - min) / histogram.getBinCount();
+		double value = histogram.getBinStart(bin) + position * binWidth;
+		return Math.max(min, Math.min(max, value));
+	}
+	
+	/**
+	 * Reads values of a part of a channel
+	 * 
+	 * @author Micha Strauch
+	 */
+	private static class Counter {
+		
+		/** Number of values, without NaN */
+		private long count;
+		
+		/** Minimum and maximum value */
+		private double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+		
+		/** Mean of the values */
+		private double mean;
+		
+		/** Sum of squared differences to the mean */
+		private double m2;
+		
+		/** Whether all values are integers between 0 and 255, if read without range */
+		private boolean integral = true;
+		
+		/** Range of the values, null to count integers */
+		private final Counter range;
+		
+		/** Number of values per bin */
+		private final int[] counts;
+		
+		/**
+		 * Creates an empty counter
+		 * 
+		 * @param range Result of reading without range, or null
+		 */
+		Counter(Counter range) {
+			this.range = range;
+			this.counts = new int[range == null ? ChannelHistogram.INTEGER : ChannelHistogram.RATIONAL_BINS];
+		}
+		
+		/**
+		 * Reads the given values
+		 * 
+		 * @param values Values of a part of the channel
+		 */
+		void add(double[] values) {
+			if(range != null) {
+				for(double value : values)
+					if(value == value) // Not NaN
+						counts[ChannelHistogram.binOf(value, range.min, range.max, counts.length)]++;
+				return;
+			}
+			
+			// Sum up differences to the first value, to keep the rounding error small
+			double shift = Double.NaN, sum = 0, sumOfSquares = 0;
+			for(double value : values) {
+				if(value != value) // NaN
+					continue;
+				if(shift != shift)
+					shift = value;
+				
+				count++;
+				min = value < min ? value : min;
+				max = value > max ? value : max;
+				
+				double delta = value - shift;
+				sum += delta;
+				sumOfSquares += delta * delta;
+				
+				if(integral && value >= 0 && value < ChannelHistogram.INTEGER && value == (int) value)
+					counts[(int) value]++;
+				else
+					integral = false;
+			}
+			
+			if(count > 0) {
+				mean = shift + sum / count;
+				m2 = Math.max(0, sumOfSquares - sum * sum / count);
+			}
+		}
+		
+		/**
+		 * Adds the values read by the given counter
+		 * 
+		 * @param counter Counter of another part of the channel
+		 */
+		void merge(Counter counter) {
+			for(int i = 0; i < counts.length; i++)
+				counts[i] += counter.counts[i];
+			if(range != null || counter.count == 0)
+				return;
+			
+			// Combine mean and variance of both parts
+			long total = count + counter.count;
+			double delta = counter.mean - mean;
+			mean += delta * counter.count / total;
+			m2 += counter.m2 + delta * delta * count * counter.count / total;
+			count = total;
+			
+			min = Math.min(min, counter.min);
+			max = Math.max(max, counter.max);
+			integral &= counter.integral;
+		}
+		
+	}
+	
+}
@@ -2,10 +2,15 @@ package itb2.image.byteprecision;
 
 import java.awt.Dimension;
 import java.awt.image.BufferedImage;
-import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
+import itb2.image.BufferedImageCache;
 import itb2.image.Channel;
 import itb2.image.Image;
 import itb2.image.SimpleChannel;
@@ -20,20 +25,43 @@ import itb2.image.SimpleChannel;
 public abstract class AbstractByteImage implements Image {
 	private static final long serialVersionUID = -8582719486198043204L;
 
+	/**
+	 * Serialized fields of this image. The data is still serialized as
+	 * <code>byte[channelCount][width][height]</code>, the layout used before
+	 * the planes, so sessions saved by older versions can be read.
+	 */
+	private static final ObjectStreamField[] serialPersistentFields = {
+		new ObjectStreamField("size", Dimension.class),
+		new ObjectStreamField("channelCount", int.class),
+		new ObjectStreamField("data", byte[][][].class),
+		new ObjectStreamField("name", Serializable.class)
+	};
+	
+	/** Increments {@link #modificationCount}, images may be changed by several threads at once */
+	private static final AtomicLongFieldUpdater<AbstractByteImage> MODIFICATIONS =
+			AtomicLongFieldUpdater.newUpdater(AbstractByteImage.class, "modificationCount");
+	
 	/** Size of this image */
-	protected final Dimension size;
+	protected Dimension size;
 
 	/** Number of channels */
-	protected final int channelCount;
+	protected int channelCount;
 
-	/** Data of this image <br><code>double[channelCount][width][height]</code> */
-	protected final byte[][][] data;
+	/**
+	 * Data of this image, one row-major plane per channel<br>
+	 * <code>byte[channelCount][width * height]</code>; use {@link #index(int, int)}
+	 * to get the position of a pixel inside a plane.
+	 */
+	protected byte[][] data;
 
 	/** Name of this image */
 	protected Serializable name;
 
-	/** Last rendered state of this image */
-	private transient BufferedImage image;
+	/** Rendered state of this image, created when first requested */
+	private transient volatile BufferedImageCache cache;
+	
+	/** Number of modifications, see {@link #getModificationCount()} */
+	private transient volatile long modificationCount;
 	
 	/**
 	 * Constructs an image with given size and channel count
@@ -55,7 +83,7 @@ public abstract class AbstractByteImage implements Image {
 	public AbstractByteImage(int width, int height, int channelCount) {
 		this.channelCount = channelCount;
 		this.size = new Dimension(width, height);
-		this.data = new byte[channelCount][size.width][size.height];
+		this.data = new byte[channelCount][size.width * size.height];
 	}
 	
 	@Override
@@ -80,15 +108,16 @@ public abstract class AbstractByteImage implements Image {
 	
 	@Override
 	public double[] getValue(int column, int row) {
+		int index = index(column, row);
 		double[] value = new double[channelCount];
 		for(int c = 0; c < channelCount; c++)
-			value[c] = data[c][column][row] & 0xFF;
+			value[c] = data[c][index] & 0xFF;
 		return value;
 	}
 	
 	@Override
 	public double getValue(int column, int row, int channel) {
-		return data[channel][column][row] & 0xFF;
+		return data[channel][index(column, row)] & 0xFF;
 	}
 	
 	@Override
@@ -96,17 +125,70 @@ public abstract class AbstractByteImage implements Image {
 		if(values.length != channelCount)
 			throw new ArrayIndexOutOfBoundsException();
 		
+		int index = index(column, row);
 		for(int channel = 0; channel < channelCount; channel++)
-			data[channel][column][row] = convert(values[channel]);
+			data[channel][index] = convert(values[channel]);
 		
-		updateImage();
+		updateImage(column, row, 1, 1);
 	}
 	
 	@Override
 	public void setValue(int column, int row, int channel, double value) {
-		data[channel][column][row] = convert(value);
+		data[channel][index(column, row)] = convert(value);
+		
+		updateImage(column, row, 1, 1);
+	}
+	
+	@Override
+	public double[] getValues(int column, int row, int width, int height, int channel, double[] buffer) {
+		checkRegion(column, row, width, height);
+		if(buffer == null)
+			buffer = new double[width * height];
+		
+		byte[] plane = data[channel];
+		for(int y = 0, index = 0; y < height; y++) {
+			int offset = index(column, row + y);
+			for(int x = 0; x < width; x++, index++)
+				buffer[index] = plane[offset + x] & 0xFF;
+		}
+		
+		return buffer;
+	}
+	
+	@Override
+	public void setValues(int column, int row, int width, int height, int channel, double[] values) {
+		checkRegion(column, row, width, height);
 		
-		updateImage();
+		byte[] plane = data[channel];
+		for(int y = 0, index = 0; y < height; y++) {
+			int offset = index(column, row + y);
+			for(int x = 0; x < width; x++, index++)
+				plane[offset + x] = convert(values[index]);
+		}
+		
+		updateImage(column, row, width, height);
+	}
+	
+	@Override
+	public byte[] getBytes(int column, int row, int width, int height, int channel, byte[] buffer) {
+		checkRegion(column, row, width, height);
+		if(buffer == null)
+			buffer = new byte[width * height];
+		
+		for(int y = 0; y < height; y++)
+			System.arraycopy(data[channel], index(column, row + y), buffer, y * width, width);
+		
+		return buffer;
+	}
+	
+	@Override
+	public void setBytes(int column, int row, int width, int height, int channel, byte[] values) {
+		checkRegion(column, row, width, height);
+		
+		for(int y = 0; y < height; y++)
+			System.arraycopy(values, y * width, data[channel], index(column, row + y), width);
+		
+		updateImage(column, row, width, height);
 	}
 	
 	@Override
@@ -124,29 +206,22 @@ public abstract class AbstractByteImage implements Image {
 		this.name = name;
 	}
 
+	@Override
+	public long getModificationCount() {
+		return modificationCount;
+	}
+	
 	@Override
 	public BufferedImage asBufferedImage() {
-		if(image != null)
-			return image;
-		
-		double[][] samples = new double[3][size.width * size.height]; 
-		for(int col = 0; col < size.width; col++) {
-			for(int row = 0; row < size.height; row++) {
-				int index = row * size.width + col;
-				
-				double[] rgb = getRGB(col, row);
-				for(int c = 0; c < 3; c++)
-					samples[c][index] = rgb[c];
+		BufferedImageCache current = cache;
+		if(current == null) {
+			synchronized(this) {
+				if(cache == null)
+					cache = new BufferedImageCache(size.width, size.height);
+				current = cache;
 			}
 		}
-		
-		image = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_RGB);
-		WritableRaster raster = image.getRaster();
-		
-		for(int c = 0; c < 3; c++)
-			raster.setSamples(0, 0, size.width, size.height, c, samples[c]);
-		
-		return image;
+		return current.get(this::getPackedRGB);
 	}
 	
 	@Override
@@ -176,13 +251,70 @@ public abstract class AbstractByteImage implements Image {
 		return (byte)value;
 	}
 	
+	/**
+	 * Checks whether the given region lies inside of this image.
+	 * Used by the bulk operations, as a region sticking out on the
+	 * right would otherwise silently wrap into the next row.
+	 * 
+	 * @param column Left column of the region
+	 * @param row    Top row of the region
+	 * @param width  Width of the region
+	 * @param height Height of the region
+	 * 
+	 * @throws ArrayIndexOutOfBoundsException If the region is not inside of this image
+	 */
+	protected void checkRegion(int column, int row, int width, int height) throws ArrayIndexOutOfBoundsException {
+		if(column < 0 || row < 0 || width < 0 || height < 0 || column + width > size.width || row + height > size.height)
+			throw new ArrayIndexOutOfBoundsException(String.format("Region (%d, %d, %d, %d) outside of image (%d x %d)",
+					column, row, width, height, size.width, size.height));
+	}
+	
+	/**
+	 * Returns the position of the given pixel inside a channel plane
+	 * of {@link #data}. The planes are stored row by row, so the stride
+	 * between two neighbouring rows is the width of this image.
+	 * 
+	 * @param column Column of the pixel
+	 * @param row    Row of the pixel
+	 * @return Index of the pixel inside a plane
+	 * 
+	 * @throws ArrayIndexOutOfBoundsException If the column is outside of the image
+	 */
+	protected final int index(int column, int row) throws ArrayIndexOutOfBoundsException {
+		// Would address a pixel of the neighbouring row otherwise
+		if(column < 0 || column >= size.width)
+			throw new ArrayIndexOutOfBoundsException(column);
+		return row * size.width + column;
+	}
+	
 	/**
 	 * Calling the function indicates, that the image has changed and the
 	 * {@link BufferedImage} must be redrawn. Must be called by subclasses
 	 * after directly changing values in {@link #data}. 
 	 */
 	protected void updateImage() {
-		image = null;
+		MODIFICATIONS.incrementAndGet(this);
+		BufferedImageCache current = cache;
+		if(current != null)
+			current.invalidate();
+	}
+	
+	/**
+	 * Calling the function indicates, that the given region of the image
+	 * has changed and must be redrawn. The region is only redrawn the next
+	 * time the {@link BufferedImage} is requested, so this can be called
+	 * for every single pixel.
+	 * 
+	 * @param column Left column of the region
+	 * @param row    Top row of the region
+	 * @param width  Width of the region
+	 * @param height Height of the region
+	 */
+	protected void updateImage(int column, int row, int width, int height) {
+		MODIFICATIONS.incrementAndGet(this);
+		BufferedImageCache current = cache;
+		if(current != null)
+			current.invalidate(column, row, width, height);
 	}
 	
 	/**
@@ -194,5 +326,69 @@ public abstract class AbstractByteImage implements Image {
 	 * @return RGB value for pixel
 	 */
 	protected abstract double[] getRGB(int column, int row);
+	
+	/**
+	 * Used for {@link #asBufferedImage()}. Returns the RGB value
+	 * for the given pixel, packed as <code>0xRRGGBB</code>. By default
+	 * the value returned by {@link #getRGB(int, int)} is packed, images
+	 * may override this to avoid creating an array for every pixel.
+	 * 
+	 * @param column Column of the pixel
+	 * @param row    Row of the pixel
+	 * @return Packed RGB value for pixel
+	 */
+	protected int getPackedRGB(int column, int row) {
+		double[] rgb = getRGB(column, row);
+		return BufferedImageCache.pack(rgb[0], rgb[1], rgb[2]);
+	}
+	
+	/**
+	 * Writes this image for serialization, converting the
+	 * planes into the serialized layout
+	 * 
+	 * @param stream OutputStream to write to
+	 * 
+	 * @throws IOException If something goes wrong
+	 */
+	private void writeObject(ObjectOutputStream stream) throws IOException {
+		int height = size.width == 0 || channelCount == 0 ? 0 : data[0].length / size.width;
+		byte[][][] columns = new byte[channelCount][size.width][height];
+		for(int channel = 0; channel < channelCount; channel++)
+			for(int column = 0; column < size.width; column++)
+				for(int row = 0; row < height; row++)
+					columns[channel][column][row] = data[channel][index(column, row)];
+		
+		ObjectOutputStream.PutField fields = stream.putFields();
+		fields.put("size", size);
+		fields.put("channelCount", channelCount);
+		fields.put("data", columns);
+		fields.put("name", name);
+		stream.writeFields();
+	}
+	
+	/**
+	 * Reads this image for deserialization, converting the
+	 * serialized layout into the planes
+	 * 
+	 * @param stream InputStream to read from
+	 * 
+	 * @throws IOException If something goes wrong
+	 * @throws ClassNotFoundException If the class of a field is unknown
+	 */
+	private void readObject(ObjectInputStream stream) throws IOException, ClassNotFoundException {
+		ObjectInputStream.GetField fields = stream.readFields();
+		size = (Dimension) fields.get("size", null);
+		channelCount = fields.get("channelCount", 0);
+		name = (Serializable) fields.get("name", null);
+		
+		// Subclasses may store fewer rows than the image has, see BinaryByteImage
+		byte[][][] columns = (byte[][][]) fields.get("data", null);
+		int height = size.width == 0 || channelCount == 0 ? 0 : columns[0][0].length;
+		data = new byte[channelCount][size.width * height];
+		for(int channel = 0; channel < channelCount; channel++)
+			for(int column = 0; column < size.width; column++)
+				for(int row = 0; row < height; row++)
+					data[channel][index(column, row)] = columns[channel][column][row];
+	}
 
 }
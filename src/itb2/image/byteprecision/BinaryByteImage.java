@@ -43,8 +43,9 @@ class BinaryByteImage extends AbstractByteImage implements BinaryImage {
 
 	@Override
 	public double getValue(int column, int row, int channel) {
+		checkRegion(column, row, 1, 1);
 		int mask = 0x1 << (row % BITS);
-		int val = data[BINARY][column][row / BITS];
+		int val = data[BINARY][index(column, row / BITS)];
 		
 		return (val & mask) == mask ? 1 : 0;
 	}
@@ -59,28 +60,97 @@ class BinaryByteImage extends AbstractByteImage implements BinaryImage {
 
 	@Override
 	public void setValue(int column, int row, int channel, double value) {
+		checkRegion(column, row, 1, 1);
+		setBit(column, row, channel, value > 0);
+		
+		updateImage(column, row, 1, 1);
+	}
+
+	@Override
+	public double[] getValues(int column, int row, int width, int height, int channel, double[] buffer) {
+		checkRegion(column, row, width, height);
+		if(buffer == null)
+			buffer = new double[width * height];
+		
+		for(int y = 0, index = 0; y < height; y++)
+			for(int x = 0; x < width; x++, index++)
+				buffer[index] = getValue(column + x, row + y, channel);
+		
+		return buffer;
+	}
+	
+	@Override
+	public void setValues(int column, int row, int width, int height, int channel, double[] values) {
+		checkRegion(column, row, width, height);
+		
+		for(int y = 0, index = 0; y < height; y++)
+			for(int x = 0; x < width; x++, index++)
+				setBit(column + x, row + y, channel, values[index] > 0);
+		
+		updateImage(column, row, width, height);
+	}
+	
+	@Override
+	public byte[] getBytes(int column, int row, int width, int height, int channel, byte[] buffer) {
+		checkRegion(column, row, width, height);
+		if(buffer == null)
+			buffer = new byte[width * height];
+		
+		for(int y = 0, index = 0; y < height; y++)
+			for(int x = 0; x < width; x++, index++)
+				buffer[index] = (byte) getValue(column + x, row + y, channel);
+		
+		return buffer;
+	}
+	
+	@Override
+	public void setBytes(int column, int row, int width, int height, int channel, byte[] values) {
+		checkRegion(column, row, width, height);
+		
+		for(int y = 0, index = 0; y < height; y++)
+			for(int x = 0; x < width; x++, index++)
+				setBit(column + x, row + y, channel, values[index] != 0);
+		
+		updateImage(column, row, width, height);
+	}
+	
+	/**
+	 * Sets the bit of the given pixel, without updating the image.
+	 * 
+	 * @param column  Column of the pixel
+	 * @param row     Row of the pixel
+	 * @param channel Channel, must be {@link #BINARY}
+	 * @param white   Whether to set the pixel to white
+	 */
+	private void setBit(int column, int row, int channel, boolean white) {
 		if(channel != BINARY)
 			throw new IndexOutOfBoundsException();
 		
 		int mask = 0x1 << (row % BITS);
 		
-		if(value > 0)
-			data[BINARY][column][row / BITS] |= mask; // Set to white
+		if(white)
+			data[BINARY][index(column, row / BITS)] |= mask; // Set to white
 		else
-			data[BINARY][column][row / BITS] &= ~mask; // Set to black
-		
-		updateImage();
+			data[BINARY][index(column, row / BITS)] &= ~mask; // Set to black
 	}
 
 	@Override
 	protected double[] getRGB(int column, int row) {
 		int mask = 0x1 << (row % BITS);
-		int value = data[BINARY][column][row / BITS];
+		int value = data[BINARY][index(column, row / BITS)];
 		
 		if((mask & value) == mask)
 			return new double[] {255, 255, 255}; // White
 		
 		return new double[3]; // Black
 	}
+	
+	@Override
+	protected int getPackedRGB(int column, int row) {
+		int mask = 0x1 << (row % BITS);
+		int value = data[BINARY][index(column, row / BITS)];
+		
+		return (mask & value) == mask ? 0xFFFFFF : 0;
+	}
 
 }
@@ -133,6 +133,37 @@ class DrawableByteImage implements RgbImage, DrawableImage {
 		image.getRaster().setSample(column, row, channel, value);
 	}
 
+	@Override
+	public double[] getValues(int column, int row, int width, int height, int channel, double[] buffer) {
+		return image.getRaster().getSamples(column, row, width, height, channel, buffer);
+	}
+	
+	@Override
+	public void setValues(int column, int row, int width, int height, int channel, double[] values) {
+		image.getRaster().setSamples(column, row, width, height, channel, values);
+	}
+	
+	@Override
+	public byte[] getBytes(int column, int row, int width, int height, int channel, byte[] buffer) {
+		int[] samples = image.getRaster().getSamples(column, row, width, height, channel, (int[]) null);
+		if(buffer == null)
+			buffer = new byte[width * height];
+		
+		for(int i = 0; i < samples.length; i++)
+			buffer[i] = (byte) samples[i];
+		
+		return buffer;
+	}
+	
+	@Override
+	public void setBytes(int column, int row, int width, int height, int channel, byte[] values) {
+		int[] samples = new int[width * height];
+		for(int i = 0; i < samples.length; i++)
+			samples[i] = values[i] & 0xFF;
+		
+		image.getRaster().setSamples(column, row, width, height, channel, samples);
+	}
+	
 	@Override
 	public Channel getChannel(int channel) {
 		return new SimpleChannel(this, channel);
@@ -41,9 +41,9 @@ class GrayscaleByteImage extends AbstractByteImage implements GrayscaleImage {
 	GrayscaleByteImage(Channel channel) {
 		super(channel.getWidth(), channel.getHeight(), 1);
 		
-		for(int col = 0; col < size.width; col++)
-			for(int row = 0; row < size.height; row++)
-				this.data[GRAYSCALE][col][row] = convert(channel.getValue(col, row));
+		for(int row = 0, index = 0; row < size.height; row++)
+			for(int col = 0; col < size.width; col++, index++)
+				this.data[GRAYSCALE][index] = convert(channel.getValue(col, row));
 	}
 
 	@Override
@@ -52,5 +52,12 @@ class GrayscaleByteImage extends AbstractByteImage implements GrayscaleImage {
 		
 		return new double[]{value, value, value};
 	}
+	
+	@Override
+	protected int getPackedRGB(int column, int row) {
+		int value = data[GRAYSCALE][index(column, row)] & 0xFF;
+		
+		return value << 16 | value << 8 | value;
+	}
 
 }
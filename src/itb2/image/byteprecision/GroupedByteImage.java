@@ -28,7 +28,7 @@ class GroupedByteImage extends AbstractByteImage implements GroupedImage {
 	private final Map<Integer, double[]> groups;
 	
 	/** Whether a value changed<p>Rebuild groups if groupCount == AUTOMATIC_GROUP_COUNT */
-	private boolean changed;
+	private volatile boolean changed;
 	
 	/**
 	 * Constructs image with given size and number of groups.
@@ -76,11 +76,29 @@ class GroupedByteImage extends AbstractByteImage implements GroupedImage {
 		check(value);
 		
 		super.setValue(column, row, channel, value);
-		changed = false;
+		changed = true;
+	}
+	
+	@Override
+	public void setValues(int column, int row, int width, int height, int channel, double[] values) {
+		for(int i = 0; i < width * height; i++)
+			check(values[i]);
+		
+		super.setValues(column, row, width, height, channel, values);
+		changed = true;
+	}
+	
+	@Override
+	public void setBytes(int column, int row, int width, int height, int channel, byte[] values) {
+		for(int i = 0; i < width * height; i++)
+			check(values[i] & 0xFF);
+		
+		super.setBytes(column, row, width, height, channel, values);
+		changed = true;
 	}
 	
 	@Override
-	public BufferedImage asBufferedImage() {
+	public synchronized BufferedImage asBufferedImage() {
 		if(groups.isEmpty() || (changed && groupCount == AUTOMATIC_GROUP_COUNT)) {
 			changed = false;
 			
@@ -90,10 +108,9 @@ class GroupedByteImage extends AbstractByteImage implements GroupedImage {
 			} else {
 				Set<Byte> values = new TreeSet<>();
 				
-				for(byte[] bb : data[GROUP_ID])
-					for(byte b : bb)
-						if(b != BLACK && b != WHITE)
-							values.add(b);
+				for(byte b : data[GROUP_ID])
+					if(b != BLACK && b != WHITE)
+						values.add(b);
 				
 				int i = 0;
 				double delta = 360. / values.size();
@@ -104,13 +121,15 @@ class GroupedByteImage extends AbstractByteImage implements GroupedImage {
 			groups.put(BLACK, RGB_BLACK);
 			groups.put(WHITE, RGB_WHITE);
 			
+			// Colors of the groups might have changed
+			updateImage();
 		}
 		return super.asBufferedImage();
 	}
 
 	@Override
 	protected double[] getRGB(int column, int row) {
-		int group = data[GROUP_ID][column][row] & 0xFF;
+		int group = data[GROUP_ID][index(column, row)] & 0xFF;
 		
 		return groups.get(group);
 	}
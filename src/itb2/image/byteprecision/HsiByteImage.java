@@ -62,6 +62,8 @@ class HsiByteImage extends AbstractByteImage implements HsiImage {
 		maxValues[HUE] = (int)hue;
 		maxValues[SATURATION] = (int)saturation;
 		maxValues[INTENSITY] = (int)intensity;
+		
+		updateImage();
 	}
 	
 	@Override
@@ -62,13 +62,15 @@ class HsvByteImage extends AbstractByteImage implements HsvImage {
 		maxValues[HUE] = hue;
 		maxValues[SATURATION] = saturation;
 		maxValues[VALUE] = value;
+		
+		updateImage();
 	}
 	
 	@Override
 	protected double[] getRGB(int column, int row) {
-		int h = data[HUE][column][row] & 0xFF;
-		int s = data[SATURATION][column][row] & 0xFF;
-		int v = data[VALUE][column][row] & 0xFF;
+		int h = data[HUE][index(column, row)] & 0xFF;
+		int s = data[SATURATION][index(column, row)] & 0xFF;
+		int v = data[VALUE][index(column, row)] & 0xFF;
 		
 		return hsv2rgb(h, s, v);
 	}
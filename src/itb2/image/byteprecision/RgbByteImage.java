@@ -47,8 +47,8 @@ class RgbByteImage extends AbstractByteImage implements RgbImage {
 		int minCol = raster.getMinX(), minRow = raster.getMinY();
 		
 		double[] rgb = new double[4];
-		for(int col = 0; col < width; col++) {
-			for(int row = 0; row < height; row++) {
+		for(int row = 0; row < height; row++) {
+			for(int col = 0; col < width; col++) {
 				raster.getPixel(minCol + col, minRow + row, rgb);
 				
 				for(int cha = 0; cha < 3; cha++)
@@ -65,5 +65,12 @@ class RgbByteImage extends AbstractByteImage implements RgbImage {
 		
 		return new double[]{r, g, b};
 	}
+	
+	@Override
+	protected int getPackedRGB(int column, int row) {
+		int index = index(column, row);
+		
+		return (data[RED][index] & 0xFF) << 16 | (data[GREEN][index] & 0xFF) << 8 | (data[BLUE][index] & 0xFF);
+	}
 
 }
@@ -2,6 +2,7 @@ package itb2.image.doubleprecision;
 
 import java.awt.Dimension;
 
+import itb2.image.BufferedImageCache;
 import itb2.image.Channel;
 import itb2.image.GrayscaleImage;
 
@@ -41,16 +42,23 @@ class GrayscaleDoubleImage extends AbstractDoubleImage implements GrayscaleImage
 	GrayscaleDoubleImage(Channel channel) {
 		super(channel.getWidth(), channel.getHeight(), 1);
 		
-		for(int col = 0; col < size.width; col++)
-			for(int row = 0; row < size.height; row++)
-				this.data[GRAYSCALE][col][row] = channel.getValue(col, row);
+		for(int row = 0, index = 0; row < size.height; row++)
+			for(int col = 0; col < size.width; col++, index++)
+				this.data[GRAYSCALE][index] = channel.getValue(col, row);
 	}
 
 	@Override
 	protected double[] getRGB(int column, int row) {
-		double value = data[GRAYSCALE][column][row];
+		double value = data[GRAYSCALE][index(column, row)];
 		
 		return new double[]{value, value, value};
 	}
+	
+	@Override
+	protected int getPackedRGB(int column, int row) {
+		double value = data[GRAYSCALE][index(column, row)];
+		
+		return BufferedImageCache.pack(value, value, value);
+	}
 
 }
@@ -21,7 +21,10 @@ class GroupedDoubleImage extends AbstractDoubleImage implements GroupedImage {
 	private final int groupCount;
 	
 	/** Maximum value, only used when groupCount == AUTO_GROUP_COUNT */
-	private double maxValue;
+	private volatile double maxValue;
+	
+	/** Maximum value used for the last rendering */
+	private transient double renderedMaxValue;
 	
 	/**
 	 * Constructs image with given size and number of groups.
@@ -72,20 +75,41 @@ class GroupedDoubleImage extends AbstractDoubleImage implements GroupedImage {
 	}
 	
 	@Override
-	public BufferedImage asBufferedImage() {
+	public void setValues(int column, int row, int width, int height, int channel, double[] values) {
+		for(int i = 0; i < width * height; i++)
+			check(values[i]);
+		
+		super.setValues(column, row, width, height, channel, values);
+		maxValue = 0;
+	}
+	
+	@Override
+	public void setBytes(int column, int row, int width, int height, int channel, byte[] values) {
+		for(int i = 0; i < width * height; i++)
+			check(values[i] & 0xFF);
+		
+		super.setBytes(column, row, width, height, channel, values);
+		maxValue = 0;
+	}
+	
+	@Override
+	public synchronized BufferedImage asBufferedImage() {
 		if(maxValue == 0) {
 			if(groupCount != AUTOMATIC_GROUP_COUNT)
 				maxValue = groupCount;
 			else {
-				for(int col = 0; col < size.width; col++) {
-					for(int row = 0; row < size.height; row++) {
-						double value = data[GROUP_ID][col][row];
-						if(value != BLACK && value != WHITE)
-							if(maxValue < value)
-								maxValue = value;
-					}
+				for(double value : data[GROUP_ID]) {
+					if(value != BLACK && value != WHITE)
+						if(maxValue < value)
+							maxValue = value;
 				}
 			}
+			
+			// Colors of all groups change with the maximum value
+			if(maxValue != renderedMaxValue) {
+				renderedMaxValue = maxValue;
+				updateImage();
+			}
 		}
 		
 		return super.asBufferedImage();
@@ -93,7 +117,7 @@ class GroupedDoubleImage extends AbstractDoubleImage implements GroupedImage {
 
 	@Override
 	protected double[] getRGB(int column, int row) {
-		double group = data[GROUP_ID][column][row];
+		double group = data[GROUP_ID][index(column, row)];
 		
 		if(group == BLACK)
 			return RGB_BLACK;
@@ -59,13 +59,15 @@ class HsiDoubleImage extends AbstractDoubleImage implements HsiImage {
 		maxValues[HUE] = hue;
 		maxValues[SATURATION] = saturation;
 		maxValues[INTENSITY] = intensity;
+		
+		updateImage();
 	}
 	
 	@Override
 	protected double[] getRGB(int column, int row) {
-		double h = data[HUE][column][row];
-		double s = data[SATURATION][column][row];
-		double i = data[INTENSITY][column][row];
+		double h = data[HUE][index(column, row)];
+		double s = data[SATURATION][index(column, row)];
+		double i = data[INTENSITY][index(column, row)];
 		
 		return hsi2rgb(h, s, i);
 	}
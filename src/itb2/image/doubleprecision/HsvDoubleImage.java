@@ -59,13 +59,15 @@ class HsvDoubleImage extends AbstractDoubleImage implements HsvImage {
 		maxValues[HUE] = hue;
 		maxValues[SATURATION] = saturation;
 		maxValues[VALUE] = value;
+		
+		updateImage();
 	}
 	
 	@Override
 	protected double[] getRGB(int column, int row) {
-		double h = data[HUE][column][row];
-		double s = data[SATURATION][column][row];
-		double v = data[VALUE][column][row];
+		double h = data[HUE][index(column, row)];
+		double s = data[SATURATION][index(column, row)];
+		double v = data[VALUE][index(column, row)];
 		
 		return hsv2rgb(h, s, v);
 	}
@@ -4,6 +4,7 @@ import java.awt.Dimension;
 import java.awt.image.BufferedImage;
 import java.awt.image.Raster;
 
+import itb2.image.BufferedImageCache;
 import itb2.image.RgbImage;
 
 /**
@@ -47,8 +48,8 @@ class RgbDoubleImage extends AbstractDoubleImage implements RgbImage {
 		int minCol = raster.getMinX(), minRow = raster.getMinY();
 		
 		double[] rgb = new double[4];
-		for(int col = 0; col < width; col++) {
-			for(int row = 0; row < height; row++) {
+		for(int row = 0; row < height; row++) {
+			for(int col = 0; col < width; col++) {
 				raster.getPixel(minCol + col, minRow + row, rgb);
 				
 				for(int cha = 0; cha < 3; cha++)
@@ -59,11 +60,18 @@ class RgbDoubleImage extends AbstractDoubleImage implements RgbImage {
 
 	@Override
 	protected double[] getRGB(int column, int row) {
-		double r = data[RED][column][row];
-		double g = data[GREEN][column][row];
-		double b = data[BLUE][column][row];
+		double r = data[RED][index(column, row)];
+		double g = data[GREEN][index(column, row)];
+		double b = data[BLUE][index(column, row)];
 		
 		return new double[]{r, g, b};
 	}
+	
+	@Override
+	protected int getPackedRGB(int column, int row) {
+		int index = index(column, row);
+		
+		return BufferedImageCache.pack(data[RED][index], data[GREEN][index], data[BLUE][index]);
+	}
 
 }
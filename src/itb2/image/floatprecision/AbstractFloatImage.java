@@ -0,0 +1,329 @@
+package itb2.image.floatprecision;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+import itb2.image.BufferedImageCache;
+import itb2.image.Channel;
+import itb2.image.Image;
+import itb2.image.SimpleChannel;
+
+/**
+ * Abstract image, for image implementations that can store
+ * a float value for each channel of each pixel. Values are
+ * rounded to float, when being stored.
+ * 
+ * @author Micha Strauch
+ */
+public abstract class AbstractFloatImage implements Image {
+	private static final long serialVersionUID = 3504742133458686534L;
+	
+	/** Increments {@link #modificationCount}, images may be changed by several threads at once */
+	private static final AtomicLongFieldUpdater<AbstractFloatImage> MODIFICATIONS =
+			AtomicLongFieldUpdater.newUpdater(AbstractFloatImage.class, "modificationCount");
+	
+	/** Size of this image */
+	protected final Dimension size;
+	
+	/** Number of channels */
+	protected final int channelCount;
+	
+	/**
+	 * Data of this image, one row-major plane per channel<br>
+	 * <code>float[channelCount][width * height]</code>; use {@link #index(int, int)}
+	 * to get the position of a pixel inside a plane.
+	 */
+	protected final float[][] data;
+	
+	/** Name of this image */
+	protected Serializable name;
+	
+	/** Rendered state of this image, created when first requested */
+	private transient volatile BufferedImageCache cache;
+	
+	/** Number of modifications, see {@link #getModificationCount()} */
+	private transient volatile long modificationCount;
+	
+	/**
+	 * Constructs an image with given size and channel count
+	 * 
+	 * @param size         Size of this image
+	 * @param channelCount Number of channels
+	 */
+	public AbstractFloatImage(Dimension size, int channelCount) {
+		this(size.width, size.height, channelCount);
+	}
+	
+	/**
+	 * Constructs an image with given size and channel count
+	 * 
+	 * @param width        Width of this image
+	 * @param height       Height of this image
+	 * @param channelCount Number of channels
+	 */
+	public AbstractFloatImage(int width, int height, int channelCount) {
+		this.channelCount = channelCount;
+		this.size = new Dimension(width, height);
+		this.data = new float[channelCount][width * height];
+	}
+	
+	@Override
+	public int getWidth() {
+		return size.width;
+	}
+	
+	@Override
+	public int getHeight() {
+		return size.height;
+	}
+	
+	@Override
+	public Dimension getSize() {
+		return (Dimension)size.clone();
+	}
+	
+	@Override
+	public int getChannelCount() {
+		return channelCount;
+	}
+	
+	@Override
+	public double[] getValue(int column, int row) {
+		int index = index(column, row);
+		double[] value = new double[channelCount];
+		for(int c = 0; c < channelCount; c++)
+			value[c] = data[c][index];
+		return value;
+	}
+	
+	@Override
+	public double getValue(int column, int row, int channel) {
+		return data[channel][index(column, row)];
+	}
+	
+	@Override
+	public void setValue(int column, int row, double... values) {
+		if(values.length != channelCount)
+			throw new ArrayIndexOutOfBoundsException();
+		
+		int index = index(column, row);
+		for(int channel = 0; channel < channelCount; channel++)
+			data[channel][index] = (float)values[channel];
+		
+		updateImage(column, row, 1, 1);
+	}
+	
+	@Override
+	public void setValue(int column, int row, int channel, double value) {
+		data[channel][index(column, row)] = (float)value;
+		
+		updateImage(column, row, 1, 1);
+	}
+	
+	@Override
+	public double[] getValues(int column, int row, int width, int height, int channel, double[] buffer) {
+		checkRegion(column, row, width, height);
+		if(buffer == null)
+			buffer = new double[width * height];
+		
+		float[] plane = data[channel];
+		for(int y = 0, index = 0; y < height; y++) {
+			int offset = index(column, row + y);
+			for(int x = 0; x < width; x++, index++)
+				buffer[index] = plane[offset + x];
+		}
+		
+		return buffer;
+	}
+	
+	@Override
+	public void setValues(int column, int row, int width, int height, int channel, double[] values) {
+		checkRegion(column, row, width, height);
+		
+		float[] plane = data[channel];
+		for(int y = 0, index = 0; y < height; y++) {
+			int offset = index(column, row + y);
+			for(int x = 0; x < width; x++, index++)
+				plane[offset + x] = (float)values[index];
+		}
+		
+		updateImage(column, row, width, height);
+	}
+	
+	@Override
+	public byte[] getBytes(int column, int row, int width, int height, int channel, byte[] buffer) {
+		checkRegion(column, row, width, height);
+		if(buffer == null)
+			buffer = new byte[width * height];
+		
+		float[] plane = data[channel];
+		for(int y = 0, index = 0; y < height; y++) {
+			int offset = index(column, row + y);
+			for(int x = 0; x < width; x++, index++) {
+				float value = plane[offset + x];
+				buffer[index] = (byte)(value <= 0 ? 0 : value >= 255 ? 255 : value);
+			}
+		}
+		
+		return buffer;
+	}
+	
+	@Override
+	public void setBytes(int column, int row, int width, int height, int channel, byte[] values) {
+		checkRegion(column, row, width, height);
+		
+		float[] plane = data[channel];
+		for(int y = 0, index = 0; y < height; y++) {
+			int offset = index(column, row + y);
+			for(int x = 0; x < width; x++, index++)
+				plane[offset + x] = values[index] & 0xFF;
+		}
+		
+		updateImage(column, row, width, height);
+	}
+	
+	@Override
+	public Channel getChannel(int channel) {
+		return new SimpleChannel(this, channel);
+	}
+	
+	@Override
+	public Object getName() {
+		return name;
+	}
+	
+	@Override
+	public void setName(Serializable name) {
+		this.name = name;
+	}
+	
+	@Override
+	public long getModificationCount() {
+		return modificationCount;
+	}
+	
+	@Override
+	public BufferedImage asBufferedImage() {
+		BufferedImageCache current = cache;
+		if(current == null) {
+			synchronized(this) {
+				if(cache == null)
+					cache = new BufferedImageCache(size.width, size.height);
+				current = cache;
+			}
+		}
+		return current.get(this::getPackedRGB);
+	}
+	
+	@Override
+	public Iterator<Channel> iterator() {
+		return new Iterator<Channel>() {
+			int channel = 0;
+			
+			@Override
+			public boolean hasNext() {
+				return channel < channelCount;
+			}
+			
+			@Override
+			public Channel next() {
+				return getChannel(channel++);
+			}
+		};
+	}
+	
+	/**
+	 * Checks whether the given region lies inside of this image.
+	 * Used by the bulk operations, as a region sticking out on the
+	 * right would otherwise silently wrap into the next row.
+	 * 
+	 * @param column Left column of the region
+	 * @param row    Top row of the region
+	 * @param width  Width of the region
+	 * @param height Height of the region
+	 * 
+	 * @throws ArrayIndexOutOfBoundsException If the region is not inside of this image
+	 */
+	protected void checkRegion(int column, int row, int width, int height) throws ArrayIndexOutOfBoundsException {
+		if(column < 0 || row < 0 || width < 0 || height < 0 || column + width > size.width || row + height > size.height)
+			throw new ArrayIndexOutOfBoundsException(String.format("Region (%d, %d, %d, %d) outside of image (%d x %d)",
+					column, row, width, height, size.width, size.height));
+	}
+	
+	/**
+	 * Returns the position of the given pixel inside a channel plane
+	 * of {@link #data}. The planes are stored row by row, so the stride
+	 * between two neighbouring rows is the width of this image.
+	 * 
+	 * @param column Column of the pixel
+	 * @param row    Row of the pixel
+	 * @return Index of the pixel inside a plane
+	 * 
+	 * @throws ArrayIndexOutOfBoundsException If the column is outside of the image
+	 */
+	protected final int index(int column, int row) throws ArrayIndexOutOfBoundsException {
+		// Would address a pixel of the neighbouring row otherwise
+		if(column < 0 || column >= size.width)
+			throw new ArrayIndexOutOfBoundsException(column);
+		return row * size.width + column;
+	}
+	
+	/**
+	 * Calling the function indicates, that the image has changed and the
+	 * {@link BufferedImage} must be redrawn. Must be called by subclasses
+	 * after directly changing values in {@link #data}. 
+	 */
+	protected void updateImage() {
+		MODIFICATIONS.incrementAndGet(this);
+		BufferedImageCache current = cache;
+		if(current != null)
+			current.invalidate();
+	}
+	
+	/**
+	 * Calling the function indicates, that the given region of the image
+	 * has changed and must be redrawn. The region is only redrawn the next
+	 * time the {@link BufferedImage} is requested, so this can be called
+	 * for every single pixel.
+	 * 
+	 * @param column Left column of the region
+	 * @param row    Top row of the region
+	 * @param width  Width of the region
+	 * @param height Height of the region
+	 */
+	protected void updateImage(int column, int row, int width, int height) {
+		MODIFICATIONS.incrementAndGet(this);
+		BufferedImageCache current = cache;
+		if(current != null)
+			current.invalidate(column, row, width, height);
+	}
+	
+	/**
+	 * Used for {@link #asBufferedImage()}. The implementing image
+	 * should return the RGB value for the given pixel.
+	 * 
+	 * @param column Column of the pixel
+	 * @param row    Row of the pixel
+	 * @return RGB value for pixel
+	 */
+	protected abstract double[] getRGB(int column, int row);
+	
+	/**
+	 * Used for {@link #asBufferedImage()}. Returns the RGB value
+	 * for the given pixel, packed as <code>0xRRGGBB</code>. By default
+	 * the value returned by {@link #getRGB(int, int)} is packed, images
+	 * may override this to avoid creating an array for every pixel.
+	 * 
+	 * @param column Column of the pixel
+	 * @param row    Row of the pixel
+	 * @return Packed RGB value for pixel
+	 */
+	protected int getPackedRGB(int column, int row) {
+		double[] rgb = getRGB(column, row);
+		return BufferedImageCache.pack(rgb[0], rgb[1], rgb[2]);
+	}
+	
+}
@@ -0,0 +1,156 @@
+package itb2.image.floatprecision;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+
+import itb2.image.BinaryImage;
+import itb2.image.Channel;
+import itb2.image.DrawableImage;
+import itb2.image.GrayscaleImage;
+import itb2.image.GroupedImage;
+import itb2.image.HsiImage;
+import itb2.image.HsvImage;
+import itb2.image.ImageFactory;
+import itb2.image.RgbImage;
+
+/**
+ * Factory to create an image with float precision. Float
+ * precision images can store any type of value, rounded to float.
+ * They take half the space of double precision images, but still
+ * four times more space then byte precision images. 
+ * 
+ * @author Micha Strauch
+ */
+public class FloatImageFactory extends ImageFactory {
+	
+	@Override
+	public Class<? extends RgbImage> rgb() {
+		return RgbFloatImage.class;
+	}
+	
+	@Override
+	public Class<? extends HsiImage> hsi() {
+		return HsiFloatImage.class;
+	}
+	
+	@Override
+	public Class<? extends HsvImage> hsv() {
+		return HsvFloatImage.class;
+	}
+	
+	@Override
+	public Class<? extends GrayscaleImage> gray() {
+		return GrayscaleFloatImage.class;
+	}
+	
+	@Override
+	public Class<? extends GroupedImage> group() {
+		return GroupedFloatImage.class;
+	}
+	
+	@Override
+	public Class<? extends BinaryImage> binary() {
+		throw new UnsupportedOperationException("BinaryImage not implemented for float precision");
+	}
+	
+	@Override
+	public Class<? extends DrawableImage> drawable() {
+		throw new UnsupportedOperationException("DrawableImage not implemented for float precision");
+	}
+	
+	@Override
+	public RgbImage rgb(int width, int height) {
+		return new RgbFloatImage(width, height);
+	}
+	
+	@Override
+	public RgbImage rgb(Dimension size) {
+		return new RgbFloatImage(size);
+	}
+	
+	@Override
+	public RgbImage rgb(BufferedImage image) {
+		return new RgbFloatImage(image);
+	}
+	
+	@Override
+	public HsiImage hsi(int width, int height) {
+		return new HsiFloatImage(width, height);
+	}
+	
+	@Override
+	public HsiImage hsi(Dimension size) {
+		return new HsiFloatImage(size);
+	}
+	
+	@Override
+	public HsvImage hsv(int width, int height) {
+		return new HsvFloatImage(width, height);
+	}
+	
+	@Override
+	public HsvImage hsv(Dimension size) {
+		return new HsvFloatImage(size);
+	}
+	
+	@Override
+	public GrayscaleImage gray(int width, int height) {
+		return new GrayscaleFloatImage(width, height);
+	}
+	
+	@Override
+	public GrayscaleImage gray(Dimension size) {
+		return new GrayscaleFloatImage(size);
+	}
+	
+	@Override
+	public GrayscaleImage gray(Channel channel) {
+		return new GrayscaleFloatImage(channel);
+	}
+	
+	@Override
+	public GroupedImage group(int width, int height) {
+		return new GroupedFloatImage(width, height, GroupedImage.AUTOMATIC_GROUP_COUNT);
+	}
+	
+	@Override
+	public GroupedImage group(int width, int height, int groupCount) {
+		return new GroupedFloatImage(width, height, groupCount);
+	}
+	
+	@Override
+	public GroupedImage group(Dimension size) {
+		return new GroupedFloatImage(size, GroupedImage.AUTOMATIC_GROUP_COUNT);
+	}
+	
+	@Override
+	public GroupedImage group(Dimension size, int groupCount) {
+		return new GroupedFloatImage(size, groupCount);
+	}
+	
+	@Override
+	public BinaryImage binary(int width, int height) {
+		throw new UnsupportedOperationException("BinaryImage not implemented for float precision");
+	}
+	
+	@Override
+	public BinaryImage binary(Dimension size) {
+		throw new UnsupportedOperationException("BinaryImage not implemented for float precision");
+	}
+	
+	@Override
+	public DrawableImage drawable(int width, int height) {
+		throw new UnsupportedOperationException("DrawableImage not implemented for float precision");
+	}
+	
+	@Override
+	public DrawableImage drawable(Dimension size) {
+		throw new UnsupportedOperationException("DrawableImage not implemented for float precision");
+	}
+	
+	@Override
+	public DrawableImage drawable(BufferedImage image) {
+		throw new UnsupportedOperationException("DrawableImage not implemented for float precision");
+	}
+	
+}
@@ -0,0 +1,64 @@
+package itb2.image.floatprecision;
+
+import java.awt.Dimension;
+
+import itb2.image.BufferedImageCache;
+import itb2.image.Channel;
+import itb2.image.GrayscaleImage;
+
+/**
+ * Represents an image with only one channel (grayscale)
+ *  
+ * @author Micha Strauch
+ */
+class GrayscaleFloatImage extends AbstractFloatImage implements GrayscaleImage {
+	private static final long serialVersionUID = -3298884843270760038L;
+	
+	/**
+	 * Constructs an image with given size.
+	 * 
+	 * @param width  Width of this image
+	 * @param height Height of this image
+	 */
+	GrayscaleFloatImage(int width, int height) {
+		super(width, height, 1);
+	}
+	
+	/**
+	 * Constructs an image with given size.
+	 * 
+	 * @param width  Width of this image
+	 * @param height Height of this image
+	 */
+	GrayscaleFloatImage(Dimension size) {
+		super(size, 1);
+	}
+	
+	/**
+	 * Constructs an image from the given channel.
+	 * 
+	 * @param channel Channel to construct image from
+	 */
+	GrayscaleFloatImage(Channel channel) {
+		super(channel.getWidth(), channel.getHeight(), 1);
+		
+		for(int row = 0, index = 0; row < size.height; row++)
+			for(int col = 0; col < size.width; col++, index++)
+				this.data[GRAYSCALE][index] = (float)channel.getValue(col, row);
+	}
+	
+	@Override
+	protected double[] getRGB(int column, int row) {
+		double value = data[GRAYSCALE][index(column, row)];
+		
+		return new double[]{value, value, value};
+	}
+	
+	@Override
+	protected int getPackedRGB(int column, int row) {
+		double value = data[GRAYSCALE][index(column, row)];
+		
+		return BufferedImageCache.pack(value, value, value);
+	}
+	
+}
@@ -0,0 +1,77 @@
+package itb2.image.floatprecision;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+
+import itb2.image.BufferedImageCache;
+import itb2.image.RgbImage;
+
+/**
+ * Represents an image with red, green and blue channel
+ *  
+ * @author Micha Strauch
+ */
+class RgbFloatImage extends AbstractFloatImage implements RgbImage {
+	private static final long serialVersionUID = 7827773964182633347L;
+	
+	/**
+	 * Constructs an image with given size.
+	 * 
+	 * @param width  Width of this image
+	 * @param height Height of this image
+	 */
+	RgbFloatImage(int width, int height) {
+		super(width, height, 3);
+	}
+	
+	/**
+	 * Constructs an image with given size.
+	 * 
+	 * @param width  Width of this image
+	 * @param height Height of this image
+	 */
+	RgbFloatImage(Dimension size) {
+		super(size, 3);
+	}
+	
+	/**
+	 * Constructs an image from the given {@link BufferedImage}
+	 * 
+	 * @param image Original image
+	 */
+	RgbFloatImage(BufferedImage image) {
+		super(image.getWidth(), image.getHeight(), 3);
+		
+		Raster raster = image.getData();
+		int width = raster.getWidth(), height = raster.getHeight();
+		int minCol = raster.getMinX(), minRow = raster.getMinY();
+		
+		double[] rgb = new double[4];
+		for(int row = 0; row < height; row++) {
+			for(int col = 0; col < width; col++) {
+				raster.getPixel(minCol + col, minRow + row, rgb);
+				
+				for(int cha = 0; cha < 3; cha++)
+					setValue(col, row, cha, rgb[cha]);
+			}
+		}
+	}
+	
+	@Override
+	protected double[] getRGB(int column, int row) {
+		double r = data[RED][index(column, row)];
+		double g = data[GREEN][index(column, row)];
+		double b = data[BLUE][index(column, row)];
+		
+		return new double[]{r, g, b};
+	}
+	
+	@Override
+	protected int getPackedRGB(int column, int row) {
+		int index = index(column, row);
+		
+		return BufferedImageCache.pack(data[RED][index], data[GREEN][index], data[BLUE][index]);
+	}
+	
+}
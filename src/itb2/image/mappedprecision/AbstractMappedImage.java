@@ -0,0 +1,482 @@
+package itb2.image.mappedprecision;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.lang.ref.Cleaner;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+import itb2.image.BufferedImageCache;
+import itb2.image.Channel;
+import itb2.image.Image;
+import itb2.image.SimpleChannel;
+
+/**
+ * Abstract image, for image implementations that store a byte value
+ * for each channel of each pixel outside of the Java heap. The values
+ * are kept in a temporary file, which is mapped into memory. So the
+ * operating system decides which parts are held in memory, and images
+ * larger than the heap can be processed without putting any load on
+ * the garbage collector.
+ * <p>
+ * The file contains one plane per channel, each plane is stored row by
+ * row, one byte per pixel. The file is deleted, once the image is no
+ * longer reachable or the virtual machine exits.
+ * 
+ * @author Micha Strauch
+ */
+public abstract class AbstractMappedImage implements Image {
+	private static final long serialVersionUID = -4207352118318744561L;
+	
+	/** Increments {@link #modificationCount}, images may be changed by several threads at once */
+	private static final AtomicLongFieldUpdater<AbstractMappedImage> MODIFICATIONS =
+			AtomicLongFieldUpdater.newUpdater(AbstractMappedImage.class, "modificationCount");
+	
+	/** Maximum number of bytes mapped by a single buffer */
+	private static final int CHUNK_BYTES = 1 << 30;
+	
+	/** Deletes the files of images, that are no longer reachable */
+	private static final Cleaner CLEANER = Cleaner.create();
+	
+	/** Size of this image */
+	protected final Dimension size;
+	
+	/** Number of channels */
+	protected final int channelCount;
+	
+	/** Number of rows of each plane inside the file */
+	private final int planeRows;
+	
+	/** Number of rows mapped by each buffer */
+	private final int chunkRows;
+	
+	/** File containing the data of this image */
+	private transient File file;
+	
+	/**
+	 * Data of this image, <code>MappedByteBuffer[channelCount][chunks]</code>.
+	 * Every buffer maps {@link #chunkRows} rows of a plane, use
+	 * {@link #get(int, int, int)} and {@link #set(int, int, int, byte)}
+	 * to access a single pixel.
+	 */
+	private transient MappedByteBuffer[][] data;
+	
+	/** Name of this image */
+	protected Serializable name;
+	
+	/** Rendered state of this image, created when first requested */
+	private transient volatile BufferedImageCache cache;
+	
+	/** Number of modifications, see {@link #getModificationCount()} */
+	private transient volatile long modificationCount;
+	
+	/**
+	 * Constructs an image with given size and channel count
+	 * 
+	 * @param size         Size of this image
+	 * @param channelCount Number of channels
+	 */
+	public AbstractMappedImage(Dimension size, int channelCount) {
+		this(size.width, size.height, channelCount);
+	}
+	
+	/**
+	 * Constructs an image with given size and channel count
+	 * 
+	 * @param width        Width of this image
+	 * @param height       Height of this image
+	 * @param channelCount Number of channels
+	 */
+	public AbstractMappedImage(int width, int height, int channelCount) {
+		this.channelCount = channelCount;
+		this.size = new Dimension(width, height);
+		this.planeRows = height;
+		this.chunkRows = Math.max(1, CHUNK_BYTES / Math.max(1, width));
+		map();
+	}
+	
+	/**
+	 * Creates the temporary file and maps its planes into memory
+	 * 
+	 * @throws RuntimeException If the file could not be created
+	 */
+	private void map() {
+		int width = size.width;
+		long planeBytes = (long) width * planeRows;
+		int chunks = (planeRows + chunkRows - 1) / chunkRows;
+		
+		try {
+			// Delete the file as soon as possible, at the latest on exit
+			file = File.createTempFile("itb2-", ".img");
+			file.deleteOnExit();
+			File toDelete = file;
+			CLEANER.register(this, toDelete::delete);
+			
+			try(RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+				raf.setLength(planeBytes * channelCount);
+				
+				data = new MappedByteBuffer[channelCount][chunks];
+				for(int chan = 0; chan < channelCount; chan++) {
+					for(int chunk = 0; chunk < chunks; chunk++) {
+						int rows = Math.min(chunkRows, planeRows - chunk * chunkRows);
+						long position = chan * planeBytes + (long) chunk * chunkRows * width;
+						data[chan][chunk] = channel.map(FileChannel.MapMode.READ_WRITE, position, (long) rows * width);
+					}
+				}
+			}
+		} catch(IOException e) {
+			throw new RuntimeException("Could not create image file: " + e.getMessage(), e);
+		}
+	}
+	
+	/**
+	 * Returns the file containing the data of this image. The file is
+	 * deleted, once this image is no longer reachable.
+	 * 
+	 * @return File containing the data of this image
+	 */
+	public File getFile() {
+		return file;
+	}
+	
+	@Override
+	public int getWidth() {
+		return size.width;
+	}
+	
+	@Override
+	public int getHeight() {
+		return size.height;
+	}
+	
+	@Override
+	public Dimension getSize() {
+		return (Dimension)size.clone();
+	}
+	
+	@Override
+	public int getChannelCount() {
+		return channelCount;
+	}
+	
+	@Override
+	public double[] getValue(int column, int row) {
+		checkRegion(column, row, 1, 1);
+		double[] value = new double[channelCount];
+		for(int c = 0; c < channelCount; c++)
+			value[c] = get(c, column, row);
+		return value;
+	}
+	
+	@Override
+	public double getValue(int column, int row, int channel) {
+		checkRegion(column, row, 1, 1);
+		return get(channel, column, row);
+	}
+	
+	@Override
+	public void setValue(int column, int row, double... values) {
+		if(values.length != channelCount)
+			throw new ArrayIndexOutOfBoundsException();
+		
+		checkRegion(column, row, 1, 1);
+		for(int channel = 0; channel < channelCount; channel++)
+			set(channel, column, row, convert(values[channel]));
+		
+		updateImage(column, row, 1, 1);
+	}
+	
+	@Override
+	public void setValue(int column, int row, int channel, double value) {
+		checkRegion(column, row, 1, 1);
+		set(channel, column, row, convert(value));
+		
+		updateImage(column, row, 1, 1);
+	}
+	
+	@Override
+	public double[] getValues(int column, int row, int width, int height, int channel, double[] buffer) {
+		checkRegion(column, row, width, height);
+		if(buffer == null)
+			buffer = new double[width * height];
+		
+		byte[] line = new byte[width];
+		for(int y = 0, index = 0; y < height; y++) {
+			readRow(channel, column, row + y, line, 0, width);
+			for(int x = 0; x < width; x++, index++)
+				buffer[index] = line[x] & 0xFF;
+		}
+		
+		return buffer;
+	}
+	
+	@Override
+	public void setValues(int column, int row, int width, int height, int channel, double[] values) {
+		checkRegion(column, row, width, height);
+		
+		byte[] line = new byte[width];
+		for(int y = 0, index = 0; y < height; y++) {
+			for(int x = 0; x < width; x++, index++)
+				line[x] = convert(values[index]);
+			writeRow(channel, column, row + y, line, 0, width);
+		}
+		
+		updateImage(column, row, width, height);
+	}
+	
+	@Override
+	public byte[] getBytes(int column, int row, int width, int height, int channel, byte[] buffer) {
+		checkRegion(column, row, width, height);
+		if(buffer == null)
+			buffer = new byte[width * height];
+		
+		for(int y = 0; y < height; y++)
+			readRow(channel, column, row + y, buffer, y * width, width);
+		
+		return buffer;
+	}
+	
+	@Override
+	public void setBytes(int column, int row, int width, int height, int channel, byte[] values) {
+		checkRegion(column, row, width, height);
+		
+		for(int y = 0; y < height; y++)
+			writeRow(channel, column, row + y, values, y * width, width);
+		
+		updateImage(column, row, width, height);
+	}
+	
+	@Override
+	public Channel getChannel(int channel) {
+		return new SimpleChannel(this, channel);
+	}
+	
+	@Override
+	public Object getName() {
+		return name;
+	}
+	
+	@Override
+	public void setName(Serializable name) {
+		this.name = name;
+	}
+	
+	@Override
+	public long getModificationCount() {
+		return modificationCount;
+	}
+	
+	@Override
+	public BufferedImage asBufferedImage() {
+		BufferedImageCache current = cache;
+		if(current == null) {
+			synchronized(this) {
+				if(cache == null)
+					cache = new BufferedImageCache(size.width, size.height);
+				current = cache;
+			}
+		}
+		return current.get(this::getPackedRGB);
+	}
+	
+	@Override
+	public Iterator<Channel> iterator() {
+		return new Iterator<Channel>() {
+			int channel = 0;
+			
+			@Override
+			public boolean hasNext() {
+				return channel < channelCount;
+			}
+			
+			@Override
+			public Channel next() {
+				return getChannel(channel++);
+			}
+		};
+	}
+	
+	protected byte convert(double value) {
+		if(value <= 0)
+			return 0;
+		
+		if(value >= 255)
+			return (byte)255;
+		
+		return (byte)value;
+	}
+	
+	/**
+	 * Returns the stored value of the given pixel, without any checks
+	 * 
+	 * @param channel Channel of the value
+	 * @param column  Column of the pixel
+	 * @param row     Row of the pixel inside the plane
+	 * @return Value between 0 and 255
+	 */
+	protected final int get(int channel, int column, int row) {
+		return data[channel][row / chunkRows].get((row % chunkRows) * size.width + column) & 0xFF;
+	}
+	
+	/**
+	 * Stores the value of the given pixel, without updating the image
+	 * 
+	 * @param channel Channel of the value
+	 * @param column  Column of the pixel
+	 * @param row     Row of the pixel inside the plane
+	 * @param value   Value to store
+	 */
+	protected final void set(int channel, int column, int row, byte value) {
+		data[channel][row / chunkRows].put((row % chunkRows) * size.width + column, value);
+	}
+	
+	/**
+	 * Copies a part of a row of a plane into the given array
+	 * 
+	 * @param channel Channel to read
+	 * @param column  First column to read
+	 * @param row     Row inside the plane
+	 * @param buffer  Array to copy to
+	 * @param offset  Position inside the array
+	 * @param length  Number of values to copy
+	 */
+	private void readRow(int channel, int column, int row, byte[] buffer, int offset, int length) {
+		data[channel][row / chunkRows].get((row % chunkRows) * size.width + column, buffer, offset, length);
+	}
+	
+	/**
+	 * Copies the given array into a part of a row of a plane
+	 * 
+	 * @param channel Channel to write
+	 * @param column  First column to write
+	 * @param row     Row inside the plane
+	 * @param values  Array to copy from
+	 * @param offset  Position inside the array
+	 * @param length  Number of values to copy
+	 */
+	private void writeRow(int channel, int column, int row, byte[] values, int offset, int length) {
+		data[channel][row / chunkRows].put((row % chunkRows) * size.width + column, values, offset, length);
+	}
+	
+	/**
+	 * Checks whether the given region lies inside of this image.
+	 * Used by the bulk operations, as a region sticking out on the
+	 * right would otherwise silently wrap into the next row.
+	 * 
+	 * @param column Left column of the region
+	 * @param row    Top row of the region
+	 * @param width  Width of the region
+	 * @param height Height of the region
+	 * 
+	 * @throws ArrayIndexOutOfBoundsException If the region is not inside of this image
+	 */
+	protected void checkRegion(int column, int row, int width, int height) throws ArrayIndexOutOfBoundsException {
+		if(column < 0 || row < 0 || width < 0 || height < 0 || column + width > size.width || row + height > size.height)
+			throw new ArrayIndexOutOfBoundsException(String.format("Region (%d, %d, %d, %d) outside of image (%d x %d)",
+					column, row, width, height, size.width, size.height));
+	}
+	
+	/**
+	 * Calling the function indicates, that the image has changed and the
+	 * {@link BufferedImage} must be redrawn. Must be called by subclasses
+	 * after directly changing values using {@link #set(int, int, int, byte)}.
+	 */
+	protected void updateImage() {
+		MODIFICATIONS.incrementAndGet(this);
+		BufferedImageCache current = cache;
+		if(current != null)
+			current.invalidate();
+	}
+	
+	/**
+	 * Calling the function indicates, that the given region of the image
+	 * has changed and must be redrawn. The region is only redrawn the next
+	 * time the {@link BufferedImage} is requested, so this can be called
+	 * for every single pixel.
+	 * 
+	 * @param column Left column of the region
+	 * @param row    Top row of the region
+	 * @param width  Width of the region
+	 * @param height Height of the region
+	 */
+	protected void updateImage(int column, int row, int width, int height) {
+		MODIFICATIONS.incrementAndGet(this);
+		BufferedImageCache current = cache;
+		if(current != null)
+			current.invalidate(column, row, width, height);
+	}
+	
+	/**
+	 * Used for {@link #asBufferedImage()}. The implementing image
+	 * should return the RGB value for the given pixel.
+	 * 
+	 * @param column Column of the pixel
+	 * @param row    Row of the pixel
+	 * @return RGB value for pixel
+	 */
+	protected abstract double[] getRGB(int column, int row);
+	
+	/**
+	 * Used for {@link #asBufferedImage()}. Returns the RGB value
+	 * for the given pixel, packed as <code>0xRRGGBB</code>. By default
+	 * the value returned by {@link #getRGB(int, int)} is packed, images
+	 * may override this to avoid creating an array for every pixel.
+	 * 
+	 * @param column Column of the pixel
+	 * @param row    Row of the pixel
+	 * @return Packed RGB value for pixel
+	 */
+	protected int getPackedRGB(int column, int row) {
+		double[] rgb = getRGB(column, row);
+		return BufferedImageCache.pack(rgb[0], rgb[1], rgb[2]);
+	}
+	
+	/**
+	 * Writes the planes after the fields of this image for serialization
+	 * 
+	 * @param stream OutputStream to write to
+	 * 
+	 * @throws IOException If something goes wrong
+	 */
+	private void writeObject(ObjectOutputStream stream) throws IOException {
+		stream.defaultWriteObject();
+		
+		byte[] line = new byte[size.width];
+		for(int chan = 0; chan < channelCount; chan++) {
+			for(int row = 0; row < planeRows; row++) {
+				readRow(chan, 0, row, line, 0, line.length);
+				stream.write(line);
+			}
+		}
+	}
+	
+	/**
+	 * Maps a new file and reads the planes into it for deserialization
+	 * 
+	 * @param stream InputStream to read from
+	 * 
+	 * @throws IOException If something goes wrong
+	 * @throws ClassNotFoundException If the class of a field is unknown
+	 */
+	private void readObject(ObjectInputStream stream) throws IOException, ClassNotFoundException {
+		stream.defaultReadObject();
+		map();
+		
+		byte[] line = new byte[size.width];
+		for(int chan = 0; chan < channelCount; chan++) {
+			for(int row = 0; row < planeRows; row++) {
+				stream.readFully(line);
+				writeRow(chan, 0, row, line, 0, line.length);
+			}
+		}
+	}
+	
+}
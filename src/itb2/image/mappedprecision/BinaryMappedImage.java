@@ -0,0 +1,158 @@
+package itb2.image.mappedprecision;
+
+import java.awt.Dimension;
+
+import itb2.image.BinaryImage;
+
+/**
+ * BinaryImage storing 8 pixels in a row in one byte
+ * 
+ * @author Micha Strauch
+ */
+class BinaryMappedImage extends AbstractMappedImage implements BinaryImage {
+	private static final long serialVersionUID = -6830567261943810528L;
+	
+	/** Number of bits to be stored in one byte */
+	private static final int BITS = 8;
+	
+	/**
+	 * Constructs an image with given size
+	 * 
+	 * @param size         Size of this image
+	 */
+	BinaryMappedImage(Dimension size) {
+		this(size.width, size.height);
+	}
+	
+	/**
+	 * Constructs an image with given size
+	 * 
+	 * @param width        Width of this image
+	 * @param height       Height of this image
+	 */
+	BinaryMappedImage(int width, int height) {
+		super(width, (int)Math.ceil((double)height / BITS), 1);
+		
+		size.height = height;
+	}
+	
+	@Override
+	public double[] getValue(int column, int row) {
+		return new double[] {getValue(column, row, BINARY)};
+	}
+	
+	@Override
+	public double getValue(int column, int row, int channel) {
+		checkRegion(column, row, 1, 1);
+		int mask = 0x1 << (row % BITS);
+		int val = get(BINARY, column, row / BITS);
+		
+		return (val & mask) == mask ? 1 : 0;
+	}
+	
+	@Override
+	public void setValue(int column, int row, double... values) {
+		if(values.length != 1)
+			throw new IndexOutOfBoundsException();
+		
+		setValue(column, row, BINARY, values[0]);
+	}
+	
+	@Override
+	public void setValue(int column, int row, int channel, double value) {
+		checkRegion(column, row, 1, 1);
+		setBit(column, row, channel, value > 0);
+		
+		updateImage(column, row, 1, 1);
+	}
+	
+	@Override
+	public double[] getValues(int column, int row, int width, int height, int channel, double[] buffer) {
+		checkRegion(column, row, width, height);
+		if(buffer == null)
+			buffer = new double[width * height];
+		
+		for(int y = 0, index = 0; y < height; y++)
+			for(int x = 0; x < width; x++, index++)
+				buffer[index] = getValue(column + x, row + y, channel);
+		
+		return buffer;
+	}
+	
+	@Override
+	public void setValues(int column, int row, int width, int height, int channel, double[] values) {
+		checkRegion(column, row, width, height);
+		
+		for(int y = 0, index = 0; y < height; y++)
+			for(int x = 0; x < width; x++, index++)
+				setBit(column + x, row + y, channel, values[index] > 0);
+		
+		updateImage(column, row, width, height);
+	}
+	
+	@Override
+	public byte[] getBytes(int column, int row, int width, int height, int channel, byte[] buffer) {
+		checkRegion(column, row, width, height);
+		if(buffer == null)
+			buffer = new byte[width * height];
+		
+		for(int y = 0, index = 0; y < height; y++)
+			for(int x = 0; x < width; x++, index++)
+				buffer[index] = (byte) getValue(column + x, row + y, channel);
+		
+		return buffer;
+	}
+	
+	@Override
+	public void setBytes(int column, int row, int width, int height, int channel, byte[] values) {
+		checkRegion(column, row, width, height);
+		
+		for(int y = 0, index = 0; y < height; y++)
+			for(int x = 0; x < width; x++, index++)
+				setBit(column + x, row + y, channel, values[index] != 0);
+		
+		updateImage(column, row, width, height);
+	}
+	
+	/**
+	 * Sets the bit of the given pixel, without updating the image.
+	 * 
+	 * @param column  Column of the pixel
+	 * @param row     Row of the pixel
+	 * @param channel Channel, must be {@link #BINARY}
+	 * @param white   Whether to set the pixel to white
+	 */
+	private void setBit(int column, int row, int channel, boolean white) {
+		if(channel != BINARY)
+			throw new IndexOutOfBoundsException();
+		
+		int mask = 0x1 << (row % BITS);
+		
+		int value = get(BINARY, column, row / BITS);
+		
+		if(white)
+			set(BINARY, column, row / BITS, (byte)(value | mask)); // Set to white
+		else
+			set(BINARY, column, row / BITS, (byte)(value & ~mask)); // Set to black
+	}
+	
+	@Override
+	protected double[] getRGB(int column, int row) {
+		int mask = 0x1 << (row % BITS);
+		int value = get(BINARY, column, row / BITS);
+		
+		if((mask & value) == mask)
+			return new double[] {255, 255, 255}; // White
+		
+		return new double[3]; // Black
+	}
+	
+	@Override
+	protected int getPackedRGB(int column, int row) {
+		int mask = 0x1 << (row % BITS);
+		int value = get(BINARY, column, row / BITS);
+		
+		return (mask & value) == mask ? 0xFFFFFF : 0;
+	}
+	
+}
@@ -0,0 +1,63 @@
+package itb2.image.mappedprecision;
+
+import java.awt.Dimension;
+
+import itb2.image.Channel;
+import itb2.image.GrayscaleImage;
+
+/**
+ * Represents an image with only one channel (grayscale)
+ *  
+ * @author Micha Strauch
+ */
+class GrayscaleMappedImage extends AbstractMappedImage implements GrayscaleImage {
+	private static final long serialVersionUID = 6273344868642800437L;
+	
+	/**
+	 * Constructs an image with given size.
+	 * 
+	 * @param width  Width of this image
+	 * @param height Height of this image
+	 */
+	GrayscaleMappedImage(int width, int height) {
+		super(width, height, 1);
+	}
+	
+	/**
+	 * Constructs an image with given size.
+	 * 
+	 * @param width  Width of this image
+	 * @param height Height of this image
+	 */
+	GrayscaleMappedImage(Dimension size) {
+		super(size, 1);
+	}
+	
+	/**
+	 * Constructs an image from the given channel.
+	 * 
+	 * @param channel Channel to construct image from
+	 */
+	GrayscaleMappedImage(Channel channel) {
+		super(channel.getWidth(), channel.getHeight(), 1);
+		
+		for(int row = 0; row < size.height; row++)
+			for(int col = 0; col < size.width; col++)
+				set(GRAYSCALE, col, row, convert(channel.getValue(col, row)));
+	}
+	
+	@Override
+	protected double[] getRGB(int column, int row) {
+		double value = getValue(column, row, GRAYSCALE);
+		
+		return new double[]{value, value, value};
+	}
+	
+	@Override
+	protected int getPackedRGB(int column, int row) {
+		int value = get(GRAYSCALE, column, row);
+		
+		return value << 16 | value << 8 | value;
+	}
+	
+}
@@ -0,0 +1,157 @@
+package itb2.image.mappedprecision;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+
+import itb2.image.BinaryImage;
+import itb2.image.Channel;
+import itb2.image.DrawableImage;
+import itb2.image.GrayscaleImage;
+import itb2.image.GroupedImage;
+import itb2.image.HsiImage;
+import itb2.image.HsvImage;
+import itb2.image.ImageFactory;
+import itb2.image.RgbImage;
+
+/**
+ * Factory to create an image with mapped precision. Like byte precision
+ * images, mapped precision images store integers between 0 and 255, but
+ * keep them in a memory mapped file outside of the Java heap. So they can
+ * be larger than the heap. DrawableImages are not supported, as they are
+ * backed by a {@link BufferedImage}.
+ * 
+ * @author Micha Strauch
+ */
+public class MappedImageFactory extends ImageFactory {
+	
+	@Override
+	public Class<? extends RgbImage> rgb() {
+		return RgbMappedImage.class;
+	}
+	
+	@Override
+	public Class<? extends HsiImage> hsi() {
+		return HsiMappedImage.class;
+	}
+	
+	@Override
+	public Class<? extends HsvImage> hsv() {
+		return HsvMappedImage.class;
+	}
+	
+	@Override
+	public Class<? extends GrayscaleImage> gray() {
+		return GrayscaleMappedImage.class;
+	}
+	
+	@Override
+	public Class<? extends GroupedImage> group() {
+		return GroupedMappedImage.class;
+	}
+	
+	@Override
+	public Class<? extends BinaryImage> binary() {
+		return BinaryMappedImage.class;
+	}
+	
+	@Override
+	public Class<? extends DrawableImage> drawable() {
+		throw new UnsupportedOperationException("DrawableImage not implemented for mapped precision");
+	}
+	
+	@Override
+	public RgbImage rgb(int width, int height) {
+		return new RgbMappedImage(width, height);
+	}
+	
+	@Override
+	public RgbImage rgb(Dimension size) {
+		return new RgbMappedImage(size);
+	}
+	
+	@Override
+	public RgbImage rgb(BufferedImage image) {
+		return new RgbMappedImage(image);
+	}
+	
+	@Override
+	public HsiImage hsi(int width, int height) {
+		return new HsiMappedImage(width, height);
+	}
+	
+	@Override
+	public HsiImage hsi(Dimension size) {
+		return new HsiMappedImage(size);
+	}
+	
+	@Override
+	public HsvImage hsv(int width, int height) {
+		return new HsvMappedImage(width, height);
+	}
+	
+	@Override
+	public HsvImage hsv(Dimension size) {
+		return new HsvMappedImage(size);
+	}
+	
+	@Override
+	public GrayscaleImage gray(int width, int height) {
+		return new GrayscaleMappedImage(width, height);
+	}
+	
+	@Override
+	public GrayscaleImage gray(Dimension size) {
+		return new GrayscaleMappedImage(size);
+	}
+	
+	@Override
+	public GrayscaleImage gray(Channel channel) {
+		return new GrayscaleMappedImage(channel);
+	}
+	
+	@Override
+	public GroupedImage group(int width, int height) {
+		return new GroupedMappedImage(width, height, GroupedImage.AUTOMATIC_GROUP_COUNT);
+	}
+	
+	@Override
+	public GroupedImage group(int width, int height, int groupCount) {
+		return new GroupedMappedImage(width, height, groupCount);
+	}
+	
+	@Override
+	public GroupedImage group(Dimension size) {
+		return new GroupedMappedImage(size, GroupedImage.AUTOMATIC_GROUP_COUNT);
+	}
+	
+	@Override
+	public GroupedImage group(Dimension size, int groupCount) {
+		return new GroupedMappedImage(size, groupCount);
+	}
+	
+	@Override
+	public BinaryImage binary(int width, int height) {
+		return new BinaryMappedImage(width, height);
+	}
+	
+	@Override
+	public BinaryImage binary(Dimension size) {
+		return new BinaryMappedImage(size);
+	}
+	
+	@Override
+	public DrawableImage drawable(int width, int height) {
+		throw new UnsupportedOperationException("DrawableImage not implemented for mapped precision");
+	}
+	
+	@Override
+	public DrawableImage drawable(Dimension size) {
+		throw new UnsupportedOperationException("DrawableImage not implemented for mapped precision");
+	}
+	
+	@Override
+	public DrawableImage drawable(BufferedImage image) {
+		throw new UnsupportedOperationException("DrawableImage not implemented for mapped precision");
+	}
+	
+}
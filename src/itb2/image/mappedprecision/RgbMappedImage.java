@@ -0,0 +1,74 @@
+package itb2.image.mappedprecision;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+
+import itb2.image.RgbImage;
+
+/**
+ * Represents an image with red, green and blue channel
+ *  
+ * @author Micha Strauch
+ */
+class RgbMappedImage extends AbstractMappedImage implements RgbImage {
+	private static final long serialVersionUID = -2127215733450124621L;
+	
+	/**
+	 * Constructs an image with given size.
+	 * 
+	 * @param width  Width of this image
+	 * @param height Height of this image
+	 */
+	RgbMappedImage(int width, int height) {
+		super(width, height, 3);
+	}
+	
+	/**
+	 * Constructs an image with given size.
+	 * 
+	 * @param width  Width of this image
+	 * @param height Height of this image
+	 */
+	RgbMappedImage(Dimension size) {
+		super(size, 3);
+	}
+	
+	/**
+	 * Constructs an image from the given {@link BufferedImage}
+	 * 
+	 * @param image Original image
+	 */
+	RgbMappedImage(BufferedImage image) {
+		super(image.getWidth(), image.getHeight(), 3);
+		
+		Raster raster = image.getData();
+		int width = raster.getWidth(), height = raster.getHeight();
+		int minCol = raster.getMinX(), minRow = raster.getMinY();
+		
+		double[] rgb = new double[4];
+		for(int row = 0; row < height; row++) {
+			for(int col = 0; col < width; col++) {
+				raster.getPixel(minCol + col, minRow + row, rgb);
+				
+				for(int cha = 0; cha < 3; cha++)
+					setValue(col, row, cha, rgb[cha]);
+			}
+		}
+	}
+	
+	@Override
+	protected double[] getRGB(int column, int row) {
+		double r = getValue(column, row, RED);
+		double g = getValue(column, row, GREEN);
+		double b = getValue(column, row, BLUE);
+		
+		return new double[]{r, g, b};
+	}
+	
+	@Override
+	protected int getPackedRGB(int column, int row) {
+		return get(RED, column, row) << 16 | get(GREEN, column, row) << 8 | get(BLUE, column, row);
+	}
+	
+}
@@ -0,0 +1,80 @@
+package itb2.image.shortprecision;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+
+import itb2.image.RgbImage;
+
+/**
+ * Represents an image with red, green and blue channel
+ *  
+ * @author Micha Strauch
+ */
+class RgbShortImage extends AbstractShortImage implements RgbImage {
+	private static final long serialVersionUID = -6028242843675093190L;
+	
+	/**
+	 * Constructs an image with given size.
+	 * 
+	 * @param width  Width of this image
+	 * @param height Height of this image
+	 */
+	RgbShortImage(int width, int height) {
+		super(width, height, 3);
+	}
+	
+	/**
+	 * Constructs an image with given size.
+	 * 
+	 * @param width  Width of this image
+	 * @param height Height of this image
+	 */
+	RgbShortImage(Dimension size) {
+		super(size, 3);
+	}
+	
+	/**
+	 * Constructs an image from the given {@link BufferedImage}
+	 * 
+	 * @param image Original image
+	 */
+	RgbShortImage(BufferedImage image) {
+		super(image.getWidth(), image.getHeight(), 3);
+		
+		Raster raster = image.getData();
+		int width = raster.getWidth(), height = raster.getHeight();
+		int minCol = raster.getMinX(), minRow = raster.getMinY();
+		
+		double[] rgb = new double[4];
+		for(int row = 0; row < height; row++) {
+			for(int col = 0; col < width; col++) {
+				raster.getPixel(minCol + col, minRow + row, rgb);
+				
+				for(int cha = 0; cha < 3; cha++)
+					setValue(col, row, cha, rgb[cha]);
+			}
+		}
+	}
+	
+	@Override
+	protected double[] getRGB(int column, int row) {
+		double r = getValue(column, row, RED);
+		double g = getValue(column, row, GREEN);
+		double b = getValue(column, row, BLUE);
+		
+		return new double[]{r, g, b};
+	}
+	
+	@Override
+	protected int getPackedRGB(int column, int row) {
+		int index = index(column, row);
+		
+		int r = (data[RED][index] & 0xFFFF) / SCALE;
+		int g = (data[GREEN][index] & 0xFFFF) / SCALE;
+		int b = (data[BLUE][index] & 0xFFFF) / SCALE;
+		
+		return r << 16 | g << 8 | b;
+	}
+	
+}